@@ -0,0 +1,276 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.common.concurrent;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import com.dat.util.ArgCheck;
+
+/**
+ * Runs a CPU-heavy function on a pool of worker threads while preserving two orderings:
+ * <ul>
+ * <li>Work for the same key is always executed by the same worker, in submission order (each worker
+ * owns one stripe of the key hash space and a FIFO queue).</li>
+ * <li>Results are released to the caller strictly in submission order, so a caller that submits in
+ * offset order can commit any offset whose result it has been handed.</li>
+ * </ul>
+ * Submission and draining must happen on a single thread, e.g. a Kafka Streams stream thread; only
+ * the work itself runs concurrently. At most {@code capacity} items are in flight; {@link #submit}
+ * blocks, handing back completed results, when that window is full.
+ * <p>
+ * A function that throws has its exception or error rethrown, in order, from the drain that would
+ * have released its result; anything checked is wrapped in an {@link IllegalStateException}.
+ *
+ * @param <K> key type; {@link Object#hashCode()} selects the stripe
+ * @param <I> input type
+ * @param <O> result type
+ */
+public class StripedOrderedExecutor<K, I, O> implements AutoCloseable
+{
+    private static final int PENDING = 0;
+    private static final int DONE = 1;
+
+    private final Function<? super I, ? extends O> m_function;
+
+    private final int m_mask;
+
+    private final Object[] m_keys;
+    private final Object[] m_inputs;
+    private final Object[] m_results;
+    private final Throwable[] m_errors;
+    private final AtomicIntegerArray m_state;
+
+    private final BlockingQueue<Long>[] m_queues;
+    private final Thread[] m_workers;
+
+    private volatile Thread m_waiter;
+    private volatile boolean m_closed;
+
+    /** Next sequence to hand out; owned by the submitting thread */
+    private long m_tail;
+
+    /** Next sequence to release; owned by the submitting thread */
+    private long m_head;
+
+    /**
+     * @param name prefix for worker thread names
+     * @param stripes number of worker threads (and key stripes)
+     * @param capacity maximum number of items in flight; rounded up to a power of two
+     * @param function the work to perform for each input
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public StripedOrderedExecutor(final String name, final int stripes, final int capacity,
+        final Function<? super I, ? extends O> function)
+    {
+        ArgCheck.notLessThan(stripes, 1);
+        ArgCheck.notLessThan(capacity, 1);
+        ArgCheck.notNull(function, "function cannot be null");
+
+        m_function = function;
+
+        final int size = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+        m_mask = size - 1;
+        m_keys = new Object[size];
+        m_inputs = new Object[size];
+        m_results = new Object[size];
+        m_errors = new Throwable[size];
+        m_state = new AtomicIntegerArray(size);
+
+        m_queues = new BlockingQueue[stripes];
+        m_workers = new Thread[stripes];
+        for (int i = 0; i < stripes; i++)
+        {
+            final BlockingQueue<Long> queue = new ArrayBlockingQueue<>(size);
+            m_queues[i] = queue;
+            m_workers[i] = new Thread(() -> work(queue), name + "-worker-" + i);
+            m_workers[i].setDaemon(true);
+            m_workers[i].start();
+        }
+    }
+
+    /**
+     * Queue {@code input} for processing. If the in-flight window is full, blocks until the oldest
+     * item completes, handing it (and any other completed results) to {@code sink} first.
+     */
+    public void submit(final K key, final I input, final BiConsumer<? super K, ? super O> sink)
+    {
+        if (m_closed)
+        {
+            throw new IllegalStateException("Executor is closed");
+        }
+
+        while (m_tail - m_head > m_mask)
+        {
+            awaitHead();
+            drainCompleted(sink);
+        }
+
+        final long sequence = m_tail++;
+        final int slot = (int) sequence & m_mask;
+        m_keys[slot] = key;
+        m_inputs[slot] = input;
+        m_state.set(slot, PENDING);
+
+        final int stripe = (spread(key == null ? 0 : key.hashCode()) & Integer.MAX_VALUE) % m_queues.length;
+        m_queues[stripe].add(sequence); // can't overflow; the in-flight window is no larger than the queue
+    }
+
+    /**
+     * Hand every result that is complete and next in submission order to {@code sink}, without
+     * blocking.
+     *
+     * @return the number of results released
+     */
+    public int drainCompleted(final BiConsumer<? super K, ? super O> sink)
+    {
+        int released = 0;
+        while (m_head < m_tail && m_state.get((int) m_head & m_mask) == DONE)
+        {
+            release(sink);
+            released++;
+        }
+        return released;
+    }
+
+    /**
+     * Block until everything submitted so far has completed, handing all results to {@code sink} in
+     * submission order.
+     */
+    public void drainAll(final BiConsumer<? super K, ? super O> sink)
+    {
+        while (m_head < m_tail)
+        {
+            awaitHead();
+            drainCompleted(sink);
+        }
+    }
+
+    /**
+     * @return the number of items submitted but not yet released
+     */
+    public int inFlight()
+    {
+        return (int) (m_tail - m_head);
+    }
+
+    /**
+     * Stop the workers. Items still in flight are abandoned; call {@link #drainAll} first to keep them.
+     */
+    @Override
+    public void close()
+    {
+        m_closed = true;
+        for (final Thread worker : m_workers)
+        {
+            worker.interrupt();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void release(final BiConsumer<? super K, ? super O> sink)
+    {
+        final int slot = (int) m_head & m_mask;
+        final K key = (K) m_keys[slot];
+        final O result = (O) m_results[slot];
+        final Throwable error = m_errors[slot];
+
+        m_keys[slot] = null;
+        m_results[slot] = null;
+        m_errors[slot] = null;
+        m_head++;
+
+        if (error instanceof RuntimeException)
+        {
+            throw (RuntimeException) error;
+        }
+        if (error instanceof Error)
+        {
+            throw (Error) error;
+        }
+        if (error != null)
+        {
+            throw new IllegalStateException("Work failed", error);
+        }
+        sink.accept(key, result);
+    }
+
+    private void awaitHead()
+    {
+        final int slot = (int) m_head & m_mask;
+        if (m_state.get(slot) == DONE)
+        {
+            return;
+        }
+
+        m_waiter = Thread.currentThread();
+        try
+        {
+            while (m_state.get(slot) != DONE)
+            {
+                LockSupport.park(this);
+                if (Thread.interrupted())
+                {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted waiting for in-flight work");
+                }
+            }
+        }
+        finally
+        {
+            m_waiter = null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void work(final BlockingQueue<Long> queue)
+    {
+        while (!m_closed)
+        {
+            final long sequence;
+            try
+            {
+                sequence = queue.take();
+            }
+            catch (final InterruptedException e)
+            {
+                return;
+            }
+
+            final int slot = (int) sequence & m_mask;
+            final I input = (I) m_inputs[slot];
+            m_inputs[slot] = null;
+            try
+            {
+                m_results[slot] = m_function.apply(input);
+            }
+            catch (final Throwable e)
+            {
+                // Errors too, or the slot would never be DONE and the drain would wait forever
+                m_errors[slot] = e;
+            }
+
+            // Volatile write publishes the result (or error) to the draining thread
+            m_state.set(slot, DONE);
+
+            final Thread waiter = m_waiter;
+            if (waiter != null)
+            {
+                LockSupport.unpark(waiter);
+            }
+        }
+    }
+
+    private static int spread(final int hash)
+    {
+        // Same mixing HashMap uses, so keys differing only in high bits still spread across stripes
+        return hash ^ (hash >>> 16);
+    }
+}
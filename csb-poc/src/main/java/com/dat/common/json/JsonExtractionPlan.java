@@ -0,0 +1,394 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.common.json;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.dat.util.Iso8601;
+import com.jsoniter.CodegenAccess;
+import com.jsoniter.JsonIterator;
+import com.jsoniter.ValueType;
+import com.jsoniter.any.Any;
+import com.jsoniter.spi.Decoder;
+import com.jsoniter.spi.Slice;
+
+/**
+ * A compiled set of JSON object paths to capture in a single pass over a document. Field names are
+ * matched as byte slices against the input buffer, values on a declared path are captured into
+ * numbered slots, and every other value is skipped without being parsed.
+ * <p>
+ * Paths are declared once on a {@link Builder}, which can then compile plans for several roots, so
+ * the same fields can be pulled from differently wrapped documents using the same slot numbers:
+ *
+ * <pre>
+ * final JsonExtractionPlan.Builder fme = new JsonExtractionPlan.Builder();
+ * final int whenIssued = fme.text("whenIssued");
+ * final JsonExtractionPlan document = fme.build("fmCoreSyncNotification", "insert", "fme");
+ * final JsonExtractionPlan insert = fme.build("insert", "fme");
+ * </pre>
+ *
+ * Plans are immutable and thread safe; {@link Extraction}s are not.
+ */
+public final class JsonExtractionPlan
+{
+    private final Node m_root;
+
+    private final int m_slots;
+
+    private JsonExtractionPlan(final Node root, final int slots)
+    {
+        m_root = root;
+        m_slots = slots;
+    }
+
+    public int slots()
+    {
+        return m_slots;
+    }
+
+    public Extraction newExtraction()
+    {
+        return new Extraction(m_slots);
+    }
+
+    /**
+     * Clear {@code into}, then read the value at the iterator's position, capturing the plan's
+     * paths. The iterator is left after the value.
+     *
+     * @throws IOException if the input is not well-formed JSON
+     */
+    public void extract(final JsonIterator iter, final Extraction into) throws IOException
+    {
+        if (into.m_values.length < m_slots)
+        {
+            throw new IllegalArgumentException(
+                String.format("Extraction has %d slots, plan needs %d", into.m_values.length, m_slots));
+        }
+        into.clear();
+        walk(iter, m_root, into);
+    }
+
+    private static void walk(final JsonIterator iter, final Node node, final Extraction into) throws IOException
+    {
+        if (iter.whatIsNext() != ValueType.OBJECT)
+        {
+            iter.skip();
+            return;
+        }
+        if (!CodegenAccess.readObjectStart(iter))
+        {
+            return;
+        }
+
+        do
+        {
+            final Node child = node.child(CodegenAccess.readObjectFieldAsSlice(iter));
+            if (child == null)
+            {
+                iter.skip();
+            }
+            else if (child.m_slot >= 0)
+            {
+                capture(iter, child, into);
+            }
+            else
+            {
+                walk(iter, child, into);
+            }
+        }
+        while (CodegenAccess.nextToken(iter) == ',');
+    }
+
+    private static void capture(final JsonIterator iter, final Node node, final Extraction into) throws IOException
+    {
+        switch (node.m_kind)
+        {
+            case ANY :
+                into.m_values[node.m_slot] = iter.readAny();
+                return;
+            case DECODED :
+                into.m_values[node.m_slot] = node.m_decoder.decode(iter);
+                return;
+            case TIMESTAMP :
+                if (iter.whatIsNext() != ValueType.STRING)
+                {
+                    iter.skip();
+                    return;
+                }
+                final Slice text = iter.readStringAsSlice();
+                try
+                {
+                    into.m_timestamps[node.m_slot] = Iso8601.parse(text.data(), text.head(), text.len());
+                    into.m_values[node.m_slot] = Extraction.TIMESTAMP_FOUND;
+                }
+                catch (final IllegalArgumentException e)
+                {
+                    // Unparseable reads as absent
+                }
+                return;
+            default :
+                into.m_values[node.m_slot] = readText(iter);
+        }
+    }
+
+    /**
+     * Same text {@code Any.toString()} gives: the unescaped value of a string, the literal text of
+     * anything else.
+     */
+    private static String readText(final JsonIterator iter) throws IOException
+    {
+        if (iter.whatIsNext() == ValueType.STRING)
+        {
+            return iter.readString();
+        }
+        return iter.readAny().toString();
+    }
+
+    /**
+     * Captured values, by slot. A text slot whose path was absent reads as the empty string, as
+     * {@code Any.get(...).toString()} would; {@code Any} and decoded slots read as null.
+     * <p>
+     * Captured {@code Any}s are lazy views over the iterator's buffer, valid only until it is reset.
+     */
+    public static final class Extraction
+    {
+        private static final Object TIMESTAMP_FOUND = new Object();
+
+        private final Object[] m_values;
+
+        private final long[] m_timestamps;
+
+        public Extraction(final int slots)
+        {
+            m_values = new Object[slots];
+            m_timestamps = new long[slots];
+        }
+
+        public boolean found(final int slot)
+        {
+            return m_values[slot] != null;
+        }
+
+        public String text(final int slot)
+        {
+            final Object value = m_values[slot];
+            return value == null ? "" : (String) value;
+        }
+
+        public Any any(final int slot)
+        {
+            return (Any) m_values[slot];
+        }
+
+        /**
+         * @return what the slot's decoder returned
+         */
+        @SuppressWarnings("unchecked")
+        public <T> T decoded(final int slot)
+        {
+            return (T) m_values[slot];
+        }
+
+        /**
+         * @return the captured instant in epoch millis, or {@code absent} if its path was absent or
+         *         didn't hold an ISO-8601 string
+         */
+        public long timestamp(final int slot, final long absent)
+        {
+            return m_values[slot] == TIMESTAMP_FOUND ? m_timestamps[slot] : absent;
+        }
+
+        void clear()
+        {
+            Arrays.fill(m_values, null);
+        }
+    }
+
+    /**
+     * Declares the paths to capture, relative to whatever root a plan is later built for.
+     */
+    public static final class Builder
+    {
+        private final List<String[]> m_paths = new ArrayList<>();
+
+        private final List<Kind> m_kinds = new ArrayList<>();
+
+        private final List<Decoder> m_decoders = new ArrayList<>();
+
+        /**
+         * Capture the value at {@code path} as text.
+         *
+         * @return the slot the value will be captured into
+         */
+        public int text(final String... path)
+        {
+            return add(path, Kind.TEXT);
+        }
+
+        /**
+         * Capture the value at {@code path} as a lazy {@link Any}, for subtrees handed on to other
+         * decoders.
+         *
+         * @return the slot the value will be captured into
+         */
+        public int any(final String... path)
+        {
+            return add(path, Kind.ANY);
+        }
+
+        /**
+         * Capture the value at {@code path} as whatever {@code decoder} reads from it, without
+         * materializing it first. The decoder must leave the iterator after the value.
+         *
+         * @return the slot the value will be captured into
+         */
+        public int decoded(final Decoder decoder, final String... path)
+        {
+            final int slot = add(path, Kind.DECODED);
+            m_decoders.set(slot, decoder);
+            return slot;
+        }
+
+        /**
+         * Capture the ISO-8601 string at {@code path} as epoch millis, parsed straight from the
+         * input buffer.
+         *
+         * @return the slot the value will be captured into
+         */
+        public int timestamp(final String... path)
+        {
+            return add(path, Kind.TIMESTAMP);
+        }
+
+        /**
+         * Compile the declared paths, each prefixed by {@code root}.
+         *
+         * @throws IllegalArgumentException if one declared path is a prefix of another
+         */
+        public JsonExtractionPlan build(final String... root)
+        {
+            final Node top = new Node(-1, Kind.OBJECT, null);
+            Node base = top;
+            for (final String name : root)
+            {
+                base = base.add(name, -1, Kind.OBJECT, null);
+            }
+
+            for (int slot = 0; slot < m_paths.size(); slot++)
+            {
+                final String[] path = m_paths.get(slot);
+                Node node = base;
+                for (int i = 0; i < path.length - 1; i++)
+                {
+                    node = node.add(path[i], -1, Kind.OBJECT, null);
+                }
+                node.add(path[path.length - 1], slot, m_kinds.get(slot), m_decoders.get(slot));
+            }
+
+            return new JsonExtractionPlan(top, m_paths.size());
+        }
+
+        private int add(final String[] path, final Kind kind)
+        {
+            if (path.length == 0)
+            {
+                throw new IllegalArgumentException("path cannot be empty");
+            }
+            m_paths.add(path.clone());
+            m_kinds.add(kind);
+            m_decoders.add(null);
+            return m_paths.size() - 1;
+        }
+    }
+
+    private enum Kind
+    {
+        OBJECT, TEXT, ANY, TIMESTAMP, DECODED
+    }
+
+    private static final class Node
+    {
+        private final int m_slot;
+
+        private final Kind m_kind;
+
+        private final Decoder m_decoder;
+
+        private byte[][] m_names = new byte[0][];
+
+        private Node[] m_children = new Node[0];
+
+        Node(final int slot, final Kind kind, final Decoder decoder)
+        {
+            m_slot = slot;
+            m_kind = kind;
+            m_decoder = decoder;
+        }
+
+        Node add(final String name, final int slot, final Kind kind, final Decoder decoder)
+        {
+            if (m_slot >= 0)
+            {
+                throw new IllegalArgumentException(String.format("'%s' is below a captured value", name));
+            }
+
+            final byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            for (int i = 0; i < m_names.length; i++)
+            {
+                if (Arrays.equals(m_names[i], bytes))
+                {
+                    if (slot >= 0 || m_children[i].m_slot >= 0)
+                    {
+                        throw new IllegalArgumentException(String.format("'%s' is declared twice, or is a prefix of another path", name));
+                    }
+                    return m_children[i];
+                }
+            }
+
+            final Node child = new Node(slot, kind, decoder);
+            m_names = Arrays.copyOf(m_names, m_names.length + 1);
+            m_children = Arrays.copyOf(m_children, m_children.length + 1);
+            m_names[m_names.length - 1] = bytes;
+            m_children[m_children.length - 1] = child;
+            return child;
+        }
+
+        /**
+         * Linear scan; objects in these documents have a handful of wanted fields at most.
+         */
+        Node child(final Slice field)
+        {
+            final byte[] data = field.data();
+            final int head = field.head();
+            final int length = field.len();
+            for (int i = 0; i < m_names.length; i++)
+            {
+                final byte[] name = m_names[i];
+                if (name.length == length && matches(name, data, head))
+                {
+                    return m_children[i];
+                }
+            }
+            return null;
+        }
+
+        private static boolean matches(final byte[] name, final byte[] data, final int head)
+        {
+            for (int i = 0; i < name.length; i++)
+            {
+                if (name[i] != data[head + i])
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
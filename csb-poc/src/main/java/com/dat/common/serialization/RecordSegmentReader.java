@@ -0,0 +1,132 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.common.serialization;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a segment file written by {@link RecordSegmentWriter}. The whole file is memory-mapped
+ * read-only, so iterating records costs no read() calls and no copies until the caller asks for the
+ * record's bytes.
+ *
+ * <pre>
+ * final RecordSegmentReader reader = new RecordSegmentReader(path);
+ * while (reader.next())
+ * {
+ *     process(reader.copyRecord());
+ * }
+ * </pre>
+ *
+ * Segments are limited to 2GB, the largest region a single {@link MappedByteBuffer} can address.
+ */
+public class RecordSegmentReader
+{
+    /** "CSBS" */
+    static final int MAGIC = 0x43534253;
+
+    static final int VERSION = 1;
+
+    private final Path m_path;
+
+    private final MappedByteBuffer m_buffer;
+
+    private int m_recordOffset = -1;
+
+    private int m_recordLength = -1;
+
+    public RecordSegmentReader(final Path path) throws IOException
+    {
+        m_path = path;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            final long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+            {
+                throw new IOException(String.format("Segment '%s' is larger than 2GB", path));
+            }
+            m_buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+
+        if (m_buffer.remaining() < 8 || m_buffer.getInt() != MAGIC)
+        {
+            throw new IOException(String.format("'%s' is not a record segment", path));
+        }
+
+        final int version = m_buffer.getInt();
+        if (version != VERSION)
+        {
+            throw new IOException(String.format("Segment '%s' has unsupported version %d", path, version));
+        }
+    }
+
+    /**
+     * Advance to the next record.
+     *
+     * @return false once the end of the segment is reached
+     * @throws IOException if the segment ends partway through a record (e.g. the capture was cut off)
+     */
+    public boolean next() throws IOException
+    {
+        final int remaining = m_buffer.remaining();
+        if (remaining == 0)
+        {
+            return false;
+        }
+
+        final int frameOffset = m_buffer.position();
+        final int length = remaining < 4 ? -1 : m_buffer.getInt();
+        if (length < 0 || length > m_buffer.remaining())
+        {
+            throw new IOException(String.format("Segment '%s' is truncated at offset %d", m_path, frameOffset));
+        }
+
+        m_recordOffset = m_buffer.position();
+        m_recordLength = length;
+        m_buffer.position(m_recordOffset + length);
+        return true;
+    }
+
+    /**
+     * @return the length in bytes of the current record
+     */
+    public int length()
+    {
+        return m_recordLength;
+    }
+
+    /**
+     * @return a read-only view of the current record, backed by the mapped file
+     */
+    public ByteBuffer record()
+    {
+        final ByteBuffer view = m_buffer.duplicate();
+        view.limit(m_recordOffset + m_recordLength).position(m_recordOffset);
+        return view.slice();
+    }
+
+    /**
+     * @return a heap copy of the current record
+     */
+    public byte[] copyRecord()
+    {
+        final byte[] bytes = new byte[m_recordLength];
+        final ByteBuffer view = m_buffer.duplicate();
+        view.position(m_recordOffset);
+        view.get(bytes);
+        return bytes;
+    }
+
+    public Path path()
+    {
+        return m_path;
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.common.serialization;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes raw records (e.g. serialized SyncEvents exactly as they arrived on the Kafka topic) to a
+ * segment file readable by {@link RecordSegmentReader}. The layout is a {@code magic, version}
+ * header followed by {@code [int length][length bytes]} frames, all big-endian.
+ */
+public class RecordSegmentWriter implements Closeable
+{
+    private final DataOutputStream m_out;
+
+    private long m_records;
+
+    public RecordSegmentWriter(final Path path) throws IOException
+    {
+        m_out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 64 * 1024));
+        m_out.writeInt(RecordSegmentReader.MAGIC);
+        m_out.writeInt(RecordSegmentReader.VERSION);
+    }
+
+    public void write(final byte[] record) throws IOException
+    {
+        write(record, 0, record.length);
+    }
+
+    public void write(final byte[] record, final int offset, final int length) throws IOException
+    {
+        m_out.writeInt(length);
+        m_out.write(record, offset, length);
+        m_records++;
+    }
+
+    public long records()
+    {
+        return m_records;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        m_out.close();
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.common.serialization;
+
+import java.util.Map;
+
+import org.apache.kafka.common.serialization.Deserializer;
+
+import com.dat.domain.SimpleAsset;
+import com.dat.domain.SimpleAssetCodec;
+
+public class SimpleAssetBinaryDeserializer implements Deserializer<SimpleAsset>
+{
+    @Override
+    public void configure(final Map<String, ?> configs, final boolean isKey)
+    {}
+
+    @Override
+    public void close()
+    {}
+
+    @Override
+    public SimpleAsset deserialize(final String topic, final byte[] data)
+    {
+        if (data == null)
+        {
+            return null;
+        }
+
+        try
+        {
+            return SimpleAssetCodec.decode(data);
+        }
+        catch (final Exception e)
+        {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.common.serialization;
+
+import java.util.Map;
+
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serializer;
+
+import com.dat.domain.SimpleAsset;
+
+/**
+ * Serde for {@link SimpleAsset}s in the compact binary form, for topics and for state store values.
+ */
+public class SimpleAssetBinarySerde implements Serde<SimpleAsset>
+{
+    final private Serializer<SimpleAsset> m_serializer = new SimpleAssetBinarySerializer();
+    final private Deserializer<SimpleAsset> m_deserializer = new SimpleAssetBinaryDeserializer();
+
+    @Override
+    public void configure(final Map<String, ?> configs, final boolean isKey)
+    {}
+
+    @Override
+    public void close()
+    {}
+
+    @Override
+    public Serializer<SimpleAsset> serializer()
+    {
+        return m_serializer;
+    }
+
+    @Override
+    public Deserializer<SimpleAsset> deserializer()
+    {
+        return m_deserializer;
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.common.serialization;
+
+import java.util.Map;
+
+import org.apache.kafka.common.serialization.Serializer;
+
+import com.dat.domain.SimpleAsset;
+import com.dat.domain.SimpleAssetCodec;
+
+/**
+ * Writes each asset in the {@link SimpleAssetCodec} binary form.
+ */
+public class SimpleAssetBinarySerializer implements Serializer<SimpleAsset>
+{
+    @Override
+    public void configure(final Map<String, ?> configs, final boolean isKey)
+    {}
+
+    @Override
+    public void close()
+    {}
+
+    @Override
+    public byte[] serialize(final String topic, final SimpleAsset data)
+    {
+        return data == null ? null : SimpleAssetCodec.encode(data);
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.common.serialization;
+
+import java.util.Map;
+
+import org.apache.kafka.common.serialization.Serializer;
+
+import com.dat.domain.SimpleAsset;
+import com.dat.domain.SimpleAssetJsonWriter;
+
+/**
+ * Writes each asset as a JSON object, through a per-thread {@link SimpleAssetJsonWriter} so the only
+ * allocation per record is the array Kafka is handed.
+ */
+public class SimpleAssetSerializer implements Serializer<SimpleAsset>
+{
+    private static final ThreadLocal<SimpleAssetJsonWriter> WRITERS = ThreadLocal.withInitial(
+        () -> new SimpleAssetJsonWriter(4 * 1024));
+
+    @Override
+    public void configure(final Map<String, ?> configs, final boolean isKey)
+    {}
+
+    @Override
+    public void close()
+    {}
+
+    @Override
+    public byte[] serialize(final String topic, final SimpleAsset data)
+    {
+        if (data == null)
+        {
+            return null;
+        }
+
+        final SimpleAssetJsonWriter writer = WRITERS.get();
+        writer.clear();
+        writer.writeObject(data);
+        return writer.toByteArray();
+    }
+}
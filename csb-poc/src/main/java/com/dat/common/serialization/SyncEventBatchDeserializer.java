@@ -0,0 +1,39 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.common.serialization;
+
+import java.util.Map;
+
+import org.apache.kafka.common.serialization.Deserializer;
+
+import com.dat.sync.SyncEventBatch;
+
+/**
+ * Reads only the batch header and offset table; events are split out as the batch is iterated.
+ */
+public class SyncEventBatchDeserializer implements Deserializer<SyncEventBatch>
+{
+    @Override
+    public void configure(final Map<String, ?> configs, final boolean isKey)
+    {}
+
+    @Override
+    public void close()
+    {}
+
+    @Override
+    public SyncEventBatch deserialize(final String topic, final byte[] data)
+    {
+        try
+        {
+            return new SyncEventBatch(data);
+        }
+        catch (final Exception e)
+        {
+            return null;
+        }
+    }
+}
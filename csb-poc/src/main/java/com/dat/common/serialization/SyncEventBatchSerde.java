@@ -0,0 +1,45 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.common.serialization;
+
+import java.util.Map;
+
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serializer;
+
+import com.dat.sync.SyncEventBatch;
+
+/**
+ * Serde for topics carrying {@link SyncEventBatch} records. A batch is an {@code Iterable} of
+ * {@code SyncEvent}s, so a stream of batches splits back into events with
+ * {@code flatMapValues(batch -> batch)}.
+ */
+public class SyncEventBatchSerde implements Serde<SyncEventBatch>
+{
+    final private Serializer<SyncEventBatch> m_serializer = new SyncEventBatchSerializer();
+    final private Deserializer<SyncEventBatch> m_deserializer = new SyncEventBatchDeserializer();
+
+    @Override
+    public void configure(final Map<String, ?> configs, final boolean isKey)
+    {}
+
+    @Override
+    public void close()
+    {}
+
+    @Override
+    public Serializer<SyncEventBatch> serializer()
+    {
+        return m_serializer;
+    }
+
+    @Override
+    public Deserializer<SyncEventBatch> deserializer()
+    {
+        return m_deserializer;
+    }
+}
@@ -0,0 +1,29 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.common.serialization;
+
+import java.util.Map;
+
+import org.apache.kafka.common.serialization.Serializer;
+
+import com.dat.sync.SyncEventBatch;
+
+public class SyncEventBatchSerializer implements Serializer<SyncEventBatch>
+{
+    @Override
+    public void configure(final Map<String, ?> configs, final boolean isKey)
+    {}
+
+    @Override
+    public void close()
+    {}
+
+    @Override
+    public byte[] serialize(final String topic, final SyncEventBatch data)
+    {
+        return data == null ? null : data.bytes();
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.domain;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps the known values of a short code field to one-byte codes. {@link #NULL} stands for null and
+ * {@link #INLINE} for a value outside the dictionary, which the caller stores some other way.
+ * <p>
+ * Codes are persisted (see {@link SimpleAssetCodec}), so a dictionary's values may only ever be
+ * appended to, never reordered or removed.
+ */
+public final class CodeDictionary
+{
+    public static final int NULL = 0;
+
+    public static final int INLINE = 0xFF;
+
+    /** Indexed by code; [0] is the null entry */
+    private final String[] m_values;
+
+    private final Map<String, Integer> m_codes = new HashMap<>();
+
+    public CodeDictionary(final String... values)
+    {
+        if (values.length >= INLINE)
+        {
+            throw new IllegalArgumentException(String.format("%d values won't fit in a byte", values.length));
+        }
+
+        m_values = new String[values.length + 1];
+        for (int i = 0; i < values.length; i++)
+        {
+            if (m_codes.put(values[i], i + 1) != null)
+            {
+                throw new IllegalArgumentException(String.format("'%s' is listed twice", values[i]));
+            }
+            m_values[i + 1] = values[i];
+        }
+    }
+
+    /**
+     * @return {@code value}'s code, {@link #NULL} for null or {@link #INLINE} if it isn't in the
+     *         dictionary
+     */
+    public int code(final String value)
+    {
+        if (value == null)
+        {
+            return NULL;
+        }
+        final Integer code = m_codes.get(value);
+        return code == null ? INLINE : code;
+    }
+
+    /**
+     * @return the value for {@code code}, null for {@link #NULL}; the same instance every time
+     * @throws IllegalArgumentException for {@link #INLINE} or an unassigned code
+     */
+    public String value(final int code)
+    {
+        if (code < 0 || code >= m_values.length)
+        {
+            throw new IllegalArgumentException(String.format("No value for code %d", code));
+        }
+        return m_values[code];
+    }
+
+    /**
+     * @return the number of values, not counting null
+     */
+    public int size()
+    {
+        return m_values.length - 1;
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.domain;
+
+/**
+ * Registry of equipment type codes ("V", "R", "FT"...) and which of them can match one another.
+ * Each known type has a one-byte code from {@link #DICTIONARY}, which is what the binary codec and
+ * the column stores keep per asset. Which codes can match is precomputed into a table with a bit per
+ * pair of codes, so checking two assets is a lookup:
+ *
+ * <pre>
+ * EquipmentTypes.compatible(loadCode, truckCode)
+ * </pre>
+ *
+ * A type matches itself. An "either" type such as VR (van or reefer) matches each of the types it
+ * names, and any other type naming one of them: VR matches V, R, VR, VF and FR. Null and codes
+ * outside the dictionary match nothing here; {@link #compatible(String, String)} falls back to
+ * comparing the text for those.
+ */
+public final class EquipmentTypes
+{
+    /**
+     * Codes are persisted; append only, up to the {@link CodeDictionary} limit.
+     */
+    public static final CodeDictionary DICTIONARY = new CodeDictionary(
+        "V", "R", "F", "FT", "VR", "SD", "DD", "AC", "BT", "C", "CI", "CN", "CR", "CV", "DT", "FA", "FD", "FH",
+        "FM", "FN", "FO", "FR", "FS", "FZ", "HB", "LA", "LB", "LO", "LR", "MV", "MX", "NU", "PO", "RA", "RG",
+        "RM", "RN", "RP", "RV", "RZ", "SB", "SN", "SR", "ST", "TA", "TN", "TS", "TT", "VA", "VB", "VC", "VF",
+        "VG", "VH", "VI", "VL", "VM", "VN", "VP", "VS", "VT", "VV", "VW", "VZ");
+
+    /** Each "either" type, followed by the types it stands for */
+    private static final String[][] EITHER = {
+        { "VR", "V", "R" },
+        { "VF", "V", "F" },
+        { "FR", "F", "V", "R" },
+        { "FD", "F", "SD" } };
+
+    /** Words in a row of {@link #COMPATIBLE}: a bit for each of the 256 byte codes */
+    private static final int WORDS = (CodeDictionary.INLINE + 1) / Long.SIZE;
+
+    /** A row of {@link #WORDS} per code; bit {@code other} of {@code code}'s row is set if they match */
+    private static final long[] COMPATIBLE = new long[(CodeDictionary.INLINE + 1) * WORDS];
+
+    static
+    {
+        // What each type stands for: itself, and for an either type what it names
+        final long[] stands = new long[COMPATIBLE.length];
+        for (int code = 1; code <= DICTIONARY.size(); code++)
+        {
+            set(stands, code, code);
+        }
+        for (final String[] either : EITHER)
+        {
+            for (int i = 1; i < either.length; i++)
+            {
+                set(stands, DICTIONARY.code(either[0]), DICTIONARY.code(either[i]));
+            }
+        }
+
+        for (int code = 1; code <= DICTIONARY.size(); code++)
+        {
+            for (int other = 1; other <= DICTIONARY.size(); other++)
+            {
+                if (intersect(stands, code, other))
+                {
+                    set(COMPATIBLE, code, other);
+                }
+            }
+        }
+    }
+
+    private EquipmentTypes()
+    {}
+
+    /**
+     * @return {@code equipmentType}'s code; see {@link CodeDictionary#code}
+     */
+    public static int code(final String equipmentType)
+    {
+        return DICTIONARY.code(equipmentType);
+    }
+
+    /**
+     * @return whether the two codes' types can match; never for null or codes outside the dictionary
+     */
+    public static boolean compatible(final int code, final int other)
+    {
+        return (code | other) >>> Byte.SIZE == 0 && (COMPATIBLE[code * WORDS + (other >>> 6)] & 1L << other) != 0;
+    }
+
+    /**
+     * @return whether the two types can match; types outside the dictionary only match themselves
+     */
+    public static boolean compatible(final String equipmentType, final String other)
+    {
+        final int code = code(equipmentType);
+        return code == CodeDictionary.INLINE ? equipmentType.equals(other) : compatible(code, code(other));
+    }
+
+    private static void set(final long[] table, final int row, final int bit)
+    {
+        table[row * WORDS + (bit >>> 6)] |= 1L << bit;
+    }
+
+    private static boolean intersect(final long[] table, final int row, final int other)
+    {
+        for (int word = 0; word < WORDS; word++)
+        {
+            if ((table[row * WORDS + word] & table[other * WORDS + word]) != 0)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.domain;
+
+import com.dat.util.Base56;
+
+/**
+ * An fmeId packed into a primitive long, for use as a compact key in place of the String.
+ * <p>
+ * An fmeId packs if it is 1 to {@link #MAX_LENGTH} {@link Base56} digits. Each digit is stored as
+ * its value plus one in base 57, left-aligned over {@link #MAX_LENGTH} places with zeros after the
+ * last digit, so that:
+ * <ul>
+ * <li>the packing is lossless, leading '0' digits included;
+ * <li>packed values compare, as longs, in the same order as the fmeIds do as Strings;
+ * <li>every packed value is positive, leaving {@link #NONE} free to mean "doesn't pack".
+ * </ul>
+ * Packing never throws, so it can double as validation on hot paths.
+ */
+public final class FmeId
+{
+    /** What {@link #pack} returns for anything that doesn't pack */
+    public static final long NONE = 0L;
+
+    /** Most digits a packed fmeId can have */
+    public static final int MAX_LENGTH = 10;
+
+    private static final int RADIX = 57;
+
+    /** One past the largest packed value, 57^10 */
+    private static final long LIMIT;
+
+    /** What a place is worth by position from the left, 57^9 down to 1 */
+    private static final long[] WEIGHTS = new long[MAX_LENGTH];
+
+    static
+    {
+        long limit = 1;
+        for (int i = MAX_LENGTH - 1; i >= 0; i--)
+        {
+            WEIGHTS[i] = limit;
+            limit *= RADIX;
+        }
+        LIMIT = limit;
+    }
+
+    private FmeId()
+    {}
+
+    /**
+     * @return {@code fmeId} packed into a positive long, or {@link #NONE} if it is null, empty,
+     *         longer than {@link #MAX_LENGTH} or has a character outside the Base56 alphabet
+     */
+    public static long pack(final CharSequence fmeId)
+    {
+        if (fmeId == null)
+        {
+            return NONE;
+        }
+        final int length = fmeId.length();
+        if (length == 0 || length > MAX_LENGTH)
+        {
+            return NONE;
+        }
+
+        long packed = 0;
+        for (int i = 0; i < MAX_LENGTH; i++)
+        {
+            int place = 0;
+            if (i < length)
+            {
+                // Base56.INVALID is -1, so a bad character has place 0
+                place = Base56.toDecimalOrInvalid(fmeId.charAt(i)) + 1;
+                if (place == 0)
+                {
+                    return NONE;
+                }
+            }
+            packed = packed * RADIX + place;
+        }
+        return packed;
+    }
+
+    /**
+     * Pack the fmeId {@code value} would be written as in exactly {@code digits} Base56 digits, zero
+     * padded, without writing it.
+     *
+     * @return the packed fmeId, or {@link #NONE} if {@code value} is negative or needs more digits,
+     *         or {@code digits} isn't 1 to {@link #MAX_LENGTH}
+     */
+    public static long pack(final long value, final int digits)
+    {
+        if (value < 0 || digits < 1 || digits > MAX_LENGTH)
+        {
+            return NONE;
+        }
+
+        long rest = value;
+        long packed = 0;
+        for (int i = digits - 1; i >= 0; i--)
+        {
+            packed += (rest % 56 + 1) * WEIGHTS[i];
+            rest /= 56;
+        }
+        return rest == 0 ? packed : NONE;
+    }
+
+    /**
+     * @return whether {@code fmeId} packs
+     */
+    public static boolean isValid(final CharSequence fmeId)
+    {
+        return pack(fmeId) != NONE;
+    }
+
+    /**
+     * @return whether {@code packed} is something {@link #pack} could have returned
+     */
+    public static boolean isPacked(final long packed)
+    {
+        return length(packed) > 0;
+    }
+
+    /**
+     * @return the number of digits in the fmeId {@code packed} holds, or 0 if it isn't a packed fmeId
+     */
+    public static int length(final long packed)
+    {
+        if (packed <= 0 || packed >= LIMIT)
+        {
+            return 0;
+        }
+
+        // Digits are non-zero places, all before the zero padding
+        long rest = packed;
+        int padding = 0;
+        while (rest % RADIX == 0)
+        {
+            rest /= RADIX;
+            padding++;
+        }
+        for (int i = padding; i < MAX_LENGTH; i++)
+        {
+            if (rest % RADIX == 0)
+            {
+                return 0;
+            }
+            rest /= RADIX;
+        }
+        return MAX_LENGTH - padding;
+    }
+
+    /**
+     * @return the fmeId {@code packed} holds
+     * @throws IllegalArgumentException if it isn't a packed fmeId
+     */
+    public static String toString(final long packed)
+    {
+        final int length = length(packed);
+        if (length == 0)
+        {
+            throw new IllegalArgumentException(String.format("Not a packed fmeId: %d", packed));
+        }
+
+        final char[] digits = new char[length];
+        long rest = packed;
+        for (int i = MAX_LENGTH - 1; i >= 0; i--)
+        {
+            if (i < length)
+            {
+                digits[i] = Base56.numeral((int) (rest % RADIX) - 1);
+            }
+            rest /= RADIX;
+        }
+        return new String(digits);
+    }
+
+    /**
+     * Compare packed fmeIds; the result has the sign {@link String#compareTo} would give the fmeIds.
+     */
+    public static int compare(final long a, final long b)
+    {
+        return Long.compare(a, b);
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.domain;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+import com.dat.util.Base56;
+
+/**
+ * Mints unique, time-ordered fmeIds for one shard, from any number of threads, without locking.
+ * <p>
+ * An id is a value of {@link #DIGITS} Base56 digits, the most {@link FmeId} packs, holding from the
+ * top down:
+ * <ul>
+ * <li>{@link #TIMESTAMP_BITS} bits of milliseconds since {@link #EPOCH}, good into 2052;
+ * <li>{@link #SEQUENCE_BITS} bits of sequence within the millisecond;
+ * <li>{@link #SHARD_BITS} bits of shard, so generators given distinct shards, on whatever node,
+ * never collide.
+ * </ul>
+ * Timestamp and sequence are one counter, advanced by compare-and-set to the later of one past its
+ * last value and the clock's current millisecond. So ids from one generator instance are strictly
+ * increasing. A burst of more than {@code 2^SEQUENCE_BITS} ids in a millisecond borrows from the
+ * following ones, but never more than {@link #MAX_LEAD_MILLIS} ahead of the clock; past that,
+ * minting blocks, parking the calling thread until the clock catches up. Ids from different shards
+ * order by time to within that lead.
+ * <p>
+ * A clock stepped back leaves the counter that much further ahead, and minting blocks for as long
+ * as the clock takes to return. A step back of up to {@link #MAX_WAIT_MILLIS} is waited out; a
+ * longer one fails minting with {@link IllegalStateException}, and keeps failing it until the clock
+ * is back within that bound.
+ * <p>
+ * A new instance starts again from the clock, so ids stay unique across a restart only if the
+ * clock doesn't step back past the last id the previous instance minted. Bounding the lead keeps
+ * that to the clock itself: a restart taking longer than {@link #MAX_LEAD_MILLIS} can't reissue an
+ * id otherwise.
+ * <p>
+ * Ids come as fixed-width Strings, written into a caller's buffer, or {@link FmeId packed}; all
+ * three order the same way.
+ */
+public final class FmeIdGenerator
+{
+    /** Width of every id */
+    public static final int DIGITS = FmeId.MAX_LENGTH;
+
+    /** 2018-01-01T00:00:00Z */
+    public static final long EPOCH = 1514764800000L;
+
+    public static final int SHARD_BITS = 8;
+
+    public static final int SEQUENCE_BITS = 10;
+
+    public static final int TIMESTAMP_BITS = 40;
+
+    public static final int MAX_SHARD = (1 << SHARD_BITS) - 1;
+
+    /** Furthest the counter may run ahead of the clock */
+    public static final int MAX_LEAD_MILLIS = 4;
+
+    private static final long MAX_LEAD = (long) MAX_LEAD_MILLIS << SEQUENCE_BITS;
+
+    /** Longest minting blocks for a clock stepped back, beyond the lead, before it fails instead */
+    public static final int MAX_WAIT_MILLIS = 1000;
+
+    private static final long MAX_WAIT = (long) MAX_WAIT_MILLIS << SEQUENCE_BITS;
+
+    /** One past the largest timestamp and sequence counter */
+    private static final long COUNTER_LIMIT = 1L << (TIMESTAMP_BITS + SEQUENCE_BITS);
+
+    private final int m_shard;
+
+    private final LongSupplier m_clock;
+
+    /** Timestamp and sequence of the last id minted */
+    private final AtomicLong m_counter = new AtomicLong();
+
+    public FmeIdGenerator(final int shard)
+    {
+        this(shard, System::currentTimeMillis);
+    }
+
+    /**
+     * @param clock epoch milliseconds
+     */
+    public FmeIdGenerator(final int shard, final LongSupplier clock)
+    {
+        if (shard < 0 || shard > MAX_SHARD)
+        {
+            throw new IllegalArgumentException(String.format("Bad shard: %d, not 0 to %d", shard, MAX_SHARD));
+        }
+        m_shard = shard;
+        m_clock = clock;
+    }
+
+    /**
+     * @return the next id's value, blocking first, for at most {@link #MAX_WAIT_MILLIS} plus the
+     *         lead, if the counter is too far ahead of the clock
+     * @throws IllegalStateException if the clock is behind the last id by more than that, or once
+     *         the timestamp runs out, in 2052
+     */
+    public long nextValue()
+    {
+        while (true)
+        {
+            final long last = m_counter.get();
+            final long now = Math.max(0, m_clock.getAsLong() - EPOCH) << SEQUENCE_BITS;
+            final long next = Math.max(last + 1, now);
+            if (next >= COUNTER_LIMIT)
+            {
+                throw new IllegalStateException(String.format("Out of ids at counter %d", next));
+            }
+            final long ahead = next - now;
+            if (ahead > MAX_LEAD)
+            {
+                if (ahead > MAX_LEAD + MAX_WAIT)
+                {
+                    throw new IllegalStateException(String.format("Clock is %d ms behind the last id",
+                        ahead >> SEQUENCE_BITS));
+                }
+                // A sequence step is 1/1024 ms; sleep off the excess rather than spin on it
+                LockSupport.parkNanos(((ahead - MAX_LEAD) * 1_000_000L) >> SEQUENCE_BITS);
+                continue;
+            }
+            if (m_counter.compareAndSet(last, next))
+            {
+                return next << SHARD_BITS | m_shard;
+            }
+        }
+    }
+
+    /**
+     * @return the next id
+     */
+    public String next()
+    {
+        final char[] digits = new char[DIGITS];
+        Base56.encode(nextValue(), DIGITS, digits, 0);
+        return new String(digits);
+    }
+
+    /**
+     * Write the next id as {@link #DIGITS} ASCII characters at {@code offset}.
+     *
+     * @return the offset just past it
+     */
+    public int next(final byte[] dst, final int offset)
+    {
+        return Base56.encode(nextValue(), DIGITS, dst, offset);
+    }
+
+    /**
+     * @return the next id, packed
+     */
+    public long nextPacked()
+    {
+        return FmeId.pack(nextValue(), DIGITS);
+    }
+
+    public int getShard()
+    {
+        return m_shard;
+    }
+
+    /**
+     * @return the epoch milliseconds an id's value was minted at, or later if it was borrowed
+     */
+    public static long timestamp(final long value)
+    {
+        return (value >>> (SHARD_BITS + SEQUENCE_BITS)) + EPOCH;
+    }
+
+    /**
+     * @return the shard that minted an id's value
+     */
+    public static int shard(final long value)
+    {
+        return (int) (value & MAX_SHARD);
+    }
+}
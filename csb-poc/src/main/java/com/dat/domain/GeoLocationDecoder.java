@@ -0,0 +1,459 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.domain;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import com.jsoniter.CodegenAccess;
+import com.jsoniter.JsonIterator;
+import com.jsoniter.ValueType;
+import com.jsoniter.spi.Decoder;
+import com.jsoniter.spi.Slice;
+
+/**
+ * Decodes a {@link GeoLocation} in either of the shapes it arrives in, choosing the subtype once and
+ * then reading its fields straight from the iterator:
+ * <ul>
+ * <li>a sync event wrapper, e.g. {@code {"@class": "...PostingOrigin", "minimalPoint": {...}}},
+ * dispatched on the wrapper key, or on the inner object's {@code @class} tag;
+ * <li>{@link SimpleAsset#toJson()}'s flat object, e.g. {@code {"city": ..., "latitude": ...}},
+ * dispatched on the first key that only one subtype declares.
+ * </ul>
+ * {@link Point}, {@link Area} and {@link Open} are registered on {@link #INSTANCE}; further subtypes
+ * can be added with {@link #register}. Unknown fields inside a recognized location are skipped.
+ * Points are passed through {@link PlaceDictionary#INSTANCE}, so they may be shared between assets.
+ */
+public final class GeoLocationDecoder implements Decoder
+{
+    public static final GeoLocationDecoder INSTANCE = new GeoLocationDecoder();
+
+    private static final byte[] CLASS_TAG = "@class".getBytes(StandardCharsets.UTF_8);
+
+    /** Replaced as a whole on registration, so decoding never locks */
+    private volatile Registry m_registry = new Registry();
+
+    private GeoLocationDecoder()
+    {
+        register(new Subtype<>(Point.class, Point::new)
+            .wrapper("minimalPoint")
+            .tag("com.tcore.csb.domain.tcoreTypes.MinimalPoint")
+            .key("city", (point, iter) -> point.setCity(iter.readString()))
+            .key("stateProvince", (point, iter) -> point.setStateProvince(iter.readString()))
+            .key("latitude", (point, iter) -> point.setLatitude(iter.readDouble()))
+            .key("longitude", (point, iter) -> point.setLongitude(iter.readDouble()))
+            .key("county", (point, iter) -> point.setCounty(iter.readString()))
+            .canonical(PlaceDictionary.INSTANCE::canonical));
+
+        register(new Subtype<>(Area.class, Area::new)
+            .wrapper("area")
+            .tag("com.tcore.csb.domain.tcoreTypes.Area")
+            .key("stateProvinces", (area, iter) -> area.setStateProvinces(readStrings(iter)))
+            .key("zones", (area, iter) -> area.setZones(readStrings(iter))));
+
+        register(new Subtype<>(Open.class, Open::new)
+            .wrapper("open")
+            .tag("com.tcore.csb.domain.tcoreTypes.Open")
+            .key("isOpen", (open, iter) -> iter.skip()));
+    }
+
+    /**
+     * Add a subtype. Its wrapper, tag and keys must not already be claimed by another subtype.
+     *
+     * @throws IllegalArgumentException on a conflict, leaving the registry unchanged
+     */
+    public synchronized void register(final Subtype<?> subtype)
+    {
+        m_registry = m_registry.with(subtype);
+    }
+
+    /**
+     * Read the location at the iterator's position, leaving the iterator after it.
+     *
+     * @return null for a JSON null
+     * @throws IllegalArgumentException if the value is not an object of a registered shape
+     */
+    @Override
+    public GeoLocation decode(final JsonIterator iter) throws IOException
+    {
+        if (iter.readNull())
+        {
+            return null;
+        }
+        if (iter.whatIsNext() != ValueType.OBJECT)
+        {
+            throw new IllegalArgumentException(String.format("GeoLocation must be an object, not %s", iter.whatIsNext()));
+        }
+        if (!CodegenAccess.readObjectStart(iter))
+        {
+            throw new IllegalArgumentException("Could not parse GeoLocation");
+        }
+
+        final Registry registry = m_registry;
+        do
+        {
+            final Slice field = CodegenAccess.readObjectFieldAsSlice(iter);
+
+            Subtype<?> subtype = registry.m_wrappers.get(field);
+            if (subtype != null)
+            {
+                final GeoLocation location = subtype.readObject(iter);
+                skipRest(iter);
+                return location;
+            }
+
+            subtype = registry.m_keys.get(field);
+            if (subtype != null)
+            {
+                return subtype.readRest(iter, field);
+            }
+
+            if (!matches(CLASS_TAG, field))
+            {
+                throw new IllegalArgumentException(String.format("Unknown GeoLocation element: '%s'", field));
+            }
+            if (iter.whatIsNext() != ValueType.STRING)
+            {
+                iter.skip();
+                continue;
+            }
+            subtype = registry.m_tags.get(iter.readStringAsSlice());
+            if (subtype != null)
+            {
+                return subtype.readRest(iter, null);
+            }
+            // Otherwise a wrapper's own tag, e.g. PostingOrigin; carry on to its location
+        }
+        while (CodegenAccess.nextToken(iter) == ',');
+
+        throw new IllegalArgumentException("Could not parse GeoLocation");
+    }
+
+    private static void skipRest(final JsonIterator iter) throws IOException
+    {
+        while (CodegenAccess.nextToken(iter) == ',')
+        {
+            CodegenAccess.readObjectFieldAsSlice(iter);
+            iter.skip();
+        }
+    }
+
+    private static String[] readStrings(final JsonIterator iter) throws IOException
+    {
+        if (iter.readNull())
+        {
+            return null;
+        }
+
+        String[] values = new String[4];
+        int count = 0;
+        while (iter.readArray())
+        {
+            if (count == values.length)
+            {
+                values = Arrays.copyOf(values, count * 2);
+            }
+            values[count++] = iter.readString();
+        }
+        return Arrays.copyOf(values, count);
+    }
+
+    private static boolean matches(final byte[] name, final Slice slice)
+    {
+        if (name.length != slice.len())
+        {
+            return false;
+        }
+        final byte[] data = slice.data();
+        final int head = slice.head();
+        for (int i = 0; i < name.length; i++)
+        {
+            if (name[i] != data[head + i])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads one field's value into a location, leaving the iterator after the value.
+     */
+    @FunctionalInterface
+    public interface FieldReader<T>
+    {
+        void read(T target, JsonIterator iter) throws IOException;
+    }
+
+    /**
+     * How one {@link GeoLocation} subclass is recognized and read. Only keys identify the subtype in
+     * flat objects, so a field another subtype shares should be declared with {@link #field} instead.
+     * Declare everything before registering it.
+     */
+    public static final class Subtype<T extends GeoLocation>
+    {
+        private final Class<T> m_type;
+
+        private final Supplier<T> m_factory;
+
+        private String m_wrapper;
+
+        private String m_tag;
+
+        private final Names<FieldReader<? super T>> m_fields = new Names<>();
+
+        private final Names<Boolean> m_keys = new Names<>();
+
+        private UnaryOperator<T> m_canonical = UnaryOperator.identity();
+
+        public Subtype(final Class<T> type, final Supplier<T> factory)
+        {
+            m_type = type;
+            m_factory = factory;
+        }
+
+        /**
+         * @param name the key a sync event wraps this subtype's object in
+         */
+        public Subtype<T> wrapper(final String name)
+        {
+            m_wrapper = name;
+            return this;
+        }
+
+        /**
+         * @param className the {@code @class} value a sync event tags this subtype's object with
+         */
+        public Subtype<T> tag(final String className)
+        {
+            m_tag = className;
+            return this;
+        }
+
+        /**
+         * Declare a field that only this subtype has.
+         */
+        public Subtype<T> key(final String name, final FieldReader<? super T> reader)
+        {
+            m_keys.put(name, Boolean.TRUE);
+            return field(name, reader);
+        }
+
+        /**
+         * Declare a field that may be shared with other subtypes.
+         */
+        public Subtype<T> field(final String name, final FieldReader<? super T> reader)
+        {
+            m_fields.put(name, reader);
+            return this;
+        }
+
+        /**
+         * @param canonical maps each location read to the instance to return in its place
+         */
+        public Subtype<T> canonical(final UnaryOperator<T> canonical)
+        {
+            m_canonical = canonical;
+            return this;
+        }
+
+        /**
+         * Read a whole object of this subtype.
+         */
+        T readObject(final JsonIterator iter) throws IOException
+        {
+            final T location = m_factory.get();
+            if (iter.readNull())
+            {
+                return location;
+            }
+            if (CodegenAccess.readObjectStart(iter))
+            {
+                readFields(iter, location);
+            }
+            return m_canonical.apply(location);
+        }
+
+        /**
+         * Read the rest of an object of this subtype, positioned at the value of {@code current}, or
+         * after the value of a field already dealt with if it's null.
+         */
+        T readRest(final JsonIterator iter, final Slice current) throws IOException
+        {
+            final T location = m_factory.get();
+            if (current != null)
+            {
+                m_fields.get(current).read(location, iter);
+            }
+            if (CodegenAccess.nextToken(iter) == ',')
+            {
+                readFields(iter, location);
+            }
+            return m_canonical.apply(location);
+        }
+
+        private void readFields(final JsonIterator iter, final T location) throws IOException
+        {
+            do
+            {
+                final FieldReader<? super T> reader = m_fields.get(CodegenAccess.readObjectFieldAsSlice(iter));
+                if (reader == null)
+                {
+                    iter.skip();
+                }
+                else
+                {
+                    reader.read(location, iter);
+                }
+            }
+            while (CodegenAccess.nextToken(iter) == ',');
+        }
+
+        @Override
+        public String toString()
+        {
+            return m_type.getSimpleName();
+        }
+    }
+
+    /**
+     * Immutable lookup tables for every registered subtype.
+     */
+    private static final class Registry
+    {
+        private final Names<Subtype<?>> m_wrappers;
+
+        private final Names<Subtype<?>> m_tags;
+
+        private final Names<Subtype<?>> m_keys;
+
+        Registry()
+        {
+            this(new Names<>(), new Names<>(), new Names<>());
+        }
+
+        private Registry(final Names<Subtype<?>> wrappers, final Names<Subtype<?>> tags, final Names<Subtype<?>> keys)
+        {
+            m_wrappers = wrappers;
+            m_tags = tags;
+            m_keys = keys;
+        }
+
+        Registry with(final Subtype<?> subtype)
+        {
+            final Names<Subtype<?>> wrappers = m_wrappers.copy();
+            final Names<Subtype<?>> tags = m_tags.copy();
+            final Names<Subtype<?>> keys = m_keys.copy();
+
+            if (subtype.m_wrapper != null)
+            {
+                if (m_keys.get(subtype.m_wrapper) != null)
+                {
+                    throw new IllegalArgumentException(String.format("'%s' is already a key", subtype.m_wrapper));
+                }
+                claim(wrappers, subtype.m_wrapper, subtype);
+            }
+            if (subtype.m_tag != null)
+            {
+                claim(tags, subtype.m_tag, subtype);
+            }
+            for (final String key : subtype.m_keys.names())
+            {
+                if (wrappers.get(key) != null)
+                {
+                    throw new IllegalArgumentException(String.format("'%s' is already a wrapper", key));
+                }
+                claim(keys, key, subtype);
+            }
+            return new Registry(wrappers, tags, keys);
+        }
+
+        private static void claim(final Names<Subtype<?>> names, final String name, final Subtype<?> subtype)
+        {
+            final Subtype<?> existing = names.get(name);
+            if (existing != null)
+            {
+                throw new IllegalArgumentException(String.format("'%s' already identifies %s", name, existing));
+            }
+            names.put(name, subtype);
+        }
+    }
+
+    /**
+     * Byte-slice keyed table. A linear scan; locations have a handful of names at most.
+     */
+    private static final class Names<V>
+    {
+        private byte[][] m_names = new byte[0][];
+
+        private Object[] m_values = new Object[0];
+
+        void put(final String name, final V value)
+        {
+            final byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            for (int i = 0; i < m_names.length; i++)
+            {
+                if (Arrays.equals(m_names[i], bytes))
+                {
+                    m_values[i] = value;
+                    return;
+                }
+            }
+            m_names = Arrays.copyOf(m_names, m_names.length + 1);
+            m_values = Arrays.copyOf(m_values, m_values.length + 1);
+            m_names[m_names.length - 1] = bytes;
+            m_values[m_values.length - 1] = value;
+        }
+
+        @SuppressWarnings("unchecked")
+        V get(final Slice name)
+        {
+            for (int i = 0; i < m_names.length; i++)
+            {
+                if (matches(m_names[i], name))
+                {
+                    return (V) m_values[i];
+                }
+            }
+            return null;
+        }
+
+        @SuppressWarnings("unchecked")
+        V get(final String name)
+        {
+            final byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            for (int i = 0; i < m_names.length; i++)
+            {
+                if (Arrays.equals(m_names[i], bytes))
+                {
+                    return (V) m_values[i];
+                }
+            }
+            return null;
+        }
+
+        String[] names()
+        {
+            final String[] names = new String[m_names.length];
+            for (int i = 0; i < names.length; i++)
+            {
+                names[i] = new String(m_names[i], StandardCharsets.UTF_8);
+            }
+            return names;
+        }
+
+        Names<V> copy()
+        {
+            final Names<V> copy = new Names<>();
+            copy.m_names = m_names.clone();
+            copy.m_values = m_values.clone();
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.domain;
+
+/**
+ * Great-circle distances between {@link Point}s, in miles, for radius filtering and match scoring.
+ * A {@link Position} holds a point's radians, sines and cosines, worked out once, so that distances
+ * between positions need no trigonometry per pair:
+ * <ul>
+ * <li>{@link #approximateMiles} is the equirectangular approximation: cheap, within a fraction of a
+ * percent over a few hundred miles away from the poles, so good for prefiltering;
+ * <li>{@link #haversineMiles} is exact on the sphere, as the haversine formula, but takes the
+ * haversine from the chord between the two points' unit vectors, leaving one square root and one
+ * arcsine per pair.
+ * </ul>
+ * Both have batch forms, from one position to an array of them.
+ */
+public final class GreatCircle
+{
+    public static final double EARTH_RADIUS_MILES = 3958.8;
+
+    private GreatCircle()
+    {}
+
+    /**
+     * @return the great-circle miles between two points given in degrees, by the textbook haversine
+     *         formula
+     */
+    public static double haversineMiles(final double latitude1, final double longitude1, final double latitude2,
+        final double longitude2)
+    {
+        final double sinHalfPhi = Math.sin(Math.toRadians(latitude2 - latitude1) / 2);
+        final double sinHalfLambda = Math.sin(Math.toRadians(longitude2 - longitude1) / 2);
+        final double haversine = sinHalfPhi * sinHalfPhi
+            + Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2)) * sinHalfLambda * sinHalfLambda;
+        return 2 * EARTH_RADIUS_MILES * Math.asin(Math.min(1, Math.sqrt(haversine)));
+    }
+
+    /**
+     * @return the great-circle miles between two positions
+     */
+    public static double haversineMiles(final Position from, final Position to)
+    {
+        final double dx = to.m_x - from.m_x;
+        final double dy = to.m_y - from.m_y;
+        final double dz = to.m_z - from.m_z;
+        // The haversine of the angle between them is a quarter of the chord squared
+        return 2 * EARTH_RADIUS_MILES * Math.asin(Math.min(1, Math.sqrt(dx * dx + dy * dy + dz * dz) / 2));
+    }
+
+    /**
+     * @return the equirectangular approximation of the miles between two positions
+     */
+    public static double approximateMiles(final Position from, final Position to)
+    {
+        double lambda = to.m_lambda - from.m_lambda;
+        if (lambda > Math.PI)
+        {
+            lambda -= 2 * Math.PI;
+        }
+        else if (lambda < -Math.PI)
+        {
+            lambda += 2 * Math.PI;
+        }
+        // The mean of the cosines stands in for the cosine of the mean latitude
+        final double x = lambda * (from.m_cosPhi + to.m_cosPhi) / 2;
+        final double y = to.m_phi - from.m_phi;
+        return EARTH_RADIUS_MILES * Math.sqrt(x * x + y * y);
+    }
+
+    /**
+     * Fill {@code miles} with the great-circle miles from {@code from} to each of {@code to}.
+     *
+     * @throws IllegalArgumentException if {@code miles} is shorter than {@code to}
+     */
+    public static void haversineMiles(final Position from, final Position[] to, final double[] miles)
+    {
+        checkLength(to, miles);
+        for (int i = 0; i < to.length; i++)
+        {
+            miles[i] = haversineMiles(from, to[i]);
+        }
+    }
+
+    /**
+     * Fill {@code miles} with the approximate miles from {@code from} to each of {@code to}.
+     *
+     * @throws IllegalArgumentException if {@code miles} is shorter than {@code to}
+     */
+    public static void approximateMiles(final Position from, final Position[] to, final double[] miles)
+    {
+        checkLength(to, miles);
+        for (int i = 0; i < to.length; i++)
+        {
+            miles[i] = approximateMiles(from, to[i]);
+        }
+    }
+
+    private static void checkLength(final Position[] to, final double[] miles)
+    {
+        if (miles.length < to.length)
+        {
+            throw new IllegalArgumentException(String.format("%d results won't fit in %d", to.length, miles.length));
+        }
+    }
+
+    /**
+     * A point on the sphere with the trigonometry distances need worked out up front. Immutable.
+     */
+    public static final class Position
+    {
+        private final double m_latitude;
+
+        private final double m_longitude;
+
+        private final double m_phi;
+
+        private final double m_lambda;
+
+        private final double m_sinPhi;
+
+        private final double m_cosPhi;
+
+        private final double m_sinLambda;
+
+        private final double m_cosLambda;
+
+        // Unit vector
+        private final double m_x;
+        private final double m_y;
+        private final double m_z;
+
+        /**
+         * @throws IllegalArgumentException if the coordinates are out of range
+         */
+        public Position(final double latitude, final double longitude)
+        {
+            if (!(Math.abs(latitude) <= 90 && Math.abs(longitude) <= 180))
+            {
+                throw new IllegalArgumentException(String.format("Bad coordinates: %f, %f", latitude, longitude));
+            }
+            m_latitude = latitude;
+            m_longitude = longitude;
+            m_phi = Math.toRadians(latitude);
+            m_lambda = Math.toRadians(longitude);
+            m_sinPhi = Math.sin(m_phi);
+            m_cosPhi = Math.cos(m_phi);
+            m_sinLambda = Math.sin(m_lambda);
+            m_cosLambda = Math.cos(m_lambda);
+            m_x = m_cosPhi * m_cosLambda;
+            m_y = m_cosPhi * m_sinLambda;
+            m_z = m_sinPhi;
+        }
+
+        /**
+         * @return {@code point}'s position, null for null
+         */
+        public static Position of(final Point point)
+        {
+            return point == null ? null : new Position(point.getLatitude(), point.getLongitude());
+        }
+
+        public double getLatitude()
+        {
+            return m_latitude;
+        }
+
+        public double getLongitude()
+        {
+            return m_longitude;
+        }
+
+        public double getSinLatitude()
+        {
+            return m_sinPhi;
+        }
+
+        public double getCosLatitude()
+        {
+            return m_cosPhi;
+        }
+
+        public double getSinLongitude()
+        {
+            return m_sinLambda;
+        }
+
+        public double getCosLongitude()
+        {
+            return m_cosLambda;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("(%f, %f)", m_latitude, m_longitude);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.domain;
+
+import java.io.IOException;
+
+import com.dat.util.Iso8601;
+import com.jsoniter.JsonIterator;
+import com.jsoniter.spi.Decoder;
+import com.jsoniter.spi.Slice;
+
+/**
+ * Reads an ISO-8601 string property into an epoch-millis {@code long}; null reads as
+ * {@link SimpleAsset#NO_TIMESTAMP}.
+ */
+public class IsoTimestampDecoder extends Decoder.LongDecoder
+{
+    @Override
+    public long decodeLong(final JsonIterator iter) throws IOException
+    {
+        if (iter.readNull())
+        {
+            return SimpleAsset.NO_TIMESTAMP;
+        }
+
+        final Slice text = iter.readStringAsSlice();
+        return Iso8601.parse(text.data(), text.head(), text.len());
+    }
+}
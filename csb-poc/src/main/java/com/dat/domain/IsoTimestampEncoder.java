@@ -0,0 +1,41 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.domain;
+
+import java.io.IOException;
+
+import com.dat.util.Iso8601;
+import com.jsoniter.output.JsonStream;
+import com.jsoniter.spi.Encoder;
+
+/**
+ * Writes an epoch-millis {@code long} property as an ISO-8601 string, or null for
+ * {@link SimpleAsset#NO_TIMESTAMP}, without boxing or building a String.
+ */
+public class IsoTimestampEncoder extends Encoder.LongEncoder
+{
+    private static final ThreadLocal<byte[]> BUFFERS = ThreadLocal.withInitial(() ->
+    {
+        final byte[] buffer = new byte[Iso8601.LENGTH + 2];
+        buffer[0] = '"';
+        buffer[buffer.length - 1] = '"';
+        return buffer;
+    });
+
+    @Override
+    public void encodeLong(final long millis, final JsonStream stream) throws IOException
+    {
+        if (millis == SimpleAsset.NO_TIMESTAMP)
+        {
+            stream.writeNull();
+            return;
+        }
+
+        final byte[] buffer = BUFFERS.get();
+        Iso8601.format(millis, buffer, 1);
+        stream.write(buffer, 0, buffer.length);
+    }
+}
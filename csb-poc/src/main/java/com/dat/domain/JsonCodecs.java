@@ -0,0 +1,324 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.domain;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dat.sync.SyncEvent;
+import com.jsoniter.JsonIterator;
+import com.jsoniter.output.EncodingMode;
+import com.jsoniter.output.JsonStream;
+import com.jsoniter.spi.Binding;
+import com.jsoniter.spi.ClassDescriptor;
+import com.jsoniter.spi.Config;
+import com.jsoniter.spi.DecodingMode;
+import com.jsoniter.spi.EmptyExtension;
+import com.jsoniter.spi.Encoder;
+import com.jsoniter.spi.JsoniterSpi;
+import com.jsoniter.spi.OmitValue;
+import com.jsoniter.spi.TypeLiteral;
+import com.jsoniter.static_codegen.StaticCodegenConfig;
+
+/**
+ * How jsoniter finds decoders and encoders for the domain classes.
+ * <p>
+ * The build runs this class through jsoniter's {@code StaticCodegen} (see the
+ * {@code generateJsonCodecs} task) to generate codec sources for {@link #TYPES}, which are compiled
+ * into the application. {@link GeoLocation} and {@link Open} have hand-written codecs instead:
+ * one is abstract, and the other's only property has a getter generated code doesn't recognize.
+ * jsoniter names generated classes after the configuration they were generated under, so
+ * {@link Mode#STATIC} installs that same configuration, making jsoniter load the pre-built codecs
+ * instead of generating them with javassist on first use.
+ * <p>
+ * Call {@link #install} once at startup, before the first record is processed.
+ */
+public final class JsonCodecs implements StaticCodegenConfig
+{
+    private static final Logger log = LoggerFactory.getLogger(JsonCodecs.class);
+
+    public enum Mode
+    {
+        /** jsoniter's default configuration: reflection-based binding, no code generation */
+        REFLECTION,
+
+        /** Codecs generated with javassist at runtime, on first use of each type */
+        DYNAMIC,
+
+        /** Codecs generated at build time; falls back to DYNAMIC if they aren't on the class path */
+        STATIC
+    }
+
+    static final Class<?>[] TYPES = { SimpleAsset.class, Point.class, Area.class };
+
+    private static final IsoTimestampEncoder TIMESTAMP_ENCODER = new IsoTimestampEncoder();
+
+    private static final IsoTimestampDecoder TIMESTAMP_DECODER = new IsoTimestampDecoder();
+
+    /** Omits a {@link SimpleAsset} timestamp that is absent, rather than one at the epoch */
+    private static final OmitValue NO_TIMESTAMP = new OmitValue()
+    {
+        @Override
+        public boolean shouldOmit(final Object value)
+        {
+            return value instanceof Long && (Long) value == SimpleAsset.NO_TIMESTAMP;
+        }
+
+        @Override
+        public String code()
+        {
+            return SimpleAsset.class.getName() + ".NO_TIMESTAMP == %s";
+        }
+    };
+
+    private static final String WARM_UP_EVENT = "__magicNumber=Xyzzy0xfeedbeef1990\n"
+        + "action=insert\nfmeId=D0000000\nownerId=1\nofficeId=1\ncompanyId=1\ngroupId=1\n"
+        + "__encoding=JSON\n__payloadClassname=com.tcore.tfs.domain.fmCoreInternal.FmcInsert\n"
+        + "__payload={\"insert\":{\"fme\":{\"whenIssued\":\"2018-01-16T00:00:00.000Z\",\"posting\":{\"defn\":{"
+        + "\"basic\":{\"postingType_schemaVal\":\"Equipment\",\"equipmentType\":\"V\","
+        + "\"origin\":{\"minimalPoint\":{\"city\":\"Chicago\",\"stateProvince\":\"IL\",\"latitude\":41.85,"
+        + "\"longitude\":-87.65,\"county\":\"Cook\"}},"
+        + "\"destination\":{\"area\":{\"stateProvinces\":[\"IN\"],\"zones\":[\"Z5\"]}}},"
+        + "\"exposure\":{\"startDate\":\"2018-01-16T00:00:00.000Z\",\"endDate\":\"2018-01-17T00:00:00.000Z\","
+        + "\"availability\":{\"earliest\":\"2018-01-16T00:00:00.000Z\",\"latest\":\"2018-01-17T00:00:00.000Z\"}}}}}}}";
+
+    /** Indented, omitting default values: null, 0, and {@link SimpleAsset#NO_TIMESTAMP} */
+    static final Config PRETTY_PRINT = new PrettyPrint.Builder().indentionStep(2).omitDefaultValue(true).build();
+
+    /**
+     * For {@code StaticCodegen}.
+     */
+    public JsonCodecs()
+    {}
+
+    @Override
+    public void setup()
+    {
+        registerCodecs();
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public TypeLiteral[] whatToCodegen()
+    {
+        final TypeLiteral<?>[] literals = new TypeLiteral<?>[TYPES.length];
+        for (int i = 0; i < TYPES.length; i++)
+        {
+            literals[i] = TypeLiteral.create(TYPES[i]);
+        }
+        return literals;
+    }
+
+    /**
+     * Configure jsoniter for {@code mode} and load the codecs for every domain type, so none of that
+     * cost falls on the first record.
+     *
+     * @return the mode in effect, which is {@link Mode#DYNAMIC} if {@link Mode#STATIC} was asked for
+     *         but the generated codecs are missing
+     */
+    public static synchronized Mode install(final Mode mode)
+    {
+        Mode installed = mode;
+        if (mode != Mode.REFLECTION)
+        {
+            // The configuration StaticCodegen generates under; see StaticCodegen.main
+            JsonIterator.setMode(DecodingMode.DYNAMIC_MODE_AND_MATCH_FIELD_WITH_HASH);
+            JsonStream.setMode(EncodingMode.DYNAMIC_MODE);
+
+            if (mode == Mode.STATIC && !generatedCodecsPresent())
+            {
+                log.warn("Generated JSON codecs not found on the class path; generating them at runtime");
+                installed = Mode.DYNAMIC;
+            }
+        }
+        registerCodecs();
+
+        final long start = System.nanoTime();
+        warmUp();
+        log.info("Installed {} JSON codecs in {} ms", installed, (System.nanoTime() - start) / 1_000_000);
+
+        return installed;
+    }
+
+    /**
+     * @return true if build-time codecs for every domain type are loadable under the current
+     *         configuration
+     */
+    static boolean generatedCodecsPresent()
+    {
+        final Config config = JsoniterSpi.getCurrentConfig();
+        try
+        {
+            for (final Class<?> type : TYPES)
+            {
+                Class.forName(config.getDecoderCacheKey(type));
+                Class.forName(config.getEncoderCacheKey(type));
+            }
+            return true;
+        }
+        catch (final ClassNotFoundException e)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * Write and read the {@link SimpleAsset} timestamps as ISO-8601 strings, under every
+     * configuration. Called once, when {@link SimpleAsset} is loaded.
+     */
+    static void registerTimestampCodecs()
+    {
+        JsoniterSpi.registerExtension(new EmptyExtension()
+        {
+            @Override
+            public void updateClassDescriptor(final ClassDescriptor desc)
+            {
+                if (desc.clazz != SimpleAsset.class)
+                {
+                    return;
+                }
+                for (final Binding binding : desc.allBindings())
+                {
+                    if (Arrays.asList(SimpleAsset.TIMESTAMPS).contains(binding.name))
+                    {
+                        binding.encoder = TIMESTAMP_ENCODER;
+                        binding.decoder = TIMESTAMP_DECODER;
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Codecs generated at build time look the timestamp codecs up by cache key, which only runtime
+     * code generation would otherwise register.
+     */
+    private static void registerTimestampCacheKeys(final Config config)
+    {
+        for (final String property : SimpleAsset.TIMESTAMPS)
+        {
+            JsoniterSpi.addNewEncoder(property + "@" + config.getEncoderCacheKey(SimpleAsset.class), TIMESTAMP_ENCODER);
+            JsoniterSpi.addNewDecoder(property + "@" + config.getDecoderCacheKey(SimpleAsset.class), TIMESTAMP_DECODER);
+        }
+    }
+
+    /**
+     * {@link GeoLocation} is decoded by {@link GeoLocationDecoder}, and encoded as whatever concrete
+     * type it is. {@link Open} is constant.
+     */
+    private static void registerCodecs()
+    {
+        registerTimestampCacheKeys(JsoniterSpi.getCurrentConfig());
+
+        JsoniterSpi.registerTypeDecoder(GeoLocation.class, GeoLocationDecoder.INSTANCE);
+        JsoniterSpi.registerTypeEncoder(GeoLocation.class, new Encoder()
+        {
+            @Override
+            @SuppressWarnings("unchecked")
+            public void encode(final Object obj, final JsonStream stream) throws IOException
+            {
+                if (obj == null)
+                {
+                    stream.writeNull();
+                    return;
+                }
+                stream.writeVal((Class<Object>) obj.getClass(), obj);
+            }
+        });
+
+        JsoniterSpi.registerTypeDecoder(Open.class, iter ->
+        {
+            if (iter.readNull())
+            {
+                return null;
+            }
+            iter.skip();
+            return new Open();
+        });
+        JsoniterSpi.registerTypeEncoder(Open.class, new Encoder()
+        {
+            @Override
+            public void encode(final Object obj, final JsonStream stream) throws IOException
+            {
+                if (obj == null)
+                {
+                    stream.writeNull();
+                    return;
+                }
+                stream.writeObjectStart();
+                stream.writeIndention();
+                stream.writeObjectField("isOpen");
+                stream.writeVal(((Open) obj).isOpen());
+                stream.writeObjectEnd();
+            }
+        });
+    }
+
+    /**
+     * Convert a minimal event and round-trip one instance of each type through every path the
+     * application uses.
+     */
+    private static void warmUp()
+    {
+        final SimpleAsset asset;
+        try
+        {
+            asset = new SimpleAsset(new SyncEvent(WARM_UP_EVENT));
+        }
+        catch (final Exception e)
+        {
+            throw new IllegalStateException("Warm-up event failed to convert", e);
+        }
+
+        final String json = asset.toJson();
+        JsonIterator.deserialize(json, SimpleAsset.class);
+        new SimpleAsset(json);
+        asset.toJson(true);
+
+        JsonIterator.deserialize(JsonStream.serialize(new Open()), Open.class);
+    }
+
+    /**
+     * jsoniter applies the configuration's own omitted values after every extension, so only the
+     * configuration can replace 0 with {@link SimpleAsset#NO_TIMESTAMP} for the timestamps.
+     */
+    private static final class PrettyPrint extends Config
+    {
+        PrettyPrint(final String configName, final Config.Builder builder)
+        {
+            super(configName, builder);
+        }
+
+        @Override
+        public void updateClassDescriptor(final ClassDescriptor desc)
+        {
+            super.updateClassDescriptor(desc);
+            if (desc.clazz != SimpleAsset.class)
+            {
+                return;
+            }
+            for (final Binding binding : desc.allBindings())
+            {
+                if (binding.defaultValueToOmit != null && Arrays.asList(SimpleAsset.TIMESTAMPS).contains(binding.name))
+                {
+                    binding.defaultValueToOmit = NO_TIMESTAMP;
+                }
+            }
+        }
+
+        static final class Builder extends Config.Builder
+        {
+            @Override
+            protected Config doBuild(final String configName)
+            {
+                return new PrettyPrint(configName, this);
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.domain;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Canonical {@link Point}s, one per place, keyed by (city, stateProvince). Postings name a few tens
+ * of thousands of places over and over, so decoders pass each point they read through
+ * {@link #canonical} and assets end up sharing a handful of instances rather than each holding its
+ * own copy of the same strings.
+ * <p>
+ * The first point seen for a place becomes its canonical instance. A later point for the same place
+ * with the same coordinates and county is replaced by it; one that differs keeps its coordinates
+ * but takes the canonical instance's strings. Points without a city or stateProvince, and new places
+ * once the dictionary is full, pass through untouched, so junk input can't grow it without bound.
+ * <p>
+ * Canonical points are shared: treat a decoded point as read-only, and copy it before changing it.
+ * Thread safe.
+ */
+public final class PlaceDictionary
+{
+    public static final int DEFAULT_CAPACITY = 200_000;
+
+    /** What the decoders use */
+    public static final PlaceDictionary INSTANCE = new PlaceDictionary(DEFAULT_CAPACITY);
+
+    private final int m_capacity;
+
+    /** Canonical points by stateProvince, then city; nested so a lookup allocates no key */
+    private final ConcurrentMap<String, ConcurrentMap<String, Point>> m_places = new ConcurrentHashMap<>();
+
+    private final AtomicInteger m_size = new AtomicInteger();
+
+    public PlaceDictionary(final int capacity)
+    {
+        if (capacity < 0)
+        {
+            throw new IllegalArgumentException(String.format("Bad capacity: %d", capacity));
+        }
+        m_capacity = capacity;
+    }
+
+    /**
+     * @return the canonical instance for {@code point}'s place if it is the same point, otherwise
+     *         {@code point} itself, sharing the canonical instance's strings where it can; null for
+     *         null
+     */
+    public Point canonical(final Point point)
+    {
+        if (point == null || point.getCity() == null || point.getStateProvince() == null)
+        {
+            return point;
+        }
+
+        ConcurrentMap<String, Point> cities = m_places.get(point.getStateProvince());
+        if (cities == null)
+        {
+            if (m_size.get() >= m_capacity)
+            {
+                return point;
+            }
+            cities = m_places.computeIfAbsent(point.getStateProvince(), k -> new ConcurrentHashMap<>());
+        }
+
+        Point place = cities.get(point.getCity());
+        if (place == null)
+        {
+            if (m_size.get() >= m_capacity)
+            {
+                return point;
+            }
+            place = cities.putIfAbsent(point.getCity(), point);
+            if (place == null)
+            {
+                m_size.incrementAndGet();
+                return point;
+            }
+        }
+
+        if (place.getLatitude() == point.getLatitude() && place.getLongitude() == point.getLongitude()
+            && Objects.equals(place.getCounty(), point.getCounty()))
+        {
+            return place;
+        }
+        point.setCity(place.getCity());
+        point.setStateProvince(place.getStateProvince());
+        if (Objects.equals(place.getCounty(), point.getCounty()))
+        {
+            point.setCounty(place.getCounty());
+        }
+        return point;
+    }
+
+    /**
+     * @return the number of places
+     */
+    public int size()
+    {
+        return m_size.get();
+    }
+}
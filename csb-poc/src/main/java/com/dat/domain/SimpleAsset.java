@@ -6,12 +6,14 @@
 package com.dat.domain;
 
 import java.io.IOException;
+import java.util.List;
 
 import org.apache.commons.lang3.StringUtils;
 
+import com.dat.common.json.JsonExtractionPlan.Extraction;
 import com.dat.sync.SyncEvent;
+import com.dat.util.Iso8601;
 import com.jsoniter.JsonIterator;
-import com.jsoniter.any.Any;
 import com.jsoniter.output.JsonStream;
 import com.jsoniter.spi.Config;
 import com.jsoniter.spi.JsoniterSpi;
@@ -19,26 +21,47 @@ import com.jsoniter.spi.JsoniterSpi;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+/**
+ * Timestamps are held as epoch millis, so range checks are integer comparisons, and written to JSON
+ * in the feed's ISO-8601 layout (see {@link Iso8601}). {@link #NO_TIMESTAMP} marks one that is absent
+ * or unparseable, and is written as null; pretty-printed JSON omits it. The text of an unparseable
+ * timestamp isn't kept, so where the feed had one the JSON has null instead.
+ */
 @Data
 @NoArgsConstructor
 public class SimpleAsset
 {
+    /** No instant the feed's layout can express, so 1970-01-01T00:00:00.000Z remains a real one */
+    public static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    static final String[] TIMESTAMPS = {
+        "whenIssued", "startDate", "endDate", "earliestAvailability", "latestAvailability" };
+
+    static
+    {
+        JsonCodecs.registerTimestampCodecs();
+    }
+
     private String fmeId;
     private String sourceApplication;
     private int userId;
     private int officeId;
     private int companyId;
     private int groupId;
-    private String whenIssued;
+    private long whenIssued = NO_TIMESTAMP;
     private String postingType;
     private String equipmentType;
     private GeoLocation origin;
     private GeoLocation destination;
-    private String startDate;
-    private String endDate;
-    private String earliestAvailability;
-    private String latestAvailability;
-
+    private long startDate = NO_TIMESTAMP;
+    private long endDate = NO_TIMESTAMP;
+    private long earliestAvailability = NO_TIMESTAMP;
+    private long latestAvailability = NO_TIMESTAMP;
+
+    /**
+     * Reads only the payload fields an asset needs, in a single pass over the payload; see
+     * {@link SimpleAssetExtractor}.
+     */
     public SimpleAsset(final SyncEvent syncEvent)
     {
         fmeId = syncEvent.getFmeId();
@@ -55,35 +78,21 @@ public class SimpleAsset
             throw new IllegalArgumentException("No classname found");
         }
 
-        final Any json = JsonIterator.deserialize(syncEvent.getPayload());
+        final Extraction fme = SimpleAssetExtractor.get().extract(payloadClassname, syncEvent.getPayload());
 
-        final Any fme;
-        if (payloadClassname.endsWith("FmCoreSyncNotificationDocument"))
-        {
-            fme = json.get("fmCoreSyncNotification", "insert", "fme");
-        }
-        else
-        {
-            fme = json.get("insert", "fme");
-        }
-
-        whenIssued = fme.get("whenIssued").toString();
-
-        final Any defn = fme.get("posting", "defn");
+        whenIssued = fme.timestamp(SimpleAssetExtractor.WHEN_ISSUED, NO_TIMESTAMP);
 
-        final Any basic = defn.get("basic");
-        postingType = basic.get("postingType_schemaVal").toString();
-        equipmentType = basic.get("equipmentType").toString();
+        postingType = fme.text(SimpleAssetExtractor.POSTING_TYPE);
+        equipmentType = fme.text(SimpleAssetExtractor.EQUIPMENT_TYPE);
 
-        origin = GeoLocationHelper.parse(basic.get("origin"));
-        destination = GeoLocationHelper.parse(basic.get("destination"));
+        origin = fme.decoded(SimpleAssetExtractor.ORIGIN);
+        destination = fme.decoded(SimpleAssetExtractor.DESTINATION);
 
-        final Any exposure = defn.get("exposure");
-        startDate = exposure.get("startDate").toString();
-        endDate = exposure.get("endDate").toString();
+        startDate = fme.timestamp(SimpleAssetExtractor.START_DATE, NO_TIMESTAMP);
+        endDate = fme.timestamp(SimpleAssetExtractor.END_DATE, NO_TIMESTAMP);
 
-        earliestAvailability = exposure.get("availability", "earliest").toString();
-        latestAvailability = exposure.get("availability", "latest").toString();
+        earliestAvailability = fme.timestamp(SimpleAssetExtractor.EARLIEST_AVAILABILITY, NO_TIMESTAMP);
+        latestAvailability = fme.timestamp(SimpleAssetExtractor.LATEST_AVAILABILITY, NO_TIMESTAMP);
     }
 
     public SimpleAsset(final String json)
@@ -113,31 +122,31 @@ public class SimpleAsset
                         sourceApplication = iter.readString();
                         continue;
                     case "whenIssued":
-                        whenIssued = iter.readString();
+                        whenIssued = readTimestamp(iter);
                         continue;
                     case "equipmentType":
                         equipmentType = iter.readString();
                         continue;
                     case "startDate":
-                        startDate = iter.readString();
+                        startDate = readTimestamp(iter);
                         continue;
                     case "endDate":
-                        endDate = iter.readString();
+                        endDate = readTimestamp(iter);
                         continue;
                     case "earliestAvailability":
-                        earliestAvailability = iter.readString();
+                        earliestAvailability = readTimestamp(iter);
                         continue;
                     case "latestAvailability":
-                        latestAvailability = iter.readString();
+                        latestAvailability = readTimestamp(iter);
                         continue;
                     case "postingType":
                         postingType = iter.readString();
                         continue;
                     case "origin":
-                        origin = GeoLocationHelper.parse(iter.readAny());
+                        origin = GeoLocationDecoder.INSTANCE.decode(iter);
                         continue;
                     case "destination":
-                        destination = GeoLocationHelper.parse(iter.readAny());
+                        destination = GeoLocationDecoder.INSTANCE.decode(iter);
                         continue;
                     default:
                         System.out.printf("Unused field: '%s'\n", field);
@@ -152,12 +161,27 @@ public class SimpleAsset
         }
     }
 
-    private static final Config PRETTY_PRINT = new Config.Builder().indentionStep(2).omitDefaultValue(true).build();
-    private static final Config DEFAULT_PRINT = JsoniterSpi.getDefaultConfig();
+    /**
+     * Convert a batch of events in parallel on the common fork/join pool.
+     *
+     * @see SimpleAssetBatchConverter#convert(List)
+     */
+    public static SimpleAssetBatchConverter.Result fromEvents(final List<SyncEvent> events)
+    {
+        return SimpleAssetBatchConverter.DEFAULT.convert(events);
+    }
+
+    private static long readTimestamp(final JsonIterator iter) throws IOException
+    {
+        return TIMESTAMP_DECODER.decodeLong(iter);
+    }
+
+    private static final IsoTimestampDecoder TIMESTAMP_DECODER = new IsoTimestampDecoder();
 
     public String toJson(final boolean prettyPrint)
     {
-        final Config cfg = prettyPrint ? PRETTY_PRINT : DEFAULT_PRINT;
+        // Default configuration looked up per call: it changes when JsonCodecs.install selects a mode
+        final Config cfg = prettyPrint ? JsonCodecs.PRETTY_PRINT : JsoniterSpi.getDefaultConfig();
         return JsonStream.serialize(cfg, this);
     }
 
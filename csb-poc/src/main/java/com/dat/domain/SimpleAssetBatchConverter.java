@@ -0,0 +1,164 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.domain;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.dat.sync.SyncEvent;
+import com.dat.util.ArgCheck;
+
+/**
+ * Converts batches of {@link SyncEvent}s to {@link SimpleAsset}s in parallel on a
+ * {@link ForkJoinPool}, for replay, backfill and bulk-reload paths that have many events in hand at
+ * once. The batch is split recursively down to {@code grain}-sized ranges. Each pool worker parses
+ * payloads with its own reused {@link SimpleAssetExtractor} instead of allocating fresh buffers per
+ * event.
+ * <p>
+ * A failing event doesn't fail the batch: its slot in the {@link Result} holds the exception
+ * instead of an asset.
+ */
+public class SimpleAssetBatchConverter
+{
+    static final SimpleAssetBatchConverter DEFAULT = new SimpleAssetBatchConverter(ForkJoinPool.commonPool(), 64);
+
+    private final ForkJoinPool m_pool;
+
+    private final int m_grain;
+
+    /**
+     * @param pool the pool to convert on
+     * @param grain largest range of events converted by a single task without splitting
+     */
+    public SimpleAssetBatchConverter(final ForkJoinPool pool, final int grain)
+    {
+        ArgCheck.notNull(pool, "pool cannot be null");
+        ArgCheck.notLessThan(grain, 1);
+
+        m_pool = pool;
+        m_grain = grain;
+    }
+
+    public SimpleAssetBatchConverter()
+    {
+        this(ForkJoinPool.commonPool(), 64);
+    }
+
+    /**
+     * @param events the events to convert; must support fast random access
+     * @return one asset or error per event, at the event's index
+     */
+    public Result convert(final List<SyncEvent> events)
+    {
+        final Result result = new Result(events.size());
+        if (!events.isEmpty())
+        {
+            m_pool.invoke(new ConvertTask(events, 0, events.size(), result));
+        }
+        return result;
+    }
+
+    /**
+     * Dense, index-aligned results of a batch conversion.
+     */
+    public static final class Result
+    {
+        private final SimpleAsset[] m_assets;
+
+        private final RuntimeException[] m_errors;
+
+        private Result(final int size)
+        {
+            m_assets = new SimpleAsset[size];
+            m_errors = new RuntimeException[size];
+        }
+
+        public int size()
+        {
+            return m_assets.length;
+        }
+
+        /**
+         * @return the asset converted from event {@code index}, or null if it failed
+         */
+        public SimpleAsset asset(final int index)
+        {
+            return m_assets[index];
+        }
+
+        /**
+         * @return why event {@code index} failed to convert, or null if it didn't
+         */
+        public RuntimeException error(final int index)
+        {
+            return m_errors[index];
+        }
+
+        public int errorCount()
+        {
+            int count = 0;
+            for (final RuntimeException error : m_errors)
+            {
+                if (error != null)
+                {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        /**
+         * @return the backing array of assets; failed slots are null
+         */
+        public SimpleAsset[] assets()
+        {
+            return m_assets;
+        }
+    }
+
+    private final class ConvertTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final List<SyncEvent> m_events;
+        private final int m_from;
+        private final int m_to;
+        private final Result m_result;
+
+        ConvertTask(final List<SyncEvent> events, final int from, final int to, final Result result)
+        {
+            m_events = events;
+            m_from = from;
+            m_to = to;
+            m_result = result;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (m_to - m_from <= m_grain)
+            {
+                for (int i = m_from; i < m_to; i++)
+                {
+                    try
+                    {
+                        m_result.m_assets[i] = new SimpleAsset(m_events.get(i));
+                    }
+                    catch (final RuntimeException e)
+                    {
+                        m_result.m_errors[i] = e;
+                    }
+                }
+                return;
+            }
+
+            final int middle = (m_from + m_to) >>> 1;
+            invokeAll(new ConvertTask(m_events, m_from, middle, m_result),
+                new ConvertTask(m_events, middle, m_to, m_result));
+        }
+    }
+}
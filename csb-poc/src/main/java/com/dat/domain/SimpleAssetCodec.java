@@ -0,0 +1,462 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.domain;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Compact binary form of a {@link SimpleAsset}: a fixed-layout header holding every fixed-width
+ * field at a known offset, followed by a variable-length tail for the strings that can't be coded.
+ * <ul>
+ * <li>ints are 4 bytes and timestamps 8-byte epoch millis, big-endian;
+ * <li>latitude and longitude are ints in millionths of a degree, so coordinates round-trip exactly
+ * to 6 decimal places (about 0.1 m);
+ * <li>postingType, equipmentType, sourceApplication and stateProvince are {@link CodeDictionary}
+ * codes, with values outside the dictionaries written into the tail;
+ * <li>the fmeId is packed into a long per {@link FmeId} when it's Base56 of at most 10 digits, and
+ * is otherwise written into the tail.
+ * </ul>
+ * The tail holds, in order and only where needed: the fmeId; sourceApplication, postingType and
+ * equipmentType values; then for origin and destination, a point's city, county and stateProvince
+ * value, or an area's stateProvinces (codes, or values) and zones. Strings are a 2-byte length,
+ * {@code 0xFFFF} for null, then UTF-8.
+ * <p>
+ * Records are typically a little over 100 bytes, against several hundred for the object graph.
+ * The layout is versioned; the dictionaries may only be appended to.
+ */
+public final class SimpleAssetCodec
+{
+    /** 3: an absent timestamp is {@link SimpleAsset#NO_TIMESTAMP} rather than 0 */
+    static final byte VERSION = 3;
+
+    static final int FLAG_FME_ID_INLINE = 1;
+
+    /** Location kinds, as stored in the header */
+    public static final byte KIND_NONE = 0;
+    public static final byte KIND_POINT = 1;
+    public static final byte KIND_AREA = 2;
+    public static final byte KIND_OPEN = 3;
+
+    /**
+     * @return the kind of {@code location}
+     * @throws IllegalArgumentException if it has no binary form
+     */
+    public static byte kind(final GeoLocation location)
+    {
+        if (location == null)
+        {
+            return KIND_NONE;
+        }
+        else if (location instanceof Point)
+        {
+            return KIND_POINT;
+        }
+        else if (location instanceof Area)
+        {
+            return KIND_AREA;
+        }
+        else if (location instanceof Open)
+        {
+            return KIND_OPEN;
+        }
+        throw new IllegalArgumentException(
+            String.format("No binary form for %s", location.getClass().getSimpleName()));
+    }
+
+    // Header offsets
+    static final int VERSION_OFFSET = 0;
+    static final int FLAGS = 1;
+    static final int ORIGIN_KIND = 2;
+    static final int DESTINATION_KIND = 3;
+    static final int POSTING_TYPE = 4;
+    static final int EQUIPMENT_TYPE = 5;
+    static final int SOURCE_APPLICATION = 6;
+    static final int FME_ID = 8;
+    static final int USER_ID = 16;
+    static final int OFFICE_ID = 20;
+    static final int COMPANY_ID = 24;
+    static final int GROUP_ID = 28;
+    static final int WHEN_ISSUED = 32;
+    static final int START_DATE = 40;
+    static final int END_DATE = 48;
+    static final int EARLIEST_AVAILABILITY = 56;
+    static final int LATEST_AVAILABILITY = 64;
+    static final int ORIGIN_LATITUDE = 72;
+    static final int ORIGIN_LONGITUDE = 76;
+    static final int DESTINATION_LATITUDE = 80;
+    static final int DESTINATION_LONGITUDE = 84;
+    static final int ORIGIN_STATE = 88;
+    static final int DESTINATION_STATE = 89;
+    static final int TAIL_LENGTH = 90;
+
+    /** Length of the header; the tail starts here */
+    public static final int HEADER_LENGTH = 92;
+
+    static final double COORDINATE_SCALE = 1e6;
+
+    private static final int NULL_STRING = 0xFFFF;
+
+    public static final CodeDictionary POSTING_TYPES = new CodeDictionary("Equipment", "Shipment");
+
+    /** See {@link EquipmentTypes} */
+    public static final CodeDictionary EQUIPMENT_TYPES = EquipmentTypes.DICTIONARY;
+
+    public static final CodeDictionary SOURCE_APPLICATIONS = new CodeDictionary("dat.any", "ftp", "csb");
+
+    public static final CodeDictionary STATE_PROVINCES = new CodeDictionary(
+        "AL", "AK", "AZ", "AR", "CA", "CO", "CT", "DE", "DC", "FL", "GA", "HI", "ID", "IL", "IN", "IA", "KS",
+        "KY", "LA", "ME", "MD", "MA", "MI", "MN", "MS", "MO", "MT", "NE", "NV", "NH", "NJ", "NM", "NY", "NC",
+        "ND", "OH", "OK", "OR", "PA", "RI", "SC", "SD", "TN", "TX", "UT", "VT", "VA", "WA", "WV", "WI", "WY",
+        "AB", "BC", "MB", "NB", "NL", "NS", "NT", "NU", "ON", "PE", "QC", "SK", "YT");
+
+    private static final ThreadLocal<ByteBuffer> SCRATCH = ThreadLocal.withInitial(() -> ByteBuffer.allocate(1024));
+
+    private SimpleAssetCodec()
+    {}
+
+    public static byte[] encode(final SimpleAsset asset)
+    {
+        ByteBuffer scratch = SCRATCH.get();
+        while (true)
+        {
+            scratch.clear();
+            try
+            {
+                encode(asset, scratch);
+                return Arrays.copyOf(scratch.array(), scratch.position());
+            }
+            catch (final BufferOverflowException e)
+            {
+                scratch = ByteBuffer.allocate(scratch.capacity() * 2);
+                SCRATCH.set(scratch);
+            }
+        }
+    }
+
+    /**
+     * Write {@code asset} at {@code dst}'s position, advancing it past the record.
+     *
+     * @throws BufferOverflowException if {@code dst} hasn't room, leaving its position unchanged
+     * @throws IllegalArgumentException if the asset has a location with no binary form, a
+     *             coordinate out of range or a string over 65534 bytes
+     */
+    public static void encode(final SimpleAsset asset, final ByteBuffer dst)
+    {
+        final int start = dst.position();
+        if (dst.remaining() < HEADER_LENGTH)
+        {
+            throw new BufferOverflowException();
+        }
+
+        final long fmeId = FmeId.pack(asset.getFmeId());
+        final int sourceApplication = SOURCE_APPLICATIONS.code(asset.getSourceApplication());
+        final int postingType = POSTING_TYPES.code(asset.getPostingType());
+        final int equipmentType = EQUIPMENT_TYPES.code(asset.getEquipmentType());
+
+        dst.put(start + VERSION_OFFSET, VERSION);
+        dst.put(start + FLAGS, (byte) (fmeId == FmeId.NONE && asset.getFmeId() != null ? FLAG_FME_ID_INLINE : 0));
+        dst.put(start + POSTING_TYPE, (byte) postingType);
+        dst.put(start + EQUIPMENT_TYPE, (byte) equipmentType);
+        dst.put(start + SOURCE_APPLICATION, (byte) sourceApplication);
+        dst.put(start + 7, (byte) 0);
+        dst.putLong(start + FME_ID, fmeId);
+        dst.putInt(start + USER_ID, asset.getUserId());
+        dst.putInt(start + OFFICE_ID, asset.getOfficeId());
+        dst.putInt(start + COMPANY_ID, asset.getCompanyId());
+        dst.putInt(start + GROUP_ID, asset.getGroupId());
+        dst.putLong(start + WHEN_ISSUED, asset.getWhenIssued());
+        dst.putLong(start + START_DATE, asset.getStartDate());
+        dst.putLong(start + END_DATE, asset.getEndDate());
+        dst.putLong(start + EARLIEST_AVAILABILITY, asset.getEarliestAvailability());
+        dst.putLong(start + LATEST_AVAILABILITY, asset.getLatestAvailability());
+        putLocation(dst, start, asset.getOrigin(), ORIGIN_KIND, ORIGIN_LATITUDE, ORIGIN_LONGITUDE, ORIGIN_STATE);
+        putLocation(dst, start, asset.getDestination(), DESTINATION_KIND, DESTINATION_LATITUDE,
+            DESTINATION_LONGITUDE, DESTINATION_STATE);
+
+        try
+        {
+            dst.position(start + HEADER_LENGTH);
+            if (fmeId == FmeId.NONE && asset.getFmeId() != null)
+            {
+                putString(dst, asset.getFmeId());
+            }
+            putInline(dst, sourceApplication, asset.getSourceApplication());
+            putInline(dst, postingType, asset.getPostingType());
+            putInline(dst, equipmentType, asset.getEquipmentType());
+            putLocationTail(dst, asset.getOrigin());
+            putLocationTail(dst, asset.getDestination());
+        }
+        catch (final BufferOverflowException e)
+        {
+            dst.position(start);
+            throw e;
+        }
+
+        final int tailLength = dst.position() - start - HEADER_LENGTH;
+        if (tailLength >= NULL_STRING)
+        {
+            dst.position(start);
+            throw new IllegalArgumentException(String.format("%d bytes of strings won't fit", tailLength));
+        }
+        dst.putShort(start + TAIL_LENGTH, (short) tailLength);
+    }
+
+    public static SimpleAsset decode(final byte[] bytes)
+    {
+        return decode(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Read the record at {@code src}'s position, advancing it past the record.
+     *
+     * @throws IllegalArgumentException if it isn't a record of this version
+     */
+    public static SimpleAsset decode(final ByteBuffer src)
+    {
+        final int start = src.position();
+        if (src.remaining() < HEADER_LENGTH || src.get(start + VERSION_OFFSET) != VERSION)
+        {
+            throw new IllegalArgumentException("Not a SimpleAsset record");
+        }
+
+        final SimpleAsset asset = new SimpleAsset();
+        asset.setUserId(src.getInt(start + USER_ID));
+        asset.setOfficeId(src.getInt(start + OFFICE_ID));
+        asset.setCompanyId(src.getInt(start + COMPANY_ID));
+        asset.setGroupId(src.getInt(start + GROUP_ID));
+        asset.setWhenIssued(src.getLong(start + WHEN_ISSUED));
+        asset.setStartDate(src.getLong(start + START_DATE));
+        asset.setEndDate(src.getLong(start + END_DATE));
+        asset.setEarliestAvailability(src.getLong(start + EARLIEST_AVAILABILITY));
+        asset.setLatestAvailability(src.getLong(start + LATEST_AVAILABILITY));
+
+        src.position(start + HEADER_LENGTH);
+        final long fmeId = src.getLong(start + FME_ID);
+        asset.setFmeId((src.get(start + FLAGS) & FLAG_FME_ID_INLINE) != 0 ? getString(src)
+            : fmeId == FmeId.NONE ? null : FmeId.toString(fmeId));
+        asset.setSourceApplication(getCoded(src, SOURCE_APPLICATIONS, src.get(start + SOURCE_APPLICATION)));
+        asset.setPostingType(getCoded(src, POSTING_TYPES, src.get(start + POSTING_TYPE)));
+        asset.setEquipmentType(getCoded(src, EQUIPMENT_TYPES, src.get(start + EQUIPMENT_TYPE)));
+        asset.setOrigin(getLocation(src, start, ORIGIN_KIND, ORIGIN_LATITUDE, ORIGIN_LONGITUDE, ORIGIN_STATE));
+        asset.setDestination(getLocation(src, start, DESTINATION_KIND, DESTINATION_LATITUDE, DESTINATION_LONGITUDE,
+            DESTINATION_STATE));
+
+        final int end = start + HEADER_LENGTH + (src.getShort(start + TAIL_LENGTH) & 0xFFFF);
+        if (src.position() != end)
+        {
+            throw new IllegalArgumentException("Corrupt SimpleAsset record");
+        }
+        return asset;
+    }
+
+    /**
+     * @return the length of the record at {@code offset}
+     */
+    public static int length(final ByteBuffer src, final int offset)
+    {
+        return HEADER_LENGTH + (src.getShort(offset + TAIL_LENGTH) & 0xFFFF);
+    }
+
+    static double coordinate(final int scaled)
+    {
+        return scaled / COORDINATE_SCALE;
+    }
+
+    private static void putLocation(final ByteBuffer dst, final int start, final GeoLocation location,
+        final int kindOffset, final int latitudeOffset, final int longitudeOffset, final int stateOffset)
+    {
+        final byte kind = kind(location);
+        int latitude = 0;
+        int longitude = 0;
+        int state = CodeDictionary.NULL;
+        if (kind == KIND_POINT)
+        {
+            final Point point = (Point) location;
+            latitude = scale(point.getLatitude(), 90);
+            longitude = scale(point.getLongitude(), 180);
+            state = STATE_PROVINCES.code(point.getStateProvince());
+        }
+
+        dst.put(start + kindOffset, kind);
+        dst.putInt(start + latitudeOffset, latitude);
+        dst.putInt(start + longitudeOffset, longitude);
+        dst.put(start + stateOffset, (byte) state);
+    }
+
+    private static void putLocationTail(final ByteBuffer dst, final GeoLocation location)
+    {
+        if (location instanceof Point)
+        {
+            final Point point = (Point) location;
+            putString(dst, point.getCity());
+            putString(dst, point.getCounty());
+            putInline(dst, STATE_PROVINCES.code(point.getStateProvince()), point.getStateProvince());
+        }
+        else if (location instanceof Area)
+        {
+            final Area area = (Area) location;
+            final String[] states = area.getStateProvinces();
+            putCount(dst, states);
+            if (states != null)
+            {
+                for (final String state : states)
+                {
+                    final int code = STATE_PROVINCES.code(state);
+                    dst.put((byte) code);
+                    putInline(dst, code, state);
+                }
+            }
+
+            final String[] zones = area.getZones();
+            putCount(dst, zones);
+            if (zones != null)
+            {
+                for (final String zone : zones)
+                {
+                    putString(dst, zone);
+                }
+            }
+        }
+    }
+
+    private static GeoLocation getLocation(final ByteBuffer src, final int start, final int kindOffset,
+        final int latitudeOffset, final int longitudeOffset, final int stateOffset)
+    {
+        switch (src.get(start + kindOffset))
+        {
+            case KIND_NONE :
+                return null;
+            case KIND_POINT :
+                final String city = getString(src);
+                final String county = getString(src);
+                final String state = getCoded(src, STATE_PROVINCES, src.get(start + stateOffset));
+                return PlaceDictionary.INSTANCE.canonical(new Point(city, state,
+                    coordinate(src.getInt(start + latitudeOffset)), coordinate(src.getInt(start + longitudeOffset)),
+                    county));
+            case KIND_AREA :
+                String[] states = null;
+                int count = src.getShort() & 0xFFFF;
+                if (count != NULL_STRING)
+                {
+                    states = new String[count];
+                    for (int i = 0; i < count; i++)
+                    {
+                        states[i] = getCoded(src, STATE_PROVINCES, src.get());
+                    }
+                }
+
+                String[] zones = null;
+                count = src.getShort() & 0xFFFF;
+                if (count != NULL_STRING)
+                {
+                    zones = new String[count];
+                    for (int i = 0; i < count; i++)
+                    {
+                        zones[i] = getString(src);
+                    }
+                }
+                return new Area(states, zones);
+            case KIND_OPEN :
+                return new Open();
+            default :
+                throw new IllegalArgumentException("Corrupt SimpleAsset record");
+        }
+    }
+
+    private static int scale(final double degrees, final int limit)
+    {
+        if (!(Math.abs(degrees) <= limit))
+        {
+            throw new IllegalArgumentException(String.format("Coordinate %f is out of range", degrees));
+        }
+        return (int) Math.round(degrees * COORDINATE_SCALE);
+    }
+
+    private static void putInline(final ByteBuffer dst, final int code, final String value)
+    {
+        if (code == CodeDictionary.INLINE)
+        {
+            putString(dst, value);
+        }
+    }
+
+    private static String getCoded(final ByteBuffer src, final CodeDictionary dictionary, final byte code)
+    {
+        final int unsigned = code & 0xFF;
+        return unsigned == CodeDictionary.INLINE ? getString(src) : dictionary.value(unsigned);
+    }
+
+    private static void putCount(final ByteBuffer dst, final String[] values)
+    {
+        if (values != null && values.length >= NULL_STRING)
+        {
+            throw new IllegalArgumentException(String.format("%d values won't fit", values.length));
+        }
+        dst.putShort((short) (values == null ? NULL_STRING : values.length));
+    }
+
+    private static void putString(final ByteBuffer dst, final String value)
+    {
+        if (value == null)
+        {
+            dst.putShort((short) NULL_STRING);
+            return;
+        }
+
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length >= NULL_STRING)
+        {
+            throw new IllegalArgumentException(String.format("%d byte string won't fit", bytes.length));
+        }
+        dst.putShort((short) bytes.length);
+        dst.put(bytes);
+    }
+
+    /**
+     * @return the offset just past the string at {@code offset}
+     */
+    static int skipString(final ByteBuffer src, final int offset)
+    {
+        final int length = src.getShort(offset) & 0xFFFF;
+        return offset + 2 + (length == NULL_STRING ? 0 : length);
+    }
+
+    /**
+     * Read the string at {@code offset} without moving {@code src}'s position.
+     */
+    static String getString(final ByteBuffer src, final int offset)
+    {
+        final ByteBuffer duplicate = src.duplicate();
+        duplicate.position(offset);
+        return getString(duplicate);
+    }
+
+    static String getString(final ByteBuffer src)
+    {
+        final int length = src.getShort() & 0xFFFF;
+        if (length == NULL_STRING)
+        {
+            return null;
+        }
+
+        final String value;
+        if (src.hasArray())
+        {
+            value = new String(src.array(), src.arrayOffset() + src.position(), length, StandardCharsets.UTF_8);
+        }
+        else
+        {
+            final byte[] bytes = new byte[length];
+            src.duplicate().get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        src.position(src.position() + length);
+        return value;
+    }
+}
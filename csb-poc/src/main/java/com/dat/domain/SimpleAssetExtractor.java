@@ -0,0 +1,104 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.domain;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import com.dat.common.json.JsonExtractionPlan;
+import com.dat.common.json.JsonExtractionPlan.Extraction;
+import com.jsoniter.JsonIterator;
+import com.jsoniter.spi.JsonException;
+
+/**
+ * Pulls the fields a {@link SimpleAsset} needs out of a sync event payload in one pass. Each thread
+ * gets its own extractor, reusing its iterator, byte buffer and {@link Extraction} across events.
+ */
+final class SimpleAssetExtractor
+{
+    private static final JsonExtractionPlan.Builder FME = new JsonExtractionPlan.Builder();
+
+    static final int WHEN_ISSUED = FME.timestamp("whenIssued");
+    static final int POSTING_TYPE = FME.text("posting", "defn", "basic", "postingType_schemaVal");
+    static final int EQUIPMENT_TYPE = FME.text("posting", "defn", "basic", "equipmentType");
+    static final int ORIGIN = FME.decoded(GeoLocationDecoder.INSTANCE, "posting", "defn", "basic", "origin");
+    static final int DESTINATION = FME.decoded(GeoLocationDecoder.INSTANCE, "posting", "defn", "basic", "destination");
+    static final int START_DATE = FME.timestamp("posting", "defn", "exposure", "startDate");
+    static final int END_DATE = FME.timestamp("posting", "defn", "exposure", "endDate");
+    static final int EARLIEST_AVAILABILITY = FME.timestamp("posting", "defn", "exposure", "availability", "earliest");
+    static final int LATEST_AVAILABILITY = FME.timestamp("posting", "defn", "exposure", "availability", "latest");
+
+    private static final JsonExtractionPlan DOCUMENT = FME.build("fmCoreSyncNotification", "insert", "fme");
+    private static final JsonExtractionPlan INSERT = FME.build("insert", "fme");
+
+    private static final ThreadLocal<SimpleAssetExtractor> EXTRACTORS = ThreadLocal.withInitial(
+        SimpleAssetExtractor::new);
+
+    private final JsonIterator m_iterator = JsonIterator.parse(new byte[0]);
+
+    private final Extraction m_extraction = DOCUMENT.newExtraction();
+
+    private byte[] m_buffer = new byte[16 * 1024];
+
+    private SimpleAssetExtractor()
+    {}
+
+    static SimpleAssetExtractor get()
+    {
+        return EXTRACTORS.get();
+    }
+
+    /**
+     * @return the captured fields; valid until this thread's next extraction
+     */
+    Extraction extract(final String payloadClassname, final String payload)
+    {
+        if (payload == null)
+        {
+            throw new IllegalArgumentException("No payload found");
+        }
+
+        final JsonExtractionPlan plan = payloadClassname.endsWith("FmCoreSyncNotificationDocument") ? DOCUMENT : INSERT;
+
+        m_iterator.reset(m_buffer, 0, encode(payload));
+        try
+        {
+            plan.extract(m_iterator, m_extraction);
+        }
+        catch (final IOException | JsonException e)
+        {
+            throw new IllegalArgumentException("Unparseable payload", e);
+        }
+        return m_extraction;
+    }
+
+    private int encode(final String payload)
+    {
+        final int length = payload.length();
+        if (m_buffer.length < length)
+        {
+            m_buffer = new byte[Math.max(length, m_buffer.length * 2)];
+        }
+
+        // Payloads are almost always ASCII; copy those straight across
+        for (int i = 0; i < length; i++)
+        {
+            final char ch = payload.charAt(i);
+            if (ch >= 0x80)
+            {
+                final byte[] utf8 = payload.getBytes(StandardCharsets.UTF_8);
+                if (m_buffer.length < utf8.length)
+                {
+                    m_buffer = new byte[utf8.length];
+                }
+                System.arraycopy(utf8, 0, m_buffer, 0, utf8.length);
+                return utf8.length;
+            }
+            m_buffer[i] = (byte) ch;
+        }
+        return length;
+    }
+}
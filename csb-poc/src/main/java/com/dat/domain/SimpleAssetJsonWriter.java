@@ -0,0 +1,266 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.domain;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.jsoniter.output.JsonStream;
+import com.jsoniter.spi.Slice;
+
+/**
+ * Appends {@link SimpleAsset}s as JSON, one per line (NDJSON), to a buffer that is reused from one
+ * batch to the next. Field names are written from precomputed byte literals and values straight
+ * into the buffer, so no String is built per asset; the output parses to the same asset as
+ * {@link SimpleAsset#toJson()}, with fields in declaration order.
+ * <p>
+ * Not thread safe.
+ */
+public final class SimpleAssetJsonWriter
+{
+    private static final byte[] FME_ID = literal("{\"fmeId\":");
+    private static final byte[] SOURCE_APPLICATION = literal(",\"sourceApplication\":");
+    private static final byte[] USER_ID = literal(",\"userId\":");
+    private static final byte[] OFFICE_ID = literal(",\"officeId\":");
+    private static final byte[] COMPANY_ID = literal(",\"companyId\":");
+    private static final byte[] GROUP_ID = literal(",\"groupId\":");
+    private static final byte[] WHEN_ISSUED = literal(",\"whenIssued\":");
+    private static final byte[] POSTING_TYPE = literal(",\"postingType\":");
+    private static final byte[] EQUIPMENT_TYPE = literal(",\"equipmentType\":");
+    private static final byte[] ORIGIN = literal(",\"origin\":");
+    private static final byte[] DESTINATION = literal(",\"destination\":");
+    private static final byte[] START_DATE = literal(",\"startDate\":");
+    private static final byte[] END_DATE = literal(",\"endDate\":");
+    private static final byte[] EARLIEST_AVAILABILITY = literal(",\"earliestAvailability\":");
+    private static final byte[] LATEST_AVAILABILITY = literal(",\"latestAvailability\":");
+
+    private static final byte[] CITY = literal("{\"city\":");
+    private static final byte[] STATE_PROVINCE = literal(",\"stateProvince\":");
+    private static final byte[] LATITUDE = literal(",\"latitude\":");
+    private static final byte[] LONGITUDE = literal(",\"longitude\":");
+    private static final byte[] COUNTY = literal(",\"county\":");
+
+    private static final byte[] STATE_PROVINCES = literal("{\"stateProvinces\":");
+    private static final byte[] ZONES = literal(",\"zones\":");
+
+    private static final byte[] OPEN = literal("{\"isOpen\":true}");
+
+    private static final IsoTimestampEncoder TIMESTAMP_ENCODER = new IsoTimestampEncoder();
+
+    /** Has no output stream, so it grows its buffer rather than flushing it */
+    private final JsonStream m_stream;
+
+    private int m_count;
+
+    public SimpleAssetJsonWriter()
+    {
+        this(64 * 1024);
+    }
+
+    public SimpleAssetJsonWriter(final int initialCapacity)
+    {
+        m_stream = new JsonStream(null, initialCapacity);
+    }
+
+    /**
+     * Append {@code asset} as one line of NDJSON.
+     */
+    public void write(final SimpleAsset asset)
+    {
+        writeObject(asset);
+        try
+        {
+            m_stream.write('\n');
+        }
+        catch (final IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Append {@code asset} as a JSON object, without a line separator.
+     */
+    public void writeObject(final SimpleAsset asset)
+    {
+        try
+        {
+            final JsonStream stream = m_stream;
+            literal(stream, FME_ID);
+            stream.writeVal(asset.getFmeId());
+            literal(stream, SOURCE_APPLICATION);
+            stream.writeVal(asset.getSourceApplication());
+            literal(stream, USER_ID);
+            stream.writeVal(asset.getUserId());
+            literal(stream, OFFICE_ID);
+            stream.writeVal(asset.getOfficeId());
+            literal(stream, COMPANY_ID);
+            stream.writeVal(asset.getCompanyId());
+            literal(stream, GROUP_ID);
+            stream.writeVal(asset.getGroupId());
+            literal(stream, WHEN_ISSUED);
+            TIMESTAMP_ENCODER.encodeLong(asset.getWhenIssued(), stream);
+            literal(stream, POSTING_TYPE);
+            stream.writeVal(asset.getPostingType());
+            literal(stream, EQUIPMENT_TYPE);
+            stream.writeVal(asset.getEquipmentType());
+            literal(stream, ORIGIN);
+            writeLocation(stream, asset.getOrigin());
+            literal(stream, DESTINATION);
+            writeLocation(stream, asset.getDestination());
+            literal(stream, START_DATE);
+            TIMESTAMP_ENCODER.encodeLong(asset.getStartDate(), stream);
+            literal(stream, END_DATE);
+            TIMESTAMP_ENCODER.encodeLong(asset.getEndDate(), stream);
+            literal(stream, EARLIEST_AVAILABILITY);
+            TIMESTAMP_ENCODER.encodeLong(asset.getEarliestAvailability(), stream);
+            literal(stream, LATEST_AVAILABILITY);
+            TIMESTAMP_ENCODER.encodeLong(asset.getLatestAvailability(), stream);
+            stream.write('}');
+        }
+        catch (final IOException e)
+        {
+            // Nothing to flush to, so nothing to fail
+            throw new UncheckedIOException(e);
+        }
+        m_count++;
+    }
+
+    /**
+     * @return assets written since the last {@link #clear()}
+     */
+    public int count()
+    {
+        return m_count;
+    }
+
+    /**
+     * @return bytes written since the last {@link #clear()}
+     */
+    public int size()
+    {
+        return m_stream.buffer().tail();
+    }
+
+    /**
+     * @return the buffer, valid from 0 to {@link #size()} until the next write or clear
+     */
+    public byte[] buffer()
+    {
+        return m_stream.buffer().data();
+    }
+
+    /**
+     * Discard what has been written, keeping the buffer.
+     */
+    public void clear()
+    {
+        m_stream.reset(null);
+        m_count = 0;
+    }
+
+    public void writeTo(final OutputStream out) throws IOException
+    {
+        final Slice written = m_stream.buffer();
+        out.write(written.data(), 0, written.tail());
+    }
+
+    /**
+     * @throws java.nio.BufferOverflowException if {@code dst} has less than {@link #size()} bytes remaining
+     */
+    public void writeTo(final ByteBuffer dst)
+    {
+        final Slice written = m_stream.buffer();
+        dst.put(written.data(), 0, written.tail());
+    }
+
+    public byte[] toByteArray()
+    {
+        final Slice written = m_stream.buffer();
+        return Arrays.copyOf(written.data(), written.tail());
+    }
+
+    private static void writeLocation(final JsonStream stream, final GeoLocation location) throws IOException
+    {
+        if (location == null)
+        {
+            stream.writeNull();
+        }
+        else if (location instanceof Point)
+        {
+            final Point point = (Point) location;
+            literal(stream, CITY);
+            stream.writeVal(point.getCity());
+            literal(stream, STATE_PROVINCE);
+            stream.writeVal(point.getStateProvince());
+            literal(stream, LATITUDE);
+            stream.writeVal(point.getLatitude());
+            literal(stream, LONGITUDE);
+            stream.writeVal(point.getLongitude());
+            literal(stream, COUNTY);
+            stream.writeVal(point.getCounty());
+            stream.write('}');
+        }
+        else if (location instanceof Area)
+        {
+            final Area area = (Area) location;
+            literal(stream, STATE_PROVINCES);
+            writeStrings(stream, area.getStateProvinces());
+            literal(stream, ZONES);
+            writeStrings(stream, area.getZones());
+            stream.write('}');
+        }
+        else if (location instanceof Open)
+        {
+            literal(stream, OPEN);
+        }
+        else
+        {
+            // A subtype registered elsewhere; let jsoniter bind it
+            writeOther(stream, location);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void writeOther(final JsonStream stream, final GeoLocation location) throws IOException
+    {
+        stream.writeVal((Class<Object>) (Class<?>) location.getClass(), location);
+    }
+
+    private static void writeStrings(final JsonStream stream, final String[] values) throws IOException
+    {
+        if (values == null)
+        {
+            stream.writeNull();
+            return;
+        }
+
+        stream.write('[');
+        for (int i = 0; i < values.length; i++)
+        {
+            if (i > 0)
+            {
+                stream.write(',');
+            }
+            stream.writeVal(values[i]);
+        }
+        stream.write(']');
+    }
+
+    private static void literal(final JsonStream stream, final byte[] bytes) throws IOException
+    {
+        stream.write(bytes, 0, bytes.length);
+    }
+
+    private static byte[] literal(final String text)
+    {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
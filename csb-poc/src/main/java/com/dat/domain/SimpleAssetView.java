@@ -0,0 +1,307 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.domain;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Flyweight over a {@link SimpleAssetCodec} record in a {@link ByteBuffer}, which may be direct or
+ * memory-mapped. Fixed-width fields are read in place when asked for, so one instance can be moved
+ * along a buffer of records and filter them without creating an object per record:
+ *
+ * <pre>
+ * final int reefer = SimpleAssetCodec.EQUIPMENT_TYPES.code("R");
+ * for (boolean more = view.wrap(buffer, 0); more; more = view.next())
+ * {
+ *     if (view.getEquipmentTypeCode() == reefer &amp;&amp; view.isAvailableAt(time))
+ *     ...
+ * }
+ * </pre>
+ *
+ * Only the String getters and {@link #toSimpleAsset()} allocate. The buffer's position and limit
+ * are never changed. Not thread safe.
+ */
+public final class SimpleAssetView
+{
+    private ByteBuffer m_buffer;
+
+    private int m_offset;
+
+    /**
+     * Point the view at the record at {@code offset}.
+     *
+     * @return false, leaving the view unusable, if {@code offset} is at or past the buffer's limit
+     * @throws IllegalArgumentException if there is something other than a record there
+     */
+    public boolean wrap(final ByteBuffer buffer, final int offset)
+    {
+        m_buffer = buffer;
+        m_offset = offset;
+        if (offset >= buffer.limit())
+        {
+            return false;
+        }
+        if (buffer.limit() - offset < SimpleAssetCodec.HEADER_LENGTH
+            || buffer.get(offset + SimpleAssetCodec.VERSION_OFFSET) != SimpleAssetCodec.VERSION)
+        {
+            throw new IllegalArgumentException(String.format("No SimpleAsset record at %d", offset));
+        }
+        return true;
+    }
+
+    /**
+     * Move to the record following this one.
+     *
+     * @return false if there isn't one
+     */
+    public boolean next()
+    {
+        return wrap(m_buffer, m_offset + length());
+    }
+
+    public int offset()
+    {
+        return m_offset;
+    }
+
+    /**
+     * @return the length of the record, header and tail
+     */
+    public int length()
+    {
+        return SimpleAssetCodec.length(m_buffer, m_offset);
+    }
+
+    /**
+     * @return the fmeId packed per {@link FmeId}, or {@link FmeId#NONE} if it is null or couldn't be
+     *         packed; see {@link #getFmeId()}
+     */
+    public long getPackedFmeId()
+    {
+        return m_buffer.getLong(m_offset + SimpleAssetCodec.FME_ID);
+    }
+
+    public String getFmeId()
+    {
+        if (isFmeIdInline())
+        {
+            return SimpleAssetCodec.getString(m_buffer, m_offset + SimpleAssetCodec.HEADER_LENGTH);
+        }
+        final long packed = getPackedFmeId();
+        return packed == FmeId.NONE ? null : FmeId.toString(packed);
+    }
+
+    public int getUserId()
+    {
+        return m_buffer.getInt(m_offset + SimpleAssetCodec.USER_ID);
+    }
+
+    public int getOfficeId()
+    {
+        return m_buffer.getInt(m_offset + SimpleAssetCodec.OFFICE_ID);
+    }
+
+    public int getCompanyId()
+    {
+        return m_buffer.getInt(m_offset + SimpleAssetCodec.COMPANY_ID);
+    }
+
+    public int getGroupId()
+    {
+        return m_buffer.getInt(m_offset + SimpleAssetCodec.GROUP_ID);
+    }
+
+    public long getWhenIssued()
+    {
+        return m_buffer.getLong(m_offset + SimpleAssetCodec.WHEN_ISSUED);
+    }
+
+    public long getStartDate()
+    {
+        return m_buffer.getLong(m_offset + SimpleAssetCodec.START_DATE);
+    }
+
+    public long getEndDate()
+    {
+        return m_buffer.getLong(m_offset + SimpleAssetCodec.END_DATE);
+    }
+
+    public long getEarliestAvailability()
+    {
+        return m_buffer.getLong(m_offset + SimpleAssetCodec.EARLIEST_AVAILABILITY);
+    }
+
+    public long getLatestAvailability()
+    {
+        return m_buffer.getLong(m_offset + SimpleAssetCodec.LATEST_AVAILABILITY);
+    }
+
+    /**
+     * @return true if {@code time} (epoch millis) falls within the availability window, inclusive,
+     *         with a missing bound open-ended as in {@link com.dat.store.AvailabilityIndex}
+     */
+    public boolean isAvailableAt(final long time)
+    {
+        final long earliest = getEarliestAvailability();
+        final long latest = getLatestAvailability();
+        return (earliest == SimpleAsset.NO_TIMESTAMP || earliest <= time)
+            && (latest == SimpleAsset.NO_TIMESTAMP || time <= latest);
+    }
+
+    /**
+     * @return the {@link SimpleAssetCodec#SOURCE_APPLICATIONS} code
+     */
+    public int getSourceApplicationCode()
+    {
+        return code(SimpleAssetCodec.SOURCE_APPLICATION);
+    }
+
+    /**
+     * @return the {@link SimpleAssetCodec#POSTING_TYPES} code
+     */
+    public int getPostingTypeCode()
+    {
+        return code(SimpleAssetCodec.POSTING_TYPE);
+    }
+
+    /**
+     * @return the {@link SimpleAssetCodec#EQUIPMENT_TYPES} code
+     */
+    public int getEquipmentTypeCode()
+    {
+        return code(SimpleAssetCodec.EQUIPMENT_TYPE);
+    }
+
+    public String getSourceApplication()
+    {
+        final int code = getSourceApplicationCode();
+        return code == CodeDictionary.INLINE ? SimpleAssetCodec.getString(m_buffer, skipFmeId())
+            : SimpleAssetCodec.SOURCE_APPLICATIONS.value(code);
+    }
+
+    public String getPostingType()
+    {
+        final int code = getPostingTypeCode();
+        return code == CodeDictionary.INLINE ? SimpleAssetCodec.getString(m_buffer, skipSourceApplication())
+            : SimpleAssetCodec.POSTING_TYPES.value(code);
+    }
+
+    public String getEquipmentType()
+    {
+        final int code = getEquipmentTypeCode();
+        return code == CodeDictionary.INLINE ? SimpleAssetCodec.getString(m_buffer, skipPostingType())
+            : SimpleAssetCodec.EQUIPMENT_TYPES.value(code);
+    }
+
+    public boolean isOriginPoint()
+    {
+        return m_buffer.get(m_offset + SimpleAssetCodec.ORIGIN_KIND) == SimpleAssetCodec.KIND_POINT;
+    }
+
+    public boolean isOriginOpen()
+    {
+        return m_buffer.get(m_offset + SimpleAssetCodec.ORIGIN_KIND) == SimpleAssetCodec.KIND_OPEN;
+    }
+
+    /**
+     * @return the origin's latitude if it is a point, otherwise 0
+     */
+    public double getOriginLatitude()
+    {
+        return SimpleAssetCodec.coordinate(m_buffer.getInt(m_offset + SimpleAssetCodec.ORIGIN_LATITUDE));
+    }
+
+    /**
+     * @return the origin's longitude if it is a point, otherwise 0
+     */
+    public double getOriginLongitude()
+    {
+        return SimpleAssetCodec.coordinate(m_buffer.getInt(m_offset + SimpleAssetCodec.ORIGIN_LONGITUDE));
+    }
+
+    /**
+     * @return the {@link SimpleAssetCodec#STATE_PROVINCES} code of the origin if it is a point
+     */
+    public int getOriginStateCode()
+    {
+        return code(SimpleAssetCodec.ORIGIN_STATE);
+    }
+
+    public boolean isDestinationPoint()
+    {
+        return m_buffer.get(m_offset + SimpleAssetCodec.DESTINATION_KIND) == SimpleAssetCodec.KIND_POINT;
+    }
+
+    public boolean isDestinationOpen()
+    {
+        return m_buffer.get(m_offset + SimpleAssetCodec.DESTINATION_KIND) == SimpleAssetCodec.KIND_OPEN;
+    }
+
+    /**
+     * @return the destination's latitude if it is a point, otherwise 0
+     */
+    public double getDestinationLatitude()
+    {
+        return SimpleAssetCodec.coordinate(m_buffer.getInt(m_offset + SimpleAssetCodec.DESTINATION_LATITUDE));
+    }
+
+    /**
+     * @return the destination's longitude if it is a point, otherwise 0
+     */
+    public double getDestinationLongitude()
+    {
+        return SimpleAssetCodec.coordinate(m_buffer.getInt(m_offset + SimpleAssetCodec.DESTINATION_LONGITUDE));
+    }
+
+    /**
+     * @return the {@link SimpleAssetCodec#STATE_PROVINCES} code of the destination if it is a point
+     */
+    public int getDestinationStateCode()
+    {
+        return code(SimpleAssetCodec.DESTINATION_STATE);
+    }
+
+    /**
+     * @return the whole record, decoded
+     */
+    public SimpleAsset toSimpleAsset()
+    {
+        final ByteBuffer record = m_buffer.duplicate();
+        record.position(m_offset);
+        return SimpleAssetCodec.decode(record);
+    }
+
+    private int code(final int field)
+    {
+        return m_buffer.get(m_offset + field) & 0xFF;
+    }
+
+    private boolean isFmeIdInline()
+    {
+        return (m_buffer.get(m_offset + SimpleAssetCodec.FLAGS) & SimpleAssetCodec.FLAG_FME_ID_INLINE) != 0;
+    }
+
+    // The tail's leading strings, each present only when inline
+
+    private int skipFmeId()
+    {
+        final int tail = m_offset + SimpleAssetCodec.HEADER_LENGTH;
+        return isFmeIdInline() ? SimpleAssetCodec.skipString(m_buffer, tail) : tail;
+    }
+
+    private int skipSourceApplication()
+    {
+        final int offset = skipFmeId();
+        return getSourceApplicationCode() == CodeDictionary.INLINE ? SimpleAssetCodec.skipString(m_buffer, offset)
+            : offset;
+    }
+
+    private int skipPostingType()
+    {
+        final int offset = skipSourceApplication();
+        return getPostingTypeCode() == CodeDictionary.INLINE ? SimpleAssetCodec.skipString(m_buffer, offset) : offset;
+    }
+}
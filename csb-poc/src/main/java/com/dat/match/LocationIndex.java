@@ -0,0 +1,169 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.match;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.dat.domain.Area;
+import com.dat.domain.GeoLocation;
+import com.dat.domain.GreatCircle;
+import com.dat.domain.Open;
+import com.dat.domain.Point;
+import com.dat.store.AreaIndex;
+import com.dat.store.OrdinalBitmap;
+import com.dat.store.PointGridIndex;
+
+/**
+ * One end (origin or destination) of one side's assets, indexed every way a location can be asked
+ * for: points by position and by state, areas by state and zone, and open locations.
+ */
+final class LocationIndex
+{
+    private final PointGridIndex m_points = new PointGridIndex();
+
+    private final Map<String, OrdinalBitmap> m_pointStates = new HashMap<>();
+
+    private final AreaIndex m_areas = new AreaIndex();
+
+    private final OrdinalBitmap m_all = new OrdinalBitmap();
+
+    // Indexed by ordinal
+    private GeoLocation[] m_locations = new GeoLocation[0];
+    private GreatCircle.Position[] m_positions = new GreatCircle.Position[0];
+
+    /** Scratch for the ordinals of a radius query */
+    private int[] m_nearbyOrdinals = new int[64];
+
+    private int m_nearby;
+
+    void put(final int ordinal, final GeoLocation location)
+    {
+        remove(ordinal);
+        if (location == null)
+        {
+            return;
+        }
+
+        if (ordinal >= m_locations.length)
+        {
+            m_locations = Arrays.copyOf(m_locations, Math.max(ordinal + 1, Math.max(16, m_locations.length * 2)));
+            m_positions = Arrays.copyOf(m_positions, m_locations.length);
+        }
+        m_locations[ordinal] = location;
+        m_all.add(ordinal);
+        if (location instanceof Point)
+        {
+            final Point point = (Point) location;
+            m_points.put(ordinal, point);
+            m_positions[ordinal] = GreatCircle.Position.of(point);
+            if (point.getStateProvince() != null)
+            {
+                m_pointStates.computeIfAbsent(point.getStateProvince(), k -> new OrdinalBitmap()).add(ordinal);
+            }
+        }
+        else
+        {
+            m_areas.put(ordinal, location);
+        }
+    }
+
+    void remove(final int ordinal)
+    {
+        if (ordinal >= m_locations.length || m_locations[ordinal] == null)
+        {
+            return;
+        }
+
+        final GeoLocation location = m_locations[ordinal];
+        if (location instanceof Point)
+        {
+            m_points.remove(ordinal);
+            final String state = ((Point) location).getStateProvince();
+            final OrdinalBitmap states = state == null ? null : m_pointStates.get(state);
+            if (states != null)
+            {
+                states.remove(ordinal);
+            }
+        }
+        else
+        {
+            m_areas.remove(ordinal);
+        }
+        m_all.remove(ordinal);
+        m_locations[ordinal] = null;
+        m_positions[ordinal] = null;
+    }
+
+    /**
+     * @return the ordinals whose location is compatible with {@code location}: points within
+     *         {@code radiusMiles} of a point, anything sharing a state or zone with an area, and
+     *         anything at all for open
+     */
+    OrdinalBitmap compatible(final GeoLocation location, final double radiusMiles)
+    {
+        if (location instanceof Point)
+        {
+            final Point point = (Point) location;
+            // Points come back in grid order; sorted, they go into the bitmap as appends
+            m_nearby = 0;
+            m_points.within(point.getLatitude(), point.getLongitude(), radiusMiles, this::nearby);
+            Arrays.sort(m_nearbyOrdinals, 0, m_nearby);
+            final OrdinalBitmap compatible = new OrdinalBitmap();
+            for (int i = 0; i < m_nearby; i++)
+            {
+                compatible.add(m_nearbyOrdinals[i]);
+            }
+            return compatible.or(m_areas.matchingState(point.getStateProvince()));
+        }
+        else if (location instanceof Area)
+        {
+            final Area area = (Area) location;
+            final String[] states = area.getStateProvinces() == null ? new String[0] : area.getStateProvinces();
+            final String[] zones = area.getZones() == null ? new String[0] : area.getZones();
+            final OrdinalBitmap[] pointStates = new OrdinalBitmap[states.length];
+            for (int i = 0; i < states.length; i++)
+            {
+                pointStates[i] = m_pointStates.get(states[i]);
+            }
+            return OrdinalBitmap.union(m_areas.anyState(states), m_areas.anyZone(zones),
+                OrdinalBitmap.union(pointStates));
+        }
+        else if (location instanceof Open)
+        {
+            return m_all.or(new OrdinalBitmap());
+        }
+        return new OrdinalBitmap();
+    }
+
+    private void nearby(final int ordinal)
+    {
+        if (m_nearby == m_nearbyOrdinals.length)
+        {
+            m_nearbyOrdinals = Arrays.copyOf(m_nearbyOrdinals, m_nearby * 2);
+        }
+        m_nearbyOrdinals[m_nearby++] = ordinal;
+    }
+
+    /**
+     * @return great-circle miles from {@code from} to the point indexed for {@code ordinal} if both
+     *         are points, otherwise {@code radiusMiles}
+     */
+    double miles(final GreatCircle.Position from, final int ordinal, final double radiusMiles)
+    {
+        final GreatCircle.Position to = m_positions[ordinal];
+        return from != null && to != null ? GreatCircle.haversineMiles(from, to) : radiusMiles;
+    }
+
+    /**
+     * @return {@code location}'s position if it is a point, otherwise null
+     */
+    static GreatCircle.Position position(final GeoLocation location)
+    {
+        return location instanceof Point ? GreatCircle.Position.of((Point) location) : null;
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.match;
+
+import com.dat.domain.SimpleAsset;
+
+import lombok.Value;
+
+/**
+ * One counterpart found for an asset by the {@link MatchEngine}. Distances are great-circle miles
+ * between points; where either side is an area or open, the match is taken to be as far as the
+ * radius allows, so exact points rank first.
+ */
+@Value
+public class Match implements Comparable<Match>
+{
+    private final SimpleAsset counterpart;
+
+    private final double originMiles;
+
+    private final double destinationMiles;
+
+    /**
+     * @return the miles to rank by: origin deadhead plus destination distance, less being better
+     */
+    public double getMiles()
+    {
+        return originMiles + destinationMiles;
+    }
+
+    @Override
+    public int compareTo(final Match other)
+    {
+        return compare(originMiles, destinationMiles, other);
+    }
+
+    /**
+     * {@link #compareTo} for a match not yet made, so a candidate can be ranked before one is
+     * allocated for it.
+     */
+    static int compare(final double originMiles, final double destinationMiles, final Match other)
+    {
+        final int byMiles = Double.compare(originMiles + destinationMiles, other.getMiles());
+        return byMiles != 0 ? byMiles : Double.compare(originMiles, other.originMiles);
+    }
+}
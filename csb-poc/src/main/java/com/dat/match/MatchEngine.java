@@ -0,0 +1,396 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.match;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import com.dat.domain.AssetType;
+import com.dat.domain.CodeDictionary;
+import com.dat.domain.EquipmentTypes;
+import com.dat.domain.FmeId;
+import com.dat.domain.GreatCircle;
+import com.dat.domain.SimpleAsset;
+import com.dat.store.AvailabilityIndex;
+import com.dat.store.Long2IntMap;
+import com.dat.store.OrdinalBitmap;
+import com.dat.sync.SyncEvent;
+
+/**
+ * Matches shipments to equipment, and equipment to shipments, as assets arrive. Each live asset,
+ * keyed by its {@link FmeId packed} fmeId, gets a dense ordinal and is indexed, by origin and by
+ * destination, on its own side. An asset put is matched against the other side:
+ * <ul>
+ * <li>origins compatible: points within {@link #getOriginRadiusMiles()}, or sharing a state or
+ * zone with an area, or open;
+ * <li>destinations compatible likewise, within {@link #getDestinationRadiusMiles()};
+ * <li>equipment types compatible, per {@link EquipmentTypes};
+ * <li>availability windows overlapping, bounds inclusive and a missing bound open-ended.
+ * </ul>
+ * Candidates come from intersecting the location and availability bitmaps; equipment and exact dates
+ * are then checked per candidate. Matches are ranked by {@link Match#compareTo} and at most
+ * {@link #getMaxMatches()} are kept. An update, cancel or delete retracts the asset's matches through
+ * the {@link MatchListener}.
+ * <p>
+ * A put's work is bounded, whatever the density of the book: at most {@link #getMaxCandidates()}
+ * candidates are checked, in ordinal order, and the best matches among them are kept in a heap of
+ * {@link #getMaxMatches()} rather than all being collected and sorted. A put that hits the limit
+ * (see {@link #getCappedPuts()}) returns the best of the candidates it checked, which need not be
+ * the best in the book.
+ * <p>
+ * Not thread safe.
+ */
+public final class MatchEngine
+{
+    public static final double DEFAULT_ORIGIN_RADIUS_MILES = 150;
+
+    public static final double DEFAULT_DESTINATION_RADIUS_MILES = 150;
+
+    public static final int DEFAULT_MAX_MATCHES = 50;
+
+    public static final int DEFAULT_MAX_CANDIDATES = 10_000;
+
+    private final double m_originRadiusMiles;
+
+    private final double m_destinationRadiusMiles;
+
+    private final int m_maxMatches;
+
+    private final int m_maxCandidates;
+
+    private long m_cappedPuts;
+
+    private final MatchListener m_listener;
+
+    private final Side m_shipments = new Side();
+
+    private final Side m_equipment = new Side();
+
+    private final Long2IntMap m_ordinals = new Long2IntMap();
+
+    /** Ordinals given up by removed assets, to be reused so ordinals stay dense */
+    private int[] m_free = new int[16];
+
+    private int m_freeCount;
+
+    private int m_nextOrdinal;
+
+    // Indexed by ordinal
+    private SimpleAsset[] m_assets = new SimpleAsset[16];
+    private int[] m_equipmentTypes = new int[16];
+    private Side[] m_sides = new Side[16];
+    private OrdinalBitmap[] m_matched = new OrdinalBitmap[16];
+
+    public MatchEngine()
+    {
+        this(DEFAULT_ORIGIN_RADIUS_MILES, DEFAULT_DESTINATION_RADIUS_MILES, DEFAULT_MAX_MATCHES, MatchListener.NONE);
+    }
+
+    public MatchEngine(final double originRadiusMiles, final double destinationRadiusMiles, final int maxMatches,
+        final MatchListener listener)
+    {
+        this(originRadiusMiles, destinationRadiusMiles, maxMatches, DEFAULT_MAX_CANDIDATES, listener);
+    }
+
+    public MatchEngine(final double originRadiusMiles, final double destinationRadiusMiles, final int maxMatches,
+        final int maxCandidates, final MatchListener listener)
+    {
+        if (!(originRadiusMiles >= 0 && destinationRadiusMiles >= 0) || maxMatches < 1 || maxCandidates < 1)
+        {
+            throw new IllegalArgumentException(String.format("Bad radius (%f, %f) or limits (%d, %d)",
+                originRadiusMiles, destinationRadiusMiles, maxMatches, maxCandidates));
+        }
+        m_originRadiusMiles = originRadiusMiles;
+        m_destinationRadiusMiles = destinationRadiusMiles;
+        m_maxMatches = maxMatches;
+        m_maxCandidates = maxCandidates;
+        m_listener = listener;
+    }
+
+    /**
+     * Apply one event: inserts and updates are put, cancels, deletes and archives removed, and
+     * anything else ignored.
+     *
+     * @return the matches for the event's asset, if it was put
+     */
+    public List<Match> apply(final SyncEvent event)
+    {
+        switch (event.getAction())
+        {
+            case insert :
+            case update :
+                return put(new SimpleAsset(event));
+            case cancel :
+            case delete :
+            case archive :
+                remove(event.getFmeId());
+                return Collections.emptyList();
+            default :
+                return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Add or replace {@code asset} and match it against the other side. Replacing retracts the old
+     * matches first. An asset that is neither a shipment nor equipment is only removed.
+     *
+     * @return its matches, best first
+     * @throws IllegalArgumentException if it has no fmeId, or one that doesn't pack, or a point out of
+     *         coordinate range; the engine is left as it was
+     */
+    public List<Match> put(final SimpleAsset asset)
+    {
+        final long fmeId = FmeId.pack(asset.getFmeId());
+        if (fmeId == FmeId.NONE)
+        {
+            throw new IllegalArgumentException(String.format("Asset has no packable fmeId: %s", asset.getFmeId()));
+        }
+
+        final Side side = side(asset.getPostingType());
+        if (side == null)
+        {
+            remove(fmeId);
+            return Collections.emptyList();
+        }
+
+        // Before anything changes, as indexing a point out of range throws
+        final GreatCircle.Position origin = LocationIndex.position(asset.getOrigin());
+        final GreatCircle.Position destination = LocationIndex.position(asset.getDestination());
+        remove(fmeId);
+
+        final int ordinal = allocate();
+        m_ordinals.put(fmeId, ordinal);
+        m_assets[ordinal] = asset;
+        m_equipmentTypes[ordinal] = EquipmentTypes.code(asset.getEquipmentType());
+        m_sides[ordinal] = side;
+        side.put(ordinal, asset);
+
+        final List<Match> matches = match(asset, origin, destination, side == m_shipments ? m_equipment : m_shipments);
+        for (final Match match : matches)
+        {
+            final int counterpart = m_ordinals.get(FmeId.pack(match.getCounterpart().getFmeId()));
+            matched(ordinal).add(counterpart);
+            matched(counterpart).add(ordinal);
+        }
+        return matches;
+    }
+
+    /**
+     * Remove the asset for {@code fmeId}, retracting its matches.
+     *
+     * @return false if there was none
+     */
+    public boolean remove(final String fmeId)
+    {
+        return remove(FmeId.pack(fmeId));
+    }
+
+    /**
+     * Remove the asset for the {@link FmeId packed} {@code fmeId}, retracting its matches.
+     *
+     * @return false if there was none
+     */
+    public boolean remove(final long fmeId)
+    {
+        final int ordinal = m_ordinals.remove(fmeId);
+        if (ordinal < 0)
+        {
+            return false;
+        }
+        final String removed = m_assets[ordinal].getFmeId();
+
+        final OrdinalBitmap matched = m_matched[ordinal];
+        if (matched != null)
+        {
+            matched.forEach(counterpart ->
+            {
+                m_matched[counterpart].remove(ordinal);
+                m_listener.retracted(removed, m_assets[counterpart].getFmeId());
+            });
+            m_matched[ordinal] = null;
+        }
+
+        m_sides[ordinal].remove(ordinal);
+        m_sides[ordinal] = null;
+        m_assets[ordinal] = null;
+        release(ordinal);
+        return true;
+    }
+
+    /**
+     * @return live assets
+     */
+    public int size()
+    {
+        return m_ordinals.size();
+    }
+
+    /**
+     * @return the number of live matches {@code fmeId} is part of
+     */
+    public int matchCount(final String fmeId)
+    {
+        final int ordinal = m_ordinals.get(FmeId.pack(fmeId));
+        return ordinal < 0 || m_matched[ordinal] == null ? 0 : m_matched[ordinal].cardinality();
+    }
+
+    public double getOriginRadiusMiles()
+    {
+        return m_originRadiusMiles;
+    }
+
+    public double getDestinationRadiusMiles()
+    {
+        return m_destinationRadiusMiles;
+    }
+
+    public int getMaxMatches()
+    {
+        return m_maxMatches;
+    }
+
+    public int getMaxCandidates()
+    {
+        return m_maxCandidates;
+    }
+
+    /**
+     * @return how many puts had more than {@link #getMaxCandidates()} candidates, and so checked
+     *         only that many
+     */
+    public long getCappedPuts()
+    {
+        return m_cappedPuts;
+    }
+
+    private List<Match> match(final SimpleAsset asset, final GreatCircle.Position origin,
+        final GreatCircle.Position destination, final Side other)
+    {
+        final long earliest = asset.getEarliestAvailability();
+        final long latest = asset.getLatestAvailability();
+        final OrdinalBitmap candidates = other.m_origins.compatible(asset.getOrigin(), m_originRadiusMiles)
+            .and(other.m_destinations.compatible(asset.getDestination(), m_destinationRadiusMiles))
+            .and(other.m_availability.candidates(earliest, latest));
+
+        final int equipmentType = EquipmentTypes.code(asset.getEquipmentType());
+
+        // Worst first, so the match to drop is at the head
+        final PriorityQueue<Match> best = new PriorityQueue<>(Math.min(m_maxMatches, 64), Collections.reverseOrder());
+        final int[] checked = new int[1];
+        final boolean all = candidates.forEachWhile(candidate ->
+        {
+            if (checked[0]++ == m_maxCandidates)
+            {
+                return false;
+            }
+            final SimpleAsset counterpart = m_assets[candidate];
+            final boolean equipment = equipmentType == CodeDictionary.INLINE
+                ? asset.getEquipmentType().equals(counterpart.getEquipmentType())
+                : EquipmentTypes.compatible(equipmentType, m_equipmentTypes[candidate]);
+            if (equipment && other.m_availability.overlaps(candidate, earliest, latest))
+            {
+                final double originMiles = other.m_origins.miles(origin, candidate, m_originRadiusMiles);
+                final double destinationMiles = other.m_destinations.miles(destination, candidate,
+                    m_destinationRadiusMiles);
+                if (best.size() < m_maxMatches)
+                {
+                    best.add(new Match(counterpart, originMiles, destinationMiles));
+                }
+                else if (Match.compare(originMiles, destinationMiles, best.peek()) < 0)
+                {
+                    best.poll();
+                    best.add(new Match(counterpart, originMiles, destinationMiles));
+                }
+            }
+            return true;
+        });
+        if (!all)
+        {
+            m_cappedPuts++;
+        }
+
+        final List<Match> matches = new ArrayList<>(best);
+        Collections.sort(matches);
+        return matches;
+    }
+
+    private Side side(final String postingType)
+    {
+        if (AssetType.Shipment.name().equals(postingType))
+        {
+            return m_shipments;
+        }
+        if (AssetType.Equipment.name().equals(postingType))
+        {
+            return m_equipment;
+        }
+        return null;
+    }
+
+    private OrdinalBitmap matched(final int ordinal)
+    {
+        if (m_matched[ordinal] == null)
+        {
+            m_matched[ordinal] = new OrdinalBitmap();
+        }
+        return m_matched[ordinal];
+    }
+
+    private int allocate()
+    {
+        if (m_freeCount > 0)
+        {
+            return m_free[--m_freeCount];
+        }
+        if (m_nextOrdinal == m_assets.length)
+        {
+            final int capacity = m_assets.length * 2;
+            m_assets = Arrays.copyOf(m_assets, capacity);
+            m_equipmentTypes = Arrays.copyOf(m_equipmentTypes, capacity);
+            m_sides = Arrays.copyOf(m_sides, capacity);
+            m_matched = Arrays.copyOf(m_matched, capacity);
+        }
+        return m_nextOrdinal++;
+    }
+
+    private void release(final int ordinal)
+    {
+        if (m_freeCount == m_free.length)
+        {
+            m_free = Arrays.copyOf(m_free, m_freeCount * 2);
+        }
+        m_free[m_freeCount++] = ordinal;
+    }
+
+    /**
+     * The live assets of one posting type, indexed by origin, destination and availability.
+     */
+    private static final class Side
+    {
+        private final LocationIndex m_origins = new LocationIndex();
+
+        private final LocationIndex m_destinations = new LocationIndex();
+
+        private final AvailabilityIndex m_availability = new AvailabilityIndex();
+
+        void put(final int ordinal, final SimpleAsset asset)
+        {
+            m_origins.put(ordinal, asset.getOrigin());
+            m_destinations.put(ordinal, asset.getDestination());
+            m_availability.put(ordinal, asset.getEarliestAvailability(), asset.getLatestAvailability());
+        }
+
+        void remove(final int ordinal)
+        {
+            m_origins.remove(ordinal);
+            m_destinations.remove(ordinal);
+            m_availability.remove(ordinal);
+        }
+    }
+}
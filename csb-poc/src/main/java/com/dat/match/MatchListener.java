@@ -0,0 +1,23 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.match;
+
+/**
+ * Told when a match the {@link MatchEngine} reported no longer holds, because one side was updated,
+ * cancelled or deleted.
+ */
+@FunctionalInterface
+public interface MatchListener
+{
+    MatchListener NONE = (fmeId, counterpartFmeId) ->
+    {};
+
+    /**
+     * @param fmeId the asset that changed or went away
+     * @param counterpartFmeId the asset it had been matched with
+     */
+    void retracted(String fmeId, String counterpartFmeId);
+}
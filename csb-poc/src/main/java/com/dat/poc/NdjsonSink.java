@@ -0,0 +1,72 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.poc;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+import org.apache.kafka.streams.kstream.ForeachAction;
+
+import com.dat.domain.SimpleAsset;
+import com.dat.domain.SimpleAssetJsonWriter;
+
+/**
+ * Terminal action that writes converted assets to a stream as NDJSON, batching them in one
+ * reusable buffer and writing the buffer whenever it holds at least {@code flushBytes}.
+ */
+public class NdjsonSink implements ForeachAction<String, SimpleAsset>, Flushable, Closeable
+{
+    /** Write every asset as soon as it arrives */
+    public static final int UNBUFFERED = 0;
+
+    private final OutputStream m_out;
+
+    private final int m_flushBytes;
+
+    private final SimpleAssetJsonWriter m_writer;
+
+    public NdjsonSink(final OutputStream out, final int flushBytes)
+    {
+        m_out = out;
+        m_flushBytes = flushBytes;
+        m_writer = new SimpleAssetJsonWriter(Math.max(4 * 1024, flushBytes + flushBytes / 4));
+    }
+
+    @Override
+    public synchronized void apply(final String key, final SimpleAsset asset)
+    {
+        m_writer.write(asset);
+        if (m_writer.size() >= m_flushBytes)
+        {
+            try
+            {
+                flush();
+            }
+            catch (final IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void flush() throws IOException
+    {
+        m_writer.writeTo(m_out);
+        m_writer.clear();
+        m_out.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException
+    {
+        flush();
+        m_out.close();
+    }
+}
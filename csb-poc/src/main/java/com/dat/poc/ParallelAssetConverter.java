@@ -0,0 +1,98 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.poc;
+
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.kstream.Transformer;
+import org.apache.kafka.streams.processor.ProcessorContext;
+import org.apache.kafka.streams.processor.PunctuationType;
+
+import com.dat.common.concurrent.StripedOrderedExecutor;
+import com.dat.domain.SimpleAsset;
+import com.dat.sync.SyncEvent;
+
+/**
+ * Asynchronous stage converting {@link SyncEvent}s to {@link SimpleAsset}s on a pool of worker
+ * threads, so a single stream task (one partition) can use several cores. Events are striped by
+ * fmeId, so updates to one asset are never reordered, and converted assets are forwarded in offset
+ * order, keyed by fmeId.
+ * <p>
+ * Offsets are committed only once nothing is in flight: a wall-clock punctuator drains the pool and
+ * then requests a commit. The topology must therefore be run with {@code commit.interval.ms}
+ * effectively disabled (see {@link Siphon#streamsConfig(String, int)}), otherwise Kafka Streams
+ * could commit the offset of a record whose asset has not yet been forwarded. Anything still in
+ * flight when the task is closed is drained and forwarded before the task's final commit.
+ */
+public class ParallelAssetConverter implements Transformer<String, SyncEvent, KeyValue<String, SimpleAsset>>
+{
+    /** How often in-flight work is drained and offsets committed */
+    static final long DRAIN_INTERVAL_MS = 1000;
+
+    private final int m_threads;
+
+    private final int m_capacity;
+
+    private ProcessorContext m_context;
+
+    private StripedOrderedExecutor<String, SyncEvent, SimpleAsset> m_executor;
+
+    /**
+     * @param threads conversion threads for this task
+     * @param capacity maximum events in flight before the stream thread waits on the workers
+     */
+    public ParallelAssetConverter(final int threads, final int capacity)
+    {
+        m_threads = threads;
+        m_capacity = capacity;
+    }
+
+    @Override
+    public void init(final ProcessorContext context)
+    {
+        m_context = context;
+        m_executor = new StripedOrderedExecutor<>("asset-converter-" + context.taskId(), m_threads, m_capacity,
+            Siphon.TO_SIMPLE_ASSET::apply);
+
+        context.schedule(DRAIN_INTERVAL_MS, PunctuationType.WALL_CLOCK_TIME, timestamp ->
+        {
+            m_executor.drainAll(this::forward);
+            m_context.commit();
+        });
+    }
+
+    @Override
+    public KeyValue<String, SimpleAsset> transform(final String key, final SyncEvent event)
+    {
+        m_executor.submit(event.getFmeId(), event, this::forward);
+        m_executor.drainCompleted(this::forward);
+        return null;
+    }
+
+    private void forward(final String fmeId, final SimpleAsset asset)
+    {
+        m_context.forward(fmeId, asset);
+    }
+
+    @Override
+    @Deprecated
+    public KeyValue<String, SimpleAsset> punctuate(final long timestamp)
+    {
+        return null;
+    }
+
+    @Override
+    public void close()
+    {
+        try
+        {
+            m_executor.drainAll(this::forward);
+        }
+        finally
+        {
+            m_executor.close();
+        }
+    }
+}
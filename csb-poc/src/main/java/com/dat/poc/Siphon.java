@@ -5,6 +5,9 @@ package com.dat.poc;
  * Copyright (C) 2017, TransCore LP. All Rights Reserved
  */
 
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.Properties;
 import java.util.concurrent.CountDownLatch;
 
@@ -13,11 +16,16 @@ import org.apache.kafka.streams.Consumed;
 import org.apache.kafka.streams.KafkaStreams;
 import org.apache.kafka.streams.StreamsBuilder;
 import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.Topology;
+import org.apache.kafka.streams.kstream.ForeachAction;
 import org.apache.kafka.streams.kstream.KStream;
+import org.apache.kafka.streams.kstream.Predicate;
+import org.apache.kafka.streams.kstream.ValueMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.dat.common.serialization.SyncEventSerde;
+import com.dat.domain.JsonCodecs;
 import com.dat.domain.SimpleAsset;
 import com.dat.sync.SyncEvent;
 import com.dat.sync.SyncEvent.Action;
@@ -33,11 +41,24 @@ public class Siphon
 {
     private static final String APP_NAME = "Siphon";
 
-    private static final String FROM_TOPIC = "tfsprd.syncAsset_nx_j";
-    private static final String TO_TOPIC = "tfsprd.syncAssetInsert";
+    static final String FROM_TOPIC = "tfsprd.syncAsset_nx_j";
+    static final String TO_TOPIC = "tfsprd.syncAssetInsert";
+
+    private static final String BOOTSTRAP_SERVERS = "pdxcsbdev02:9092";
+
+    /** Events in flight per stream task when converting in parallel */
+    private static final int CONVERSION_CAPACITY = 1024;
+
+    /** Bytes of NDJSON batched up before each write to an {@code --output} file */
+    private static final int OUTPUT_BUFFER_BYTES = 256 * 1024;
 
     private static final Logger log = LoggerFactory.getLogger(Siphon.class);
 
+    /** Shared by the Kafka topology and {@link SiphonReplay}; undeserializable records arrive as null */
+    static final Predicate<String, SyncEvent> INSERTS_ONLY = (k, v) -> v != null && v.getAction() == Action.insert;
+
+    static final ValueMapper<SyncEvent, SimpleAsset> TO_SIMPLE_ASSET = v -> new SimpleAsset(v);
+
     private static void printit(final SyncEvent e)
     {
         final Any json = JsonIterator.deserialize(e.getPayload());
@@ -46,16 +67,28 @@ public class Siphon
             e.getProperty("__encoding"), e.getProperty("__payloadClassname"), e.getPayload());
     }
 
-    private static void printSimpleAsset(final SyncEvent e)
+    /**
+     * Builds the Siphon processing topology: every {@link Action#insert} event read from
+     * {@link #FROM_TOPIC} is converted to a {@link SimpleAsset} and handed to {@code assetAction}.
+     * Kept separate from {@link #main} so the topology can be driven in-process by tests and
+     * benchmarks without a broker.
+     *
+     * @param assetAction terminal action applied to each converted asset
+     * @return the topology, ready for {@link KafkaStreams} or a test driver
+     */
+    public static Topology buildTopology(final ForeachAction<String, SimpleAsset> assetAction)
     {
-        final SimpleAsset asset = new SimpleAsset(e);
-        System.out.println(asset.toJson());
+        return buildTopology(assetAction, 1);
     }
 
-    public static void main(final String[] args)
+    /**
+     * As {@link #buildTopology(ForeachAction)}, but with more than one conversion thread the
+     * SimpleAsset conversion runs on a per-task worker pool (see {@link ParallelAssetConverter}).
+     * Run such a topology with {@link #streamsConfig(String, int)} for the same thread count.
+     */
+    public static Topology buildTopology(final ForeachAction<String, SimpleAsset> assetAction,
+        final int conversionThreads)
     {
-        log.info("Starting up");
-
         final StreamsBuilder builder = new StreamsBuilder();
 
         log.info("Creating syncEvents stream");
@@ -68,18 +101,118 @@ public class Siphon
 //            .map((key, event) -> KeyValue.pair(event.getFmeId(), event))
 //            .to(TO_TOPIC, Produced.valueSerde(new SyncEventSerde()));
 
-        syncEvents
-            .filter((k, v) -> v.getAction() == Action.insert)
-            .foreach((k, v) -> printSimpleAsset(v));
+        final KStream<String, SyncEvent> inserts = syncEvents.filter(INSERTS_ONLY);
+        if (conversionThreads > 1)
+        {
+            inserts
+                .transform(() -> new ParallelAssetConverter(conversionThreads, CONVERSION_CAPACITY))
+                .foreach(assetAction);
+        }
+        else
+        {
+            inserts
+                .mapValues(TO_SIMPLE_ASSET)
+                .foreach(assetAction);
+        }
 
+        return builder.build();
+    }
+
+    public static Properties streamsConfig(final String bootstrapServers)
+    {
+        return streamsConfig(bootstrapServers, 1);
+    }
+
+    public static Properties streamsConfig(final String bootstrapServers, final int conversionThreads)
+    {
         final Properties props = new Properties();
         props.put(StreamsConfig.APPLICATION_ID_CONFIG, APP_NAME);
-        props.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "pdxcsbdev02:9092");
+        props.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(StreamsConfig.CACHE_MAX_BYTES_BUFFERING_CONFIG, 0);
         props.put(StreamsConfig.DEFAULT_KEY_SERDE_CLASS_CONFIG, Serdes.String().getClass());
         props.put(StreamsConfig.DEFAULT_VALUE_SERDE_CLASS_CONFIG, Serdes.String().getClass());
 
-        final KafkaStreams streams = new KafkaStreams(builder.build(), props);
+        if (conversionThreads > 1)
+        {
+            // ParallelAssetConverter requests its own commits once its in-flight work is drained
+            props.put(StreamsConfig.COMMIT_INTERVAL_MS_CONFIG, Integer.MAX_VALUE);
+        }
+
+        return props;
+    }
+
+    /**
+     * Runs against the Kafka cluster, or with {@code --replay <dir> [--speed max|realtime|<factor>]}
+     * replays captured segment files instead (see {@link SiphonReplay}). {@code --threads <n>}
+     * converts assets on {@code n} worker threads per stream task. Assets are written to stdout as
+     * NDJSON, or with {@code --output <file>} to that file, buffered.
+     */
+    public static void main(final String[] args)
+    {
+        log.info("Starting up");
+
+        String replayDirectory = null;
+        double replaySpeed = SiphonReplay.AS_FAST_AS_POSSIBLE;
+        int conversionThreads = 1;
+        JsonCodecs.Mode codecs = JsonCodecs.Mode.STATIC;
+        String output = null;
+        for (int i = 0; i < args.length; i++)
+        {
+            switch (args[i])
+            {
+                case "--replay" :
+                    replayDirectory = args[++i];
+                    break;
+                case "--speed" :
+                    replaySpeed = SiphonReplay.parseSpeed(args[++i]);
+                    break;
+                case "--threads" :
+                    conversionThreads = Integer.parseInt(args[++i]);
+                    break;
+                case "--codecs" :
+                    codecs = JsonCodecs.Mode.valueOf(args[++i].toUpperCase());
+                    break;
+                case "--output" :
+                    output = args[++i];
+                    break;
+                default :
+                    throw new IllegalArgumentException(String.format("Unknown argument: '%s'", args[i]));
+            }
+        }
+
+        JsonCodecs.install(codecs);
+
+        final NdjsonSink sink;
+        try
+        {
+            sink = output == null ? new NdjsonSink(System.out, NdjsonSink.UNBUFFERED)
+                : new NdjsonSink(new FileOutputStream(output), OUTPUT_BUFFER_BYTES);
+        }
+        catch (final IOException e)
+        {
+            e.printStackTrace();
+            System.exit(1);
+            return;
+        }
+
+        if (replayDirectory != null)
+        {
+            try
+            {
+                new SiphonReplay(Paths.get(replayDirectory), replaySpeed, conversionThreads).run(sink);
+                sink.close();
+            }
+            catch (final Throwable e)
+            {
+                e.printStackTrace();
+                System.exit(1);
+            }
+            System.exit(0);
+        }
+
+        final Topology topology = buildTopology(sink, conversionThreads);
+
+        final KafkaStreams streams = new KafkaStreams(topology, streamsConfig(BOOTSTRAP_SERVERS, conversionThreads));
 
         streams.cleanUp();
 
@@ -94,6 +227,14 @@ public class Siphon
             {
                 log.warn("Shutting down");
                 streams.close();
+                try
+                {
+                    sink.close();
+                }
+                catch (final IOException e)
+                {
+                    log.error("Failed to write the last assets", e);
+                }
                 latch.countDown();
             }
         });
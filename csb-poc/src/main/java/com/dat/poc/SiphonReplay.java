@@ -0,0 +1,294 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.poc;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+import org.apache.kafka.streams.kstream.ForeachAction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.dat.common.concurrent.StripedOrderedExecutor;
+import com.dat.common.serialization.RecordSegmentReader;
+import com.dat.common.serialization.SyncEventDeserializer;
+import com.dat.domain.SimpleAsset;
+import com.dat.sync.SyncEvent;
+import com.dat.util.Iso8601;
+
+/**
+ * Replays captured SyncEvent records from the {@code *.seg} files in a directory through the same
+ * filter and conversion steps as the Kafka topology, without a broker. Records are fed either as
+ * fast as possible, which shows the parse-bound ceiling of the pipeline, or paced by each record's
+ * {@code whenIssued} timestamp at some multiple of real time. Conversion can be spread over several
+ * threads with the same fmeId-striped, order-preserving executor the parallel topology uses.
+ */
+public class SiphonReplay
+{
+    /** Speed value meaning "don't pace at all" */
+    public static final double AS_FAST_AS_POSSIBLE = 0.0;
+
+    /** Speed value meaning "pace records exactly as they were issued" */
+    public static final double REAL_TIME = 1.0;
+
+    static final String SEGMENT_SUFFIX = ".seg";
+
+    private static final byte[] WHEN_ISSUED = "\"whenIssued\"".getBytes(StandardCharsets.US_ASCII);
+
+    private static final Logger log = LoggerFactory.getLogger(SiphonReplay.class);
+
+    private final Path m_directory;
+
+    private final double m_speed;
+
+    private final int m_conversionThreads;
+
+    private final SyncEventDeserializer m_deserializer = new SyncEventDeserializer();
+
+    private long m_firstIssued = Long.MIN_VALUE;
+
+    private long m_startNanos;
+
+    private long m_records;
+
+    private long m_assets;
+
+    /**
+     * @param directory directory holding the segment files; they are replayed in file name order
+     * @param speed {@link #AS_FAST_AS_POSSIBLE}, {@link #REAL_TIME}, or a multiple of real time (e.g. 10.0)
+     */
+    public SiphonReplay(final Path directory, final double speed)
+    {
+        this(directory, speed, 1);
+    }
+
+    /**
+     * @param directory directory holding the segment files; they are replayed in file name order
+     * @param speed {@link #AS_FAST_AS_POSSIBLE}, {@link #REAL_TIME}, or a multiple of real time (e.g. 10.0)
+     * @param conversionThreads threads converting events to assets; 1 converts on the calling thread
+     */
+    public SiphonReplay(final Path directory, final double speed, final int conversionThreads)
+    {
+        m_directory = directory;
+        m_speed = speed;
+        m_conversionThreads = conversionThreads;
+    }
+
+    /**
+     * Replay every segment, handing each converted asset to {@code assetAction}.
+     *
+     * @return the number of records read
+     * @throws IOException if the directory cannot be listed or a segment cannot be mapped
+     */
+    public long run(final ForeachAction<String, SimpleAsset> assetAction) throws IOException
+    {
+        final List<Path> segments = segments(m_directory);
+        log.info("Replaying {} segments from {}", segments.size(), m_directory);
+
+        final StripedOrderedExecutor<String, SyncEvent, SimpleAsset> executor = m_conversionThreads > 1
+            ? new StripedOrderedExecutor<>("replay-converter", m_conversionThreads, 1024, Siphon.TO_SIMPLE_ASSET::apply)
+            : null;
+
+        final long start = System.nanoTime();
+        try
+        {
+            for (final Path segment : segments)
+            {
+                final RecordSegmentReader reader = new RecordSegmentReader(segment);
+                try
+                {
+                    while (reader.next())
+                    {
+                        process(reader.copyRecord(), assetAction, executor);
+                    }
+                }
+                catch (final IOException e)
+                {
+                    // A capture that was cut off mid-record still has usable records before the cut
+                    log.warn("Skipping remainder of segment: {}", e.getMessage());
+                }
+            }
+
+            if (executor != null)
+            {
+                executor.drainAll(assetAction::apply);
+            }
+        }
+        finally
+        {
+            if (executor != null)
+            {
+                executor.close();
+            }
+        }
+        final double seconds = (System.nanoTime() - start) / 1e9;
+
+        log.info(String.format("Replayed %,d records (%,d assets) in %.2fs: %,.0f records/s", m_records, m_assets,
+            seconds, m_records / Math.max(seconds, 1e-9)));
+
+        return m_records;
+    }
+
+    public long records()
+    {
+        return m_records;
+    }
+
+    public long assets()
+    {
+        return m_assets;
+    }
+
+    private void process(final byte[] record, final ForeachAction<String, SimpleAsset> assetAction,
+        final StripedOrderedExecutor<String, SyncEvent, SimpleAsset> executor)
+    {
+        m_records++;
+        pace(record);
+
+        final SyncEvent event = m_deserializer.deserialize(Siphon.FROM_TOPIC, record);
+        if (!Siphon.INSERTS_ONLY.test(null, event))
+        {
+            return;
+        }
+
+        m_assets++;
+        if (executor == null)
+        {
+            assetAction.apply(event.getFmeId(), Siphon.TO_SIMPLE_ASSET.apply(event));
+        }
+        else
+        {
+            executor.submit(event.getFmeId(), event, assetAction::apply);
+            executor.drainCompleted(assetAction::apply);
+        }
+    }
+
+    private void pace(final byte[] record)
+    {
+        if (m_speed <= AS_FAST_AS_POSSIBLE)
+        {
+            return;
+        }
+
+        final long issued = whenIssued(record);
+        if (issued == Long.MIN_VALUE)
+        {
+            return;
+        }
+
+        if (m_firstIssued == Long.MIN_VALUE)
+        {
+            m_firstIssued = issued;
+            m_startNanos = System.nanoTime();
+            return;
+        }
+
+        // Captures are only roughly ordered by whenIssued; anything already due goes straight through
+        final long dueNanos = m_startNanos + (long) ((issued - m_firstIssued) * 1_000_000L / m_speed);
+        final long waitNanos = dueNanos - System.nanoTime();
+        if (waitNanos > 0)
+        {
+            LockSupport.parkNanos(waitNanos);
+        }
+    }
+
+    /**
+     * Find the payload's {@code whenIssued} without parsing the record.
+     *
+     * @return epoch millis, or {@code Long.MIN_VALUE} if not present or not parseable
+     */
+    static long whenIssued(final byte[] record)
+    {
+        final int at = indexOf(record, WHEN_ISSUED);
+        if (at < 0)
+        {
+            return Long.MIN_VALUE;
+        }
+
+        int offset = at + WHEN_ISSUED.length;
+        while (offset < record.length && record[offset] != '"')
+        {
+            offset++;
+        }
+
+        final int start = offset + 1;
+        int end = start;
+        while (end < record.length && record[end] != '"')
+        {
+            end++;
+        }
+
+        if (end >= record.length)
+        {
+            return Long.MIN_VALUE;
+        }
+
+        try
+        {
+            return Iso8601.parse(record, start, end - start);
+        }
+        catch (final IllegalArgumentException e)
+        {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    private static int indexOf(final byte[] data, final byte[] target)
+    {
+        outer:
+        for (int i = 0; i <= data.length - target.length; i++)
+        {
+            for (int j = 0; j < target.length; j++)
+            {
+                if (data[i + j] != target[j])
+                {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    static List<Path> segments(final Path directory) throws IOException
+    {
+        final List<Path> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory))
+        {
+            files.filter(p -> p.getFileName().toString().endsWith(SEGMENT_SUFFIX)).forEach(segments::add);
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    /**
+     * Parse a {@code --speed} argument: "max", "realtime", or a multiple of real time.
+     */
+    static double parseSpeed(final String speed)
+    {
+        switch (speed)
+        {
+            case "max" :
+                return AS_FAST_AS_POSSIBLE;
+            case "realtime" :
+                return REAL_TIME;
+            default :
+                final double factor = Double.parseDouble(speed);
+                if (factor <= 0.0)
+                {
+                    throw new IllegalArgumentException(String.format("Replay speed must be positive: '%s'", speed));
+                }
+                return factor;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.store;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.dat.domain.Area;
+import com.dat.domain.GeoLocation;
+import com.dat.domain.Open;
+
+/**
+ * Inverted index of {@link Area} locations keyed by asset ordinal: each stateProvince and zone maps
+ * to a bitmap of the ordinals whose area lists it. {@link Open} locations go in one bitmap that every
+ * lookup includes, since they match anywhere. Points aren't indexed here; see
+ * {@link PointGridIndex}.
+ * <p>
+ * Lookups return new bitmaps, free to be combined further. Not thread safe.
+ */
+public final class AreaIndex
+{
+    private static final String[] NONE = {};
+
+    private final Map<String, OrdinalBitmap> m_states = new HashMap<>();
+
+    private final Map<String, OrdinalBitmap> m_zones = new HashMap<>();
+
+    private final OrdinalBitmap m_open = new OrdinalBitmap();
+
+    /** What each ordinal's area was indexed under, so it can be taken out again; null if not indexed */
+    private String[][] m_statesOf = new String[0][];
+    private String[][] m_zonesOf = new String[0][];
+
+    private int m_size;
+
+    /**
+     * Index {@code location} for {@code ordinal}, replacing whatever was indexed for it. Anything but
+     * an Area or Open just removes it.
+     */
+    public void put(final int ordinal, final GeoLocation location)
+    {
+        remove(ordinal);
+        if (location instanceof Open)
+        {
+            m_open.add(ordinal);
+            m_size++;
+        }
+        else if (location instanceof Area)
+        {
+            final Area area = (Area) location;
+            final String[] states = copy(area.getStateProvinces());
+            final String[] zones = copy(area.getZones());
+            add(m_states, states, ordinal);
+            add(m_zones, zones, ordinal);
+            ensureCapacity(ordinal + 1);
+            m_statesOf[ordinal] = states;
+            m_zonesOf[ordinal] = zones;
+            m_size++;
+        }
+    }
+
+    /**
+     * @return false if {@code ordinal} wasn't indexed
+     */
+    public boolean remove(final int ordinal)
+    {
+        if (m_open.remove(ordinal))
+        {
+            m_size--;
+            return true;
+        }
+        if (ordinal < 0 || ordinal >= m_statesOf.length || m_statesOf[ordinal] == null)
+        {
+            return false;
+        }
+
+        remove(m_states, m_statesOf[ordinal], ordinal);
+        remove(m_zones, m_zonesOf[ordinal], ordinal);
+        m_statesOf[ordinal] = null;
+        m_zonesOf[ordinal] = null;
+        m_size--;
+        return true;
+    }
+
+    /**
+     * @return ordinals indexed, areas and opens
+     */
+    public int size()
+    {
+        return m_size;
+    }
+
+    /**
+     * @return a copy of the open ordinals
+     */
+    public OrdinalBitmap open()
+    {
+        return m_open.or(new OrdinalBitmap());
+    }
+
+    /**
+     * @return ordinals whose area includes {@code stateProvince}, and the open ones
+     */
+    public OrdinalBitmap matchingState(final String stateProvince)
+    {
+        return anyState(stateProvince);
+    }
+
+    /**
+     * @return ordinals whose area includes any of {@code stateProvinces}, and the open ones
+     */
+    public OrdinalBitmap anyState(final String... stateProvinces)
+    {
+        return any(m_states, stateProvinces);
+    }
+
+    /**
+     * @return ordinals whose area includes all of {@code stateProvinces}, and the open ones
+     */
+    public OrdinalBitmap allStates(final String... stateProvinces)
+    {
+        return all(m_states, stateProvinces);
+    }
+
+    /**
+     * @return ordinals whose area includes {@code zone}, and the open ones
+     */
+    public OrdinalBitmap matchingZone(final String zone)
+    {
+        return anyZone(zone);
+    }
+
+    /**
+     * @return ordinals whose area includes any of {@code zones}, and the open ones
+     */
+    public OrdinalBitmap anyZone(final String... zones)
+    {
+        return any(m_zones, zones);
+    }
+
+    private OrdinalBitmap any(final Map<String, OrdinalBitmap> index, final String[] keys)
+    {
+        final OrdinalBitmap[] bitmaps = new OrdinalBitmap[keys.length + 1];
+        for (int i = 0; i < keys.length; i++)
+        {
+            bitmaps[i] = index.get(keys[i]);
+        }
+        bitmaps[keys.length] = m_open;
+        return OrdinalBitmap.union(bitmaps);
+    }
+
+    private OrdinalBitmap all(final Map<String, OrdinalBitmap> index, final String[] keys)
+    {
+        OrdinalBitmap result = null;
+        for (final String key : keys)
+        {
+            final OrdinalBitmap bitmap = index.get(key);
+            if (bitmap == null)
+            {
+                result = new OrdinalBitmap();
+                break;
+            }
+            result = result == null ? bitmap : result.and(bitmap);
+        }
+        return result == null ? open() : result.or(m_open);
+    }
+
+    private static void add(final Map<String, OrdinalBitmap> index, final String[] keys, final int ordinal)
+    {
+        for (final String key : keys)
+        {
+            if (key != null)
+            {
+                index.computeIfAbsent(key, k -> new OrdinalBitmap()).add(ordinal);
+            }
+        }
+    }
+
+    private static void remove(final Map<String, OrdinalBitmap> index, final String[] keys, final int ordinal)
+    {
+        for (final String key : keys)
+        {
+            final OrdinalBitmap bitmap = key == null ? null : index.get(key);
+            if (bitmap != null)
+            {
+                bitmap.remove(ordinal);
+                if (bitmap.isEmpty())
+                {
+                    index.remove(key);
+                }
+            }
+        }
+    }
+
+    private void ensureCapacity(final int ordinals)
+    {
+        if (ordinals > m_statesOf.length)
+        {
+            final int capacity = Math.max(ordinals, Math.max(16, m_statesOf.length * 2));
+            m_statesOf = Arrays.copyOf(m_statesOf, capacity);
+            m_zonesOf = Arrays.copyOf(m_zonesOf, capacity);
+        }
+    }
+
+    private static String[] copy(final String[] values)
+    {
+        return values == null ? NONE : values.clone();
+    }
+}
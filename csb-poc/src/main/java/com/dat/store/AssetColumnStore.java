@@ -0,0 +1,585 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.store;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.dat.domain.CodeDictionary;
+import com.dat.domain.EquipmentTypes;
+import com.dat.domain.FmeId;
+import com.dat.domain.GeoLocation;
+import com.dat.domain.Point;
+import com.dat.domain.SimpleAsset;
+import com.dat.domain.SimpleAssetCodec;
+
+/**
+ * Live {@link SimpleAsset}s held column by column, one primitive array per field, keyed by fmeId
+ * packed per {@link FmeId}.
+ * Codes come from the {@link SimpleAssetCodec} dictionaries; coordinates are floats, NaN unless the
+ * location is a {@link Point}, and a point's stateProvince is held as the location's state.
+ * <p>
+ * A put of a known fmeId updates its row in place. A remove only marks the row dead, and
+ * {@link #compact()} closes the gaps. A {@link Query} runs one loop per filter, each over a single
+ * column, narrowing a selection vector; those loops are simple enough for the JIT to unroll and,
+ * where it can, vectorize. Values outside a dictionary are stored as {@link CodeDictionary#INLINE}
+ * and so match no query on that field.
+ * <p>
+ * Not thread safe.
+ */
+public final class AssetColumnStore
+{
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final Long2IntMap m_rows = new Long2IntMap();
+
+    /** Rows in use, dead or alive */
+    private int m_rowCount;
+
+    private int m_deadCount;
+
+    private long[] m_fmeIds;
+    private byte[] m_live;
+    private int[] m_userIds;
+    private int[] m_officeIds;
+    private int[] m_companyIds;
+    private int[] m_groupIds;
+    private long[] m_whenIssued;
+    private long[] m_startDates;
+    private long[] m_endDates;
+    // Open-ended where the asset has no bound: Long.MIN_VALUE earliest, Long.MAX_VALUE latest
+    private long[] m_earliestAvailability;
+    private long[] m_latestAvailability;
+    private byte[] m_postingTypes;
+    private byte[] m_equipmentTypes;
+    private byte[] m_originKinds;
+    private byte[] m_originStates;
+    private float[] m_originLatitudes;
+    private float[] m_originLongitudes;
+    private byte[] m_destinationKinds;
+    private byte[] m_destinationStates;
+    private float[] m_destinationLatitudes;
+    private float[] m_destinationLongitudes;
+
+    /** Scratch for queries */
+    private byte[] m_selection;
+
+    public AssetColumnStore()
+    {
+        this(INITIAL_CAPACITY);
+    }
+
+    public AssetColumnStore(final int initialCapacity)
+    {
+        resize(Math.max(initialCapacity, 16));
+    }
+
+    /**
+     * Add {@code asset}, or overwrite the row holding its fmeId.
+     *
+     * @return true if it was added
+     * @throws IllegalArgumentException if it has no fmeId, one that doesn't pack, or a location with
+     *             no binary form
+     */
+    public boolean put(final SimpleAsset asset)
+    {
+        final long fmeId = FmeId.pack(asset.getFmeId());
+        if (fmeId == FmeId.NONE)
+        {
+            throw new IllegalArgumentException(String.format("Asset has no packable fmeId: %s", asset.getFmeId()));
+        }
+        final byte originKind = SimpleAssetCodec.kind(asset.getOrigin());
+        final byte destinationKind = SimpleAssetCodec.kind(asset.getDestination());
+
+        final int existing = m_rows.get(fmeId);
+        final int row;
+        if (existing < 0)
+        {
+            if (m_rowCount == m_live.length)
+            {
+                resize(m_live.length * 2);
+            }
+            row = m_rowCount++;
+            m_rows.put(fmeId, row);
+            m_fmeIds[row] = fmeId;
+            m_live[row] = 1;
+        }
+        else
+        {
+            row = existing;
+        }
+
+        m_userIds[row] = asset.getUserId();
+        m_officeIds[row] = asset.getOfficeId();
+        m_companyIds[row] = asset.getCompanyId();
+        m_groupIds[row] = asset.getGroupId();
+        m_whenIssued[row] = asset.getWhenIssued();
+        m_startDates[row] = asset.getStartDate();
+        m_endDates[row] = asset.getEndDate();
+        m_earliestAvailability[row] = AvailabilityIndex.from(asset.getEarliestAvailability());
+        m_latestAvailability[row] = AvailabilityIndex.to(asset.getLatestAvailability());
+        m_postingTypes[row] = (byte) SimpleAssetCodec.POSTING_TYPES.code(asset.getPostingType());
+        m_equipmentTypes[row] = (byte) SimpleAssetCodec.EQUIPMENT_TYPES.code(asset.getEquipmentType());
+        m_originKinds[row] = originKind;
+        m_originStates[row] = state(asset.getOrigin());
+        m_originLatitudes[row] = latitude(asset.getOrigin());
+        m_originLongitudes[row] = longitude(asset.getOrigin());
+        m_destinationKinds[row] = destinationKind;
+        m_destinationStates[row] = state(asset.getDestination());
+        m_destinationLatitudes[row] = latitude(asset.getDestination());
+        m_destinationLongitudes[row] = longitude(asset.getDestination());
+        return existing < 0;
+    }
+
+    /**
+     * Mark the row holding {@code fmeId} dead.
+     *
+     * @return false if there is none
+     */
+    public boolean remove(final String fmeId)
+    {
+        return remove(FmeId.pack(fmeId));
+    }
+
+    /**
+     * Mark the row holding the {@link FmeId packed} {@code fmeId} dead.
+     *
+     * @return false if there is none
+     */
+    public boolean remove(final long fmeId)
+    {
+        final int row = m_rows.remove(fmeId);
+        if (row < 0)
+        {
+            return false;
+        }
+        m_live[row] = 0;
+        m_fmeIds[row] = FmeId.NONE;
+        m_deadCount++;
+        return true;
+    }
+
+    public boolean contains(final String fmeId)
+    {
+        return contains(FmeId.pack(fmeId));
+    }
+
+    /**
+     * @param fmeId packed per {@link FmeId}
+     */
+    public boolean contains(final long fmeId)
+    {
+        return m_rows.containsKey(fmeId);
+    }
+
+    /**
+     * @return live assets
+     */
+    public int size()
+    {
+        return m_rowCount - m_deadCount;
+    }
+
+    /**
+     * @return rows removed since the last {@link #compact()}
+     */
+    public int deadCount()
+    {
+        return m_deadCount;
+    }
+
+    /**
+     * Move the live rows down over the dead ones, keeping their order.
+     */
+    public void compact()
+    {
+        if (m_deadCount == 0)
+        {
+            return;
+        }
+
+        int to = 0;
+        for (int from = 0; from < m_rowCount; from++)
+        {
+            if (m_live[from] == 0)
+            {
+                continue;
+            }
+            if (from != to)
+            {
+                move(from, to);
+                m_rows.put(m_fmeIds[to], to);
+            }
+            to++;
+        }
+
+        Arrays.fill(m_fmeIds, to, m_rowCount, FmeId.NONE);
+        Arrays.fill(m_live, to, m_rowCount, (byte) 0);
+        m_rowCount = to;
+        m_deadCount = 0;
+    }
+
+    public Query query()
+    {
+        return new Query();
+    }
+
+    private void move(final int from, final int to)
+    {
+        m_fmeIds[to] = m_fmeIds[from];
+        m_live[to] = m_live[from];
+        m_userIds[to] = m_userIds[from];
+        m_officeIds[to] = m_officeIds[from];
+        m_companyIds[to] = m_companyIds[from];
+        m_groupIds[to] = m_groupIds[from];
+        m_whenIssued[to] = m_whenIssued[from];
+        m_startDates[to] = m_startDates[from];
+        m_endDates[to] = m_endDates[from];
+        m_earliestAvailability[to] = m_earliestAvailability[from];
+        m_latestAvailability[to] = m_latestAvailability[from];
+        m_postingTypes[to] = m_postingTypes[from];
+        m_equipmentTypes[to] = m_equipmentTypes[from];
+        m_originKinds[to] = m_originKinds[from];
+        m_originStates[to] = m_originStates[from];
+        m_originLatitudes[to] = m_originLatitudes[from];
+        m_originLongitudes[to] = m_originLongitudes[from];
+        m_destinationKinds[to] = m_destinationKinds[from];
+        m_destinationStates[to] = m_destinationStates[from];
+        m_destinationLatitudes[to] = m_destinationLatitudes[from];
+        m_destinationLongitudes[to] = m_destinationLongitudes[from];
+    }
+
+    private void resize(final int capacity)
+    {
+        if (m_live == null)
+        {
+            m_fmeIds = new long[capacity];
+            m_live = new byte[capacity];
+            m_userIds = new int[capacity];
+            m_officeIds = new int[capacity];
+            m_companyIds = new int[capacity];
+            m_groupIds = new int[capacity];
+            m_whenIssued = new long[capacity];
+            m_startDates = new long[capacity];
+            m_endDates = new long[capacity];
+            m_earliestAvailability = new long[capacity];
+            m_latestAvailability = new long[capacity];
+            m_postingTypes = new byte[capacity];
+            m_equipmentTypes = new byte[capacity];
+            m_originKinds = new byte[capacity];
+            m_originStates = new byte[capacity];
+            m_originLatitudes = new float[capacity];
+            m_originLongitudes = new float[capacity];
+            m_destinationKinds = new byte[capacity];
+            m_destinationStates = new byte[capacity];
+            m_destinationLatitudes = new float[capacity];
+            m_destinationLongitudes = new float[capacity];
+            m_selection = new byte[capacity];
+            return;
+        }
+
+        m_fmeIds = Arrays.copyOf(m_fmeIds, capacity);
+        m_live = Arrays.copyOf(m_live, capacity);
+        m_userIds = Arrays.copyOf(m_userIds, capacity);
+        m_officeIds = Arrays.copyOf(m_officeIds, capacity);
+        m_companyIds = Arrays.copyOf(m_companyIds, capacity);
+        m_groupIds = Arrays.copyOf(m_groupIds, capacity);
+        m_whenIssued = Arrays.copyOf(m_whenIssued, capacity);
+        m_startDates = Arrays.copyOf(m_startDates, capacity);
+        m_endDates = Arrays.copyOf(m_endDates, capacity);
+        m_earliestAvailability = Arrays.copyOf(m_earliestAvailability, capacity);
+        m_latestAvailability = Arrays.copyOf(m_latestAvailability, capacity);
+        m_postingTypes = Arrays.copyOf(m_postingTypes, capacity);
+        m_equipmentTypes = Arrays.copyOf(m_equipmentTypes, capacity);
+        m_originKinds = Arrays.copyOf(m_originKinds, capacity);
+        m_originStates = Arrays.copyOf(m_originStates, capacity);
+        m_originLatitudes = Arrays.copyOf(m_originLatitudes, capacity);
+        m_originLongitudes = Arrays.copyOf(m_originLongitudes, capacity);
+        m_destinationKinds = Arrays.copyOf(m_destinationKinds, capacity);
+        m_destinationStates = Arrays.copyOf(m_destinationStates, capacity);
+        m_destinationLatitudes = Arrays.copyOf(m_destinationLatitudes, capacity);
+        m_destinationLongitudes = Arrays.copyOf(m_destinationLongitudes, capacity);
+        m_selection = new byte[capacity];
+    }
+
+    private static byte state(final GeoLocation location)
+    {
+        return location instanceof Point
+            ? (byte) SimpleAssetCodec.STATE_PROVINCES.code(((Point) location).getStateProvince())
+            : CodeDictionary.NULL;
+    }
+
+    private static float latitude(final GeoLocation location)
+    {
+        return location instanceof Point ? (float) ((Point) location).getLatitude() : Float.NaN;
+    }
+
+    private static float longitude(final GeoLocation location)
+    {
+        return location instanceof Point ? (float) ((Point) location).getLongitude() : Float.NaN;
+    }
+
+    /**
+     * Conjunction of filters over the live rows. Filters are applied when the query is run, so a
+     * query may be run again after the store changes.
+     */
+    public final class Query
+    {
+        private static final int ANY = -1;
+
+        private boolean m_none;
+
+        private boolean m_byCompanyId;
+
+        private int m_companyId;
+
+        private int m_postingType = ANY;
+
+        private int m_equipmentType = ANY;
+
+        /** 1 for each equipment type code accepted, indexed by code; null for any */
+        private byte[] m_equipmentTypesAccepted;
+
+        private int m_originKind = ANY;
+
+        private int m_originState = ANY;
+
+        private int m_destinationState = ANY;
+
+        private long m_availableFrom = Long.MIN_VALUE;
+
+        private long m_availableTo = Long.MAX_VALUE;
+
+        private float[] m_originBox;
+
+        private Query()
+        {}
+
+        public Query companyId(final int companyId)
+        {
+            m_byCompanyId = true;
+            m_companyId = companyId;
+            return this;
+        }
+
+        public Query postingType(final String postingType)
+        {
+            m_postingType = code(SimpleAssetCodec.POSTING_TYPES, postingType);
+            return this;
+        }
+
+        public Query equipmentType(final String equipmentType)
+        {
+            m_equipmentType = code(SimpleAssetCodec.EQUIPMENT_TYPES, equipmentType);
+            return this;
+        }
+
+        /**
+         * Only assets whose equipment type can match {@code equipmentType}; see
+         * {@link EquipmentTypes}.
+         */
+        public Query equipmentCompatibleWith(final String equipmentType)
+        {
+            final int wanted = code(SimpleAssetCodec.EQUIPMENT_TYPES, equipmentType);
+            m_equipmentTypesAccepted = new byte[256];
+            for (int code = 0; code < m_equipmentTypesAccepted.length; code++)
+            {
+                m_equipmentTypesAccepted[code] = (byte) (EquipmentTypes.compatible(wanted, code) ? 1 : 0);
+            }
+            return this;
+        }
+
+        /**
+         * @param kind one of the {@link SimpleAssetCodec} location kinds
+         */
+        public Query originKind(final byte kind)
+        {
+            m_originKind = kind;
+            return this;
+        }
+
+        /**
+         * Only assets whose origin is a point in {@code stateProvince}.
+         */
+        public Query originState(final String stateProvince)
+        {
+            m_originState = code(SimpleAssetCodec.STATE_PROVINCES, stateProvince);
+            return this;
+        }
+
+        /**
+         * Only assets whose destination is a point in {@code stateProvince}.
+         */
+        public Query destinationState(final String stateProvince)
+        {
+            m_destinationState = code(SimpleAssetCodec.STATE_PROVINCES, stateProvince);
+            return this;
+        }
+
+        /**
+         * Only assets whose availability window overlaps {@code from} to {@code to}, inclusive; a
+         * missing bound is open-ended, as in {@link AvailabilityIndex}.
+         */
+        public Query availableDuring(final long from, final long to)
+        {
+            m_availableFrom = from;
+            m_availableTo = to;
+            return this;
+        }
+
+        public Query availableAt(final long time)
+        {
+            return availableDuring(time, time);
+        }
+
+        /**
+         * Only assets whose origin is a point within the box, inclusive.
+         */
+        public Query originWithin(final double minLatitude, final double maxLatitude, final double minLongitude,
+            final double maxLongitude)
+        {
+            m_originBox = new float[] { (float) minLatitude, (float) maxLatitude, (float) minLongitude,
+                                        (float) maxLongitude };
+            return this;
+        }
+
+        public int count()
+        {
+            final int rows = select();
+            final byte[] selection = m_selection;
+            int count = 0;
+            for (int i = 0; i < rows; i++)
+            {
+                count += selection[i];
+            }
+            return count;
+        }
+
+        /**
+         * @return matching assets' counts indexed by {@link SimpleAssetCodec#EQUIPMENT_TYPES} code
+         */
+        public int[] countByEquipmentType()
+        {
+            final int rows = select();
+            final byte[] selection = m_selection;
+            final byte[] equipmentTypes = m_equipmentTypes;
+            final int[] counts = new int[256];
+            for (int i = 0; i < rows; i++)
+            {
+                counts[equipmentTypes[i] & 0xFF] += selection[i];
+            }
+            return counts;
+        }
+
+        public List<String> fmeIds()
+        {
+            final int rows = select();
+            final byte[] selection = m_selection;
+            final List<String> fmeIds = new ArrayList<>();
+            for (int i = 0; i < rows; i++)
+            {
+                if (selection[i] != 0)
+                {
+                    fmeIds.add(FmeId.toString(m_fmeIds[i]));
+                }
+            }
+            return fmeIds;
+        }
+
+        /**
+         * Fill the selection vector: 1 for each row that matches, 0 for the rest.
+         *
+         * @return the number of rows to look at
+         */
+        private int select()
+        {
+            final int rows = m_rowCount;
+            final byte[] selection = m_selection;
+            if (m_none)
+            {
+                Arrays.fill(selection, 0, rows, (byte) 0);
+                return rows;
+            }
+            System.arraycopy(m_live, 0, selection, 0, rows);
+
+            if (m_byCompanyId)
+            {
+                final int[] column = m_companyIds;
+                final int value = m_companyId;
+                for (int i = 0; i < rows; i++)
+                {
+                    selection[i] &= column[i] == value ? 1 : 0;
+                }
+            }
+            selectEqual(rows, m_postingTypes, m_postingType);
+            selectEqual(rows, m_equipmentTypes, m_equipmentType);
+            if (m_equipmentTypesAccepted != null)
+            {
+                final byte[] column = m_equipmentTypes;
+                final byte[] accepted = m_equipmentTypesAccepted;
+                for (int i = 0; i < rows; i++)
+                {
+                    selection[i] &= accepted[column[i] & 0xFF];
+                }
+            }
+            selectEqual(rows, m_originKinds, m_originKind);
+            selectEqual(rows, m_originStates, m_originState);
+            selectEqual(rows, m_destinationStates, m_destinationState);
+            if (m_availableFrom != Long.MIN_VALUE || m_availableTo != Long.MAX_VALUE)
+            {
+                final long[] earliest = m_earliestAvailability;
+                final long[] latest = m_latestAvailability;
+                final long from = m_availableFrom;
+                final long to = m_availableTo;
+                for (int i = 0; i < rows; i++)
+                {
+                    selection[i] &= (earliest[i] <= to) & (latest[i] >= from) ? 1 : 0;
+                }
+            }
+            if (m_originBox != null)
+            {
+                final float[] latitudes = m_originLatitudes;
+                final float[] longitudes = m_originLongitudes;
+                final float minLatitude = m_originBox[0];
+                final float maxLatitude = m_originBox[1];
+                final float minLongitude = m_originBox[2];
+                final float maxLongitude = m_originBox[3];
+                for (int i = 0; i < rows; i++)
+                {
+                    // NaN, for anything but a point, compares false
+                    selection[i] &= (latitudes[i] >= minLatitude) & (latitudes[i] <= maxLatitude)
+                        & (longitudes[i] >= minLongitude) & (longitudes[i] <= maxLongitude) ? 1 : 0;
+                }
+            }
+            return rows;
+        }
+
+        private void selectEqual(final int rows, final byte[] column, final int code)
+        {
+            if (code == ANY)
+            {
+                return;
+            }
+            final byte[] selection = m_selection;
+            final byte value = (byte) code;
+            for (int i = 0; i < rows; i++)
+            {
+                selection[i] &= column[i] == value ? 1 : 0;
+            }
+        }
+
+        private int code(final CodeDictionary dictionary, final String value)
+        {
+            final int code = dictionary.code(value);
+            if (code == CodeDictionary.INLINE)
+            {
+                m_none = true;
+            }
+            return code;
+        }
+    }
+}
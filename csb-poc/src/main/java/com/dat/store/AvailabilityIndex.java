@@ -0,0 +1,250 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.store;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.dat.domain.SimpleAsset;
+
+/**
+ * Index of availability windows keyed by asset ordinal, for "available any time in [from, to]"
+ * queries. Time is cut into buckets, a day by default, each holding a bitmap of the ordinals whose
+ * window touches it; postings are available for a few days, so a window sits in a handful of
+ * buckets. A query unions the buckets its range touches. Buckets lying wholly inside the range match
+ * outright; only the two at its ends, and windows with a missing bound or implausibly long, need
+ * checking against the exact bounds.
+ * <p>
+ * Bounds are epoch millis, inclusive, with {@link SimpleAsset#NO_TIMESTAMP} for a missing one,
+ * which leaves that end of the window open. A window ending before it starts overlaps nothing.
+ * <p>
+ * Ordinals are small non-negative ints assigned by the caller, as for {@link PointGridIndex}. Not
+ * thread safe.
+ */
+public final class AvailabilityIndex
+{
+    public static final long DEFAULT_BUCKET_MILLIS = 24 * 3600 * 1000L;
+
+    /** Windows spanning more buckets than this are checked exactly rather than bucketed */
+    private static final int MAX_BUCKETS = 366;
+
+    private final long m_bucketMillis;
+
+    /** Ordinals whose window touches each bucket, keyed by bucket number */
+    private final TreeMap<Long, OrdinalBitmap> m_buckets = new TreeMap<>();
+
+    /** Ordinals whose window is open at one end or too long to bucket */
+    private final OrdinalBitmap m_unbucketed = new OrdinalBitmap();
+
+    private final OrdinalBitmap m_all = new OrdinalBitmap();
+
+    // Indexed by ordinal; open ends as Long.MIN_VALUE and Long.MAX_VALUE
+    private long[] m_earliest = new long[0];
+    private long[] m_latest = new long[0];
+
+    public AvailabilityIndex()
+    {
+        this(DEFAULT_BUCKET_MILLIS);
+    }
+
+    /**
+     * @param bucketMillis the span of a bucket; around the length of a typical window
+     */
+    public AvailabilityIndex(final long bucketMillis)
+    {
+        if (bucketMillis < 1)
+        {
+            throw new IllegalArgumentException(String.format("Bad bucket size: %d", bucketMillis));
+        }
+        m_bucketMillis = bucketMillis;
+    }
+
+    /**
+     * Index the window [earliest, latest] for {@code ordinal}, replacing whatever was indexed for it.
+     *
+     * @throws IllegalArgumentException if the ordinal is negative
+     */
+    public void put(final int ordinal, final long earliest, final long latest)
+    {
+        if (ordinal < 0)
+        {
+            throw new IllegalArgumentException(String.format("Bad ordinal: %d", ordinal));
+        }
+
+        remove(ordinal);
+        ensureCapacity(ordinal + 1);
+        final long from = from(earliest);
+        final long to = to(latest);
+        m_earliest[ordinal] = from;
+        m_latest[ordinal] = to;
+        m_all.add(ordinal);
+        if (from > to)
+        {
+            return;
+        }
+        if (from == Long.MIN_VALUE || to == Long.MAX_VALUE || bucket(to) - bucket(from) >= MAX_BUCKETS)
+        {
+            m_unbucketed.add(ordinal);
+            return;
+        }
+        for (long bucket = bucket(from); bucket <= bucket(to); bucket++)
+        {
+            m_buckets.computeIfAbsent(bucket, k -> new OrdinalBitmap()).add(ordinal);
+        }
+    }
+
+    /**
+     * @return false if {@code ordinal} wasn't indexed
+     */
+    public boolean remove(final int ordinal)
+    {
+        if (!m_all.remove(ordinal))
+        {
+            return false;
+        }
+
+        final long from = m_earliest[ordinal];
+        final long to = m_latest[ordinal];
+        if (from > to)
+        {
+            return true;
+        }
+        if (m_unbucketed.remove(ordinal))
+        {
+            return true;
+        }
+        for (long bucket = bucket(from); bucket <= bucket(to); bucket++)
+        {
+            final OrdinalBitmap bitmap = m_buckets.get(bucket);
+            bitmap.remove(ordinal);
+            if (bitmap.isEmpty())
+            {
+                m_buckets.remove(bucket);
+            }
+        }
+        return true;
+    }
+
+    public boolean contains(final int ordinal)
+    {
+        return ordinal >= 0 && m_all.contains(ordinal);
+    }
+
+    public int size()
+    {
+        return m_all.cardinality();
+    }
+
+    /**
+     * @return whether the window indexed for {@code ordinal} overlaps [from, to]; false if it isn't
+     *         indexed
+     */
+    public boolean overlaps(final int ordinal, final long from, final long to)
+    {
+        final long start = from(from);
+        final long end = to(to);
+        return start <= end && contains(ordinal) && overlap(ordinal, start, end);
+    }
+
+    /**
+     * @return the ordinals whose window overlaps [from, to]
+     */
+    public OrdinalBitmap overlapping(final long from, final long to)
+    {
+        final long start = from(from);
+        final long end = to(to);
+        if (start > end)
+        {
+            return new OrdinalBitmap();
+        }
+
+        final List<OrdinalBitmap> inside = new ArrayList<>();
+        final List<OrdinalBitmap> edges = new ArrayList<>();
+        edges.add(m_unbucketed);
+        for (final Map.Entry<Long, OrdinalBitmap> entry : range(start, end).entrySet())
+        {
+            final long bucketStart = entry.getKey() * m_bucketMillis;
+            final boolean within = bucketStart >= start && bucketStart + (m_bucketMillis - 1) <= end;
+            (within ? inside : edges).add(entry.getValue());
+        }
+
+        // Ascending, so the filtered ordinals go in as appends
+        final OrdinalBitmap matched = new OrdinalBitmap();
+        OrdinalBitmap.union(edges.toArray(new OrdinalBitmap[edges.size()])).forEach(ordinal ->
+        {
+            if (overlap(ordinal, start, end))
+            {
+                matched.add(ordinal);
+            }
+        });
+        inside.add(matched);
+        return OrdinalBitmap.union(inside.toArray(new OrdinalBitmap[inside.size()]));
+    }
+
+    /**
+     * A cheaper superset of {@link #overlapping}: every ordinal in a bucket the range touches, and
+     * every window not bucketed. For narrowing other candidates before checking each with
+     * {@link #overlaps}.
+     */
+    public OrdinalBitmap candidates(final long from, final long to)
+    {
+        final long start = from(from);
+        final long end = to(to);
+        if (start > end)
+        {
+            return new OrdinalBitmap();
+        }
+
+        final Map<Long, OrdinalBitmap> range = range(start, end);
+        final OrdinalBitmap[] bitmaps = range.values().toArray(new OrdinalBitmap[range.size() + 1]);
+        bitmaps[range.size()] = m_unbucketed;
+        return OrdinalBitmap.union(bitmaps);
+    }
+
+    private Map<Long, OrdinalBitmap> range(final long start, final long end)
+    {
+        return m_buckets.subMap(bucket(start), true, bucket(end), true);
+    }
+
+    private boolean overlap(final int ordinal, final long start, final long end)
+    {
+        return m_earliest[ordinal] <= m_latest[ordinal] && m_earliest[ordinal] <= end && start <= m_latest[ordinal];
+    }
+
+    private long bucket(final long time)
+    {
+        return Math.floorDiv(time, m_bucketMillis);
+    }
+
+    /**
+     * @return {@code earliest}, or {@link Long#MIN_VALUE} if there is none
+     */
+    static long from(final long earliest)
+    {
+        return earliest == SimpleAsset.NO_TIMESTAMP ? Long.MIN_VALUE : earliest;
+    }
+
+    /**
+     * @return {@code latest}, or {@link Long#MAX_VALUE} if there is none
+     */
+    static long to(final long latest)
+    {
+        return latest == SimpleAsset.NO_TIMESTAMP ? Long.MAX_VALUE : latest;
+    }
+
+    private void ensureCapacity(final int ordinals)
+    {
+        if (ordinals > m_earliest.length)
+        {
+            final int capacity = Math.max(ordinals, Math.max(16, m_earliest.length * 2));
+            m_earliest = Arrays.copyOf(m_earliest, capacity);
+            m_latest = Arrays.copyOf(m_latest, capacity);
+        }
+    }
+}
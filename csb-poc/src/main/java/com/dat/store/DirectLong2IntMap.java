@@ -0,0 +1,271 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.store;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * {@link Long2IntMap} with its table in a direct {@link ByteBuffer}, off the Java heap: each slot is
+ * 12 bytes, the key then the value, in native order. Millions of entries cost the collector
+ * nothing to trace or copy. Probing, removal and resizing are as for {@link Long2IntMap}; a resize
+ * allocates a new buffer and leaves the old one to be freed when it is collected.
+ * <p>
+ * Not thread safe.
+ */
+public final class DirectLong2IntMap
+{
+    private static final int SLOT_BYTES = 12;
+
+    private static final int VALUE_OFFSET = 8;
+
+    /** The most slots a buffer can address */
+    private static final int MAX_TABLE_LENGTH = 1 << 27;
+
+    private final int m_missingValue;
+
+    private ByteBuffer m_table;
+
+    private int m_tableLength;
+
+    private int m_shift;
+
+    private int m_mask;
+
+    private int m_resizeAt;
+
+    private int m_size;
+
+    private boolean m_hasFreeKey;
+
+    private int m_freeKeyValue;
+
+    public DirectLong2IntMap()
+    {
+        this(16, -1);
+    }
+
+    /**
+     * @param expectedSize entries to size the table for before its first resize
+     * @param missingValue what {@link #get} and friends return for an absent key
+     */
+    public DirectLong2IntMap(final int expectedSize, final int missingValue)
+    {
+        if (expectedSize < 0 || Long2IntMap.tableLength(expectedSize) > MAX_TABLE_LENGTH)
+        {
+            throw new IllegalArgumentException(String.format("Bad expected size: %d", expectedSize));
+        }
+        m_missingValue = missingValue;
+        allocate(Long2IntMap.tableLength(expectedSize));
+    }
+
+    /**
+     * @return the value for {@code key}, or {@link #missingValue()}
+     */
+    public int get(final long key)
+    {
+        if (key == Long2IntMap.FREE)
+        {
+            return m_hasFreeKey ? m_freeKeyValue : m_missingValue;
+        }
+        final ByteBuffer table = m_table;
+        for (int i = Long2IntMap.slot(key, m_shift);; i = (i + 1) & m_mask)
+        {
+            final long k = table.getLong(i * SLOT_BYTES);
+            if (k == key)
+            {
+                return table.getInt(i * SLOT_BYTES + VALUE_OFFSET);
+            }
+            if (k == Long2IntMap.FREE)
+            {
+                return m_missingValue;
+            }
+        }
+    }
+
+    public boolean containsKey(final long key)
+    {
+        if (key == Long2IntMap.FREE)
+        {
+            return m_hasFreeKey;
+        }
+        final ByteBuffer table = m_table;
+        for (int i = Long2IntMap.slot(key, m_shift);; i = (i + 1) & m_mask)
+        {
+            final long k = table.getLong(i * SLOT_BYTES);
+            if (k == key)
+            {
+                return true;
+            }
+            if (k == Long2IntMap.FREE)
+            {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * @return the value {@code key} had, or {@link #missingValue()}
+     * @throws IllegalStateException if the table can't grow any further
+     */
+    public int put(final long key, final int value)
+    {
+        if (key == Long2IntMap.FREE)
+        {
+            final int previous = m_hasFreeKey ? m_freeKeyValue : m_missingValue;
+            if (!m_hasFreeKey)
+            {
+                m_hasFreeKey = true;
+                m_size++;
+            }
+            m_freeKeyValue = value;
+            return previous;
+        }
+
+        final ByteBuffer table = m_table;
+        int i = Long2IntMap.slot(key, m_shift);
+        for (long k; (k = table.getLong(i * SLOT_BYTES)) != Long2IntMap.FREE; i = (i + 1) & m_mask)
+        {
+            if (k == key)
+            {
+                final int previous = table.getInt(i * SLOT_BYTES + VALUE_OFFSET);
+                table.putInt(i * SLOT_BYTES + VALUE_OFFSET, value);
+                return previous;
+            }
+        }
+        if (m_size >= m_resizeAt && m_tableLength == MAX_TABLE_LENGTH)
+        {
+            throw new IllegalStateException(String.format("Full at %d entries", m_size));
+        }
+        table.putLong(i * SLOT_BYTES, key);
+        table.putInt(i * SLOT_BYTES + VALUE_OFFSET, value);
+        if (++m_size > m_resizeAt)
+        {
+            rehash(m_tableLength * 2);
+        }
+        return m_missingValue;
+    }
+
+    /**
+     * @return the value {@code key} had, or {@link #missingValue()}
+     */
+    public int remove(final long key)
+    {
+        if (key == Long2IntMap.FREE)
+        {
+            if (!m_hasFreeKey)
+            {
+                return m_missingValue;
+            }
+            m_hasFreeKey = false;
+            m_size--;
+            return m_freeKeyValue;
+        }
+
+        final ByteBuffer table = m_table;
+        for (int i = Long2IntMap.slot(key, m_shift);; i = (i + 1) & m_mask)
+        {
+            final long k = table.getLong(i * SLOT_BYTES);
+            if (k == Long2IntMap.FREE)
+            {
+                return m_missingValue;
+            }
+            if (k == key)
+            {
+                final int previous = table.getInt(i * SLOT_BYTES + VALUE_OFFSET);
+                shiftBack(i);
+                m_size--;
+                return previous;
+            }
+        }
+    }
+
+    public int size()
+    {
+        return m_size;
+    }
+
+    public boolean isEmpty()
+    {
+        return m_size == 0;
+    }
+
+    public void clear()
+    {
+        for (int i = 0; i < m_tableLength; i++)
+        {
+            m_table.putLong(i * SLOT_BYTES, Long2IntMap.FREE);
+        }
+        m_hasFreeKey = false;
+        m_size = 0;
+    }
+
+    public int missingValue()
+    {
+        return m_missingValue;
+    }
+
+    /**
+     * @return bytes held off heap
+     */
+    public long offHeapBytes()
+    {
+        return m_table.capacity();
+    }
+
+    /** See {@link Long2IntMap} */
+    private void shiftBack(int gap)
+    {
+        final ByteBuffer table = m_table;
+        for (int i = (gap + 1) & m_mask;; i = (i + 1) & m_mask)
+        {
+            final long key = table.getLong(i * SLOT_BYTES);
+            if (key == Long2IntMap.FREE)
+            {
+                break;
+            }
+            final int home = Long2IntMap.slot(key, m_shift);
+            if (((i - home) & m_mask) >= ((i - gap) & m_mask))
+            {
+                table.putLong(gap * SLOT_BYTES, key);
+                table.putInt(gap * SLOT_BYTES + VALUE_OFFSET, table.getInt(i * SLOT_BYTES + VALUE_OFFSET));
+                gap = i;
+            }
+        }
+        table.putLong(gap * SLOT_BYTES, Long2IntMap.FREE);
+    }
+
+    private void rehash(final int tableLength)
+    {
+        final ByteBuffer old = m_table;
+        final int oldLength = m_tableLength;
+        allocate(tableLength);
+        for (int i = 0; i < oldLength; i++)
+        {
+            final long key = old.getLong(i * SLOT_BYTES);
+            if (key != Long2IntMap.FREE)
+            {
+                int j = Long2IntMap.slot(key, m_shift);
+                while (m_table.getLong(j * SLOT_BYTES) != Long2IntMap.FREE)
+                {
+                    j = (j + 1) & m_mask;
+                }
+                m_table.putLong(j * SLOT_BYTES, key);
+                m_table.putInt(j * SLOT_BYTES + VALUE_OFFSET, old.getInt(i * SLOT_BYTES + VALUE_OFFSET));
+            }
+        }
+    }
+
+    private void allocate(final int tableLength)
+    {
+        // Direct buffers come zeroed, so every slot starts free
+        m_table = ByteBuffer.allocateDirect(tableLength * SLOT_BYTES).order(ByteOrder.nativeOrder());
+        m_tableLength = tableLength;
+        m_mask = tableLength - 1;
+        m_shift = 64 - Integer.numberOfTrailingZeros(tableLength);
+        m_resizeAt = Long2IntMap.resizeAt(tableLength);
+    }
+}
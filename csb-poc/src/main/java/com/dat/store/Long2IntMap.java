@@ -0,0 +1,285 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.store;
+
+import java.util.Arrays;
+
+/**
+ * Map from long keys to int values with no boxing and no entry objects: keys and values sit in two
+ * parallel arrays, open addressed with linear probing. A removal shifts the entries after it back
+ * rather than leaving a tombstone, so lookups never slow down with churn. The table doubles when
+ * it passes {@link #LOAD_FACTOR} full.
+ * <p>
+ * Every long is a valid key. Absent keys read as the map's {@link #missingValue()}, which should
+ * be a value never stored. Meant for keys such as {@link com.dat.domain.FmeId packed fmeIds}
+ * mapped to dense ordinals; see {@link DirectLong2IntMap} to hold the table off heap.
+ * <p>
+ * Not thread safe.
+ */
+public final class Long2IntMap
+{
+    static final float LOAD_FACTOR = 0.7f;
+
+    /** Marks an unused slot; a real 0 key is held aside */
+    static final long FREE = 0L;
+
+    private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+
+    private final int m_missingValue;
+
+    private long[] m_keys;
+    private int[] m_values;
+
+    /** 64 less log2 of the table length, to take a slot from the top of a hash */
+    private int m_shift;
+
+    private int m_mask;
+
+    private int m_resizeAt;
+
+    private int m_size;
+
+    private boolean m_hasFreeKey;
+
+    private int m_freeKeyValue;
+
+    public Long2IntMap()
+    {
+        this(16, -1);
+    }
+
+    /**
+     * @param expectedSize entries to size the table for before its first resize
+     * @param missingValue what {@link #get} and friends return for an absent key
+     */
+    public Long2IntMap(final int expectedSize, final int missingValue)
+    {
+        if (expectedSize < 0)
+        {
+            throw new IllegalArgumentException(String.format("Bad expected size: %d", expectedSize));
+        }
+        m_missingValue = missingValue;
+        allocate(tableLength(expectedSize));
+    }
+
+    /**
+     * @return the value for {@code key}, or {@link #missingValue()}
+     */
+    public int get(final long key)
+    {
+        if (key == FREE)
+        {
+            return m_hasFreeKey ? m_freeKeyValue : m_missingValue;
+        }
+        final long[] keys = m_keys;
+        for (int i = slot(key, m_shift);; i = (i + 1) & m_mask)
+        {
+            final long k = keys[i];
+            if (k == key)
+            {
+                return m_values[i];
+            }
+            if (k == FREE)
+            {
+                return m_missingValue;
+            }
+        }
+    }
+
+    public boolean containsKey(final long key)
+    {
+        if (key == FREE)
+        {
+            return m_hasFreeKey;
+        }
+        final long[] keys = m_keys;
+        for (int i = slot(key, m_shift);; i = (i + 1) & m_mask)
+        {
+            final long k = keys[i];
+            if (k == key)
+            {
+                return true;
+            }
+            if (k == FREE)
+            {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * @return the value {@code key} had, or {@link #missingValue()}
+     */
+    public int put(final long key, final int value)
+    {
+        if (key == FREE)
+        {
+            final int previous = m_hasFreeKey ? m_freeKeyValue : m_missingValue;
+            if (!m_hasFreeKey)
+            {
+                m_hasFreeKey = true;
+                m_size++;
+            }
+            m_freeKeyValue = value;
+            return previous;
+        }
+
+        final long[] keys = m_keys;
+        int i = slot(key, m_shift);
+        for (; keys[i] != FREE; i = (i + 1) & m_mask)
+        {
+            if (keys[i] == key)
+            {
+                final int previous = m_values[i];
+                m_values[i] = value;
+                return previous;
+            }
+        }
+        keys[i] = key;
+        m_values[i] = value;
+        if (++m_size > m_resizeAt)
+        {
+            rehash(m_keys.length * 2);
+        }
+        return m_missingValue;
+    }
+
+    /**
+     * @return the value {@code key} had, or {@link #missingValue()}
+     */
+    public int remove(final long key)
+    {
+        if (key == FREE)
+        {
+            if (!m_hasFreeKey)
+            {
+                return m_missingValue;
+            }
+            m_hasFreeKey = false;
+            m_size--;
+            return m_freeKeyValue;
+        }
+
+        final long[] keys = m_keys;
+        for (int i = slot(key, m_shift);; i = (i + 1) & m_mask)
+        {
+            final long k = keys[i];
+            if (k == FREE)
+            {
+                return m_missingValue;
+            }
+            if (k == key)
+            {
+                final int previous = m_values[i];
+                shiftBack(i);
+                m_size--;
+                return previous;
+            }
+        }
+    }
+
+    public int size()
+    {
+        return m_size;
+    }
+
+    public boolean isEmpty()
+    {
+        return m_size == 0;
+    }
+
+    public void clear()
+    {
+        Arrays.fill(m_keys, FREE);
+        m_hasFreeKey = false;
+        m_size = 0;
+    }
+
+    public int missingValue()
+    {
+        return m_missingValue;
+    }
+
+    /**
+     * Close the gap left at {@code gap} by moving back each following entry of the run that may
+     * sit there, that is, whose home slot is not after the gap.
+     */
+    private void shiftBack(int gap)
+    {
+        final long[] keys = m_keys;
+        for (int i = (gap + 1) & m_mask; keys[i] != FREE; i = (i + 1) & m_mask)
+        {
+            final int home = slot(keys[i], m_shift);
+            if (((i - home) & m_mask) >= ((i - gap) & m_mask))
+            {
+                keys[gap] = keys[i];
+                m_values[gap] = m_values[i];
+                gap = i;
+            }
+        }
+        keys[gap] = FREE;
+    }
+
+    private void rehash(final int tableLength)
+    {
+        final long[] keys = m_keys;
+        final int[] values = m_values;
+        allocate(tableLength);
+        for (int i = 0; i < keys.length; i++)
+        {
+            final long key = keys[i];
+            if (key != FREE)
+            {
+                int j = slot(key, m_shift);
+                while (m_keys[j] != FREE)
+                {
+                    j = (j + 1) & m_mask;
+                }
+                m_keys[j] = key;
+                m_values[j] = values[i];
+            }
+        }
+    }
+
+    private void allocate(final int tableLength)
+    {
+        m_keys = new long[tableLength];
+        m_values = new int[tableLength];
+        m_mask = tableLength - 1;
+        m_shift = 64 - Integer.numberOfTrailingZeros(tableLength);
+        m_resizeAt = resizeAt(tableLength);
+    }
+
+    /**
+     * Fibonacci hashing: the top bits of the key times 2^64 over the golden ratio, so keys that
+     * differ only in their low or high bits still spread over the table.
+     *
+     * @param shift 64 less log2 of the table length
+     */
+    static int slot(final long key, final int shift)
+    {
+        return (int) ((key * GOLDEN) >>> shift);
+    }
+
+    /**
+     * @return the power of two table length holding {@code expectedSize} entries within the load
+     *         factor
+     */
+    static int tableLength(final int expectedSize)
+    {
+        final long needed = Math.max(2, (long) Math.ceil(expectedSize / (double) LOAD_FACTOR) + 1);
+        if (needed > 1 << 30)
+        {
+            throw new IllegalArgumentException(String.format("Too large: %d", expectedSize));
+        }
+        return Integer.highestOneBit((int) needed - 1) << 1;
+    }
+
+    static int resizeAt(final int tableLength)
+    {
+        return Math.min(tableLength - 1, (int) (tableLength * LOAD_FACTOR));
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.store;
+
+import java.util.Arrays;
+
+/**
+ * Map from long keys to objects with no boxing and no entry objects, laid out and probed as
+ * {@link Long2IntMap} is. Absent keys read as null, so null can't be stored.
+ * <p>
+ * Not thread safe.
+ *
+ * @param <V> the value type
+ */
+public final class Long2ObjectMap<V>
+{
+    private long[] m_keys;
+    private Object[] m_values;
+
+    private int m_shift;
+
+    private int m_mask;
+
+    private int m_resizeAt;
+
+    private int m_size;
+
+    /** The value for a 0 key, which can't go in the table; null if there is none */
+    private V m_freeKeyValue;
+
+    public Long2ObjectMap()
+    {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize entries to size the table for before its first resize
+     */
+    public Long2ObjectMap(final int expectedSize)
+    {
+        if (expectedSize < 0)
+        {
+            throw new IllegalArgumentException(String.format("Bad expected size: %d", expectedSize));
+        }
+        allocate(Long2IntMap.tableLength(expectedSize));
+    }
+
+    /**
+     * @return the value for {@code key}, or null
+     */
+    @SuppressWarnings("unchecked")
+    public V get(final long key)
+    {
+        if (key == Long2IntMap.FREE)
+        {
+            return m_freeKeyValue;
+        }
+        final long[] keys = m_keys;
+        for (int i = Long2IntMap.slot(key, m_shift);; i = (i + 1) & m_mask)
+        {
+            final long k = keys[i];
+            if (k == key)
+            {
+                return (V) m_values[i];
+            }
+            if (k == Long2IntMap.FREE)
+            {
+                return null;
+            }
+        }
+    }
+
+    public boolean containsKey(final long key)
+    {
+        return get(key) != null;
+    }
+
+    /**
+     * @return the value {@code key} had, or null
+     * @throws IllegalArgumentException if {@code value} is null
+     */
+    @SuppressWarnings("unchecked")
+    public V put(final long key, final V value)
+    {
+        if (value == null)
+        {
+            throw new IllegalArgumentException("Null value");
+        }
+        if (key == Long2IntMap.FREE)
+        {
+            final V previous = m_freeKeyValue;
+            if (previous == null)
+            {
+                m_size++;
+            }
+            m_freeKeyValue = value;
+            return previous;
+        }
+
+        final long[] keys = m_keys;
+        int i = Long2IntMap.slot(key, m_shift);
+        for (; keys[i] != Long2IntMap.FREE; i = (i + 1) & m_mask)
+        {
+            if (keys[i] == key)
+            {
+                final V previous = (V) m_values[i];
+                m_values[i] = value;
+                return previous;
+            }
+        }
+        keys[i] = key;
+        m_values[i] = value;
+        if (++m_size > m_resizeAt)
+        {
+            rehash(m_keys.length * 2);
+        }
+        return null;
+    }
+
+    /**
+     * @return the value {@code key} had, or null
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(final long key)
+    {
+        if (key == Long2IntMap.FREE)
+        {
+            final V previous = m_freeKeyValue;
+            if (previous != null)
+            {
+                m_freeKeyValue = null;
+                m_size--;
+            }
+            return previous;
+        }
+
+        final long[] keys = m_keys;
+        for (int i = Long2IntMap.slot(key, m_shift);; i = (i + 1) & m_mask)
+        {
+            final long k = keys[i];
+            if (k == Long2IntMap.FREE)
+            {
+                return null;
+            }
+            if (k == key)
+            {
+                final V previous = (V) m_values[i];
+                shiftBack(i);
+                m_size--;
+                return previous;
+            }
+        }
+    }
+
+    public int size()
+    {
+        return m_size;
+    }
+
+    public boolean isEmpty()
+    {
+        return m_size == 0;
+    }
+
+    public void clear()
+    {
+        Arrays.fill(m_keys, Long2IntMap.FREE);
+        Arrays.fill(m_values, null);
+        m_freeKeyValue = null;
+        m_size = 0;
+    }
+
+    /** See {@link Long2IntMap} */
+    private void shiftBack(int gap)
+    {
+        final long[] keys = m_keys;
+        for (int i = (gap + 1) & m_mask; keys[i] != Long2IntMap.FREE; i = (i + 1) & m_mask)
+        {
+            final int home = Long2IntMap.slot(keys[i], m_shift);
+            if (((i - home) & m_mask) >= ((i - gap) & m_mask))
+            {
+                keys[gap] = keys[i];
+                m_values[gap] = m_values[i];
+                gap = i;
+            }
+        }
+        keys[gap] = Long2IntMap.FREE;
+        m_values[gap] = null;
+    }
+
+    private void rehash(final int tableLength)
+    {
+        final long[] keys = m_keys;
+        final Object[] values = m_values;
+        allocate(tableLength);
+        for (int i = 0; i < keys.length; i++)
+        {
+            final long key = keys[i];
+            if (key != Long2IntMap.FREE)
+            {
+                int j = Long2IntMap.slot(key, m_shift);
+                while (m_keys[j] != Long2IntMap.FREE)
+                {
+                    j = (j + 1) & m_mask;
+                }
+                m_keys[j] = key;
+                m_values[j] = values[i];
+            }
+        }
+    }
+
+    private void allocate(final int tableLength)
+    {
+        m_keys = new long[tableLength];
+        m_values = new Object[tableLength];
+        m_mask = tableLength - 1;
+        m_shift = 64 - Integer.numberOfTrailingZeros(tableLength);
+        m_resizeAt = Long2IntMap.resizeAt(tableLength);
+    }
+}
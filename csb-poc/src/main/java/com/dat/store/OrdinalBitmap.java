@@ -0,0 +1,697 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.store;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * Compressed set of non-negative ints (asset ordinals), laid out like a Roaring bitmap: ordinals are
+ * grouped by their high 16 bits, and each group's low 16 bits are held in a container that is a
+ * sorted array while the group has at most {@value #ARRAY_MAX} members and a 65536-bit bitmap after
+ * that. Sparse sets cost two bytes an ordinal, dense ones an eighth of a byte, and union and
+ * intersection work a container at a time.
+ * <p>
+ * Not thread safe.
+ */
+public final class OrdinalBitmap
+{
+    static final int ARRAY_MAX = 4096;
+
+    private static final int WORDS = 1 << 16 >>> 6;
+
+    /** High 16 bits of each container's ordinals, ascending */
+    private char[] m_keys;
+
+    private Container[] m_containers;
+
+    private int m_size;
+
+    public OrdinalBitmap()
+    {
+        m_keys = new char[4];
+        m_containers = new Container[4];
+    }
+
+    private OrdinalBitmap(final int capacity)
+    {
+        m_keys = new char[Math.max(capacity, 4)];
+        m_containers = new Container[m_keys.length];
+    }
+
+    public static OrdinalBitmap of(final int... ordinals)
+    {
+        final OrdinalBitmap bitmap = new OrdinalBitmap();
+        for (final int ordinal : ordinals)
+        {
+            bitmap.add(ordinal);
+        }
+        return bitmap;
+    }
+
+    /**
+     * @return true if {@code ordinal} wasn't already in the set
+     * @throws IllegalArgumentException if it is negative
+     */
+    public boolean add(final int ordinal)
+    {
+        if (ordinal < 0)
+        {
+            throw new IllegalArgumentException(String.format("Bad ordinal: %d", ordinal));
+        }
+
+        final char key = (char) (ordinal >>> 16);
+        int index = indexOf(key);
+        if (index < 0)
+        {
+            index = -index - 1;
+            insert(index, key, new ArrayContainer());
+        }
+        final Container container = m_containers[index];
+        final int before = container.cardinality();
+        m_containers[index] = container.add((char) ordinal);
+        return m_containers[index].cardinality() != before;
+    }
+
+    /**
+     * @return true if {@code ordinal} was in the set
+     */
+    public boolean remove(final int ordinal)
+    {
+        if (ordinal < 0)
+        {
+            return false;
+        }
+
+        final int index = indexOf((char) (ordinal >>> 16));
+        if (index < 0)
+        {
+            return false;
+        }
+        final Container container = m_containers[index];
+        final int before = container.cardinality();
+        final Container after = container.remove((char) ordinal);
+        if (after.cardinality() == 0)
+        {
+            System.arraycopy(m_keys, index + 1, m_keys, index, m_size - index - 1);
+            System.arraycopy(m_containers, index + 1, m_containers, index, m_size - index - 1);
+            m_containers[--m_size] = null;
+        }
+        else
+        {
+            m_containers[index] = after;
+        }
+        return after.cardinality() != before;
+    }
+
+    public boolean contains(final int ordinal)
+    {
+        if (ordinal < 0)
+        {
+            return false;
+        }
+        final int index = indexOf((char) (ordinal >>> 16));
+        return index >= 0 && m_containers[index].contains((char) ordinal);
+    }
+
+    public int cardinality()
+    {
+        int cardinality = 0;
+        for (int i = 0; i < m_size; i++)
+        {
+            cardinality += m_containers[i].cardinality();
+        }
+        return cardinality;
+    }
+
+    public boolean isEmpty()
+    {
+        return m_size == 0;
+    }
+
+    /**
+     * @return a new bitmap holding the ordinals in either set
+     */
+    public OrdinalBitmap or(final OrdinalBitmap other)
+    {
+        final OrdinalBitmap result = new OrdinalBitmap(m_size + other.m_size);
+        int i = 0;
+        int j = 0;
+        while (i < m_size || j < other.m_size)
+        {
+            final int key = i < m_size ? m_keys[i] : Integer.MAX_VALUE;
+            final int otherKey = j < other.m_size ? other.m_keys[j] : Integer.MAX_VALUE;
+            if (key < otherKey)
+            {
+                result.append(m_keys[i], m_containers[i++].copy());
+            }
+            else if (otherKey < key)
+            {
+                result.append(other.m_keys[j], other.m_containers[j++].copy());
+            }
+            else
+            {
+                result.append(m_keys[i], m_containers[i++].or(other.m_containers[j++]));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return a new bitmap holding the ordinals in both sets
+     */
+    public OrdinalBitmap and(final OrdinalBitmap other)
+    {
+        final OrdinalBitmap result = new OrdinalBitmap(Math.min(m_size, other.m_size));
+        int i = 0;
+        int j = 0;
+        while (i < m_size && j < other.m_size)
+        {
+            if (m_keys[i] < other.m_keys[j])
+            {
+                i++;
+            }
+            else if (other.m_keys[j] < m_keys[i])
+            {
+                j++;
+            }
+            else
+            {
+                final Container container = m_containers[i].and(other.m_containers[j]);
+                if (container.cardinality() > 0)
+                {
+                    result.append(m_keys[i], container);
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return a new bitmap holding the ordinals in any of {@code bitmaps}, which may include nulls
+     */
+    public static OrdinalBitmap union(final OrdinalBitmap... bitmaps)
+    {
+        // Every key any of them has, ascending
+        int keyCount = 0;
+        for (final OrdinalBitmap bitmap : bitmaps)
+        {
+            keyCount += bitmap == null ? 0 : bitmap.m_size;
+        }
+        final char[] keys = new char[keyCount];
+        int offset = 0;
+        for (final OrdinalBitmap bitmap : bitmaps)
+        {
+            if (bitmap != null)
+            {
+                System.arraycopy(bitmap.m_keys, 0, keys, offset, bitmap.m_size);
+                offset += bitmap.m_size;
+            }
+        }
+        Arrays.sort(keys);
+        int unique = 0;
+        for (int i = 0; i < keys.length; i++)
+        {
+            if (unique == 0 || keys[i] != keys[unique - 1])
+            {
+                keys[unique++] = keys[i];
+            }
+        }
+
+        // One container per key, copied from the first bitmap to have it and ORed into in place
+        final OrdinalBitmap result = new OrdinalBitmap(unique);
+        System.arraycopy(keys, 0, result.m_keys, 0, unique);
+        result.m_size = unique;
+        final Container[] containers = result.m_containers;
+        for (final OrdinalBitmap bitmap : bitmaps)
+        {
+            int index = 0;
+            for (int i = 0; bitmap != null && i < bitmap.m_size; i++)
+            {
+                index = Arrays.binarySearch(keys, index, unique, bitmap.m_keys[i]);
+                containers[index] = containers[index] == null ? bitmap.m_containers[i].copy()
+                    : containers[index].orInPlace(bitmap.m_containers[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Pass each ordinal, in ascending order, to {@code consumer}.
+     */
+    public void forEach(final IntConsumer consumer)
+    {
+        for (int i = 0; i < m_size; i++)
+        {
+            m_containers[i].forEach(m_keys[i] << 16, consumer);
+        }
+    }
+
+    /**
+     * Pass each ordinal, in ascending order, to {@code consumer} until it returns false.
+     *
+     * @return false if {@code consumer} stopped it
+     */
+    public boolean forEachWhile(final IntPredicate consumer)
+    {
+        for (int i = 0; i < m_size; i++)
+        {
+            if (!m_containers[i].forEachWhile(m_keys[i] << 16, consumer))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int[] toArray()
+    {
+        final int[] ordinals = new int[cardinality()];
+        final int[] next = new int[1];
+        forEach(ordinal -> ordinals[next[0]++] = ordinal);
+        return ordinals;
+    }
+
+    @Override
+    public String toString()
+    {
+        return Arrays.toString(toArray());
+    }
+
+    private int indexOf(final char key)
+    {
+        return Arrays.binarySearch(m_keys, 0, m_size, key);
+    }
+
+    private void insert(final int index, final char key, final Container container)
+    {
+        if (m_size == m_keys.length)
+        {
+            m_keys = Arrays.copyOf(m_keys, m_size * 2);
+            m_containers = Arrays.copyOf(m_containers, m_size * 2);
+        }
+        System.arraycopy(m_keys, index, m_keys, index + 1, m_size - index);
+        System.arraycopy(m_containers, index, m_containers, index + 1, m_size - index);
+        m_keys[index] = key;
+        m_containers[index] = container;
+        m_size++;
+    }
+
+    private void append(final char key, final Container container)
+    {
+        insert(m_size, key, container);
+    }
+
+    /**
+     * The low 16 bits of one group of ordinals. Mutators return the container now holding the
+     * values, which may be a different kind.
+     */
+    private abstract static class Container
+    {
+        abstract int cardinality();
+
+        abstract boolean contains(char value);
+
+        abstract Container add(char value);
+
+        abstract Container remove(char value);
+
+        abstract Container or(Container other);
+
+        /** Like {@link #or}, but may reuse this container rather than allocating the result */
+        abstract Container orInPlace(Container other);
+
+        abstract Container and(Container other);
+
+        abstract Container copy();
+
+        abstract void forEach(int high, IntConsumer consumer);
+
+        abstract boolean forEachWhile(int high, IntPredicate consumer);
+    }
+
+    private static final class ArrayContainer extends Container
+    {
+        private char[] m_values;
+
+        private int m_cardinality;
+
+        ArrayContainer()
+        {
+            this(new char[4], 0);
+        }
+
+        ArrayContainer(final char[] values, final int cardinality)
+        {
+            m_values = values;
+            m_cardinality = cardinality;
+        }
+
+        @Override
+        int cardinality()
+        {
+            return m_cardinality;
+        }
+
+        @Override
+        boolean contains(final char value)
+        {
+            return Arrays.binarySearch(m_values, 0, m_cardinality, value) >= 0;
+        }
+
+        @Override
+        Container add(final char value)
+        {
+            // Ascending adds, as when building from sorted ordinals, append without a search
+            int index = m_cardinality == 0 || value > m_values[m_cardinality - 1] ? -m_cardinality - 1
+                : Arrays.binarySearch(m_values, 0, m_cardinality, value);
+            if (index >= 0)
+            {
+                return this;
+            }
+            if (m_cardinality == ARRAY_MAX)
+            {
+                return toBitmap().add(value);
+            }
+
+            index = -index - 1;
+            if (m_cardinality == m_values.length)
+            {
+                m_values = Arrays.copyOf(m_values, Math.min(ARRAY_MAX, m_cardinality * 2));
+            }
+            System.arraycopy(m_values, index, m_values, index + 1, m_cardinality - index);
+            m_values[index] = value;
+            m_cardinality++;
+            return this;
+        }
+
+        @Override
+        Container remove(final char value)
+        {
+            final int index = Arrays.binarySearch(m_values, 0, m_cardinality, value);
+            if (index >= 0)
+            {
+                System.arraycopy(m_values, index + 1, m_values, index, m_cardinality - index - 1);
+                m_cardinality--;
+            }
+            return this;
+        }
+
+        @Override
+        Container or(final Container other)
+        {
+            if (other instanceof BitmapContainer)
+            {
+                return other.or(this);
+            }
+
+            final ArrayContainer that = (ArrayContainer) other;
+            final char[] merged = new char[m_cardinality + that.m_cardinality];
+            int i = 0;
+            int j = 0;
+            int k = 0;
+            while (i < m_cardinality && j < that.m_cardinality)
+            {
+                final char a = m_values[i];
+                final char b = that.m_values[j];
+                if (a <= b)
+                {
+                    merged[k++] = a;
+                    i++;
+                    if (a == b)
+                    {
+                        j++;
+                    }
+                }
+                else
+                {
+                    merged[k++] = b;
+                    j++;
+                }
+            }
+            while (i < m_cardinality)
+            {
+                merged[k++] = m_values[i++];
+            }
+            while (j < that.m_cardinality)
+            {
+                merged[k++] = that.m_values[j++];
+            }
+
+            final ArrayContainer result = new ArrayContainer(merged, k);
+            return k > ARRAY_MAX ? result.toBitmap() : result;
+        }
+
+        @Override
+        Container orInPlace(final Container other)
+        {
+            if (other instanceof BitmapContainer)
+            {
+                return other.copy().orInPlace(this);
+            }
+            // Past the array limit the union can only be a bitmap, which then takes the rest in place
+            return m_cardinality + other.cardinality() > ARRAY_MAX ? toBitmap().orInPlace(other) : or(other);
+        }
+
+        @Override
+        Container and(final Container other)
+        {
+            final char[] common = new char[m_cardinality];
+            int k = 0;
+            if (other instanceof BitmapContainer)
+            {
+                for (int i = 0; i < m_cardinality; i++)
+                {
+                    if (other.contains(m_values[i]))
+                    {
+                        common[k++] = m_values[i];
+                    }
+                }
+                return new ArrayContainer(common, k);
+            }
+
+            final ArrayContainer that = (ArrayContainer) other;
+            int i = 0;
+            int j = 0;
+            while (i < m_cardinality && j < that.m_cardinality)
+            {
+                final char a = m_values[i];
+                final char b = that.m_values[j];
+                if (a < b)
+                {
+                    i++;
+                }
+                else if (b < a)
+                {
+                    j++;
+                }
+                else
+                {
+                    common[k++] = a;
+                    i++;
+                    j++;
+                }
+            }
+            return new ArrayContainer(common, k);
+        }
+
+        @Override
+        Container copy()
+        {
+            return new ArrayContainer(Arrays.copyOf(m_values, Math.max(m_cardinality, 4)), m_cardinality);
+        }
+
+        @Override
+        void forEach(final int high, final IntConsumer consumer)
+        {
+            for (int i = 0; i < m_cardinality; i++)
+            {
+                consumer.accept(high | m_values[i]);
+            }
+        }
+
+        @Override
+        boolean forEachWhile(final int high, final IntPredicate consumer)
+        {
+            for (int i = 0; i < m_cardinality; i++)
+            {
+                if (!consumer.test(high | m_values[i]))
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private BitmapContainer toBitmap()
+        {
+            final long[] words = new long[WORDS];
+            for (int i = 0; i < m_cardinality; i++)
+            {
+                words[m_values[i] >>> 6] |= 1L << m_values[i];
+            }
+            return new BitmapContainer(words, m_cardinality);
+        }
+    }
+
+    private static final class BitmapContainer extends Container
+    {
+        private final long[] m_words;
+
+        private int m_cardinality;
+
+        BitmapContainer(final long[] words, final int cardinality)
+        {
+            m_words = words;
+            m_cardinality = cardinality;
+        }
+
+        @Override
+        int cardinality()
+        {
+            return m_cardinality;
+        }
+
+        @Override
+        boolean contains(final char value)
+        {
+            return (m_words[value >>> 6] & 1L << value) != 0;
+        }
+
+        @Override
+        Container add(final char value)
+        {
+            final long before = m_words[value >>> 6];
+            final long after = before | 1L << value;
+            m_words[value >>> 6] = after;
+            m_cardinality += before == after ? 0 : 1;
+            return this;
+        }
+
+        @Override
+        Container remove(final char value)
+        {
+            final long before = m_words[value >>> 6];
+            final long after = before & ~(1L << value);
+            m_words[value >>> 6] = after;
+            if (before != after && --m_cardinality <= ARRAY_MAX)
+            {
+                return toArray();
+            }
+            return this;
+        }
+
+        @Override
+        Container or(final Container other)
+        {
+            final long[] words = m_words.clone();
+            if (other instanceof ArrayContainer)
+            {
+                final BitmapContainer result = new BitmapContainer(words, m_cardinality);
+                other.forEach(0, value -> result.add((char) value));
+                return result;
+            }
+
+            final long[] otherWords = ((BitmapContainer) other).m_words;
+            int cardinality = 0;
+            for (int i = 0; i < WORDS; i++)
+            {
+                words[i] |= otherWords[i];
+                cardinality += Long.bitCount(words[i]);
+            }
+            return new BitmapContainer(words, cardinality);
+        }
+
+        @Override
+        Container orInPlace(final Container other)
+        {
+            if (other instanceof ArrayContainer)
+            {
+                other.forEach(0, value -> add((char) value));
+                return this;
+            }
+
+            final long[] otherWords = ((BitmapContainer) other).m_words;
+            int cardinality = 0;
+            for (int i = 0; i < WORDS; i++)
+            {
+                m_words[i] |= otherWords[i];
+                cardinality += Long.bitCount(m_words[i]);
+            }
+            m_cardinality = cardinality;
+            return this;
+        }
+
+        @Override
+        Container and(final Container other)
+        {
+            if (other instanceof ArrayContainer)
+            {
+                return other.and(this);
+            }
+
+            final long[] words = m_words.clone();
+            final long[] otherWords = ((BitmapContainer) other).m_words;
+            int cardinality = 0;
+            for (int i = 0; i < WORDS; i++)
+            {
+                words[i] &= otherWords[i];
+                cardinality += Long.bitCount(words[i]);
+            }
+            final BitmapContainer result = new BitmapContainer(words, cardinality);
+            return cardinality <= ARRAY_MAX ? result.toArray() : result;
+        }
+
+        @Override
+        Container copy()
+        {
+            return new BitmapContainer(m_words.clone(), m_cardinality);
+        }
+
+        @Override
+        void forEach(final int high, final IntConsumer consumer)
+        {
+            for (int i = 0; i < WORDS; i++)
+            {
+                long word = m_words[i];
+                while (word != 0)
+                {
+                    consumer.accept(high | i << 6 | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        @Override
+        boolean forEachWhile(final int high, final IntPredicate consumer)
+        {
+            for (int i = 0; i < WORDS; i++)
+            {
+                long word = m_words[i];
+                while (word != 0)
+                {
+                    if (!consumer.test(high | i << 6 | Long.numberOfTrailingZeros(word)))
+                    {
+                        return false;
+                    }
+                    word &= word - 1;
+                }
+            }
+            return true;
+        }
+
+        private ArrayContainer toArray()
+        {
+            final char[] values = new char[Math.max(m_cardinality, 4)];
+            final int[] next = new int[1];
+            forEach(0, value -> values[next[0]++] = (char) value);
+            return new ArrayContainer(values, m_cardinality);
+        }
+    }
+}
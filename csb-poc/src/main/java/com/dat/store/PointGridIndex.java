@@ -0,0 +1,305 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.store;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+import com.dat.domain.GreatCircle;
+import com.dat.domain.Point;
+
+/**
+ * Spatial index of points keyed by asset ordinal, for "within so many miles of" queries over asset
+ * origins or destinations. The globe is cut into a grid of equal latitude/longitude cells, each
+ * holding the ordinals of the points inside it along with their unit vectors. A radius query visits
+ * only the cells overlapping the circle's bounding box and checks each of their points exactly. The
+ * check compares straight-line (chord) distance between unit vectors, which orders points just as
+ * haversine distance does, so it needs no trigonometry per point and reads each cell sequentially.
+ * <p>
+ * Ordinals are small non-negative ints assigned by the caller; per-ordinal state is held in arrays
+ * indexed by ordinal, so they should be dense. Not thread safe.
+ */
+public final class PointGridIndex
+{
+    public static final double EARTH_RADIUS_MILES = GreatCircle.EARTH_RADIUS_MILES;
+
+    public static final double DEFAULT_CELL_DEGREES = 0.5;
+
+    private static final double MILES_PER_DEGREE = EARTH_RADIUS_MILES * Math.PI / 180;
+
+    private static final int ABSENT = -1;
+
+    private final double m_cellDegrees;
+
+    private final int m_rows;
+
+    private final int m_columns;
+
+    /** Ordinals in each cell, indexed by row * m_columns + column; null until used */
+    private final int[][] m_cells;
+
+    /** Unit vectors (x, y, z) of the points in each cell, three per ordinal */
+    private final double[][] m_vectors;
+
+    private final int[] m_cellSizes;
+
+    // Indexed by ordinal
+    private int[] m_cellOf = new int[0];
+    private int[] m_slotOf = new int[0];
+
+    private int m_size;
+
+    public PointGridIndex()
+    {
+        this(DEFAULT_CELL_DEGREES);
+    }
+
+    /**
+     * @param cellDegrees the height and width of a cell; a cell should be around the size of a typical
+     *            query's radius
+     */
+    public PointGridIndex(final double cellDegrees)
+    {
+        if (!(cellDegrees > 0 && cellDegrees <= 90))
+        {
+            throw new IllegalArgumentException(String.format("Bad cell size: %f", cellDegrees));
+        }
+        m_cellDegrees = cellDegrees;
+        m_rows = (int) Math.ceil(180 / cellDegrees);
+        m_columns = (int) Math.ceil(360 / cellDegrees);
+        m_cells = new int[m_rows * m_columns][];
+        m_vectors = new double[m_cells.length][];
+        m_cellSizes = new int[m_cells.length];
+    }
+
+    public void put(final int ordinal, final Point point)
+    {
+        put(ordinal, point.getLatitude(), point.getLongitude());
+    }
+
+    /**
+     * Add the point for {@code ordinal}, moving it if it is already indexed.
+     *
+     * @throws IllegalArgumentException if the ordinal is negative or the coordinates out of range
+     */
+    public void put(final int ordinal, final double latitude, final double longitude)
+    {
+        if (ordinal < 0)
+        {
+            throw new IllegalArgumentException(String.format("Bad ordinal: %d", ordinal));
+        }
+        if (!(Math.abs(latitude) <= 90 && Math.abs(longitude) <= 180))
+        {
+            throw new IllegalArgumentException(String.format("Bad coordinates: %f, %f", latitude, longitude));
+        }
+
+        ensureCapacity(ordinal + 1);
+        final int cell = cell(row(latitude), column(longitude));
+        if (m_cellOf[ordinal] != cell)
+        {
+            if (m_cellOf[ordinal] != ABSENT)
+            {
+                unlink(ordinal);
+                m_size--;
+            }
+            link(ordinal, cell);
+            m_size++;
+        }
+
+        final double phi = Math.toRadians(latitude);
+        final double lambda = Math.toRadians(longitude);
+        final double[] vectors = m_vectors[cell];
+        final int at = 3 * m_slotOf[ordinal];
+        vectors[at] = Math.cos(phi) * Math.cos(lambda);
+        vectors[at + 1] = Math.cos(phi) * Math.sin(lambda);
+        vectors[at + 2] = Math.sin(phi);
+    }
+
+    /**
+     * @return false if {@code ordinal} wasn't indexed
+     */
+    public boolean remove(final int ordinal)
+    {
+        if (!contains(ordinal))
+        {
+            return false;
+        }
+        unlink(ordinal);
+        m_size--;
+        return true;
+    }
+
+    public boolean contains(final int ordinal)
+    {
+        return ordinal >= 0 && ordinal < m_cellOf.length && m_cellOf[ordinal] != ABSENT;
+    }
+
+    public int size()
+    {
+        return m_size;
+    }
+
+    /**
+     * Pass each ordinal whose point is within {@code radiusMiles} of the given point, great-circle
+     * distance, to {@code matches}, in no particular order.
+     *
+     * @return the number of matches
+     */
+    public int within(final double latitude, final double longitude, final double radiusMiles,
+        final IntConsumer matches)
+    {
+        if (!(radiusMiles >= 0))
+        {
+            throw new IllegalArgumentException(String.format("Bad radius: %f", radiusMiles));
+        }
+
+        // Bounding box: exact in latitude; in longitude, widest at the box's edge nearest a pole
+        final double latitudeDelta = radiusMiles / MILES_PER_DEGREE;
+        final double minLatitude = latitude - latitudeDelta;
+        final double maxLatitude = latitude + latitudeDelta;
+        double longitudeDelta = 180;
+        if (minLatitude > -90 && maxLatitude < 90)
+        {
+            final double extreme = Math.max(Math.abs(minLatitude), Math.abs(maxLatitude));
+            longitudeDelta = Math.min(180, latitudeDelta / Math.cos(Math.toRadians(extreme)));
+        }
+
+        // Points within the radius are those within the chord subtending it
+        final double chord = radiusMiles >= Math.PI * EARTH_RADIUS_MILES ? 2.0
+            : 2 * Math.sin(radiusMiles / (2 * EARTH_RADIUS_MILES));
+        final double limit = chord * chord;
+        final double phi = Math.toRadians(latitude);
+        final double lambda = Math.toRadians(longitude);
+        final double x = Math.cos(phi) * Math.cos(lambda);
+        final double y = Math.cos(phi) * Math.sin(lambda);
+        final double z = Math.sin(phi);
+
+        final int minRow = row(Math.max(-90, minLatitude));
+        final int maxRow = row(Math.min(90, maxLatitude));
+        final int firstColumn;
+        final int columnCount;
+        if (2 * longitudeDelta >= 360 - m_cellDegrees)
+        {
+            // The ends could fall in the same cell
+            firstColumn = 0;
+            columnCount = m_columns;
+        }
+        else
+        {
+            firstColumn = column(wrap(longitude - longitudeDelta));
+            final int lastColumn = column(wrap(longitude + longitudeDelta));
+            columnCount = Math.min(m_columns, Math.floorMod(lastColumn - firstColumn, m_columns) + 1);
+        }
+
+        int count = 0;
+        for (int row = minRow; row <= maxRow; row++)
+        {
+            for (int c = 0; c < columnCount; c++)
+            {
+                final int cell = cell(row, (firstColumn + c) % m_columns);
+                final int size = m_cellSizes[cell];
+                if (size == 0)
+                {
+                    continue;
+                }
+                final int[] ordinals = m_cells[cell];
+                final double[] vectors = m_vectors[cell];
+                for (int i = 0, at = 0; i < size; i++, at += 3)
+                {
+                    final double dx = vectors[at] - x;
+                    final double dy = vectors[at + 1] - y;
+                    final double dz = vectors[at + 2] - z;
+                    if (dx * dx + dy * dy + dz * dz <= limit)
+                    {
+                        matches.accept(ordinals[i]);
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the great-circle distance between two points, in miles; see {@link GreatCircle}
+     */
+    public static double distanceMiles(final double latitude1, final double longitude1, final double latitude2,
+        final double longitude2)
+    {
+        return GreatCircle.haversineMiles(latitude1, longitude1, latitude2, longitude2);
+    }
+
+    private void link(final int ordinal, final int cell)
+    {
+        int[] ordinals = m_cells[cell];
+        final int size = m_cellSizes[cell];
+        if (ordinals == null)
+        {
+            ordinals = m_cells[cell] = new int[4];
+            m_vectors[cell] = new double[3 * 4];
+        }
+        else if (size == ordinals.length)
+        {
+            ordinals = m_cells[cell] = Arrays.copyOf(ordinals, size * 2);
+            m_vectors[cell] = Arrays.copyOf(m_vectors[cell], 3 * size * 2);
+        }
+        ordinals[size] = ordinal;
+        m_cellSizes[cell] = size + 1;
+        m_cellOf[ordinal] = cell;
+        m_slotOf[ordinal] = size;
+    }
+
+    /**
+     * Take {@code ordinal} out of its cell, moving the cell's last ordinal into its slot.
+     */
+    private void unlink(final int ordinal)
+    {
+        final int cell = m_cellOf[ordinal];
+        final int slot = m_slotOf[ordinal];
+        final int[] ordinals = m_cells[cell];
+        final int last = --m_cellSizes[cell];
+        if (slot != last)
+        {
+            ordinals[slot] = ordinals[last];
+            System.arraycopy(m_vectors[cell], 3 * last, m_vectors[cell], 3 * slot, 3);
+            m_slotOf[ordinals[slot]] = slot;
+        }
+        m_cellOf[ordinal] = ABSENT;
+    }
+
+    private void ensureCapacity(final int ordinals)
+    {
+        final int capacity = m_cellOf.length;
+        if (ordinals <= capacity)
+        {
+            return;
+        }
+        final int newCapacity = Math.max(ordinals, Math.max(16, capacity * 2));
+        m_cellOf = Arrays.copyOf(m_cellOf, newCapacity);
+        Arrays.fill(m_cellOf, capacity, newCapacity, ABSENT);
+        m_slotOf = Arrays.copyOf(m_slotOf, newCapacity);
+    }
+
+    private int row(final double latitude)
+    {
+        return Math.min(m_rows - 1, (int) ((latitude + 90) / m_cellDegrees));
+    }
+
+    private int column(final double longitude)
+    {
+        return Math.min(m_columns - 1, (int) ((longitude + 180) / m_cellDegrees));
+    }
+
+    private int cell(final int row, final int column)
+    {
+        return row * m_columns + column;
+    }
+
+    private static double wrap(final double longitude)
+    {
+        return longitude < -180 ? longitude + 360 : longitude > 180 ? longitude - 360 : longitude;
+    }
+}
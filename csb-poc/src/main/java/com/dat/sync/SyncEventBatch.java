@@ -0,0 +1,575 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.sync;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Container packing many serialized {@link MetaDomainObject}s (normally {@link SyncEvent}s) into a
+ * single Kafka record. Each individual serialization repeats the magic number, the thirty or so
+ * property names, and the payload's field names, {@code @class} names and pretty-printed
+ * indentation; in a batch the names are written once, in a shared dictionary, each event refers to
+ * them by index, and indentation is run-length encoded.
+ * <p>
+ * Layout (multi-byte integers are big-endian; "varint" is an unsigned LEB128 int):
+ *
+ * <pre>
+ * int      magic "CSBB"
+ * byte     version
+ * varint   dictionary size, then per entry: varint length, ISO-8859-1 bytes
+ * varint   event count
+ * int[]    offset of each event, relative to the end of this table
+ * event*   byte flags
+ *          RAW:       varint length, bytes           (events not in the usual name=value form)
+ *          otherwise: varint property count, then per property: varint name index, varint length, value bytes
+ *                     [HAS_PAYLOAD] varint length, payload bytes; when NAMES_SHARED is set each quoted
+ *                     field name and @class value is replaced by 0x01 + varint dictionary index, and
+ *                     each newline followed by two or more spaces by 0x02 + varint space count
+ * </pre>
+ *
+ * Events are reconstituted byte-for-byte as they were added. A batch is a lazy view over its bytes:
+ * only the header and offset table are read up front, and {@link #get(int)} decodes one event on
+ * demand.
+ */
+public class SyncEventBatch implements Iterable<SyncEvent>
+{
+    /** "CSBB" */
+    static final int MAGIC = 0x43534242;
+
+    static final byte VERSION = 1;
+
+    private static final int RAW = 0x01;
+    private static final int HAS_PAYLOAD = 0x02;
+    private static final int NAMES_SHARED = 0x04;
+
+    /** Control characters are never valid, unescaped, in JSON or XML text */
+    private static final byte NAME_REFERENCE = 0x01;
+    private static final byte INDENT = 0x02;
+
+    private static final byte[] PAYLOAD_PREFIX = "__payload=".getBytes(StandardCharsets.US_ASCII);
+
+    private final byte[] m_data;
+
+    private final String[] m_dictionary;
+
+    private final int m_size;
+
+    private final int m_offsetTable;
+
+    private final int m_eventData;
+
+    /**
+     * Wrap serialized batch bytes, reading only the header, dictionary and offset table.
+     *
+     * @throws IllegalArgumentException if {@code data} is not a batch
+     */
+    public SyncEventBatch(final byte[] data)
+    {
+        if (!is(data))
+        {
+            throw new IllegalArgumentException("Serialized data does not define a " + getClass().getName());
+        }
+        if (data[4] != VERSION)
+        {
+            throw new IllegalArgumentException(String.format("Unsupported batch version %d", data[4]));
+        }
+
+        m_data = data;
+
+        final Reader reader = new Reader(data, 5);
+        m_dictionary = new String[reader.varint()];
+        for (int i = 0; i < m_dictionary.length; i++)
+        {
+            final int length = reader.varint();
+            m_dictionary[i] = new String(data, reader.m_position, length, StandardCharsets.ISO_8859_1);
+            reader.m_position += length;
+        }
+
+        m_size = reader.varint();
+        m_offsetTable = reader.m_position;
+        m_eventData = m_offsetTable + 4 * m_size;
+        if (m_eventData > data.length)
+        {
+            throw new IllegalArgumentException("Batch offset table is truncated");
+        }
+    }
+
+    /**
+     * Test if data appears to be a serialized {@code SyncEventBatch}.
+     */
+    public static boolean is(final byte[] data)
+    {
+        return data != null && data.length >= 5 && readInt(data, 0) == MAGIC;
+    }
+
+    public int size()
+    {
+        return m_size;
+    }
+
+    /**
+     * @return the serialized batch
+     */
+    public byte[] bytes()
+    {
+        return m_data;
+    }
+
+    /**
+     * @return event {@code index} exactly as it was serialized when added to the batch
+     */
+    public byte[] serialized(final int index)
+    {
+        if (index < 0 || index >= m_size)
+        {
+            throw new IndexOutOfBoundsException(String.format("Event %d of %d", index, m_size));
+        }
+
+        final Reader reader = new Reader(m_data, m_eventData + readInt(m_data, m_offsetTable + 4 * index));
+        final int flags = m_data[reader.m_position++];
+
+        if ((flags & RAW) != 0)
+        {
+            final int length = reader.varint();
+            final byte[] raw = new byte[length];
+            System.arraycopy(m_data, reader.m_position, raw, 0, length);
+            return raw;
+        }
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(8 * 1024);
+        final int properties = reader.varint();
+        for (int i = 0; i < properties; i++)
+        {
+            writeLatin1(out, m_dictionary[reader.varint()]);
+            out.write('=');
+            final int length = reader.varint();
+            out.write(m_data, reader.m_position, length);
+            out.write('\n');
+            reader.m_position += length;
+        }
+
+        if ((flags & HAS_PAYLOAD) != 0)
+        {
+            out.write(PAYLOAD_PREFIX, 0, PAYLOAD_PREFIX.length);
+            final int end = reader.varint() + reader.m_position;
+            if ((flags & NAMES_SHARED) == 0)
+            {
+                out.write(m_data, reader.m_position, end - reader.m_position);
+            }
+            else
+            {
+                while (reader.m_position < end)
+                {
+                    final byte b = m_data[reader.m_position++];
+                    if (b == NAME_REFERENCE)
+                    {
+                        out.write('"');
+                        writeLatin1(out, m_dictionary[reader.varint()]);
+                        out.write('"');
+                    }
+                    else if (b == INDENT)
+                    {
+                        out.write('\n');
+                        for (int spaces = reader.varint(); spaces > 0; spaces--)
+                        {
+                            out.write(' ');
+                        }
+                    }
+                    else
+                    {
+                        out.write(b);
+                    }
+                }
+            }
+        }
+
+        return out.toByteArray();
+    }
+
+    /**
+     * @return event {@code index}, or null if it isn't a valid {@link SyncEvent} (the same contract as
+     *         {@code SyncEventDeserializer})
+     */
+    public SyncEvent get(final int index)
+    {
+        try
+        {
+            return new SyncEvent(serialized(index), false);
+        }
+        catch (final IndexOutOfBoundsException e)
+        {
+            throw e;
+        }
+        catch (final Exception e)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Decodes each event as it is reached, so a batch can be handed straight to
+     * {@code KStream.flatMapValues(batch -> batch)}.
+     */
+    @Override
+    public Iterator<SyncEvent> iterator()
+    {
+        return new Iterator<SyncEvent>()
+        {
+            private int m_next;
+
+            @Override
+            public boolean hasNext()
+            {
+                return m_next < m_size;
+            }
+
+            @Override
+            public SyncEvent next()
+            {
+                if (m_next >= m_size)
+                {
+                    throw new NoSuchElementException();
+                }
+                return get(m_next++);
+            }
+        };
+    }
+
+    /**
+     * Accumulates serialized events and writes them out as a batch.
+     */
+    public static class Builder
+    {
+        private final Map<String, Integer> m_indexes = new HashMap<>();
+
+        private final List<String> m_dictionary = new ArrayList<>();
+
+        private final ByteArrayOutputStream m_events = new ByteArrayOutputStream(64 * 1024);
+
+        private final List<Integer> m_offsets = new ArrayList<>();
+
+        /**
+         * Add an event in the form {@code SyncEventSerializer} writes it.
+         */
+        public Builder add(final MetaDomainObject event)
+        {
+            return add(event.toString().getBytes());
+        }
+
+        /**
+         * @param serialized a serialized {@link MetaDomainObject}, e.g. a Kafka record value
+         */
+        public Builder add(final byte[] serialized)
+        {
+            m_offsets.add(m_events.size());
+
+            final ByteArrayOutputStream event = new ByteArrayOutputStream(serialized.length);
+            if (!addStructured(serialized, event))
+            {
+                m_events.write(RAW);
+                writeVarint(m_events, serialized.length);
+                m_events.write(serialized, 0, serialized.length);
+                return this;
+            }
+
+            final byte[] encoded = event.toByteArray();
+            m_events.write(encoded, 0, encoded.length);
+            return this;
+        }
+
+        public int size()
+        {
+            return m_offsets.size();
+        }
+
+        public SyncEventBatch build()
+        {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream(m_events.size() + 4 * 1024);
+            writeInt(out, MAGIC);
+            out.write(VERSION);
+
+            writeVarint(out, m_dictionary.size());
+            for (final String entry : m_dictionary)
+            {
+                final byte[] bytes = entry.getBytes(StandardCharsets.ISO_8859_1);
+                writeVarint(out, bytes.length);
+                out.write(bytes, 0, bytes.length);
+            }
+
+            writeVarint(out, m_offsets.size());
+            for (final int offset : m_offsets)
+            {
+                writeInt(out, offset);
+            }
+
+            final byte[] events = m_events.toByteArray();
+            out.write(events, 0, events.length);
+
+            return new SyncEventBatch(out.toByteArray());
+        }
+
+        private boolean addStructured(final byte[] serialized, final ByteArrayOutputStream event)
+        {
+            final ByteArrayOutputStream properties = new ByteArrayOutputStream(1024);
+            int count = 0;
+            int position = 0;
+            int payloadStart = -1;
+
+            while (position < serialized.length)
+            {
+                if (startsWith(serialized, position, PAYLOAD_PREFIX))
+                {
+                    payloadStart = position + PAYLOAD_PREFIX.length;
+                    break;
+                }
+
+                int newline = position;
+                int equals = -1;
+                while (newline < serialized.length && serialized[newline] != '\n')
+                {
+                    if (serialized[newline] == '\r')
+                    {
+                        return false;
+                    }
+                    if (equals < 0 && serialized[newline] == '=')
+                    {
+                        equals = newline;
+                    }
+                    newline++;
+                }
+
+                // Nameless values and a final line without a newline aren't worth special cases
+                if (equals <= position || newline == serialized.length)
+                {
+                    return false;
+                }
+
+                writeVarint(properties, index(new String(serialized, position, equals - position,
+                    StandardCharsets.ISO_8859_1)));
+                writeVarint(properties, newline - equals - 1);
+                properties.write(serialized, equals + 1, newline - equals - 1);
+                count++;
+                position = newline + 1;
+            }
+
+            int flags = 0;
+            byte[] payload = null;
+            if (payloadStart >= 0)
+            {
+                flags |= HAS_PAYLOAD;
+                payload = shareNames(serialized, payloadStart);
+                if (payload != null)
+                {
+                    flags |= NAMES_SHARED;
+                }
+                else
+                {
+                    payload = new byte[serialized.length - payloadStart];
+                    System.arraycopy(serialized, payloadStart, payload, 0, payload.length);
+                }
+            }
+
+            event.write(flags);
+            writeVarint(event, count);
+            final byte[] props = properties.toByteArray();
+            event.write(props, 0, props.length);
+            if (payload != null)
+            {
+                writeVarint(event, payload.length);
+                event.write(payload, 0, payload.length);
+            }
+            return true;
+        }
+
+        /**
+         * @return the payload with field names, {@code @class} values and indentation replaced by
+         *         references, or null if the payload already contains the marker bytes
+         */
+        private byte[] shareNames(final byte[] serialized, final int start)
+        {
+            for (int i = start; i < serialized.length; i++)
+            {
+                if (serialized[i] == NAME_REFERENCE || serialized[i] == INDENT)
+                {
+                    return null;
+                }
+            }
+
+            final ByteArrayOutputStream out = new ByteArrayOutputStream(serialized.length - start);
+            boolean classValue = false;
+            int position = start;
+            while (position < serialized.length)
+            {
+                final byte b = serialized[position];
+
+                if (b == '\n')
+                {
+                    int spaces = 0;
+                    while (position + 1 + spaces < serialized.length && serialized[position + 1 + spaces] == ' ')
+                    {
+                        spaces++;
+                    }
+                    if (spaces >= 2)
+                    {
+                        out.write(INDENT);
+                        writeVarint(out, spaces);
+                        position += 1 + spaces;
+                        continue;
+                    }
+                }
+                else if (b == '"')
+                {
+                    // Find the closing quote, noting whether the string needed escapes
+                    boolean escaped = false;
+                    int close = position + 1;
+                    while (close < serialized.length && serialized[close] != '"')
+                    {
+                        if (serialized[close] == '\\')
+                        {
+                            escaped = true;
+                            close++;
+                        }
+                        close++;
+                    }
+                    if (close >= serialized.length)
+                    {
+                        out.write(serialized, position, serialized.length - position);
+                        break;
+                    }
+
+                    final boolean name = isName(serialized, close + 1);
+                    if (!escaped && (name || classValue))
+                    {
+                        final String text = new String(serialized, position + 1, close - position - 1,
+                            StandardCharsets.ISO_8859_1);
+                        out.write(NAME_REFERENCE);
+                        writeVarint(out, index(text));
+                        classValue = name && "@class".equals(text);
+                    }
+                    else
+                    {
+                        out.write(serialized, position, close + 1 - position);
+                        classValue = false;
+                    }
+                    position = close + 1;
+                    continue;
+                }
+
+                out.write(b);
+                position++;
+            }
+
+            return out.toByteArray();
+        }
+
+        private int index(final String entry)
+        {
+            Integer index = m_indexes.get(entry);
+            if (index == null)
+            {
+                index = m_dictionary.size();
+                m_dictionary.add(entry);
+                m_indexes.put(entry, index);
+            }
+            return index;
+        }
+    }
+
+    /**
+     * @return true if only whitespace separates {@code from} from a colon
+     */
+    private static boolean isName(final byte[] data, int from)
+    {
+        while (from < data.length && (data[from] == ' ' || data[from] == '\t'))
+        {
+            from++;
+        }
+        return from < data.length && data[from] == ':';
+    }
+
+    private static boolean startsWith(final byte[] data, final int offset, final byte[] prefix)
+    {
+        if (offset + prefix.length > data.length)
+        {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++)
+        {
+            if (data[offset + i] != prefix[i])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeLatin1(final ByteArrayOutputStream out, final String s)
+    {
+        for (int i = 0; i < s.length(); i++)
+        {
+            out.write(s.charAt(i));
+        }
+    }
+
+    private static void writeVarint(final ByteArrayOutputStream out, int value)
+    {
+        while ((value & ~0x7F) != 0)
+        {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static void writeInt(final ByteArrayOutputStream out, final int value)
+    {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    private static int readInt(final byte[] data, final int offset)
+    {
+        return (data[offset] & 0xFF) << 24 | (data[offset + 1] & 0xFF) << 16 | (data[offset + 2] & 0xFF) << 8
+            | (data[offset + 3] & 0xFF);
+    }
+
+    private static final class Reader
+    {
+        private final byte[] m_data;
+
+        private int m_position;
+
+        Reader(final byte[] data, final int position)
+        {
+            m_data = data;
+            m_position = position;
+        }
+
+        int varint()
+        {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do
+            {
+                b = m_data[m_position++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            }
+            while ((b & 0x80) != 0);
+            return value;
+        }
+    }
+}
@@ -9,12 +9,20 @@ package com.dat.util;
 
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
 
 import org.apache.commons.lang3.StringUtils;
 
 /**
  * This class is used to check the values of arguments (parameters) to methods to insure expected pre-conditions. If the
  * pre-condition is violated, a <code>java.lang.IllegalArgument</code> exception (with explanatory message) is thrown.
+ * <p>
+ * Every check is a comparison and a branch to an out-of-line failure, so the JIT can inline it into the caller; a
+ * message that costs something to build is only built on failure, or can be passed as a <code>Supplier</code>. Class
+ * names given to {@link #isClass} and {@link #containsOnly} are resolved once and cached. Failure messages normally
+ * include the caller's stack; with {@link #HOT_PATH} set they don't, which makes a failed check far cheaper.
  *
  * @author Tim Dale
  * @since 01/2004
@@ -43,6 +51,18 @@ public final class ArgCheck {
 
     private static String NOT_NULL = "argument cannot be null";
 
+    /**
+     * Hot path mode, set by the <code>com.dat.util.ArgCheck.hotPath</code> system property at startup: failures throw
+     * with the bare message, leaving the stack to the exception itself rather than walking it into the message too.
+     */
+    public static final boolean HOT_PATH = Boolean.getBoolean("com.dat.util.ArgCheck.hotPath");
+
+    // Classes by name, resolved once; a name that doesn't resolve maps to NotFound, which nothing is an instance of
+    private static final ConcurrentMap<String, Class<?>> CLASSES = new ConcurrentHashMap<>();
+
+    private static final class NotFound {
+    }
+
 
 
     /**
@@ -64,6 +84,26 @@ public final class ArgCheck {
 
 
 
+    /**
+     * Test if an expression is true.
+     *
+     * @param expression Boolean expression to test
+     *
+     * @param message supplies the message for the <code>IllegalArgumentException</code>; only called if expression is
+     *        NOT true.
+     *
+     * @throws java.lang.IllegalArgumentException if <code>expression</code> is not true, embedding the supplied
+     *         message in the exception message.
+     */
+    public static final void test(final boolean expression, final Supplier<String> message) {
+
+        if (!expression) {
+            throw iax(message.get());
+        }
+    }
+
+
+
     /**
      * Test if argument is null.
      *
@@ -104,6 +144,26 @@ public final class ArgCheck {
 
 
 
+    /**
+     * Test if argument is null.
+     *
+     * @param o Object to test
+     *
+     * @param msg supplies the message for the IllegalArgumentException; only called if <code>o</code> is null. If it
+     *        supplies null or empty, a default message is used.
+     *
+     * @throws java.lang.IllegalArgumentException exception if <code>o</code> is null.
+     */
+    public static final void notNull(final Object o, final Supplier<String> msg) {
+
+        if (o == null) {
+            final String message = msg.get();
+            throw iax(StringUtils.isEmpty(message) ? NOT_NULL : message);
+        }
+    }
+
+
+
     /**
      * Test if String argument is null or empty ("").
      *
@@ -116,7 +176,28 @@ public final class ArgCheck {
      */
     public static final void notEmpty(final CharSequence s, final String message) {
 
-        test((s != null) && !StringUtils.isEmpty(s.toString()), message);
+        if ((s == null) || (s.length() == 0)) {
+            throw iax(message);
+        }
+    }
+
+
+
+    /**
+     * Test if String argument is null or empty ("").
+     *
+     * @param s String to test.
+     *
+     * @param message supplies the message for the <code>IllegalArgumentException</code>; only called if
+     *        <code>s</code> is null or empty.
+     *
+     * @throws java.lang.IllegalArgumentException exception if <code>s</code> is null or empty.
+     */
+    public static final void notEmpty(final CharSequence s, final Supplier<String> message) {
+
+        if ((s == null) || (s.length() == 0)) {
+            throw iax(message.get());
+        }
     }
 
 
@@ -147,7 +228,28 @@ public final class ArgCheck {
      */
     public static final void notEmpty(final Collection<? extends Object> c, final String message) {
 
-        test((c != null) && (c.size() > 0), message);
+        if ((c == null) || c.isEmpty()) {
+            throw iax(message);
+        }
+    }
+
+
+
+    /**
+     * Test is a collection argument is null or empty.
+     *
+     * @param c Collection to test.
+     *
+     * @param message supplies the message for the <code>IllegalArgumentException</code>; only called if
+     *        <code>c</code> is null or empty.
+     *
+     * @throws IllegalArgumentException if <code>c</code> is null or empty.
+     */
+    public static final void notEmpty(final Collection<? extends Object> c, final Supplier<String> message) {
+
+        if ((c == null) || c.isEmpty()) {
+            throw iax(message.get());
+        }
     }
 
 
@@ -425,7 +527,9 @@ public final class ArgCheck {
      */
     public static final void notLessThan(final int value, final int lower) {
 
-        test((value >= lower), LESS_THAN + lower);
+        if (value < lower) {
+            throw iax(LESS_THAN + lower);
+        }
     }
 
 
@@ -440,7 +544,10 @@ public final class ArgCheck {
      */
     public static final void notLessThan(final double value, final double lower) {
 
-        test((value >= lower), LESS_THAN + lower);
+        // negated, so NaN fails
+        if (!(value >= lower)) {
+            throw iax(LESS_THAN + lower);
+        }
     }
 
 
@@ -456,7 +563,10 @@ public final class ArgCheck {
      */
     public static final void notLessThan(final float value, final float lower) {
 
-        test((value >= lower), LESS_THAN + lower);
+        // negated, so NaN fails
+        if (!(value >= lower)) {
+            throw iax(LESS_THAN + lower);
+        }
     }
 
 
@@ -472,7 +582,9 @@ public final class ArgCheck {
      */
     public static final void notLessThan(final char value, final char lower) {
 
-        test((value >= lower), LESS_THAN + "(char)" + (int)lower);
+        if (value < lower) {
+            throw iax(LESS_THAN + "(char)" + (int)lower);
+        }
     }
 
 
@@ -487,7 +599,9 @@ public final class ArgCheck {
      */
     public static final void notGreaterThan(final int value, final int upper) {
 
-        test((value <= upper), GREATER_THAN + upper);
+        if (value > upper) {
+            throw iax(GREATER_THAN + upper);
+        }
     }
 
 
@@ -502,7 +616,10 @@ public final class ArgCheck {
      */
     public static final void notGreaterThan(final double value, final double upper) {
 
-        test((value <= upper), GREATER_THAN + upper);
+        // negated, so NaN fails
+        if (!(value <= upper)) {
+            throw iax(GREATER_THAN + upper);
+        }
     }
 
 
@@ -518,7 +635,10 @@ public final class ArgCheck {
      */
     public static final void notGreaterThan(final float value, final float upper) {
 
-        test((value <= upper), GREATER_THAN + upper);
+        // negated, so NaN fails
+        if (!(value <= upper)) {
+            throw iax(GREATER_THAN + upper);
+        }
     }
 
 
@@ -534,7 +654,9 @@ public final class ArgCheck {
      */
     public static final void notGreaterThan(final char value, final char upper) {
 
-        test((value <= upper), GREATER_THAN + "(char)" + (int)upper);
+        if (value > upper) {
+            throw iax(GREATER_THAN + "(char)" + (int)upper);
+        }
     }
 
     /**
@@ -585,18 +707,29 @@ public final class ArgCheck {
             return false;
         }
 
-        // interrogate the rts
-        Class<?> superClass;
+        return isInstanceOf(o, classNamed(superClassName));
+    }
+
+    /**
+     * @return the class named <code>className</code> by the default class loader, or <code>NotFound</code> if there is
+     *         none; looked up once per name
+     */
+    private static Class<?> classNamed(final String className)
+    {
+        final Class<?> cached = CLASSES.get(className);
+        return cached != null ? cached : CLASSES.computeIfAbsent(className, ArgCheck::resolve);
+    }
+
+    private static Class<?> resolve(final String className)
+    {
         try
         {
-            superClass = Class.forName(superClassName);
+            return Class.forName(className, true, ArgCheck.class.getClassLoader());
         }
         catch (final ClassNotFoundException e)
         {
-            return false;
+            return NotFound.class;
         }
-
-        return isInstanceOf(o, superClass);
     }
 
     /**
@@ -635,9 +768,11 @@ public final class ArgCheck {
      */
     public static final void containsOnly(final String className, final Collection<? extends Object> collection) {
 
+        // resolve the name once for the whole collection
+        final Class<?> superClass = StringUtils.isEmpty(className) ? null : classNamed(className);
         final Iterator<? extends Object> iter = collection.iterator();
         while (iter.hasNext()) {
-            if (!isInstanceOf(iter.next(), className)) {
+            if (!isInstanceOf(iter.next(), superClass)) {
 
                 // build up a message only if needed; calling test()
                 // would have required building msg every time this
@@ -695,6 +830,9 @@ public final class ArgCheck {
         // safe the message (yes, should probably use a StringBuffer, but calls to this method SHOULD be exceedingly
         // rare...
         message = StringUtils.defaultString(message);
+        if (HOT_PATH) {
+            throw new IllegalArgumentException(message);
+        }
 
         // now attempt to add a stack trace to the message
         message += "   where: ";
@@ -5,12 +5,20 @@
  */
 package com.dat.util;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
 /**
  * This class implements base-56 notation using a restricted ASCII alphabet for numerals.
  * <p>
  * The alphabet (in ordinal order) is "0123456789ABCDEFGHJKLMNPRSTUVWXYZabcdefghjkmnpqrstuvwxyz".
  * 'I', 'O', 'Q', 'i', 'l', and 'o' are excluded because they are too easily confused with '1' and
  * '0'.
+ * <p>
+ * Numerals are looked up in tables both ways. Besides the String forms, fixed-width ids can be
+ * encoded into and decoded from caller-supplied {@code char[]}, {@code byte[]} and
+ * {@link ByteBuffer} storage at an offset, singly or in bulk, without allocating; decoding
+ * reports bad input with a sentinel rather than an exception.
  *
  * @author Tim Dale
  * @version $Id: Base56.java 16544 2013-10-25 20:52:53Z philipc $
@@ -18,6 +26,17 @@ package com.dat.util;
  */
 public class Base56
 {
+    /** What {@link #toDecimalOrInvalid(char)} returns for a character outside the alphabet */
+    public static final int INVALID = -1;
+
+    /** What the decode methods return for input that isn't a base-56 number that fits a long */
+    public static final long INVALID_VALUE = -1L;
+
+    /** Digits in the longest base-56 long, {@link Long#MAX_VALUE} */
+    public static final int MAX_DIGITS = 11;
+
+    private static final int RADIX = 56;
+
     /**
      * Given a decimal value in the range 0..55, return its representative numeral.
      *
@@ -45,123 +64,24 @@ public class Base56
      */
     public static int toDecimal(final char base56Numeral)
     {
-        switch (base56Numeral)
-        {
-            case '0' :
-                return 0;
-            case '1' :
-                return 1;
-            case '2' :
-                return 2;
-            case '3' :
-                return 3;
-            case '4' :
-                return 4;
-            case '5' :
-                return 5;
-            case '6' :
-                return 6;
-            case '7' :
-                return 7;
-            case '8' :
-                return 8;
-            case '9' :
-                return 9;
-            case 'A' :
-                return 10;
-            case 'B' :
-                return 11;
-            case 'C' :
-                return 12;
-            case 'D' :
-                return 13;
-            case 'E' :
-                return 14;
-            case 'F' :
-                return 15;
-            case 'G' :
-                return 16;
-            case 'H' :
-                return 17;
-            case 'J' :
-                return 18;
-            case 'K' :
-                return 19;
-            case 'L' :
-                return 20;
-            case 'M' :
-                return 21;
-            case 'N' :
-                return 22;
-            case 'P' :
-                return 23;
-            case 'R' :
-                return 24;
-            case 'S' :
-                return 25;
-            case 'T' :
-                return 26;
-            case 'U' :
-                return 27;
-            case 'V' :
-                return 28;
-            case 'W' :
-                return 29;
-            case 'X' :
-                return 30;
-            case 'Y' :
-                return 31;
-            case 'Z' :
-                return 32;
-            case 'a' :
-                return 33;
-            case 'b' :
-                return 34;
-            case 'c' :
-                return 35;
-            case 'd' :
-                return 36;
-            case 'e' :
-                return 37;
-            case 'f' :
-                return 38;
-            case 'g' :
-                return 39;
-            case 'h' :
-                return 40;
-            case 'j' :
-                return 41;
-            case 'k' :
-                return 42;
-            case 'm' :
-                return 43;
-            case 'n' :
-                return 44;
-            case 'p' :
-                return 45;
-            case 'q' :
-                return 46;
-            case 'r' :
-                return 47;
-            case 's' :
-                return 48;
-            case 't' :
-                return 49;
-            case 'u' :
-                return 50;
-            case 'v' :
-                return 51;
-            case 'w' :
-                return 52;
-            case 'x' :
-                return 53;
-            case 'y' :
-                return 54;
-            case 'z' :
-                return 55;
-            default :
-                throw new IllegalArgumentException("base56Numeral is not in base-56 alphabet");
+        final int decimal = toDecimalOrInvalid(base56Numeral);
+        if (decimal == INVALID)
+        {
+            throw new IllegalArgumentException("base56Numeral is not in base-56 alphabet");
         }
+        return decimal;
+    }
+
+    /**
+     * Given a base-56 numeral, return it's decimal value, without throwing.
+     *
+     * @param base56Numeral The base-56 numeral to convert into a decimal value.
+     *
+     * @return the decimal value (0..55) of the base-56 numeral, or {@link #INVALID}.
+     */
+    public static int toDecimalOrInvalid(final char base56Numeral)
+    {
+        return base56Numeral < decimals.length ? decimals[base56Numeral] : INVALID;
     }
 
     /**
@@ -174,38 +94,31 @@ public class Base56
      *
      * @return String encoding of the decimal value in base-56.
      */
-    public static String toString(long decimalValue, int minimumDigits)
+    public static String toString(final long decimalValue, int minimumDigits)
     {
         if (minimumDigits < 1)
         {
             minimumDigits = 1;
         }
 
-        final boolean negative = decimalValue < 0;
-        if (negative)
-        {
-            decimalValue = -decimalValue;
-        }
+        final char[] chars = new char[Math.max(minimumDigits, MAX_DIGITS) + 1];
+        int position = chars.length;
 
-        final StringBuilder sb = new StringBuilder();
-        int digitsProcessed = 0;
-        boolean done = false;
-        while (!done)
+        // Count down through negatives, so Long.MIN_VALUE converts too
+        long negative = decimalValue < 0 ? decimalValue : -decimalValue;
+        do
         {
-            final int digit = (int) (decimalValue % 56);
-            sb.append(numeral(digit));
-            ++digitsProcessed;
-
-            decimalValue /= 56;
-            done = decimalValue == 0 && digitsProcessed >= minimumDigits;
+            chars[--position] = alphabet[(int) -(negative % RADIX)];
+            negative /= RADIX;
         }
+        while (negative != 0 || chars.length - position < minimumDigits);
 
-        if (negative)
+        if (decimalValue < 0)
         {
-            sb.append('-');
+            chars[--position] = '-';
         }
 
-        return sb.reverse().toString();
+        return new String(chars, position, chars.length - position);
     }
 
     /**
@@ -228,12 +141,224 @@ public class Base56
 
         for (int index = 0; index < len; index++)
         {
-            decimalValue = decimalValue * 56 + Base56.toDecimal(base56String.charAt(index));
+            decimalValue = decimalValue * RADIX + Base56.toDecimal(base56String.charAt(index));
         }
 
         return decimalValue;
     }
 
+    /**
+     * Write {@code value} as exactly {@code digits} numerals, zero padded, at {@code offset}.
+     *
+     * @return the offset just past the numerals
+     *
+     * @throws IllegalArgumentException if {@code value} is negative or needs more digits
+     * @throws IndexOutOfBoundsException if {@code dst} hasn't room
+     */
+    public static int encode(final long value, final int digits, final char[] dst, final int offset)
+    {
+        checkEncodable(value, digits);
+        long rest = value;
+        for (int i = offset + digits - 1; i >= offset; i--)
+        {
+            dst[i] = alphabet[(int) (rest % RADIX)];
+            rest /= RADIX;
+        }
+        return offset + digits;
+    }
+
+    /**
+     * Write {@code value} as exactly {@code digits} ASCII numerals, zero padded, at {@code offset}.
+     *
+     * @return the offset just past the numerals
+     *
+     * @throws IllegalArgumentException if {@code value} is negative or needs more digits
+     * @throws IndexOutOfBoundsException if {@code dst} hasn't room
+     */
+    public static int encode(final long value, final int digits, final byte[] dst, final int offset)
+    {
+        checkEncodable(value, digits);
+        long rest = value;
+        for (int i = offset + digits - 1; i >= offset; i--)
+        {
+            dst[i] = asciiAlphabet[(int) (rest % RADIX)];
+            rest /= RADIX;
+        }
+        return offset + digits;
+    }
+
+    /**
+     * Write {@code value} as exactly {@code digits} ASCII numerals, zero padded, at {@code index},
+     * leaving {@code dst}'s position alone.
+     *
+     * @return the index just past the numerals
+     *
+     * @throws IllegalArgumentException if {@code value} is negative or needs more digits
+     * @throws IndexOutOfBoundsException if {@code dst} hasn't room
+     */
+    public static int encode(final long value, final int digits, final ByteBuffer dst, final int index)
+    {
+        checkEncodable(value, digits);
+        long rest = value;
+        for (int i = index + digits - 1; i >= index; i--)
+        {
+            dst.put(i, asciiAlphabet[(int) (rest % RADIX)]);
+            rest /= RADIX;
+        }
+        return index + digits;
+    }
+
+    /**
+     * Write {@code count} values from {@code values[from]} back to back, each as exactly
+     * {@code digits} ASCII numerals, at {@code offset}.
+     *
+     * @return the offset just past the last numeral
+     *
+     * @throws IllegalArgumentException if any value is negative or needs more digits; those
+     *             before it are written
+     * @throws IndexOutOfBoundsException if either array is too short
+     */
+    public static int encode(final long[] values, final int from, final int count, final int digits,
+        final byte[] dst, final int offset)
+    {
+        int position = offset;
+        for (int i = from; i < from + count; i++)
+        {
+            position = encode(values[i], digits, dst, position);
+        }
+        return position;
+    }
+
+    /**
+     * @return the value of the {@code length} numerals at {@code offset}, or {@link #INVALID_VALUE}
+     *         if there are none, any is outside the alphabet or the value overflows a long
+     */
+    public static long decode(final CharSequence src, final int offset, final int length)
+    {
+        if (length < 1 || length > MAX_DIGITS)
+        {
+            return INVALID_VALUE;
+        }
+        long value = 0;
+        for (int i = offset; i < offset + length; i++)
+        {
+            final char c = src.charAt(i);
+            final int decimal = c < decimals.length ? decimals[c] : INVALID;
+            if (decimal == INVALID)
+            {
+                return INVALID_VALUE;
+            }
+            value = value * RADIX + decimal;
+        }
+        // At most 11 digits can't pass 2^64, so an overflow shows as a negative
+        return value < 0 ? INVALID_VALUE : value;
+    }
+
+    /**
+     * @return the value of the {@code length} numerals at {@code offset}, or {@link #INVALID_VALUE}
+     *         if there are none, any is outside the alphabet or the value overflows a long
+     */
+    public static long decode(final char[] src, final int offset, final int length)
+    {
+        if (length < 1 || length > MAX_DIGITS)
+        {
+            return INVALID_VALUE;
+        }
+        long value = 0;
+        for (int i = offset; i < offset + length; i++)
+        {
+            final char c = src[i];
+            final int decimal = c < decimals.length ? decimals[c] : INVALID;
+            if (decimal == INVALID)
+            {
+                return INVALID_VALUE;
+            }
+            value = value * RADIX + decimal;
+        }
+        return value < 0 ? INVALID_VALUE : value;
+    }
+
+    /**
+     * @return the value of the {@code length} ASCII numerals at {@code offset}, or
+     *         {@link #INVALID_VALUE} if there are none, any is outside the alphabet or the value
+     *         overflows a long
+     */
+    public static long decode(final byte[] src, final int offset, final int length)
+    {
+        if (length < 1 || length > MAX_DIGITS)
+        {
+            return INVALID_VALUE;
+        }
+        long value = 0;
+        for (int i = offset; i < offset + length; i++)
+        {
+            final int decimal = decimals[src[i] & 0xFF];
+            if (decimal == INVALID)
+            {
+                return INVALID_VALUE;
+            }
+            value = value * RADIX + decimal;
+        }
+        return value < 0 ? INVALID_VALUE : value;
+    }
+
+    /**
+     * @return the value of the {@code length} ASCII numerals at {@code index}, or
+     *         {@link #INVALID_VALUE} if there are none, any is outside the alphabet or the value
+     *         overflows a long; {@code src}'s position is left alone
+     */
+    public static long decode(final ByteBuffer src, final int index, final int length)
+    {
+        if (length < 1 || length > MAX_DIGITS)
+        {
+            return INVALID_VALUE;
+        }
+        long value = 0;
+        for (int i = index; i < index + length; i++)
+        {
+            final int decimal = decimals[src.get(i) & 0xFF];
+            if (decimal == INVALID)
+            {
+                return INVALID_VALUE;
+            }
+            value = value * RADIX + decimal;
+        }
+        return value < 0 ? INVALID_VALUE : value;
+    }
+
+    /**
+     * Read {@code count} ids of {@code digits} ASCII numerals each, back to back from
+     * {@code offset}, into {@code values[from]} onwards. An id that doesn't decode is stored as
+     * {@link #INVALID_VALUE}.
+     *
+     * @return the number of ids that decoded
+     *
+     * @throws IndexOutOfBoundsException if either array is too short
+     */
+    public static int decode(final byte[] src, final int offset, final int digits, final long[] values,
+        final int from, final int count)
+    {
+        int valid = 0;
+        for (int i = 0; i < count; i++)
+        {
+            final long value = decode(src, offset + i * digits, digits);
+            values[from + i] = value;
+            if (value != INVALID_VALUE)
+            {
+                valid++;
+            }
+        }
+        return valid;
+    }
+
+    private static void checkEncodable(final long value, final int digits)
+    {
+        if (value < 0 || digits < 1 || digits < MAX_DIGITS && value >= powers[digits])
+        {
+            throw new IllegalArgumentException(String.format("Can't encode %d in %d base-56 digits", value, digits));
+        }
+    }
+
     //
     // Base-56 alphabet "0123456789ABCDEFGHJKLMNPRSTUVWXYZabcdefghjkmnpqrstuvwxyz";
     //
@@ -242,4 +367,26 @@ public class Base56
                                             'X', 'Y', 'Z', 'a', 'b', 'c', 'd', 'e', 'f', 'g', 'h', 'j', 'k', 'm', 'n',
                                             'p', 'q', 'r', 's', 't', 'u', 'v', 'w', 'x', 'y', 'z'};
 
+    private static final byte asciiAlphabet[] = new byte[RADIX];
+
+    /** Decimal value by numeral, {@link #INVALID} for anything else; covers every byte value */
+    private static final byte decimals[] = new byte[256];
+
+    /** 56 to the power of the index, up to 10 */
+    private static final long powers[] = new long[MAX_DIGITS];
+
+    static
+    {
+        Arrays.fill(decimals, (byte) INVALID);
+        for (int decimal = 0; decimal < RADIX; decimal++)
+        {
+            asciiAlphabet[decimal] = (byte) alphabet[decimal];
+            decimals[alphabet[decimal]] = (byte) decimal;
+        }
+        powers[0] = 1;
+        for (int i = 1; i < powers.length; i++)
+        {
+            powers[i] = powers[i - 1] * RADIX;
+        }
+    }
 }
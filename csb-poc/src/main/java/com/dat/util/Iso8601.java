@@ -0,0 +1,259 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Allocation-free conversion between epoch milliseconds and UTC timestamps in the fixed layout used
+ * throughout the sync feed, {@code 2018-01-16T16:16:45.094Z}.
+ * <p>
+ * Parsing takes a hand-written path for that exact layout and falls back to {@link Instant#parse}
+ * for any other ISO-8601 instant (no fraction, other precisions, leap seconds). Formatting always
+ * produces the fixed layout, so timestamps in that layout round-trip unchanged.
+ */
+public final class Iso8601
+{
+    /** Length of the fixed layout */
+    public static final int LENGTH = 24;
+
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    /** Days from 0000-03-01 to 1970-01-01 in the proleptic Gregorian calendar */
+    private static final int EPOCH_OFFSET_DAYS = 719_468;
+
+    private static final int DAYS_PER_ERA = 146_097;
+
+    private static final long NOT_FIXED_LAYOUT = Long.MIN_VALUE;
+
+    /** 0000-01-01T00:00:00.000Z through 9999-12-31T23:59:59.999Z; wider years need more digits */
+    private static final long MIN_FORMATTABLE = -62_167_219_200_000L;
+    private static final long MAX_FORMATTABLE = 253_402_300_799_999L;
+
+    private Iso8601()
+    {}
+
+    /**
+     * @return epoch millis
+     * @throws IllegalArgumentException if {@code text} is not an ISO-8601 UTC instant
+     */
+    public static long parse(final CharSequence text)
+    {
+        if (text.length() == LENGTH)
+        {
+            final long millis = parseFixed(text);
+            if (millis != NOT_FIXED_LAYOUT)
+            {
+                return millis;
+            }
+        }
+        return parseAny(text.toString());
+    }
+
+    /**
+     * Parse ASCII bytes, e.g. straight out of a record or JSON buffer.
+     *
+     * @return epoch millis
+     * @throws IllegalArgumentException if the bytes are not an ISO-8601 UTC instant
+     */
+    public static long parse(final byte[] bytes, final int offset, final int length)
+    {
+        if (length == LENGTH)
+        {
+            final long millis = parseFixed(bytes, offset);
+            if (millis != NOT_FIXED_LAYOUT)
+            {
+                return millis;
+            }
+        }
+        return parseAny(new String(bytes, offset, length, StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * @return {@code millis} in the fixed layout
+     */
+    public static String format(final long millis)
+    {
+        final byte[] bytes = new byte[LENGTH];
+        format(millis, bytes, 0);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Write {@code millis} in the fixed layout as {@link #LENGTH} ASCII bytes.
+     *
+     * @return the offset just past the written bytes
+     * @throws IllegalArgumentException if the year is outside 0000..9999
+     */
+    public static int format(final long millis, final byte[] dst, final int offset)
+    {
+        if (millis < MIN_FORMATTABLE || millis > MAX_FORMATTABLE)
+        {
+            throw new IllegalArgumentException(String.format("%d is outside years 0000..9999", millis));
+        }
+
+        final long days = Math.floorDiv(millis, MILLIS_PER_DAY);
+        int timeOfDay = (int) (millis - days * MILLIS_PER_DAY);
+
+        // Civil date from days since the epoch (H. Hinnant, "chrono-Compatible Low-Level Date Algorithms")
+        final long z = days + EPOCH_OFFSET_DAYS;
+        final long era = Math.floorDiv(z, DAYS_PER_ERA);
+        final int dayOfEra = (int) (z - era * DAYS_PER_ERA);
+        final int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        final int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        final int shiftedMonth = (5 * dayOfYear + 2) / 153;
+        final int day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+        final int month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        final int year = (int) (yearOfEra + era * 400) + (month <= 2 ? 1 : 0);
+
+        final int milli = timeOfDay % 1000;
+        timeOfDay /= 1000;
+        final int second = timeOfDay % 60;
+        timeOfDay /= 60;
+        final int minute = timeOfDay % 60;
+        final int hour = timeOfDay / 60;
+
+        int at = offset;
+        at = digits(year, 4, dst, at);
+        dst[at++] = '-';
+        at = digits(month, 2, dst, at);
+        dst[at++] = '-';
+        at = digits(day, 2, dst, at);
+        dst[at++] = 'T';
+        at = digits(hour, 2, dst, at);
+        dst[at++] = ':';
+        at = digits(minute, 2, dst, at);
+        dst[at++] = ':';
+        at = digits(second, 2, dst, at);
+        dst[at++] = '.';
+        at = digits(milli, 3, dst, at);
+        dst[at++] = 'Z';
+        return at;
+    }
+
+    private static long parseAny(final String text)
+    {
+        try
+        {
+            return Instant.parse(text).toEpochMilli();
+        }
+        catch (final DateTimeParseException | ArithmeticException e)
+        {
+            throw new IllegalArgumentException(String.format("Not an ISO-8601 instant: '%s'", text), e);
+        }
+    }
+
+    private static long parseFixed(final CharSequence text)
+    {
+        if (text.charAt(4) != '-' || text.charAt(7) != '-' || text.charAt(10) != 'T' || text.charAt(13) != ':'
+            || text.charAt(16) != ':' || text.charAt(19) != '.' || text.charAt(23) != 'Z')
+        {
+            return NOT_FIXED_LAYOUT;
+        }
+
+        return toMillis(number(text, 0, 4), number(text, 5, 2), number(text, 8, 2), number(text, 11, 2),
+            number(text, 14, 2), number(text, 17, 2), number(text, 20, 3));
+    }
+
+    private static long parseFixed(final byte[] bytes, final int offset)
+    {
+        if (bytes[offset + 4] != '-' || bytes[offset + 7] != '-' || bytes[offset + 10] != 'T'
+            || bytes[offset + 13] != ':' || bytes[offset + 16] != ':' || bytes[offset + 19] != '.'
+            || bytes[offset + 23] != 'Z')
+        {
+            return NOT_FIXED_LAYOUT;
+        }
+
+        return toMillis(number(bytes, offset, 4), number(bytes, offset + 5, 2), number(bytes, offset + 8, 2),
+            number(bytes, offset + 11, 2), number(bytes, offset + 14, 2), number(bytes, offset + 17, 2),
+            number(bytes, offset + 20, 3));
+    }
+
+    /**
+     * @return epoch millis, or {@link #NOT_FIXED_LAYOUT} if any field is missing or out of range
+     */
+    private static long toMillis(final int year, final int month, final int day, final int hour, final int minute,
+        final int second, final int milli)
+    {
+        // Any non-digit makes its field negative
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month) || hour < 0
+            || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59 || milli < 0)
+        {
+            return NOT_FIXED_LAYOUT;
+        }
+
+        // Days since the epoch from the civil date (same source as format)
+        final int y = month <= 2 ? year - 1 : year;
+        final int era = Math.floorDiv(y, 400);
+        final int yearOfEra = y - era * 400;
+        final int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        final int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        final long days = (long) era * DAYS_PER_ERA + dayOfEra - EPOCH_OFFSET_DAYS;
+
+        return days * MILLIS_PER_DAY + ((hour * 60 + minute) * 60 + second) * 1000L + milli;
+    }
+
+    private static int daysInMonth(final int year, final int month)
+    {
+        switch (month)
+        {
+            case 2 :
+                return (year % 4 == 0 && year % 100 != 0) || year % 400 == 0 ? 29 : 28;
+            case 4 :
+            case 6 :
+            case 9 :
+            case 11 :
+                return 30;
+            default :
+                return 31;
+        }
+    }
+
+    /**
+     * @return the decimal value of {@code length} digits, or -1 if any isn't a digit
+     */
+    private static int number(final CharSequence text, final int offset, final int length)
+    {
+        int value = 0;
+        for (int i = offset; i < offset + length; i++)
+        {
+            final int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9)
+            {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static int number(final byte[] bytes, final int offset, final int length)
+    {
+        int value = 0;
+        for (int i = offset; i < offset + length; i++)
+        {
+            final int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9)
+            {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static int digits(int value, final int width, final byte[] dst, final int offset)
+    {
+        for (int i = offset + width - 1; i >= offset; i--)
+        {
+            dst[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        return offset + width;
+    }
+}
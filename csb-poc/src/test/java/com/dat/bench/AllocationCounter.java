@@ -0,0 +1,44 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.bench;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Reads the calling thread's cumulative allocated bytes via the HotSpot {@code ThreadMXBean}
+ * extension. Returns -1 on JVMs that don't support it, so callers can print "n/a" instead of
+ * failing.
+ */
+public final class AllocationCounter
+{
+    private static final com.sun.management.ThreadMXBean THREAD_BEAN = threadBean();
+
+    private AllocationCounter()
+    {}
+
+    public static long currentThreadAllocatedBytes()
+    {
+        return THREAD_BEAN == null ? -1L : THREAD_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean()
+    {
+        final java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean))
+        {
+            return null;
+        }
+
+        final com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) bean;
+        if (!hotspot.isThreadAllocatedMemorySupported())
+        {
+            return null;
+        }
+
+        hotspot.setThreadAllocatedMemoryEnabled(true);
+        return hotspot;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.bench;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size, log-linear histogram of nanosecond latencies. Recording is a couple of shifts and an
+ * array increment, so it can sit inside a measured loop of millions of records without allocating
+ * or skewing the numbers it reports. Values are kept to within 1/64 (about 1.5%) of their true
+ * value, which is plenty for p50/p99 reporting.
+ */
+public class LatencyHistogram
+{
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+
+    private final long[] m_counts = new long[SUB_BUCKETS + (64 - SUB_BUCKET_BITS) * HALF_SUB_BUCKETS];
+
+    private long m_count;
+
+    private long m_total;
+
+    private long m_max;
+
+    public void record(final long nanos)
+    {
+        final long value = Math.max(0L, nanos);
+        m_counts[indexOf(value)]++;
+        m_count++;
+        m_total += value;
+        if (value > m_max)
+        {
+            m_max = value;
+        }
+    }
+
+    public void reset()
+    {
+        Arrays.fill(m_counts, 0L);
+        m_count = 0;
+        m_total = 0;
+        m_max = 0;
+    }
+
+    public long count()
+    {
+        return m_count;
+    }
+
+    public long max()
+    {
+        return m_max;
+    }
+
+    public double mean()
+    {
+        return m_count == 0 ? 0.0 : (double) m_total / m_count;
+    }
+
+    /**
+     * @param percentile the percentile to report, 0..100
+     * @return the (approximate) recorded value at {@code percentile}, in nanoseconds
+     */
+    public long percentile(final double percentile)
+    {
+        if (m_count == 0)
+        {
+            return 0L;
+        }
+
+        final long target = Math.max(1L, (long) Math.ceil(percentile / 100.0 * m_count));
+        long seen = 0;
+        for (int index = 0; index < m_counts.length; index++)
+        {
+            seen += m_counts[index];
+            if (seen >= target)
+            {
+                return Math.min(m_max, valueOf(index));
+            }
+        }
+
+        return m_max;
+    }
+
+    /**
+     * @return a one-line microsecond summary, e.g. {@code "p50=12.3us p99=45.6us p99.9=80.1us max=1203.0us"}
+     */
+    public String summary()
+    {
+        return String.format("p50=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus", percentile(50) / 1000.0,
+            percentile(99) / 1000.0, percentile(99.9) / 1000.0, m_max / 1000.0);
+    }
+
+    static int indexOf(final long value)
+    {
+        if (value < SUB_BUCKETS)
+        {
+            return (int) value;
+        }
+
+        // Keep the top SUB_BUCKET_BITS - 1 significant bits below the leading one
+        final int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS + 1;
+        return SUB_BUCKETS + (shift - 1) * HALF_SUB_BUCKETS + (int) (value >>> shift) - HALF_SUB_BUCKETS;
+    }
+
+    static long valueOf(final int index)
+    {
+        if (index < SUB_BUCKETS)
+        {
+            return index;
+        }
+
+        final int shift = (index - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1;
+        final long mantissa = (index - SUB_BUCKETS) % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+
+        // Report the middle of the bucket
+        return (mantissa << shift) + (1L << (shift - 1));
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.common.concurrent;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.Test;
+
+public class StripedOrderedExecutorTest
+{
+    @Test
+    public void releasesInSubmissionOrder() throws Exception
+    {
+        final Map<Integer, List<Integer>> executedPerKey = new ConcurrentHashMap<>();
+        final List<Integer> released = new ArrayList<>();
+
+        try (StripedOrderedExecutor<Integer, Integer, Integer> executor = new StripedOrderedExecutor<>("test", 4, 16,
+            i ->
+            {
+                // Uneven work, so later items regularly finish before earlier ones
+                LockSupport.parkNanos(ThreadLocalRandom.current().nextInt(20_000));
+                executedPerKey.computeIfAbsent(i % 7, k -> new CopyOnWriteArrayList<>()).add(i);
+                return i * 2;
+            }))
+        {
+            for (int i = 0; i < 2000; i++)
+            {
+                executor.submit(i % 7, i, (key, result) -> released.add(result));
+            }
+            executor.drainAll((key, result) -> released.add(result));
+            assertThat(executor.inFlight(), is(0));
+        }
+
+        assertThat(released.size(), is(2000));
+        for (int i = 0; i < released.size(); i++)
+        {
+            assertThat(released.get(i), is(i * 2));
+        }
+
+        // Same key, same worker: each key's items ran in submission order
+        for (final List<Integer> executed : executedPerKey.values())
+        {
+            for (int i = 1; i < executed.size(); i++)
+            {
+                assertThat(executed.get(i) > executed.get(i - 1), is(true));
+            }
+        }
+    }
+
+    @Test
+    public void rethrowsInOrder() throws Exception
+    {
+        final List<Integer> released = new ArrayList<>();
+
+        try (StripedOrderedExecutor<Integer, Integer, Integer> executor = new StripedOrderedExecutor<>("test", 2, 8,
+            i ->
+            {
+                if (i == 3)
+                {
+                    throw new IllegalArgumentException("bad input");
+                }
+                return i;
+            }))
+        {
+            for (int i = 0; i < 6; i++)
+            {
+                executor.submit(i, i, (key, result) -> released.add(result));
+            }
+
+            try
+            {
+                executor.drainAll((key, result) -> released.add(result));
+                fail("Expected the failed item's exception");
+            }
+            catch (final IllegalArgumentException e)
+            {
+                assertThat(released.size(), is(3));
+            }
+
+            executor.drainAll((key, result) -> released.add(result));
+        }
+
+        assertThat(released.toString(), is("[0, 1, 2, 4, 5]"));
+    }
+
+    @Test(timeout = 10000)
+    public void rethrowsErrorsRatherThanHanging() throws Exception
+    {
+        final List<Integer> released = new ArrayList<>();
+
+        try (StripedOrderedExecutor<Integer, Integer, Integer> executor = new StripedOrderedExecutor<>("test", 2, 8,
+            i ->
+            {
+                if (i == 1)
+                {
+                    throw new NoClassDefFoundError("com.dat.Missing");
+                }
+                return i;
+            }))
+        {
+            for (int i = 0; i < 4; i++)
+            {
+                executor.submit(i, i, (key, result) -> released.add(result));
+            }
+
+            try
+            {
+                executor.drainAll((key, result) -> released.add(result));
+                fail("Expected the failed item's error");
+            }
+            catch (final NoClassDefFoundError e)
+            {
+                assertThat(released.size(), is(1));
+            }
+
+            // The workers survived it
+            executor.drainAll((key, result) -> released.add(result));
+        }
+
+        assertThat(released.toString(), is("[0, 2, 3]"));
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.common.json;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+import com.jsoniter.JsonIterator;
+
+public class JsonExtractionPlanTest
+{
+    private static final String FME = "{ \"@class\" : \"Fme\", \"skipped\" : [ {\"whenIssued\" : \"no\"}, 1, null ], "
+        + "\"whenIssued\" : \"2018-01-25T19:31:47.814Z\", \"count\" : 12, \"empty\" : {}, \"bad\" : \"soon\", "
+        + "\"issuedAt\" : \"2018-01-25T19:31:47.814Z\", "
+        + "\"posting\" : { \"name\" : \"a \\\"quoted\\\" \\u00e9\", \"missing\" : null, \"origin\" : { \"x\" : 1 } } }";
+
+    @Test
+    public void capturesEachRoot() throws Exception
+    {
+        final JsonExtractionPlan.Builder builder = new JsonExtractionPlan.Builder();
+        final int whenIssued = builder.text("whenIssued");
+        final int count = builder.text("count");
+        final int name = builder.text("posting", "name");
+        final int missing = builder.text("posting", "missing");
+        final int absent = builder.text("posting", "absent");
+        final int origin = builder.any("posting", "origin");
+        final int issued = builder.timestamp("issuedAt");
+        final int bad = builder.timestamp("bad");
+
+        final JsonExtractionPlan document = builder.build("doc", "insert", "fme");
+        final JsonExtractionPlan insert = builder.build("insert", "fme");
+
+        final JsonExtractionPlan.Extraction extraction = document.newExtraction();
+        for (final String json : new String[] {
+            "{ \"@class\" : \"Doc\", \"doc\" : { \"when\" : 1, \"insert\" : { \"fme\" : " + FME + " } } }",
+            "{ \"insert\" : { \"fme\" : " + FME + " }, \"after\" : [] }" })
+        {
+            final JsonIterator iter = JsonIterator.parse(json.getBytes("UTF-8"));
+            (json.contains("\"doc\"") ? document : insert).extract(iter, extraction);
+
+            assertThat(extraction.text(whenIssued), is("2018-01-25T19:31:47.814Z"));
+            assertThat(extraction.text(count), is("12"));
+            assertThat(extraction.text(name), is("a \"quoted\" \u00e9"));
+            assertThat(extraction.text(missing), is("null"));
+            assertThat(extraction.found(absent), is(false));
+            assertThat(extraction.text(absent), is(""));
+            assertThat(extraction.any(origin).toInt("x"), is(1));
+            assertThat(extraction.timestamp(issued, -1), is(1516908707814L));
+            assertThat(extraction.timestamp(bad, -1), is(-1L));
+        }
+
+        // Wrong root: nothing captured, and the previous extraction is cleared
+        document.extract(JsonIterator.parse("{ \"insert\" : { \"fme\" : " + FME + " } }"), extraction);
+        assertThat(extraction.found(whenIssued), is(false));
+        assertThat(extraction.any(origin), is(nullValue()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsOverlappingPaths()
+    {
+        final JsonExtractionPlan.Builder builder = new JsonExtractionPlan.Builder();
+        builder.any("posting", "origin");
+        builder.text("posting", "origin", "city");
+        builder.build();
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.common.serialization;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RecordSegmentTest
+{
+    @Rule
+    public TemporaryFolder m_folder = new TemporaryFolder();
+
+    @Test
+    public void roundTrip() throws Exception
+    {
+        final Path path = m_folder.newFile("000.seg").toPath();
+        try (RecordSegmentWriter writer = new RecordSegmentWriter(path))
+        {
+            writer.write("first".getBytes(StandardCharsets.US_ASCII));
+            writer.write(new byte[0]);
+            writer.write("xxthirdxx".getBytes(StandardCharsets.US_ASCII), 2, 5);
+        }
+
+        final RecordSegmentReader reader = new RecordSegmentReader(path);
+
+        assertThat(reader.next(), is(true));
+        assertThat(new String(reader.copyRecord(), StandardCharsets.US_ASCII), is("first"));
+
+        assertThat(reader.next(), is(true));
+        assertThat(reader.length(), is(0));
+
+        assertThat(reader.next(), is(true));
+        final ByteBuffer view = reader.record();
+        assertThat(view.remaining(), is(5));
+        assertThat((char) view.get(0), is('t'));
+        assertThat(new String(reader.copyRecord(), StandardCharsets.US_ASCII), is("third"));
+
+        assertThat(reader.next(), is(false));
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedRecord() throws Exception
+    {
+        final Path path = m_folder.newFile("001.seg").toPath();
+        try (RecordSegmentWriter writer = new RecordSegmentWriter(path))
+        {
+            writer.write("complete".getBytes(StandardCharsets.US_ASCII));
+            writer.write("cut off".getBytes(StandardCharsets.US_ASCII));
+        }
+
+        final byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 3));
+
+        final RecordSegmentReader reader = new RecordSegmentReader(path);
+        assertThat(reader.next(), is(true));
+        reader.next();
+    }
+
+    @Test(expected = IOException.class)
+    public void notASegment() throws Exception
+    {
+        final Path path = m_folder.newFile("junk.seg").toPath();
+        Files.write(path, "__magicNumber=Xyzzy0xfeedbeef1990\n".getBytes(StandardCharsets.US_ASCII));
+        new RecordSegmentReader(path);
+    }
+}
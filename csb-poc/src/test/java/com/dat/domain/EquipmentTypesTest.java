@@ -0,0 +1,59 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.domain;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class EquipmentTypesTest
+{
+    @Test
+    public void matchesItselfAndEitherTypes()
+    {
+        assertCompatible("V", "V", true);
+        assertCompatible("V", "R", false);
+        assertCompatible("VR", "V", true);
+        assertCompatible("VR", "R", true);
+        assertCompatible("VR", "F", false);
+        assertCompatible("VR", "VF", true);
+        assertCompatible("FR", "R", true);
+        assertCompatible("FD", "SD", true);
+        assertCompatible("FD", "VR", false);
+        assertCompatible("FT", "F", false);
+    }
+
+    @Test
+    public void matchesUnknownTypesByText()
+    {
+        assertCompatible("XYZ", "XYZ", true);
+        assertCompatible("XYZ", "V", false);
+        assertCompatible(null, "V", false);
+        assertCompatible(null, null, false);
+        assertThat(EquipmentTypes.compatible(CodeDictionary.INLINE, CodeDictionary.INLINE), is(false));
+        assertThat(EquipmentTypes.compatible(CodeDictionary.NULL, CodeDictionary.NULL), is(false));
+        assertThat(EquipmentTypes.compatible(-1, -1), is(false));
+        assertThat(EquipmentTypes.compatible(256, 256), is(false));
+    }
+
+    @Test
+    public void everyTypeMatchesItself()
+    {
+        for (int code = 1; code <= EquipmentTypes.DICTIONARY.size(); code++)
+        {
+            assertThat(EquipmentTypes.compatible(code, code), is(true));
+        }
+        assertThat(EquipmentTypes.compatible(EquipmentTypes.code("VZ"), EquipmentTypes.code("V")), is(false));
+        assertThat(EquipmentTypes.DICTIONARY, is(SimpleAssetCodec.EQUIPMENT_TYPES));
+    }
+
+    private static void assertCompatible(final String equipmentType, final String other, final boolean compatible)
+    {
+        assertThat(equipmentType + "/" + other, EquipmentTypes.compatible(equipmentType, other), is(compatible));
+        assertThat(other + "/" + equipmentType, EquipmentTypes.compatible(other, equipmentType), is(compatible));
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.domain;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmark of {@link FmeIdGenerator}: four threads minting from one shared generator, as
+ * packed ids and as Strings. One shard can't sustain more than {@code 2^SEQUENCE_BITS} ids a
+ * millisecond for longer than {@link FmeIdGenerator#MAX_LEAD_MILLIS}, so scores top out near 1
+ * id/us however fast the CAS is.
+ *
+ * <pre>
+ * gradle benchmark -Pbench=com.dat.domain.FmeIdGeneratorBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class FmeIdGeneratorBenchmark
+{
+    private final FmeIdGenerator m_generator = new FmeIdGenerator(1);
+
+    public static void main(final String[] args) throws Exception
+    {
+        new Runner(new OptionsBuilder().include(FmeIdGeneratorBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    @Benchmark
+    public long nextPacked()
+    {
+        return m_generator.nextPacked();
+    }
+
+    @Benchmark
+    public String next()
+    {
+        return m_generator.next();
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.domain;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import com.dat.util.Base56;
+
+public class FmeIdGeneratorTest
+{
+    private static final long NOW = 1528000000000L;
+
+    @Test
+    public void mintsUniqueIdsAcrossThreads() throws Exception
+    {
+        final int threads = 8;
+        final int perThread = 250_000;
+        final FmeIdGenerator[] shards = { new FmeIdGenerator(0), new FmeIdGenerator(FmeIdGenerator.MAX_SHARD) };
+        final long[][] ids = new long[threads][perThread];
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Thread> workers = new ArrayList<>();
+        final List<Throwable> failures = new ArrayList<>();
+        for (int t = 0; t < threads; t++)
+        {
+            final FmeIdGenerator generator = shards[t % shards.length];
+            final long[] mine = ids[t];
+            final Thread worker = new Thread(() ->
+            {
+                try
+                {
+                    start.await();
+                    for (int i = 0; i < mine.length; i++)
+                    {
+                        mine[i] = generator.nextPacked();
+                    }
+                }
+                catch (final Throwable e)
+                {
+                    synchronized (failures)
+                    {
+                        failures.add(e);
+                    }
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+
+        start.countDown();
+        for (final Thread worker : workers)
+        {
+            worker.join();
+        }
+        assertThat(failures.toString(), failures.isEmpty(), is(true));
+
+        final long[] all = new long[threads * perThread];
+        for (int t = 0; t < threads; t++)
+        {
+            // Each thread sees its shard's ids in increasing order
+            for (int i = 1; i < perThread; i++)
+            {
+                assertThat(ids[t][i] > ids[t][i - 1], is(true));
+            }
+            System.arraycopy(ids[t], 0, all, t * perThread, perThread);
+        }
+        Arrays.sort(all);
+        for (int i = 1; i < all.length; i++)
+        {
+            assertThat(all[i] != all[i - 1], is(true));
+        }
+        assertThat(FmeId.isPacked(all[0]), is(true));
+    }
+
+    @Test
+    public void ordersByTimeThenSequenceThenShard()
+    {
+        final AtomicLong clock = new AtomicLong(NOW);
+        final FmeIdGenerator generator = new FmeIdGenerator(7, clock::get);
+        final long first = generator.nextValue();
+        assertThat(FmeIdGenerator.timestamp(first), is(NOW));
+        assertThat(FmeIdGenerator.shard(first), is(7));
+
+        final String second = generator.next();
+        assertThat(second.length(), is(FmeIdGenerator.DIGITS));
+        assertThat(FmeId.pack(second), is(FmeId.pack(first + (1 << FmeIdGenerator.SHARD_BITS),
+            FmeIdGenerator.DIGITS)));
+
+        // A backward clock doesn't take ids backward
+        clock.set(NOW - 2);
+        final byte[] third = new byte[FmeIdGenerator.DIGITS + 1];
+        assertThat(generator.next(third, 1), is(third.length));
+        final String thirdId = new String(third, 1, FmeIdGenerator.DIGITS, StandardCharsets.US_ASCII);
+        assertThat(thirdId.compareTo(second) > 0, is(true));
+        assertThat(FmeIdGenerator.timestamp(Base56.decode(thirdId, 0, FmeIdGenerator.DIGITS)), is(NOW));
+
+        clock.set(NOW + 1);
+        final long later = generator.nextValue();
+        assertThat(FmeIdGenerator.timestamp(later), is(NOW + 1));
+        assertThat(new FmeIdGenerator(8, clock::get).nextValue() > later, is(true));
+    }
+
+    @Test
+    public void borrowsFromTheNextMillisecond()
+    {
+        final FmeIdGenerator generator = new FmeIdGenerator(0, () -> NOW);
+        long last = 0;
+        for (int i = 0; i < 1 << FmeIdGenerator.SEQUENCE_BITS; i++)
+        {
+            last = generator.nextValue();
+        }
+        assertThat(FmeIdGenerator.timestamp(last), is(NOW));
+        assertThat(FmeIdGenerator.timestamp(generator.nextValue()), is(NOW + 1));
+    }
+
+    @Test(timeout = 10000)
+    public void staysWithinTheLeadOfTheClock()
+    {
+        // The clock ticks once every thousand reads, far slower than ids are asked for
+        final AtomicLong reads = new AtomicLong();
+        final FmeIdGenerator generator = new FmeIdGenerator(0, () -> NOW + reads.getAndIncrement() / 1000);
+        for (int i = 0; i < 10 << FmeIdGenerator.SEQUENCE_BITS; i++)
+        {
+            final long timestamp = FmeIdGenerator.timestamp(generator.nextValue());
+            assertThat(timestamp <= NOW + reads.get() / 1000 + FmeIdGenerator.MAX_LEAD_MILLIS, is(true));
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void waitsOutAClockSteppedBack()
+    {
+        final AtomicLong reads = new AtomicLong();
+        // One read at NOW, then a clock 20ms behind, ticking 5ms a read
+        final FmeIdGenerator generator = new FmeIdGenerator(0,
+            () -> reads.getAndIncrement() == 0 ? NOW : NOW - 20 + 5 * reads.get());
+        final long first = generator.nextValue();
+        final long second = generator.nextValue();
+        assertThat(second > first, is(true));
+        // Parked at NOW - 10 and NOW - 5, minted within the lead at NOW
+        assertThat(reads.get(), is(4L));
+    }
+
+    @Test
+    public void failsOnAClockSteppedBackTooFar()
+    {
+        final AtomicLong clock = new AtomicLong(NOW);
+        final FmeIdGenerator generator = new FmeIdGenerator(0, clock::get);
+        final long first = generator.nextValue();
+
+        clock.set(NOW - FmeIdGenerator.MAX_LEAD_MILLIS - FmeIdGenerator.MAX_WAIT_MILLIS - 1);
+        try
+        {
+            generator.nextValue();
+            fail();
+        }
+        catch (final IllegalStateException e)
+        {
+            // expected, without waiting
+        }
+
+        clock.set(NOW + 1);
+        final long later = generator.nextValue();
+        assertThat(later > first, is(true));
+        assertThat(FmeIdGenerator.timestamp(later), is(NOW + 1));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void runsOutIn2052()
+    {
+        new FmeIdGenerator(0, () -> FmeIdGenerator.EPOCH + (1L << FmeIdGenerator.TIMESTAMP_BITS)).nextValue();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsBadShard()
+    {
+        new FmeIdGenerator(FmeIdGenerator.MAX_SHARD + 1);
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.domain;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.dat.util.Base56;
+
+public class FmeIdTest
+{
+    @Test
+    public void roundTrips()
+    {
+        for (final String fmeId : new String[] { "0", "2", "00", "DS1StpUx", "zzzzzzzzzz", "0000000000", "2222222222" })
+        {
+            final long packed = FmeId.pack(fmeId);
+            assertThat(fmeId, packed > 0, is(true));
+            assertThat(FmeId.isValid(fmeId), is(true));
+            assertThat(FmeId.isPacked(packed), is(true));
+            assertThat(FmeId.length(packed), is(fmeId.length()));
+            assertThat(FmeId.toString(packed), is(fmeId));
+        }
+    }
+
+    @Test
+    public void rejectsWithoutThrowing()
+    {
+        for (final String fmeId : new String[] { null, "", "DS1-StpUx", "DS1StpUx012", "zzzzzzzzzzz", "DSIStpUx",
+            "DS1StpU\u00e9", "DS1StpU\u2603" })
+        {
+            assertThat(String.valueOf(fmeId), FmeId.pack(fmeId), is(FmeId.NONE));
+            assertThat(FmeId.isValid(fmeId), is(false));
+        }
+        for (final long packed : new long[] { FmeId.NONE, -1, Long.MAX_VALUE, 57, 57 * 57 + 1 })
+        {
+            assertThat(String.valueOf(packed), FmeId.isPacked(packed), is(false));
+            assertThat(FmeId.length(packed), is(0));
+        }
+    }
+
+    @Test
+    public void packsValues()
+    {
+        final Random random = new Random(49);
+        for (int i = 0; i < 10000; i++)
+        {
+            final int digits = 1 + random.nextInt(FmeId.MAX_LENGTH);
+            final long value = (random.nextLong() & Long.MAX_VALUE) % (long) Math.pow(56, digits);
+            assertThat(FmeId.pack(value, digits), is(FmeId.pack(Base56.toString(value, digits))));
+        }
+        assertThat(FmeId.pack(56, 1), is(FmeId.NONE));
+        assertThat(FmeId.pack(-1, 10), is(FmeId.NONE));
+        assertThat(FmeId.pack(1, 11), is(FmeId.NONE));
+        assertThat(FmeId.pack(1, 0), is(FmeId.NONE));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void refusesToUnpackNone()
+    {
+        FmeId.toString(FmeId.NONE);
+    }
+
+    @Test
+    public void ordersAsStrings()
+    {
+        final Random random = new Random(46L);
+        for (int i = 0; i < 10000; i++)
+        {
+            final String a = random(random);
+            final String b = random.nextInt(10) == 0 ? a.substring(0, 1 + random.nextInt(a.length())) : random(random);
+            assertThat(a + " " + b, Integer.signum(FmeId.compare(FmeId.pack(a), FmeId.pack(b))),
+                is(Integer.signum(a.compareTo(b))));
+        }
+    }
+
+    private static String random(final Random random)
+    {
+        final char[] digits = new char[1 + random.nextInt(FmeId.MAX_LENGTH)];
+        for (int i = 0; i < digits.length; i++)
+        {
+            digits[i] = Base56.numeral(random.nextInt(56));
+        }
+        return new String(digits);
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.domain;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.dat.bench.AllocationCounter;
+import com.dat.sync.SyncEvent;
+import com.dat.sync.SyncEventGenerator;
+import com.jsoniter.JsonIterator;
+import com.jsoniter.ValueType;
+import com.jsoniter.any.Any;
+import com.jsoniter.output.JsonStream;
+
+/**
+ * Per-asset cost of decoding origin and destination, {@link GeoLocationDecoder} against the
+ * key-sniffing {@code Any} binding it replaced, over the same bytes and a reused iterator. Both the
+ * sync event shape and the flat {@link SimpleAsset#toJson()} shape are measured.
+ *
+ * <pre>
+ * gradle benchmark -Pbench=com.dat.domain.GeoLocationBenchmark -PbenchArgs="--records 20000"
+ * </pre>
+ */
+public class GeoLocationBenchmark
+{
+    private int m_records = 10_000;
+
+    private int m_rounds = 10;
+
+    private long m_seed = 42;
+
+    public static void main(final String[] args) throws Exception
+    {
+        final GeoLocationBenchmark benchmark = new GeoLocationBenchmark();
+        benchmark.parseArgs(args);
+        benchmark.run();
+    }
+
+    private void parseArgs(final String[] args)
+    {
+        for (int i = 0; i < args.length; i++)
+        {
+            switch (args[i])
+            {
+                case "--records" :
+                    m_records = Integer.parseInt(args[++i]);
+                    break;
+                case "--rounds" :
+                    m_rounds = Integer.parseInt(args[++i]);
+                    break;
+                case "--seed" :
+                    m_seed = Long.parseLong(args[++i]);
+                    break;
+                default :
+                    throw new IllegalArgumentException(String.format("Unknown argument: '%s'", args[i]));
+            }
+        }
+    }
+
+    private void run() throws Exception
+    {
+        final List<byte[]> wrapped = new ArrayList<>();
+        final List<byte[]> flat = new ArrayList<>();
+        final SyncEventGenerator generator = new SyncEventGenerator(m_seed, 1.0);
+        while (wrapped.size() < 2 * m_records)
+        {
+            final SyncEvent event = new SyncEvent(generator.nextBytes());
+            final Any basic = JsonIterator.deserialize(event.getPayload()).get("fmCoreSyncNotification", "insert", "fme",
+                "posting", "defn", "basic");
+            final SimpleAsset asset = new SimpleAsset(event);
+            for (final String field : new String[] { "origin", "destination" })
+            {
+                wrapped.add(basic.get(field).toString().getBytes(StandardCharsets.UTF_8));
+            }
+            flat.add(JsonStream.serialize(asset.getOrigin()).getBytes(StandardCharsets.UTF_8));
+            flat.add(JsonStream.serialize(asset.getDestination()).getBytes(StandardCharsets.UTF_8));
+        }
+
+        System.out.printf("%,d assets (origin + destination), best of %d rounds\n", m_records, m_rounds);
+        for (final String shape : new String[] { "sync event", "flat" })
+        {
+            final byte[][] inputs = (shape.equals("flat") ? flat : wrapped).toArray(new byte[0][]);
+            measure(shape, "Any binding", inputs, false);
+            measure(shape, "registry", inputs, true);
+        }
+    }
+
+    private void measure(final String shape, final String name, final byte[][] inputs, final boolean registry)
+        throws IOException
+    {
+        final JsonIterator iter = JsonIterator.parse(new byte[0]);
+        long best = Long.MAX_VALUE;
+        long allocated = 0;
+        long checksum = 0;
+        for (int round = 0; round < m_rounds; round++)
+        {
+            final long bytesBefore = AllocationCounter.currentThreadAllocatedBytes();
+            final long start = System.nanoTime();
+            for (final byte[] input : inputs)
+            {
+                iter.reset(input);
+                final GeoLocation location = registry ? GeoLocationDecoder.INSTANCE.decode(iter) : anyBinding(iter.readAny());
+                checksum += location.hashCode();
+            }
+            best = Math.min(best, System.nanoTime() - start);
+            allocated = AllocationCounter.currentThreadAllocatedBytes() - bytesBefore;
+        }
+
+        final int assets = inputs.length / 2;
+        System.out.printf("  %-10s %-11s %,7d ns/asset  %7s B/asset  (checksum %d)\n", shape, name, best / assets,
+            allocated < 0 ? "n/a" : String.format("%,d", allocated / assets), checksum);
+    }
+
+    /**
+     * The decoding this replaced: iterate the keys, then bind the matching object by reflection.
+     */
+    private static GeoLocation anyBinding(final Any element)
+    {
+        if (element.valueType() == ValueType.INVALID)
+        {
+            return null;
+        }
+
+        for (final String key : element.keys())
+        {
+            switch (key)
+            {
+                case "@class" :
+                    continue;
+                case "minimalPoint" :
+                    return element.get(key).as(Point.class);
+                case "area" :
+                    return element.get(key).as(Area.class);
+                case "open" :
+                    return element.get(key).as(Open.class);
+                case "city" :
+                case "stateProvince" :
+                case "latitude" :
+                case "longitude" :
+                case "county" :
+                    return element.as(Point.class);
+                case "zones" :
+                case "stateProvinces" :
+                    return element.as(Area.class);
+                case "isOpen" :
+                    return element.as(Open.class);
+                default :
+                    throw new IllegalArgumentException(String.format("Unknown GeoLocation element: '%s'", key));
+            }
+        }
+        throw new IllegalArgumentException("Could not parse GeoLocation");
+    }
+}
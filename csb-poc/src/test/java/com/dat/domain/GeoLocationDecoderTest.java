@@ -0,0 +1,135 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.domain;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+import com.jsoniter.JsonIterator;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+public class GeoLocationDecoderTest
+{
+    private static final Point DENVER = new Point("Denver", "CO", 39.73917, -104.98417, "Denver");
+
+    @Test
+    public void decodesSyncEventShapes() throws IOException
+    {
+        assertThat(decode("{\"@class\": \"com.tcore.tfs.domain.tcoreServices.PostingOrigin\", \"minimalPoint\": {"
+            + "\"@class\": \"com.tcore.csb.domain.tcoreTypes.MinimalPoint\", \"city\": \"Denver\", \"stateProvince\": \"CO\","
+            + "\"stateProvince_schemaVal\": \"CO\", \"latitude\": 39.73917, \"longitude\": -104.98417, \"county\": \"Denver\"}}"),
+            equalTo(DENVER));
+        assertThat(decode("{\"area\": {\"@class\": \"com.tcore.csb.domain.tcoreTypes.Area\", "
+            + "\"stateProvinces\": [\"IL\", \"IN\", \"KY\", \"MO\", \"OH\"]}, \"trailing\": [1, 2]}"),
+            equalTo(new Area(new String[] { "IL", "IN", "KY", "MO", "OH" }, null)));
+        assertThat(decode("{\"@class\": \"com.tcore.tfs.domain.tcoreServices.PostingDestination\", \"open\": {"
+            + "\"@class\": \"com.tcore.csb.domain.tcoreTypes.Open\"}}"), equalTo(new Open()));
+    }
+
+    @Test
+    public void decodesFlatShapes() throws IOException
+    {
+        for (final GeoLocation location : new GeoLocation[] {
+            DENVER, new Area(new String[] { "IL" }, new String[] { "Z5", "Z6" }), new Open() })
+        {
+            final SimpleAsset asset = new SimpleAsset();
+            asset.setDestination(location);
+            final String json = asset.toJson();
+            final String destination = json.substring(json.indexOf("\"destination\":") + 14, json.lastIndexOf('}'));
+            assertThat(decode(destination.substring(0, destination.lastIndexOf('}') + 1)), equalTo(location));
+        }
+    }
+
+    @Test
+    public void decodesTaggedObjects() throws IOException
+    {
+        assertThat(decode("{\"@class\": \"com.tcore.csb.domain.tcoreTypes.MinimalPoint\", \"city\": \"Denver\","
+            + "\"stateProvince\": \"CO\", \"latitude\": 39.73917, \"longitude\": -104.98417, \"county\": \"Denver\"}"),
+            equalTo(DENVER));
+    }
+
+    @Test
+    public void leavesIteratorAfterValue() throws IOException
+    {
+        final JsonIterator iter = JsonIterator.parse("[null, {\"open\": {}, \"@class\": \"x\"}, {\"isOpen\": true}, 7]");
+        assertThat(iter.readArray(), is(true));
+        assertThat(GeoLocationDecoder.INSTANCE.decode(iter), is(nullValue()));
+        assertThat(iter.readArray(), is(true));
+        assertThat(GeoLocationDecoder.INSTANCE.decode(iter), equalTo(new Open()));
+        assertThat(iter.readArray(), is(true));
+        assertThat(GeoLocationDecoder.INSTANCE.decode(iter), equalTo(new Open()));
+        assertThat(iter.readArray(), is(true));
+        assertThat(iter.readInt(), is(7));
+    }
+
+    @Test
+    public void rejectsUnknownShapes() throws IOException
+    {
+        for (final String json : new String[] { "{}", "{\"@class\": \"x\"}", "{\"polygon\": {}}", "\"Denver\"" })
+        {
+            try
+            {
+                decode(json);
+                fail(json);
+            }
+            catch (final IllegalArgumentException e)
+            {
+                // Expected
+            }
+        }
+    }
+
+    @Test
+    public void registersSubtypes() throws IOException
+    {
+        GeoLocationDecoder.INSTANCE.register(new GeoLocationDecoder.Subtype<>(Circle.class, Circle::new)
+            .wrapper("testCircle")
+            .key("radiusMiles", (circle, iter) -> circle.setRadiusMiles(iter.readInt()))
+            .field("city", (circle, iter) -> circle.setCity(iter.readString())));
+
+        final Circle circle = new Circle();
+        circle.setCity("Denver");
+        circle.setRadiusMiles(150);
+        assertThat(decode("{\"testCircle\": {\"city\": \"Denver\", \"radiusMiles\": 150}}"), equalTo(circle));
+        assertThat(decode("{\"radiusMiles\": 150, \"city\": \"Denver\"}"), equalTo(circle));
+
+        // Point still owns "city" in flat objects
+        assertThat(decode("{\"city\": \"Denver\"}"), equalTo(new Point("Denver", null, 0, 0, null)));
+
+        try
+        {
+            GeoLocationDecoder.INSTANCE.register(new GeoLocationDecoder.Subtype<>(Circle.class, Circle::new)
+                .key("latitude", (c, iter) -> iter.skip()));
+            fail();
+        }
+        catch (final IllegalArgumentException e)
+        {
+            // Expected
+        }
+    }
+
+    private static GeoLocation decode(final String json) throws IOException
+    {
+        return GeoLocationDecoder.INSTANCE.decode(JsonIterator.parse(json));
+    }
+
+    @Data
+    @EqualsAndHashCode(callSuper = false)
+    public static class Circle extends GeoLocation
+    {
+        private String city;
+        private int radiusMiles;
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.domain;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.dat.domain.GreatCircle.Position;
+
+/**
+ * JMH benchmark of {@link GreatCircle}: distances from one point to a thousand others in the lower
+ * 48, by the textbook haversine over raw degrees, the haversine over prepared positions, and the
+ * equirectangular approximation. Scores are per thousand distances.
+ *
+ * <pre>
+ * gradle benchmark -Pbench=com.dat.domain.GreatCircleBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GreatCircleBenchmark
+{
+    private static final int POINTS = 1000;
+
+    private final double[] m_latitudes = new double[POINTS];
+
+    private final double[] m_longitudes = new double[POINTS];
+
+    private final Position[] m_positions = new Position[POINTS];
+
+    private final double[] m_miles = new double[POINTS];
+
+    private Position m_from;
+
+    public static void main(final String[] args) throws Exception
+    {
+        new Runner(new OptionsBuilder().include(GreatCircleBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    @Setup
+    public void setUp()
+    {
+        final Random random = new Random(42);
+        for (int i = 0; i < POINTS; i++)
+        {
+            m_latitudes[i] = 25 + random.nextDouble() * 24;
+            m_longitudes[i] = -125 + random.nextDouble() * 58;
+            m_positions[i] = new Position(m_latitudes[i], m_longitudes[i]);
+        }
+        m_from = new Position(41.85, -87.65);
+    }
+
+    @Benchmark
+    public double[] textbookHaversine()
+    {
+        for (int i = 0; i < POINTS; i++)
+        {
+            m_miles[i] = GreatCircle.haversineMiles(m_from.getLatitude(), m_from.getLongitude(), m_latitudes[i],
+                m_longitudes[i]);
+        }
+        return m_miles;
+    }
+
+    @Benchmark
+    public double[] preparedHaversine()
+    {
+        GreatCircle.haversineMiles(m_from, m_positions, m_miles);
+        return m_miles;
+    }
+
+    @Benchmark
+    public double[] equirectangular()
+    {
+        GreatCircle.approximateMiles(m_from, m_positions, m_miles);
+        return m_miles;
+    }
+}
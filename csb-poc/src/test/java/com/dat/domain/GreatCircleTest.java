@@ -0,0 +1,117 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.domain;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.dat.domain.GreatCircle.Position;
+
+public class GreatCircleTest
+{
+    @Test
+    public void knownDistances()
+    {
+        // Chicago to Atlanta is about 588 miles, New York to Los Angeles about 2,445
+        assertNear(GreatCircle.haversineMiles(new Position(41.85, -87.65), new Position(33.749, -84.388)), 588, 2);
+        assertNear(GreatCircle.haversineMiles(new Position(40.7128, -74.006), new Position(34.0522, -118.2437)),
+            2445, 3);
+        assertNear(GreatCircle.haversineMiles(new Position(0, 0), new Position(0, 180)),
+            Math.PI * GreatCircle.EARTH_RADIUS_MILES, 1e-6);
+        assertNear(GreatCircle.haversineMiles(new Position(90, 0), new Position(-90, 0)),
+            Math.PI * GreatCircle.EARTH_RADIUS_MILES, 1e-6);
+        assertThat(GreatCircle.haversineMiles(new Position(41.85, -87.65), new Position(41.85, -87.65)), is(0.0));
+    }
+
+    @Test
+    public void preparedMatchesTheTextbookFormula()
+    {
+        final Random random = new Random(45);
+        for (int i = 0; i < 100_000; i++)
+        {
+            final double latitude1 = random.nextDouble() * 180 - 90;
+            final double longitude1 = random.nextDouble() * 360 - 180;
+            // Half of them near each other, where cancellation would show
+            final double latitude2 = i % 2 == 0 ? random.nextDouble() * 180 - 90
+                : Math.max(-90, Math.min(90, latitude1 + random.nextGaussian() * 0.01));
+            final double longitude2 = i % 2 == 0 ? random.nextDouble() * 360 - 180
+                : Math.max(-180, Math.min(180, longitude1 + random.nextGaussian() * 0.01));
+
+            final double expected = GreatCircle.haversineMiles(latitude1, longitude1, latitude2, longitude2);
+            final double actual = GreatCircle.haversineMiles(new Position(latitude1, longitude1),
+                new Position(latitude2, longitude2));
+            assertNear(actual, expected, 1e-6 + expected * 1e-9);
+        }
+    }
+
+    @Test
+    public void approximationIsCloseOverShortDistances()
+    {
+        final Random random = new Random(46);
+        for (int i = 0; i < 100_000; i++)
+        {
+            // Lower 48, within about 300 miles, some across the antimeridian's stand-in at 180
+            final Position from = new Position(25 + random.nextDouble() * 24, -125 + random.nextDouble() * 58);
+            final Position to = new Position(from.getLatitude() + random.nextGaussian() * 2,
+                from.getLongitude() + random.nextGaussian() * 2);
+            final double exact = GreatCircle.haversineMiles(from, to);
+            assertNear(GreatCircle.approximateMiles(from, to), exact, 0.1 + exact * 0.005);
+        }
+        assertNear(GreatCircle.approximateMiles(new Position(60, 179.5), new Position(60, -179.5)),
+            GreatCircle.haversineMiles(new Position(60, 179.5), new Position(60, -179.5)), 0.1);
+    }
+
+    @Test
+    public void batchesMatchSinglePairs()
+    {
+        final Random random = new Random(47);
+        final Position from = new Position(41.85, -87.65);
+        final Position[] to = new Position[1000];
+        for (int i = 0; i < to.length; i++)
+        {
+            to[i] = new Position(random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180);
+        }
+        final double[] haversine = new double[to.length];
+        final double[] approximate = new double[to.length + 1];
+        GreatCircle.haversineMiles(from, to, haversine);
+        GreatCircle.approximateMiles(from, to, approximate);
+        for (int i = 0; i < to.length; i++)
+        {
+            assertThat(haversine[i], is(GreatCircle.haversineMiles(from, to[i])));
+            assertThat(approximate[i], is(GreatCircle.approximateMiles(from, to[i])));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsShortResults()
+    {
+        GreatCircle.haversineMiles(new Position(0, 0), new Position[2], new double[1]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsBadCoordinates()
+    {
+        new Position(91, 0);
+    }
+
+    @Test
+    public void cachesTrigonometry()
+    {
+        final Position position = Position.of(new Point("Denver", "CO", 39.73917, -104.98417, "Denver"));
+        assertNear(position.getSinLatitude(), Math.sin(Math.toRadians(39.73917)), 1e-15);
+        assertNear(position.getCosLongitude(), Math.cos(Math.toRadians(-104.98417)), 1e-15);
+        assertThat(Position.of(null) == null, is(true));
+    }
+
+    private static void assertNear(final double actual, final double expected, final double tolerance)
+    {
+        assertThat(String.format("%f vs %f", actual, expected), Math.abs(actual - expected) <= tolerance, is(true));
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.domain;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+import com.jsoniter.JsonIterator;
+
+public class JsonCodecsTest
+{
+    @Test
+    public void loadsGeneratedCodecs()
+    {
+        // The build generates and compiles the codecs ahead of the tests
+        assertThat(JsonCodecs.install(JsonCodecs.Mode.STATIC), is(JsonCodecs.Mode.STATIC));
+        assertThat(JsonCodecs.generatedCodecsPresent(), is(true));
+
+        for (final GeoLocation destination : new GeoLocation[] {
+            new Point("Denver", "CO", 39.73917, -104.98417, "Denver"),
+            new Area(new String[] { "IL", "IN" }, new String[] { "Z5" }),
+            new Open() })
+        {
+            final SimpleAsset asset = new SimpleAsset();
+            asset.setFmeId("DS1StpUx");
+            asset.setCompanyId(40633);
+            asset.setOrigin(new Point("Chicago", "IL", 41.85, -87.65, "Cook"));
+            asset.setDestination(destination);
+
+            final String json = asset.toJson();
+            assertThat(JsonIterator.deserialize(json, SimpleAsset.class), equalTo(asset));
+            assertThat(new SimpleAsset(json), equalTo(asset));
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.domain;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+import com.dat.sync.SyncEvent;
+import com.dat.sync.SyncEventGenerator;
+
+public class PlaceDictionaryTest
+{
+    @Test
+    public void sharesPlaces()
+    {
+        final PlaceDictionary places = new PlaceDictionary(10);
+        final Point denver = places.canonical(point("Denver", "CO", 39.73917, -104.98417, "Denver"));
+        assertThat(places.canonical(point("Denver", "CO", 39.73917, -104.98417, "Denver")), sameInstance(denver));
+        assertThat(places.size(), is(1));
+
+        // Same place, other coordinates: its own point, the canonical strings
+        final Point moved = places.canonical(point("Denver", "CO", 39.7, -104.9, "Denver"));
+        assertThat(moved == denver, is(false));
+        assertThat(moved, equalTo(new Point("Denver", "CO", 39.7, -104.9, "Denver")));
+        assertThat(moved.getCity(), sameInstance(denver.getCity()));
+        assertThat(moved.getCounty(), sameInstance(denver.getCounty()));
+
+        final Point other = places.canonical(point("Denver", "CO", 39.73917, -104.98417, "Adams"));
+        assertThat(other.getCounty(), equalTo("Adams"));
+        assertThat(other.getStateProvince(), sameInstance(denver.getStateProvince()));
+        assertThat(places.size(), is(1));
+    }
+
+    @Test
+    public void passesThroughWhatItCannotKey()
+    {
+        final PlaceDictionary places = new PlaceDictionary(1);
+        assertThat(places.canonical(null), is(nullValue()));
+        final Point nowhere = new Point(null, "CO", 39.7, -104.9, null);
+        assertThat(places.canonical(nowhere), sameInstance(nowhere));
+
+        places.canonical(point("Denver", "CO", 39.73917, -104.98417, "Denver"));
+        final Point boulder = point("Boulder", "CO", 40.015, -105.27, "Boulder");
+        assertThat(places.canonical(boulder), sameInstance(boulder));
+        assertThat(places.canonical(point("Boulder", "CO", 40.015, -105.27, "Boulder")) == boulder, is(false));
+        assertThat(places.size(), is(1));
+    }
+
+    @Test
+    public void decodersShareIdenticalPoints() throws Exception
+    {
+        final SyncEventGenerator generator = new SyncEventGenerator(44L, 1.0);
+        final SimpleAsset first = new SimpleAsset(new SyncEvent(generator.nextBytes()));
+        SimpleAsset again = null;
+        for (int i = 0; i < 1000 && again == null; i++)
+        {
+            final SimpleAsset asset = new SimpleAsset(new SyncEvent(generator.nextBytes()));
+            if (first.getOrigin().equals(asset.getOrigin()))
+            {
+                again = asset;
+            }
+        }
+        assertThat(again.getOrigin(), sameInstance(first.getOrigin()));
+        assertThat(SimpleAssetCodec.decode(SimpleAssetCodec.encode(first)).getOrigin(),
+            sameInstance(first.getOrigin()));
+    }
+
+    /**
+     * A point with strings of its own, as a decoder would produce.
+     */
+    private static Point point(final String city, final String state, final double latitude, final double longitude,
+        final String county)
+    {
+        return new Point(new String(city), new String(state), latitude, longitude, new String(county));
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.domain;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import com.dat.sync.SyncEvent;
+import com.dat.sync.SyncEventGenerator;
+
+public class SimpleAssetBatchConverterTest
+{
+    @Test
+    public void matchesSequentialConversion() throws Exception
+    {
+        final SyncEventGenerator generator = new SyncEventGenerator(3, 1.0);
+        final List<SyncEvent> events = new ArrayList<>();
+        for (int i = 0; i < 1000; i++)
+        {
+            events.add(new SyncEvent(generator.next()));
+        }
+
+        // A few events that can't be converted, at known positions
+        final String noClassname = "__magicNumber=Xyzzy0xfeedbeef1990\naction=insert\nfmeId=DS1StpUx\n";
+        events.set(0, new SyncEvent(noClassname));
+        events.set(517, new SyncEvent(noClassname));
+        events.set(999, new SyncEvent(noClassname));
+
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try
+        {
+            final SimpleAssetBatchConverter.Result result = new SimpleAssetBatchConverter(pool, 16).convert(events);
+
+            assertThat(result.size(), is(events.size()));
+            assertThat(result.errorCount(), is(3));
+            for (int i = 0; i < events.size(); i++)
+            {
+                if (i == 0 || i == 517 || i == 999)
+                {
+                    assertThat(result.asset(i), is(nullValue()));
+                    assertThat(result.error(i), instanceOf(IllegalArgumentException.class));
+                }
+                else
+                {
+                    assertThat(result.error(i), is(nullValue()));
+                    assertThat(result.asset(i), equalTo(new SimpleAsset(events.get(i))));
+                }
+            }
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void emptyBatch() throws Exception
+    {
+        assertThat(SimpleAsset.fromEvents(new ArrayList<>()).size(), is(0));
+    }
+}
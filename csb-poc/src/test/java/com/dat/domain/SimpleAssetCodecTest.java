@@ -0,0 +1,150 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.domain;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.streams.Consumed;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.apache.kafka.streams.kstream.Materialized;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.Stores;
+import org.apache.kafka.streams.test.ConsumerRecordFactory;
+import org.junit.Test;
+
+import com.dat.common.serialization.SimpleAssetBinarySerde;
+import com.dat.common.serialization.SimpleAssetBinarySerializer;
+import com.dat.sync.SyncEvent;
+import com.dat.sync.SyncEventGenerator;
+
+public class SimpleAssetCodecTest
+{
+    @Test
+    public void roundTripsGeneratedAssets() throws Exception
+    {
+        SyncEventGenerator generator = new SyncEventGenerator(11L, 1.0);
+        final ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+        long jsonBytes = 0;
+        for (int i = 0; i < 1000; i++)
+        {
+            final SimpleAsset asset = new SimpleAsset(new SyncEvent(generator.nextBytes()));
+            SimpleAssetCodec.encode(asset, buffer);
+            jsonBytes += asset.toJson().getBytes(StandardCharsets.UTF_8).length;
+        }
+        assertTrue(buffer.position() * 3 < jsonBytes);
+
+        buffer.flip();
+        generator = new SyncEventGenerator(11L, 1.0);
+        for (int i = 0; i < 1000; i++)
+        {
+            final int offset = buffer.position();
+            final SimpleAsset expected = new SimpleAsset(new SyncEvent(generator.nextBytes()));
+            assertThat(SimpleAssetCodec.decode(buffer), equalTo(expected));
+            assertThat(buffer.position() - offset, is(SimpleAssetCodec.length(buffer, offset)));
+        }
+        assertThat(buffer.hasRemaining(), is(false));
+    }
+
+    @Test
+    public void roundTripsNullsAndUncodedValues()
+    {
+        final SimpleAsset empty = new SimpleAsset();
+        final byte[] bytes = SimpleAssetCodec.encode(empty);
+        assertThat(bytes.length, is(SimpleAssetCodec.HEADER_LENGTH));
+        assertThat(SimpleAssetCodec.decode(bytes), equalTo(empty));
+
+        final SimpleAsset unusual = new SimpleAsset();
+        unusual.setFmeId("D\"q\\\u00e9\u2603\n");
+        unusual.setSourceApplication("somewhere");
+        unusual.setPostingType("Capacity");
+        unusual.setEquipmentType("XYZ");
+        unusual.setWhenIssued(-1L);
+        unusual.setOrigin(new Point(null, "Baja California", -89.999999, 179.999999, "Tijuana"));
+        unusual.setDestination(new Area(new String[] { "IL", null, "Chihuahua" }, new String[] { "Z1", null }));
+        assertThat(SimpleAssetCodec.decode(SimpleAssetCodec.encode(unusual)), equalTo(unusual));
+
+        unusual.setDestination(new Area());
+        assertThat(SimpleAssetCodec.decode(SimpleAssetCodec.encode(unusual)), equalTo(unusual));
+    }
+
+    @Test
+    public void packsBase56FmeIds()
+    {
+        final SimpleAsset asset = new SimpleAsset();
+        final SimpleAssetView view = new SimpleAssetView();
+        for (final String fmeId : new String[] { "2", "DS1StpUx", "zzzzzzzzzz", "2222222222" })
+        {
+            asset.setFmeId(fmeId);
+            assertTrue(view.wrap(ByteBuffer.wrap(SimpleAssetCodec.encode(asset)), 0));
+            assertTrue(fmeId, view.getPackedFmeId() > 0);
+            assertThat(view.getPackedFmeId(), is(FmeId.pack(fmeId)));
+            assertThat(view.getFmeId(), is(fmeId));
+        }
+
+        for (final String fmeId : new String[] { null, "", "DS1-StpUx", "DS1StpUx012", "zzzzzzzzzzz" })
+        {
+            asset.setFmeId(fmeId);
+            final byte[] encoded = SimpleAssetCodec.encode(asset);
+            assertTrue(view.wrap(ByteBuffer.wrap(encoded), 0));
+            assertThat(fmeId, view.getPackedFmeId(), is(FmeId.NONE));
+            assertThat(SimpleAssetCodec.decode(encoded).getFmeId(), is(fmeId));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsOtherVersions()
+    {
+        final byte[] bytes = SimpleAssetCodec.encode(new SimpleAsset());
+        bytes[0] = SimpleAssetCodec.VERSION - 1;
+        SimpleAssetCodec.decode(bytes);
+    }
+
+    @Test
+    public void worksAsStateStoreValue() throws Exception
+    {
+        final StreamsBuilder builder = new StreamsBuilder();
+        builder.table("assets", Consumed.with(Serdes.String(), new SimpleAssetBinarySerde()),
+            Materialized.<String, SimpleAsset> as(Stores.inMemoryKeyValueStore("asset-store"))
+                .withKeySerde(Serdes.String())
+                .withValueSerde(new SimpleAssetBinarySerde()));
+
+        final Properties config = new Properties();
+        config.put(StreamsConfig.APPLICATION_ID_CONFIG, "simple-asset-codec-test");
+        config.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092");
+
+        final ConsumerRecordFactory<String, SimpleAsset> factory = new ConsumerRecordFactory<>("assets",
+            new StringSerializer(), new SimpleAssetBinarySerializer());
+        final SyncEventGenerator generator = new SyncEventGenerator(13L, 1.0);
+        final SimpleAsset asset = new SimpleAsset(new SyncEvent(generator.nextBytes()));
+
+        final TopologyTestDriver driver = new TopologyTestDriver(builder.build(), config);
+        try
+        {
+            driver.pipeInput(factory.create("assets", asset.getFmeId(), asset));
+            final KeyValueStore<String, SimpleAsset> store = driver.getKeyValueStore("asset-store");
+            assertThat(store.get(asset.getFmeId()), equalTo(asset));
+
+            driver.pipeInput(factory.create("assets", asset.getFmeId(), (SimpleAsset) null));
+            assertThat(store.get(asset.getFmeId()), nullValue());
+        }
+        finally
+        {
+            driver.close();
+        }
+    }
+}
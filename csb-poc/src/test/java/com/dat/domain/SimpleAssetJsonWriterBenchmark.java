@@ -0,0 +1,129 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.domain;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import com.dat.bench.AllocationCounter;
+import com.dat.sync.SyncEvent;
+import com.dat.sync.SyncEventGenerator;
+
+/**
+ * Cost of writing a batch of assets as NDJSON: {@link SimpleAsset#toJson()} per asset, encoded to
+ * bytes and appended to a reused stream, against {@link SimpleAssetJsonWriter} appending straight
+ * into its reused buffer.
+ *
+ * <pre>
+ * gradle benchmark -Pbench=com.dat.domain.SimpleAssetJsonWriterBenchmark -PbenchArgs="--records 50000"
+ * </pre>
+ */
+public class SimpleAssetJsonWriterBenchmark
+{
+    private int m_records = 20_000;
+
+    private int m_rounds = 20;
+
+    private long m_seed = 42;
+
+    private JsonCodecs.Mode m_codecs = JsonCodecs.Mode.STATIC;
+
+    public static void main(final String[] args) throws Exception
+    {
+        final SimpleAssetJsonWriterBenchmark benchmark = new SimpleAssetJsonWriterBenchmark();
+        benchmark.parseArgs(args);
+        benchmark.run();
+    }
+
+    private void parseArgs(final String[] args)
+    {
+        for (int i = 0; i < args.length; i++)
+        {
+            switch (args[i])
+            {
+                case "--records" :
+                    m_records = Integer.parseInt(args[++i]);
+                    break;
+                case "--rounds" :
+                    m_rounds = Integer.parseInt(args[++i]);
+                    break;
+                case "--seed" :
+                    m_seed = Long.parseLong(args[++i]);
+                    break;
+                case "--codecs" :
+                    m_codecs = JsonCodecs.Mode.valueOf(args[++i].toUpperCase());
+                    break;
+                default :
+                    throw new IllegalArgumentException(String.format("Unknown argument: '%s'", args[i]));
+            }
+        }
+    }
+
+    private void run() throws Exception
+    {
+        final JsonCodecs.Mode installed = JsonCodecs.install(m_codecs);
+
+        final SimpleAsset[] assets = new SimpleAsset[m_records];
+        final SyncEventGenerator generator = new SyncEventGenerator(m_seed, 1.0);
+        for (int i = 0; i < assets.length; i++)
+        {
+            assets[i] = new SimpleAsset(new SyncEvent(generator.nextBytes()));
+        }
+
+        System.out.printf("%,d assets per batch, %s codecs, best of %d rounds\n", m_records, installed, m_rounds);
+
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream(1 << 20);
+        measure("toJson", () ->
+        {
+            stream.reset();
+            for (final SimpleAsset asset : assets)
+            {
+                final byte[] json = asset.toJson().getBytes(StandardCharsets.UTF_8);
+                stream.write(json, 0, json.length);
+                stream.write('\n');
+            }
+            return stream.size();
+        });
+
+        final SimpleAssetJsonWriter writer = new SimpleAssetJsonWriter(1 << 20);
+        measure("writer", () ->
+        {
+            writer.clear();
+            for (final SimpleAsset asset : assets)
+            {
+                writer.write(asset);
+            }
+            return writer.size();
+        });
+    }
+
+    private void measure(final String name, final Batch batch)
+    {
+        long best = Long.MAX_VALUE;
+        long allocated = 0;
+        int bytes = 0;
+        for (int round = 0; round < m_rounds; round++)
+        {
+            final long bytesBefore = AllocationCounter.currentThreadAllocatedBytes();
+            final long start = System.nanoTime();
+            bytes = batch.write();
+            best = Math.min(best, System.nanoTime() - start);
+            allocated = AllocationCounter.currentThreadAllocatedBytes() - bytesBefore;
+        }
+
+        System.out.printf("  %-8s %,6d ns/asset  %7s B/asset  %,7.1f MB/s  (%,d bytes)\n", name, best / m_records,
+            allocated < 0 ? "n/a" : String.format("%,d", allocated / m_records), bytes * 1e3 / best, bytes);
+    }
+
+    @FunctionalInterface
+    private interface Batch
+    {
+        /**
+         * @return bytes written
+         */
+        int write();
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.domain;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.dat.common.serialization.SimpleAssetSerializer;
+import com.dat.sync.SyncEvent;
+import com.dat.sync.SyncEventGenerator;
+
+public class SimpleAssetJsonWriterTest
+{
+    @Test
+    public void writesWhatToJsonWrites() throws Exception
+    {
+        final List<SimpleAsset> assets = new ArrayList<>();
+        final SyncEventGenerator generator = new SyncEventGenerator(7L, 1.0);
+        while (assets.size() < 500)
+        {
+            assets.add(new SimpleAsset(new SyncEvent(generator.nextBytes())));
+        }
+        assets.add(new SimpleAsset());
+
+        final SimpleAsset unusual = new SimpleAsset();
+        unusual.setFmeId("D\"q\\\u00e9\u2603\n");
+        unusual.setWhenIssued(1516119405094L);
+        unusual.setOrigin(new Area(new String[] { "IL", null }, null));
+        unusual.setDestination(new Open());
+        assets.add(unusual);
+
+        final SimpleAssetJsonWriter writer = new SimpleAssetJsonWriter(256);
+        for (final SimpleAsset asset : assets)
+        {
+            writer.write(asset);
+        }
+        assertThat(writer.count(), is(assets.size()));
+
+        final String[] lines = new String(writer.buffer(), 0, writer.size(), StandardCharsets.UTF_8).split("\n");
+        assertThat(lines.length, is(assets.size()));
+        for (int i = 0; i < lines.length; i++)
+        {
+            final SimpleAsset expected = new SimpleAsset(assets.get(i).toJson());
+            assertThat(lines[i], new SimpleAsset(lines[i]), equalTo(expected));
+        }
+    }
+
+    @Test
+    public void reusesBuffer()
+    {
+        final SimpleAsset asset = new SimpleAsset();
+        asset.setFmeId("DS1StpUx");
+        asset.setOrigin(new Point("Chicago", "IL", 41.85, -87.65, "Cook"));
+
+        final SimpleAssetJsonWriter writer = new SimpleAssetJsonWriter();
+        writer.write(asset);
+        final byte[] first = writer.toByteArray();
+        final byte[] buffer = writer.buffer();
+
+        writer.clear();
+        assertThat(writer.size(), is(0));
+        assertThat(writer.count(), is(0));
+        writer.write(asset);
+        assertThat(writer.buffer(), sameInstance(buffer));
+        assertThat(writer.toByteArray(), equalTo(first));
+
+        final ByteBuffer out = ByteBuffer.allocate(first.length + 1);
+        writer.writeTo(out);
+        assertThat(out.position(), is(first.length));
+        assertThat(Arrays.copyOf(out.array(), first.length), equalTo(first));
+
+        // One object, no line separator
+        final byte[] record = new SimpleAssetSerializer().serialize("assets", asset);
+        assertThat(record, equalTo(Arrays.copyOf(first, first.length - 1)));
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.domain;
+
+import java.nio.ByteBuffer;
+
+import com.dat.bench.AllocationCounter;
+import com.dat.sync.SyncEvent;
+import com.dat.sync.SyncEventGenerator;
+
+/**
+ * Cost of filtering a buffer of binary assets by companyId, equipmentType and availability date:
+ * decoding every record with {@link SimpleAssetCodec#decode(ByteBuffer)} against moving one
+ * {@link SimpleAssetView} along the buffer.
+ *
+ * <pre>
+ * gradle benchmark -Pbench=com.dat.domain.SimpleAssetViewBenchmark -PbenchArgs="--records 1000000"
+ * </pre>
+ */
+public class SimpleAssetViewBenchmark
+{
+    private int m_records = 200_000;
+
+    private int m_rounds = 10;
+
+    private long m_seed = 42;
+
+    private boolean m_direct = true;
+
+    public static void main(final String[] args) throws Exception
+    {
+        final SimpleAssetViewBenchmark benchmark = new SimpleAssetViewBenchmark();
+        benchmark.parseArgs(args);
+        benchmark.run();
+    }
+
+    private void parseArgs(final String[] args)
+    {
+        for (int i = 0; i < args.length; i++)
+        {
+            switch (args[i])
+            {
+                case "--records" :
+                    m_records = Integer.parseInt(args[++i]);
+                    break;
+                case "--rounds" :
+                    m_rounds = Integer.parseInt(args[++i]);
+                    break;
+                case "--seed" :
+                    m_seed = Long.parseLong(args[++i]);
+                    break;
+                case "--heap" :
+                    m_direct = false;
+                    break;
+                default :
+                    throw new IllegalArgumentException(String.format("Unknown argument: '%s'", args[i]));
+            }
+        }
+    }
+
+    private void run() throws Exception
+    {
+        final int capacity = m_records * 256;
+        final ByteBuffer buffer = m_direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+        final SyncEventGenerator generator = new SyncEventGenerator(m_seed, 1.0);
+        SimpleAsset probe = null;
+        for (int i = 0; i < m_records; i++)
+        {
+            final SimpleAsset asset = new SimpleAsset(new SyncEvent(generator.nextBytes()));
+            SimpleAssetCodec.encode(asset, buffer);
+            if (i == m_records / 2)
+            {
+                probe = asset;
+            }
+        }
+        buffer.flip();
+
+        final int companyId = probe.getCompanyId();
+        final String equipmentType = probe.getEquipmentType();
+        final int equipmentTypeCode = SimpleAssetCodec.EQUIPMENT_TYPES.code(equipmentType);
+        final long time = probe.getEarliestAvailability();
+
+        System.out.printf("%,d records, %,d bytes %s, best of %d rounds\n", m_records, buffer.limit(),
+            m_direct ? "direct" : "heap", m_rounds);
+
+        measure("decode", () ->
+        {
+            final ByteBuffer records = buffer.duplicate();
+            int matched = 0;
+            while (records.hasRemaining())
+            {
+                final SimpleAsset asset = SimpleAssetCodec.decode(records);
+                if (asset.getCompanyId() == companyId
+                    || equipmentType.equals(asset.getEquipmentType()) && asset.getEarliestAvailability() <= time
+                        && time <= asset.getLatestAvailability())
+                {
+                    matched++;
+                }
+            }
+            return matched;
+        });
+
+        final SimpleAssetView view = new SimpleAssetView();
+        measure("view", () ->
+        {
+            int matched = 0;
+            for (boolean more = view.wrap(buffer, 0); more; more = view.next())
+            {
+                if (view.getCompanyId() == companyId
+                    || view.getEquipmentTypeCode() == equipmentTypeCode && view.isAvailableAt(time))
+                {
+                    matched++;
+                }
+            }
+            return matched;
+        });
+    }
+
+    private void measure(final String name, final Scan scan)
+    {
+        long best = Long.MAX_VALUE;
+        long allocated = 0;
+        int matched = 0;
+        for (int round = 0; round < m_rounds; round++)
+        {
+            final long bytesBefore = AllocationCounter.currentThreadAllocatedBytes();
+            final long start = System.nanoTime();
+            matched = scan.matches();
+            best = Math.min(best, System.nanoTime() - start);
+            allocated = AllocationCounter.currentThreadAllocatedBytes() - bytesBefore;
+        }
+
+        System.out.printf("  %-8s %,8.1f ns/record  %7s B/record  %,6.1f M records/s  (%,d matched)\n", name,
+            (double) best / m_records, allocated < 0 ? "n/a" : String.format("%,d", allocated / m_records),
+            m_records * 1e3 / best, matched);
+    }
+
+    @FunctionalInterface
+    private interface Scan
+    {
+        /**
+         * @return records matched
+         */
+        int matches();
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.domain;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.dat.sync.SyncEvent;
+import com.dat.sync.SyncEventGenerator;
+
+public class SimpleAssetViewTest
+{
+    @Test
+    public void readsFieldsInPlace() throws Exception
+    {
+        final List<SimpleAsset> assets = new ArrayList<>();
+        final SyncEventGenerator generator = new SyncEventGenerator(17L, 1.0);
+        while (assets.size() < 500)
+        {
+            assets.add(new SimpleAsset(new SyncEvent(generator.nextBytes())));
+        }
+
+        final SimpleAsset unusual = new SimpleAsset();
+        unusual.setFmeId("not-base56");
+        unusual.setSourceApplication("somewhere");
+        unusual.setPostingType("Capacity");
+        unusual.setEquipmentType("XYZ");
+        unusual.setOrigin(new Open());
+        assets.add(unusual);
+        assets.add(new SimpleAsset());
+
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+        buffer.position(3);
+        for (final SimpleAsset asset : assets)
+        {
+            SimpleAssetCodec.encode(asset, buffer);
+        }
+        buffer.flip();
+
+        final SimpleAssetView view = new SimpleAssetView();
+        int i = 0;
+        for (boolean more = view.wrap(buffer, 3); more; more = view.next())
+        {
+            final SimpleAsset asset = assets.get(i++);
+            assertThat(view.getFmeId(), is(asset.getFmeId()));
+            assertThat(view.getSourceApplication(), is(asset.getSourceApplication()));
+            assertThat(view.getPostingType(), is(asset.getPostingType()));
+            assertThat(view.getEquipmentType(), is(asset.getEquipmentType()));
+            assertThat(view.getEquipmentTypeCode(),
+                is(SimpleAssetCodec.EQUIPMENT_TYPES.code(asset.getEquipmentType())));
+            assertThat(view.getCompanyId(), is(asset.getCompanyId()));
+            assertThat(view.getUserId(), is(asset.getUserId()));
+            assertThat(view.getEarliestAvailability(), is(asset.getEarliestAvailability()));
+            assertThat(view.getLatestAvailability(), is(asset.getLatestAvailability()));
+            assertThat(view.isOriginOpen(), is(asset.getOrigin() instanceof Open));
+            if (asset.getOrigin() instanceof Point)
+            {
+                final Point origin = (Point) asset.getOrigin();
+                assertThat(view.isOriginPoint(), is(true));
+                assertThat(view.getOriginLatitude(), is(origin.getLatitude()));
+                assertThat(view.getOriginLongitude(), is(origin.getLongitude()));
+            }
+            assertThat(view.toSimpleAsset(), equalTo(asset));
+        }
+        assertThat(i, is(assets.size()));
+        assertThat(buffer.position(), is(0));
+    }
+
+    @Test
+    public void filtersWithOneCursor() throws Exception
+    {
+        final List<SimpleAsset> assets = new ArrayList<>();
+        final ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+        final SyncEventGenerator generator = new SyncEventGenerator(19L, 1.0);
+        while (assets.size() < 2000)
+        {
+            final SimpleAsset asset = new SimpleAsset(new SyncEvent(generator.nextBytes()));
+            assets.add(asset);
+            SimpleAssetCodec.encode(asset, buffer);
+        }
+        buffer.flip();
+
+        final SimpleAsset probe = assets.get(assets.size() / 2);
+        final int equipmentType = SimpleAssetCodec.EQUIPMENT_TYPES.code(probe.getEquipmentType());
+        final long time = probe.getEarliestAvailability();
+
+        final long expected = assets.stream()
+            .filter(a -> a.getEquipmentType().equals(probe.getEquipmentType()))
+            .filter(a -> a.getEarliestAvailability() <= time && time <= a.getLatestAvailability())
+            .count();
+
+        int matched = 0;
+        final SimpleAssetView view = new SimpleAssetView();
+        for (boolean more = view.wrap(buffer, 0); more; more = view.next())
+        {
+            if (view.getEquipmentTypeCode() == equipmentType && view.isAvailableAt(time))
+            {
+                matched++;
+            }
+        }
+        assertThat((long) matched, is(expected));
+    }
+
+    @Test
+    public void treatsAMissingAvailabilityBoundAsOpen()
+    {
+        final long time = 1528000000000L;
+        final long[][] windows = {
+            { time, time }, { time + 1, time + 2 }, { time - 2, time - 1 },
+            { SimpleAsset.NO_TIMESTAMP, time }, { time, SimpleAsset.NO_TIMESTAMP },
+            { SimpleAsset.NO_TIMESTAMP, SimpleAsset.NO_TIMESTAMP },
+            { SimpleAsset.NO_TIMESTAMP, time - 1 }, { time + 1, SimpleAsset.NO_TIMESTAMP } };
+        final boolean[] available = { true, false, false, true, true, true, false, false };
+
+        final ByteBuffer buffer = ByteBuffer.allocate(1 << 12);
+        for (final long[] window : windows)
+        {
+            final SimpleAsset asset = new SimpleAsset();
+            asset.setEarliestAvailability(window[0]);
+            asset.setLatestAvailability(window[1]);
+            SimpleAssetCodec.encode(asset, buffer);
+        }
+        buffer.flip();
+
+        final SimpleAssetView view = new SimpleAssetView();
+        int i = 0;
+        for (boolean more = view.wrap(buffer, 0); more; more = view.next())
+        {
+            assertThat(String.valueOf(i), view.isAvailableAt(time), is(available[i++]));
+        }
+        assertThat(i, is(windows.length));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonRecords()
+    {
+        new SimpleAssetView().wrap(ByteBuffer.allocate(SimpleAssetCodec.HEADER_LENGTH), 0);
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.match;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.dat.bench.LatencyHistogram;
+import com.dat.domain.SimpleAsset;
+import com.dat.sync.SyncEvent;
+import com.dat.sync.SyncEventGenerator;
+
+/**
+ * Replays a generated asset stream through a {@link MatchEngine} already holding a book of live
+ * assets, reporting match throughput and per-event latency. Events are parsed up front so only
+ * matching is timed. The generator gives every event a fresh fmeId, so its cancels and deletes
+ * retract a random live asset instead. Its postings all sit in a couple of dozen places, so
+ * candidate sets are far denser than a real book of the same size: treat latencies as a worst case.
+ *
+ * <pre>
+ * gradle benchmark -Pbench=com.dat.match.MatchEngineBenchmark -PbenchArgs="--preload 50000 --events 20000"
+ * </pre>
+ */
+public class MatchEngineBenchmark
+{
+    private int m_preload = 50_000;
+
+    private int m_events = 20_000;
+
+    private int m_rounds = 3;
+
+    private long m_seed = 42;
+
+    public static void main(final String[] args) throws Exception
+    {
+        final MatchEngineBenchmark benchmark = new MatchEngineBenchmark();
+        benchmark.parseArgs(args);
+        benchmark.run();
+    }
+
+    private void parseArgs(final String[] args)
+    {
+        for (int i = 0; i < args.length; i++)
+        {
+            switch (args[i])
+            {
+                case "--preload" :
+                    m_preload = Integer.parseInt(args[++i]);
+                    break;
+                case "--events" :
+                    m_events = Integer.parseInt(args[++i]);
+                    break;
+                case "--rounds" :
+                    m_rounds = Integer.parseInt(args[++i]);
+                    break;
+                case "--seed" :
+                    m_seed = Long.parseLong(args[++i]);
+                    break;
+                default :
+                    throw new IllegalArgumentException(String.format("Unknown argument: '%s'", args[i]));
+            }
+        }
+    }
+
+    private void run() throws Exception
+    {
+        final SyncEventGenerator generator = new SyncEventGenerator(m_seed, 0.8);
+        final List<SimpleAsset> book = new ArrayList<>(m_preload);
+        while (book.size() < m_preload)
+        {
+            final SyncEvent event = new SyncEvent(generator.nextBytes());
+            if (event.getAction() == SyncEvent.Action.insert)
+            {
+                book.add(new SimpleAsset(event));
+            }
+        }
+        final List<SyncEvent> events = new ArrayList<>(m_events);
+        final List<SimpleAsset> assets = new ArrayList<>(m_events);
+        for (int i = 0; i < m_events; i++)
+        {
+            final SyncEvent event = new SyncEvent(generator.nextBytes());
+            events.add(event);
+            assets.add(event.getAction() == SyncEvent.Action.insert || event.getAction() == SyncEvent.Action.update
+                ? new SimpleAsset(event) : null);
+        }
+
+        for (int round = 0; round < m_rounds; round++)
+        {
+            final long[] retractions = new long[1];
+            final MatchEngine engine = new MatchEngine(MatchEngine.DEFAULT_ORIGIN_RADIUS_MILES,
+                MatchEngine.DEFAULT_DESTINATION_RADIUS_MILES, MatchEngine.DEFAULT_MAX_MATCHES,
+                (fmeId, counterpartFmeId) -> retractions[0]++);
+            final List<String> live = new ArrayList<>(m_preload + m_events);
+            long start = System.nanoTime();
+            for (final SimpleAsset asset : book)
+            {
+                engine.put(asset);
+                live.add(asset.getFmeId());
+            }
+            final long preloadNanos = System.nanoTime() - start;
+
+            final Random random = new Random(m_seed);
+            final LatencyHistogram putLatencies = new LatencyHistogram();
+            final LatencyHistogram removeLatencies = new LatencyHistogram();
+            long matches = 0;
+            start = System.nanoTime();
+            for (int i = 0; i < m_events; i++)
+            {
+                final SimpleAsset asset = assets.get(i);
+                final long eventStart = System.nanoTime();
+                if (asset != null)
+                {
+                    matches += engine.put(asset).size();
+                    putLatencies.record(System.nanoTime() - eventStart);
+                    live.add(asset.getFmeId());
+                }
+                else if (!live.isEmpty())
+                {
+                    final int victim = random.nextInt(live.size());
+                    final String fmeId = live.get(victim);
+                    live.set(victim, live.get(live.size() - 1));
+                    live.remove(live.size() - 1);
+                    engine.remove(fmeId);
+                    removeLatencies.record(System.nanoTime() - eventStart);
+                }
+            }
+            final long replayNanos = System.nanoTime() - start;
+
+            System.out.printf("round %d: preload %,d assets in %.2fs, replay %,d events in %.2fs\n", round,
+                book.size(), preloadNanos / 1e9, events.size(), replayNanos / 1e9);
+            System.out.printf("  %,.0f events/s, %,.0f matches/s, %,.1f matches/put, %,d retractions\n",
+                events.size() / (replayNanos / 1e9), matches / (replayNanos / 1e9),
+                (double) matches / Math.max(1, putLatencies.count()), retractions[0]);
+            System.out.printf("  %,d puts checked only the first %,d of their candidates\n", engine.getCappedPuts(),
+                engine.getMaxCandidates());
+            System.out.printf("  put     %s\n", putLatencies.summary());
+            System.out.printf("  remove  %s\n", removeLatencies.summary());
+        }
+    }
+}
@@ -0,0 +1,341 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.match;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import com.dat.domain.Area;
+import com.dat.domain.EquipmentTypes;
+import com.dat.domain.GeoLocation;
+import com.dat.domain.Open;
+import com.dat.domain.Point;
+import com.dat.domain.SimpleAsset;
+import com.dat.store.PointGridIndex;
+import com.dat.sync.SyncEvent;
+import com.dat.sync.SyncEventGenerator;
+
+public class MatchEngineTest
+{
+    private static final long HOUR = 3600000L;
+
+    @Test
+    public void matchesAScan() throws Exception
+    {
+        final MatchEngine engine = new MatchEngine(150, 150, Integer.MAX_VALUE, MatchListener.NONE);
+        final Map<String, SimpleAsset> live = new LinkedHashMap<>();
+        final SyncEventGenerator generator = new SyncEventGenerator(41L, 1.0);
+        int matched = 0;
+        for (int i = 0; i < 2000; i++)
+        {
+            final SimpleAsset asset = new SimpleAsset(new SyncEvent(generator.nextBytes()));
+            if (i % 5 == 0)
+            {
+                asset.setOrigin(new Area(new String[] { stateOf(asset.getOrigin()) }, null));
+            }
+            else if (i % 17 == 0)
+            {
+                asset.setDestination(new Open());
+            }
+
+            final List<Match> matches = engine.put(asset);
+            assertThat(fmeIds(matches), equalTo(scan(asset, live.values())));
+            for (int m = 1; m < matches.size(); m++)
+            {
+                assertThat(matches.get(m - 1).compareTo(matches.get(m)) <= 0, is(true));
+            }
+            matched += matches.size();
+            live.put(asset.getFmeId(), asset);
+        }
+        assertThat(matched > 0, is(true));
+        assertThat(engine.size(), is(live.size()));
+    }
+
+    @Test
+    public void retractsOnUpdateAndRemove()
+    {
+        final List<String> retracted = new ArrayList<>();
+        final MatchEngine engine = new MatchEngine(150, 150, 10,
+            (fmeId, counterpartFmeId) -> retracted.add(fmeId + ">" + counterpartFmeId));
+
+        final SimpleAsset load1 = asset("S1", "Shipment", chicago(), new Open());
+        final SimpleAsset load2 = asset("S2", "Shipment", chicago(), new Area(new String[] { "GA" }, null));
+        final SimpleAsset truck = asset("E1", "Equipment", new Point("Gary", "IN", 41.59, -87.35, "Lake"), atlanta());
+        assertThat(engine.put(load1).isEmpty(), is(true));
+        assertThat(engine.put(load2).isEmpty(), is(true));
+
+        final List<Match> matches = engine.put(truck);
+        assertThat(fmeIds(matches), equalTo(new TreeSet<>(Arrays.asList("S1", "S2"))));
+        assertThat(matches.get(0).getOriginMiles() < 30, is(true));
+        assertThat(engine.matchCount("E1"), is(2));
+        assertThat(engine.matchCount("S1"), is(1));
+
+        // Moving the truck out of range retracts both and matches neither
+        truck.setOrigin(atlanta());
+        assertThat(engine.put(truck).isEmpty(), is(true));
+        assertThat(sorted(retracted), equalTo(Arrays.asList("E1>S1", "E1>S2")));
+        assertThat(engine.matchCount("S1"), is(0));
+
+        truck.setOrigin(chicago());
+        assertThat(engine.put(truck).size(), is(2));
+        retracted.clear();
+        assertThat(engine.remove("S2"), is(true));
+        assertThat(retracted, equalTo(Collections.singletonList("S2>E1")));
+        assertThat(engine.remove("S2"), is(false));
+        assertThat(engine.matchCount("E1"), is(1));
+        assertThat(engine.size(), is(2));
+    }
+
+    @Test
+    public void checksEquipmentAndDates()
+    {
+        final MatchEngine engine = new MatchEngine();
+        final SimpleAsset load = asset("S1", "Shipment", chicago(), atlanta());
+        engine.put(load);
+
+        final SimpleAsset truck = asset("E1", "Equipment", chicago(), atlanta());
+        truck.setEquipmentType("R");
+        assertThat(engine.put(truck).isEmpty(), is(true));
+        truck.setEquipmentType("VR");
+        assertThat(engine.put(truck).size(), is(1));
+        truck.setEquipmentType("XYZ");
+        assertThat(engine.put(truck).isEmpty(), is(true));
+        load.setEquipmentType("XYZ");
+        engine.put(load);
+        assertThat(engine.matchCount("E1"), is(1));
+        load.setEquipmentType("V");
+        engine.put(load);
+
+        truck.setEquipmentType("V");
+        truck.setEarliestAvailability(load.getLatestAvailability() + HOUR);
+        truck.setLatestAvailability(load.getLatestAvailability() + 2 * HOUR);
+        assertThat(engine.put(truck).isEmpty(), is(true));
+
+        // Touching windows overlap, and an absent bound is open-ended
+        truck.setEarliestAvailability(load.getLatestAvailability());
+        assertThat(engine.put(truck).size(), is(1));
+        truck.setEarliestAvailability(SimpleAsset.NO_TIMESTAMP);
+        truck.setLatestAvailability(SimpleAsset.NO_TIMESTAMP);
+        assertThat(engine.put(truck).size(), is(1));
+    }
+
+    @Test
+    public void keepsTheNearest()
+    {
+        final MatchEngine engine = new MatchEngine(150, 150, 3, MatchListener.NONE);
+        for (int i = 0; i < 10; i++)
+        {
+            engine.put(asset("S" + i, "Shipment", new Point("C" + i, "IL", 41.85 + i * 0.1, -87.65, null), atlanta()));
+        }
+        final List<Match> matches = engine.put(asset("E1", "Equipment", chicago(), atlanta()));
+        assertThat(matches.stream().map(m -> m.getCounterpart().getFmeId()).collect(Collectors.toList()),
+            equalTo(Arrays.asList("S0", "S1", "S2")));
+        assertThat(engine.matchCount("S9"), is(0));
+    }
+
+    @Test
+    public void appliesEvents() throws Exception
+    {
+        final MatchEngine engine = new MatchEngine();
+        final SyncEventGenerator generator = new SyncEventGenerator(7L, 1.0);
+        final String insert = generator.next();
+        final List<Match> matches = engine.apply(new SyncEvent(insert));
+        assertThat(matches.isEmpty(), is(true));
+        assertThat(engine.size(), is(1));
+
+        engine.apply(new SyncEvent(insert.replace("action=insert\n", "action=refresh\n")));
+        assertThat(engine.size(), is(1));
+        engine.apply(new SyncEvent(insert.replace("action=insert\n", "action=cancel\n")));
+        assertThat(engine.size(), is(0));
+    }
+
+    @Test
+    public void ignoresUnknownPostingTypes()
+    {
+        final MatchEngine engine = new MatchEngine();
+        engine.put(asset("S1", "Shipment", chicago(), atlanta()));
+        assertThat(engine.put(asset("X1", null, chicago(), atlanta())).isEmpty(), is(true));
+        assertThat(engine.size(), is(1));
+    }
+
+    @Test
+    public void checksAtMostMaxCandidates()
+    {
+        final MatchEngine engine = new MatchEngine(150, 150, 2, 4, MatchListener.NONE);
+        for (int i = 0; i < 10; i++)
+        {
+            // Nearest last, so only the four farthest, with the lowest ordinals, are checked
+            engine.put(asset("S" + i, "Shipment", new Point("C" + i, "IL", 41.85 + (9 - i) * 0.1, -87.65, null),
+                atlanta()));
+        }
+        assertThat(engine.getCappedPuts(), is(0L));
+
+        final List<Match> matches = engine.put(asset("E1", "Equipment", chicago(), atlanta()));
+        assertThat(matches.stream().map(m -> m.getCounterpart().getFmeId()).collect(Collectors.toList()),
+            equalTo(Arrays.asList("S3", "S2")));
+        assertThat(engine.getCappedPuts(), is(1L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNoCandidates()
+    {
+        new MatchEngine(150, 150, 50, 0, MatchListener.NONE);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNegativeRadius()
+    {
+        new MatchEngine(-1, 150, 50, MatchListener.NONE);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsMissingFmeId()
+    {
+        new MatchEngine().put(new SimpleAsset());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnpackableFmeId()
+    {
+        new MatchEngine().put(asset("not-base56", "Shipment", chicago(), atlanta()));
+    }
+
+    @Test
+    public void rejectsBadCoordinatesUntouched()
+    {
+        final MatchEngine engine = new MatchEngine();
+        engine.put(asset("S1", "Shipment", chicago(), atlanta()));
+        final Point nowhere = new Point("Nowhere", "IL", 91, -87.65, "Cook");
+        for (final SimpleAsset bad : Arrays.asList(asset("S1", "Shipment", chicago(), nowhere),
+            asset("S2", "Shipment", nowhere, atlanta())))
+        {
+            try
+            {
+                engine.put(bad);
+                fail(bad.getFmeId());
+            }
+            catch (final IllegalArgumentException e)
+            {
+                assertThat(engine.size(), is(1));
+            }
+        }
+        final List<Match> matches = engine.put(asset("E1", "Equipment", chicago(), atlanta()));
+        assertThat(fmeIds(matches), equalTo(new TreeSet<>(Arrays.asList("S1"))));
+        assertThat(engine.put(asset("S2", "Shipment", chicago(), atlanta())).size(), is(1));
+    }
+
+    /**
+     * The counterparts the engine should find for {@code asset}, by checking every live asset.
+     */
+    private static TreeSet<String> scan(final SimpleAsset asset, final Iterable<SimpleAsset> live)
+    {
+        final TreeSet<String> fmeIds = new TreeSet<>();
+        for (final SimpleAsset other : live)
+        {
+            if (asset.getPostingType() != null && other.getPostingType() != null
+                && !asset.getPostingType().equals(other.getPostingType())
+                && compatible(asset.getOrigin(), other.getOrigin())
+                && compatible(asset.getDestination(), other.getDestination())
+                && EquipmentTypes.compatible(asset.getEquipmentType(), other.getEquipmentType())
+                && asset.getEarliestAvailability() <= other.getLatestAvailability()
+                && other.getEarliestAvailability() <= asset.getLatestAvailability())
+            {
+                fmeIds.add(other.getFmeId());
+            }
+        }
+        return fmeIds;
+    }
+
+    private static boolean compatible(final GeoLocation a, final GeoLocation b)
+    {
+        if (a == null || b == null)
+        {
+            return false;
+        }
+        if (a instanceof Open || b instanceof Open)
+        {
+            return true;
+        }
+        if (a instanceof Point && b instanceof Point)
+        {
+            final Point p = (Point) a;
+            final Point q = (Point) b;
+            return PointGridIndex.distanceMiles(p.getLatitude(), p.getLongitude(), q.getLatitude(),
+                q.getLongitude()) <= 150;
+        }
+        return !Collections.disjoint(states(a), states(b)) || !Collections.disjoint(zones(a), zones(b));
+    }
+
+    private static List<String> states(final GeoLocation location)
+    {
+        if (location instanceof Point)
+        {
+            return Collections.singletonList(((Point) location).getStateProvince());
+        }
+        final String[] states = ((Area) location).getStateProvinces();
+        return states == null ? Collections.emptyList() : Arrays.asList(states);
+    }
+
+    private static List<String> zones(final GeoLocation location)
+    {
+        final String[] zones = location instanceof Area ? ((Area) location).getZones() : null;
+        return zones == null ? Collections.emptyList() : Arrays.asList(zones);
+    }
+
+    private static String stateOf(final GeoLocation location)
+    {
+        return location instanceof Point ? ((Point) location).getStateProvince() : "IL";
+    }
+
+    private static TreeSet<String> fmeIds(final List<Match> matches)
+    {
+        return matches.stream().map(m -> m.getCounterpart().getFmeId()).collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    private static List<String> sorted(final List<String> values)
+    {
+        final List<String> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        return sorted;
+    }
+
+    private static SimpleAsset asset(final String fmeId, final String postingType, final GeoLocation origin,
+        final GeoLocation destination)
+    {
+        final SimpleAsset asset = new SimpleAsset();
+        asset.setFmeId(fmeId);
+        asset.setPostingType(postingType);
+        asset.setEquipmentType("V");
+        asset.setOrigin(origin);
+        asset.setDestination(destination);
+        asset.setEarliestAvailability(1528000000000L);
+        asset.setLatestAvailability(1528000000000L + 48 * HOUR);
+        return asset;
+    }
+
+    private static Point chicago()
+    {
+        return new Point("Chicago", "IL", 41.85, -87.65, "Cook");
+    }
+
+    private static Point atlanta()
+    {
+        return new Point("Atlanta", "GA", 33.749, -84.388, "Fulton");
+    }
+}
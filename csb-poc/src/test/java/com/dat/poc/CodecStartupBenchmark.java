@@ -0,0 +1,161 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.poc;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.dat.bench.LatencyHistogram;
+import com.dat.domain.JsonCodecs;
+import com.dat.domain.SimpleAsset;
+import com.dat.sync.SyncEvent;
+import com.dat.sync.SyncEventGenerator;
+
+/**
+ * Cold-start benchmark for the JSON codec modes. Each mode runs in a fresh JVM, which installs its
+ * codecs and then converts records one at a time the way {@link Siphon} does (parse the SyncEvent,
+ * build the {@link SimpleAsset}, write its JSON), timing each record from the very first.
+ *
+ * <pre>
+ * gradle benchmark -Pbench=com.dat.poc.CodecStartupBenchmark -PbenchArgs="--records 20000"
+ * </pre>
+ *
+ * {@code none} is the behaviour before codecs were installed at startup: reflection, set up lazily
+ * by the first record.
+ */
+public class CodecStartupBenchmark
+{
+    private static final String NONE = "none";
+
+    private int m_records = 10_000;
+
+    private long m_seed = 42;
+
+    private String m_mode;
+
+    public static void main(final String[] args) throws Exception
+    {
+        final CodecStartupBenchmark benchmark = new CodecStartupBenchmark();
+        benchmark.parseArgs(args);
+        if (benchmark.m_mode != null)
+        {
+            benchmark.runMode();
+        }
+        else
+        {
+            benchmark.runAll();
+        }
+    }
+
+    private void parseArgs(final String[] args)
+    {
+        for (int i = 0; i < args.length; i++)
+        {
+            switch (args[i])
+            {
+                case "--records" :
+                    m_records = Integer.parseInt(args[++i]);
+                    break;
+                case "--seed" :
+                    m_seed = Long.parseLong(args[++i]);
+                    break;
+                case "--mode" :
+                    m_mode = args[++i];
+                    break;
+                default :
+                    throw new IllegalArgumentException(String.format("Unknown argument: '%s'", args[i]));
+            }
+        }
+    }
+
+    private void runAll() throws Exception
+    {
+        final List<String> modes = new ArrayList<>();
+        modes.add(NONE);
+        for (final JsonCodecs.Mode mode : JsonCodecs.Mode.values())
+        {
+            modes.add(mode.name().toLowerCase());
+        }
+
+        System.out.printf("Cold start, %,d records per JVM\n", m_records);
+        for (final String mode : modes)
+        {
+            final ProcessBuilder builder = new ProcessBuilder(
+                System.getProperty("java.home") + File.separator + "bin" + File.separator + "java",
+                "-Xms512m", "-Xmx512m",
+                "-cp", System.getProperty("java.class.path"),
+                CodecStartupBenchmark.class.getName(),
+                "--mode", mode, "--records", Integer.toString(m_records), "--seed", Long.toString(m_seed));
+            builder.redirectErrorStream(true);
+
+            final Process process = builder.start();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream())))
+            {
+                for (String line = reader.readLine(); line != null; line = reader.readLine())
+                {
+                    // Only the result lines; the child's logging is noise here
+                    if (line.startsWith("  "))
+                    {
+                        System.out.println(line);
+                    }
+                }
+            }
+            if (process.waitFor() != 0)
+            {
+                throw new IllegalStateException(String.format("'%s' run failed", mode));
+            }
+        }
+    }
+
+    private void runMode() throws Exception
+    {
+        // Generate the input before anything is timed; the generator shares no JSON code paths
+        final SyncEventGenerator generator = new SyncEventGenerator(m_seed, 1.0);
+        final byte[][] records = new byte[m_records][];
+        for (int i = 0; i < m_records; i++)
+        {
+            records[i] = generator.nextBytes();
+        }
+
+        long installMillis = 0;
+        String installed = NONE;
+        if (!NONE.equals(m_mode))
+        {
+            final long start = System.nanoTime();
+            installed = JsonCodecs.install(JsonCodecs.Mode.valueOf(m_mode.toUpperCase())).name().toLowerCase();
+            installMillis = (System.nanoTime() - start) / 1_000_000;
+        }
+
+        final long[] first = new long[3];
+        final LatencyHistogram steady = new LatencyHistogram();
+        long checksum = 0;
+        for (int i = 0; i < m_records; i++)
+        {
+            final long start = System.nanoTime();
+            checksum += new SimpleAsset(new SyncEvent(records[i])).toJson().length();
+            final long elapsed = System.nanoTime() - start;
+
+            if (i < first.length)
+            {
+                first[i] = elapsed;
+            }
+            else if (i >= m_records / 2)
+            {
+                steady.record(elapsed);
+            }
+        }
+
+        System.out.printf("  %-10s install %,5d ms | records 1-3: %,9d %,7d %,7d us | steady p50 %,5d us, p99 %,6d us"
+            + " | JVM up %,d ms (checksum %d)\n",
+            installed, installMillis, first[0] / 1000, first[1] / 1000, first[2] / 1000,
+            steady.percentile(50) / 1000, steady.percentile(99) / 1000,
+            ManagementFactory.getRuntimeMXBean().getUptime(), checksum);
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.poc;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.streams.Topology;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.apache.kafka.streams.test.ConsumerRecordFactory;
+
+import com.dat.bench.AllocationCounter;
+import com.dat.bench.LatencyHistogram;
+import com.dat.common.serialization.RecordSegmentReader;
+import com.dat.sync.SyncEventGenerator;
+
+/**
+ * Offline benchmark for the {@link Siphon} topology. Pushes synthetic or recorded SyncEvent records through
+ * {@link Siphon#buildTopology} with the Kafka Streams {@link TopologyTestDriver}, entirely
+ * in-process on the calling thread, and reports throughput, per-record latency and allocation
+ * rate.
+ *
+ * <pre>
+ * gradle benchmark -PbenchArgs="--records 5000000 --warmup 500000 --distinct 20000"
+ * gradle benchmark -PbenchArgs="--records 5000000 --input /data/captures/2018-01-16"
+ * </pre>
+ *
+ * With {@code --input}, the first {@code --distinct} records of the segment files in that directory
+ * (see {@link SiphonReplay}) are used in place of synthetic ones. With {@code --threads n}, the
+ * parallel conversion stage is used; per-record latency is then the cost of handing a record to the
+ * stage rather than of converting it.
+ */
+public class SiphonBenchmark
+{
+    private long m_records = 2_000_000;
+
+    private long m_warmup = 200_000;
+
+    private int m_distinct = 10_000;
+
+    private long m_seed = 42;
+
+    private Path m_input;
+
+    private int m_threads = 1;
+
+    private long m_assets;
+
+    private long m_checksum;
+
+    public static void main(final String[] args) throws Exception
+    {
+        final SiphonBenchmark benchmark = new SiphonBenchmark();
+        benchmark.parseArgs(args);
+        benchmark.run();
+    }
+
+    private void parseArgs(final String[] args)
+    {
+        for (int i = 0; i < args.length; i++)
+        {
+            switch (args[i])
+            {
+                case "--records" :
+                    m_records = Long.parseLong(args[++i]);
+                    break;
+                case "--warmup" :
+                    m_warmup = Long.parseLong(args[++i]);
+                    break;
+                case "--distinct" :
+                    m_distinct = Integer.parseInt(args[++i]);
+                    break;
+                case "--seed" :
+                    m_seed = Long.parseLong(args[++i]);
+                    break;
+                case "--input" :
+                    m_input = Paths.get(args[++i]);
+                    break;
+                case "--threads" :
+                    m_threads = Integer.parseInt(args[++i]);
+                    break;
+                default :
+                    throw new IllegalArgumentException(String.format("Unknown argument: '%s'", args[i]));
+            }
+        }
+    }
+
+    private List<ConsumerRecord<byte[], byte[]>> records() throws IOException
+    {
+        final ConsumerRecordFactory<byte[], byte[]> factory = new ConsumerRecordFactory<>(Siphon.FROM_TOPIC,
+            new ByteArraySerializer(), new ByteArraySerializer());
+
+        if (m_input != null)
+        {
+            final List<ConsumerRecord<byte[], byte[]>> records = new ArrayList<>();
+            for (final Path segment : SiphonReplay.segments(m_input))
+            {
+                final RecordSegmentReader reader = new RecordSegmentReader(segment);
+                while (reader.next() && records.size() < m_distinct)
+                {
+                    records.add(factory.create(reader.copyRecord()));
+                }
+            }
+            return records;
+        }
+
+        // A pool of pre-built records is cycled through, so the measured loop sees realistic
+        // payloads without the cost of generating them.
+        final SyncEventGenerator generator = new SyncEventGenerator(m_seed);
+        final List<ConsumerRecord<byte[], byte[]>> records = new ArrayList<>(m_distinct);
+        for (int i = 0; i < m_distinct; i++)
+        {
+            records.add(factory.create(generator.nextBytes()));
+        }
+
+        return records;
+    }
+
+    private void run() throws IOException
+    {
+        final List<ConsumerRecord<byte[], byte[]>> records = records();
+        final long payloadBytes = records.stream().mapToLong(r -> r.value().length).sum();
+
+        final Topology topology = Siphon.buildTopology((k, asset) ->
+        {
+            m_assets++;
+            m_checksum += asset.getCompanyId();
+        }, m_threads);
+
+        final TopologyTestDriver driver = new TopologyTestDriver(topology,
+            Siphon.streamsConfig("localhost:9092", m_threads));
+        try
+        {
+            final LatencyHistogram latencies = new LatencyHistogram();
+
+            System.out.printf("Warming up with %,d records...\n", m_warmup);
+            pump(driver, records, m_warmup, latencies);
+            driver.advanceWallClockTime(ParallelAssetConverter.DRAIN_INTERVAL_MS);
+
+            latencies.reset();
+            m_assets = 0;
+
+            System.out.printf("Measuring %,d records (%,d distinct, avg %,d bytes)...\n", m_records, records.size(),
+                payloadBytes / records.size());
+
+            final long allocatedBefore = AllocationCounter.currentThreadAllocatedBytes();
+            final long start = System.nanoTime();
+            pump(driver, records, m_records, latencies);
+            driver.advanceWallClockTime(ParallelAssetConverter.DRAIN_INTERVAL_MS);
+            final long elapsed = System.nanoTime() - start;
+            final long allocated = AllocationCounter.currentThreadAllocatedBytes() - allocatedBefore;
+
+            final double seconds = elapsed / 1e9;
+            System.out.printf("Siphon topology: %,d records, %,d assets in %.2fs on %d conversion thread(s) (checksum %d)\n",
+                m_records, m_assets, seconds, m_threads, m_checksum);
+            System.out.printf("  throughput: %,.0f records/s\n", m_records / seconds);
+            System.out.printf("  latency:    %s\n", latencies.summary());
+            if (allocatedBefore < 0)
+            {
+                System.out.println("  allocation: n/a");
+            }
+            else
+            {
+                System.out.printf("  allocation: %,.1f MB/s, %,d bytes/record%s\n", allocated / seconds / (1024 * 1024),
+                    allocated / m_records, m_threads > 1 ? " (stream thread only)" : "");
+            }
+        }
+        finally
+        {
+            driver.close();
+        }
+    }
+
+    private static void pump(final TopologyTestDriver driver, final List<ConsumerRecord<byte[], byte[]>> records,
+        final long count, final LatencyHistogram latencies)
+    {
+        final int size = records.size();
+        for (long i = 0; i < count; i++)
+        {
+            final ConsumerRecord<byte[], byte[]> record = records.get((int) (i % size));
+            final long start = System.nanoTime();
+            driver.pipeInput(record);
+            latencies.record(System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.poc;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.dat.common.serialization.RecordSegmentWriter;
+import com.dat.domain.SimpleAsset;
+import com.dat.sync.SyncEvent;
+import com.dat.sync.SyncEvent.Action;
+import com.dat.sync.SyncEventGenerator;
+
+public class SiphonReplayTest
+{
+    @Rule
+    public TemporaryFolder m_folder = new TemporaryFolder();
+
+    @Test
+    public void replaysSegmentsInOrder() throws Exception
+    {
+        final SyncEventGenerator generator = new SyncEventGenerator(11, 0.7);
+        final List<String> insertedIds = new ArrayList<>();
+
+        // Two segments plus a file that isn't one; a garbage record must be skipped, not fatal
+        for (final String name : new String[] { "000.seg", "001.seg" })
+        {
+            try (RecordSegmentWriter writer = new RecordSegmentWriter(m_folder.newFile(name).toPath()))
+            {
+                for (int i = 0; i < 50; i++)
+                {
+                    final byte[] bytes = generator.nextBytes();
+                    final SyncEvent event = new SyncEvent(bytes);
+                    if (event.getAction() == Action.insert)
+                    {
+                        insertedIds.add(event.getFmeId());
+                    }
+                    writer.write(bytes);
+                }
+                writer.write("not a sync event".getBytes(StandardCharsets.US_ASCII));
+            }
+        }
+        m_folder.newFile("README.txt");
+
+        final List<SimpleAsset> assets = new ArrayList<>();
+        final SiphonReplay replay = new SiphonReplay(m_folder.getRoot().toPath(), SiphonReplay.AS_FAST_AS_POSSIBLE);
+
+        assertThat(replay.run((k, asset) -> assets.add(asset)), is(102L));
+        assertThat(replay.assets(), is((long) insertedIds.size()));
+        for (int i = 0; i < insertedIds.size(); i++)
+        {
+            assertThat(assets.get(i).getFmeId(), is(insertedIds.get(i)));
+        }
+    }
+
+    @Test
+    public void pacesByWhenIssued() throws Exception
+    {
+        final Path path = m_folder.newFile("000.seg").toPath();
+        try (RecordSegmentWriter writer = new RecordSegmentWriter(path))
+        {
+            writer.write(event("2018-01-16T16:16:45.000Z"));
+            writer.write(event("2018-01-16T16:16:45.200Z"));
+            writer.write(event("2018-01-16T16:16:45.400Z"));
+        }
+
+        // 400ms of issue time at 2x should take about 200ms of wall time
+        final long start = System.nanoTime();
+        new SiphonReplay(m_folder.getRoot().toPath(), 2.0).run((k, asset) -> {});
+        final long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue("replay finished too quickly: " + elapsedMillis + "ms", elapsedMillis >= 190);
+    }
+
+    @Test
+    public void whenIssued() throws Exception
+    {
+        assertThat(SiphonReplay.whenIssued(event("2018-01-16T16:16:45.094Z")), is(1516119405094L));
+        assertThat(SiphonReplay.whenIssued("__payload={}".getBytes(StandardCharsets.US_ASCII)), is(Long.MIN_VALUE));
+        assertThat(SiphonReplay.parseSpeed("max"), is(SiphonReplay.AS_FAST_AS_POSSIBLE));
+        assertThat(SiphonReplay.parseSpeed("realtime"), is(SiphonReplay.REAL_TIME));
+        assertThat(SiphonReplay.parseSpeed("10"), is(10.0));
+    }
+
+    private static byte[] event(final String whenIssued)
+    {
+        final String json = "__magicNumber=Xyzzy0xfeedbeef1990\n"
+            + "action=cancel\n"
+            + "fmeId=DS1StpUx\n"
+            + "__payload={ \"fme\" : { \"whenIssued\" : \"" + whenIssued + "\" } }\n";
+        return json.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.poc;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.apache.kafka.streams.test.ConsumerRecordFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.dat.domain.SimpleAsset;
+import com.dat.sync.SyncEvent;
+import com.dat.sync.SyncEvent.Action;
+import com.dat.sync.SyncEventGenerator;
+
+public class SiphonTest
+{
+    private final List<SimpleAsset> m_assets = new ArrayList<>();
+
+    private final ConsumerRecordFactory<byte[], byte[]> m_factory = new ConsumerRecordFactory<>(Siphon.FROM_TOPIC,
+        new ByteArraySerializer(), new ByteArraySerializer());
+
+    private TopologyTestDriver m_driver;
+
+    @Before
+    public void before()
+    {
+        m_driver = new TopologyTestDriver(Siphon.buildTopology((k, asset) -> m_assets.add(asset)),
+            Siphon.streamsConfig("localhost:9092"));
+    }
+
+    @After
+    public void after()
+    {
+        m_driver.close();
+    }
+
+    @Test
+    public void onlyInsertsBecomeAssets() throws Exception
+    {
+        final List<String> insertedIds = pipeEvents(m_driver, 200);
+
+        assertThat(m_assets.size(), is(insertedIds.size()));
+        for (int i = 0; i < insertedIds.size(); i++)
+        {
+            assertThat(m_assets.get(i).getFmeId(), is(insertedIds.get(i)));
+        }
+    }
+
+    @Test
+    public void parallelConversionKeepsOffsetOrder() throws Exception
+    {
+        final List<SimpleAsset> assets = new ArrayList<>();
+        final List<String> insertedIds;
+
+        final TopologyTestDriver driver = new TopologyTestDriver(
+            Siphon.buildTopology((k, asset) -> assets.add(asset), 4), Siphon.streamsConfig("localhost:9092", 4));
+        try
+        {
+            insertedIds = pipeEvents(driver, 500);
+
+            // The drain punctuator forwards everything still in flight
+            driver.advanceWallClockTime(ParallelAssetConverter.DRAIN_INTERVAL_MS);
+            assertThat(assets.size(), is(insertedIds.size()));
+        }
+        finally
+        {
+            driver.close();
+        }
+
+        for (int i = 0; i < insertedIds.size(); i++)
+        {
+            assertThat(assets.get(i).getFmeId(), is(insertedIds.get(i)));
+        }
+    }
+
+    /**
+     * @return the fmeIds of the insert events piped, in order
+     */
+    private List<String> pipeEvents(final TopologyTestDriver driver, final int count) throws Exception
+    {
+        final SyncEventGenerator generator = new SyncEventGenerator(7, 0.5);
+
+        final List<String> insertedIds = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+        {
+            final byte[] bytes = generator.nextBytes();
+            final SyncEvent event = new SyncEvent(bytes);
+            if (event.getAction() == Action.insert)
+            {
+                insertedIds.add(event.getFmeId());
+            }
+            driver.pipeInput(m_factory.create(bytes));
+        }
+
+        return insertedIds;
+    }
+}
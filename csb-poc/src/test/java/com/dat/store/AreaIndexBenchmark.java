@@ -0,0 +1,139 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.store;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.IntSupplier;
+import java.util.function.Predicate;
+
+import com.dat.domain.Area;
+import com.dat.domain.GeoLocation;
+import com.dat.domain.Open;
+import com.dat.domain.Point;
+
+/**
+ * State lookups over a million locations: {@link AreaIndex} bitmaps against a linear scan of every
+ * location. Locations are a mix of points, open, and areas of one to six states.
+ *
+ * <pre>
+ * gradle benchmark -Pbench=com.dat.store.AreaIndexBenchmark -PbenchArgs="--records 1000000"
+ * </pre>
+ */
+public class AreaIndexBenchmark
+{
+    private static final String[] STATES = { "AL", "AR", "AZ", "CA", "CO", "FL", "GA", "IL", "IN", "KY", "MO", "NC",
+                                             "NY", "OH", "OR", "PA", "SC", "TN", "TX", "UT", "VA", "WA" };
+
+    private int m_records = 1_000_000;
+
+    private int m_rounds = 20;
+
+    private long m_seed = 42;
+
+    public static void main(final String[] args) throws Exception
+    {
+        final AreaIndexBenchmark benchmark = new AreaIndexBenchmark();
+        benchmark.parseArgs(args);
+        benchmark.run();
+    }
+
+    private void parseArgs(final String[] args)
+    {
+        for (int i = 0; i < args.length; i++)
+        {
+            switch (args[i])
+            {
+                case "--records" :
+                    m_records = Integer.parseInt(args[++i]);
+                    break;
+                case "--rounds" :
+                    m_rounds = Integer.parseInt(args[++i]);
+                    break;
+                case "--seed" :
+                    m_seed = Long.parseLong(args[++i]);
+                    break;
+                default :
+                    throw new IllegalArgumentException(String.format("Unknown argument: '%s'", args[i]));
+            }
+        }
+    }
+
+    private void run()
+    {
+        final Random random = new Random(m_seed);
+        final GeoLocation[] locations = new GeoLocation[m_records];
+        final AreaIndex index = new AreaIndex();
+        long start = System.nanoTime();
+        for (int i = 0; i < m_records; i++)
+        {
+            final int kind = random.nextInt(10);
+            if (kind < 6)
+            {
+                locations[i] = new Point("Chicago", "IL", 41.85, -87.65, "Cook");
+            }
+            else if (kind < 7)
+            {
+                locations[i] = new Open();
+            }
+            else
+            {
+                final String[] states = new String[1 + random.nextInt(6)];
+                for (int s = 0; s < states.length; s++)
+                {
+                    states[s] = STATES[random.nextInt(STATES.length)];
+                }
+                locations[i] = new Area(states, null);
+            }
+            index.put(i, locations[i]);
+        }
+        System.out.printf("%,d locations (%,d indexed) in %,d ms, best of %d rounds\n", m_records, index.size(),
+            (System.nanoTime() - start) / 1_000_000, m_rounds);
+
+        measure("matchingState(NC)", () -> index.matchingState("NC").cardinality(),
+            () -> scan(locations, area -> contains(area, "NC")));
+        measure("anyState(GA,NC,SC)", () -> index.anyState("GA", "NC", "SC").cardinality(),
+            () -> scan(locations, area -> contains(area, "GA") || contains(area, "NC") || contains(area, "SC")));
+        measure("allStates(TX,NC)", () -> index.allStates("TX", "NC").cardinality(),
+            () -> scan(locations, area -> contains(area, "TX") && contains(area, "NC")));
+    }
+
+    private void measure(final String name, final IntSupplier indexed, final IntSupplier scanned)
+    {
+        System.out.printf("  %-20s index %,8.3f ms  scan %,8.3f ms  (%,d)\n", name, best(indexed), best(scanned),
+            indexed.getAsInt());
+    }
+
+    private double best(final IntSupplier lookup)
+    {
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < m_rounds; round++)
+        {
+            final long start = System.nanoTime();
+            lookup.getAsInt();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1e6;
+    }
+
+    private static int scan(final GeoLocation[] locations, final Predicate<Area> predicate)
+    {
+        int count = 0;
+        for (final GeoLocation location : locations)
+        {
+            if (location instanceof Open || location instanceof Area && predicate.test((Area) location))
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static boolean contains(final Area area, final String state)
+    {
+        return Arrays.asList(area.getStateProvinces()).contains(state);
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.store;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import com.dat.domain.Area;
+import com.dat.domain.GeoLocation;
+import com.dat.domain.Open;
+import com.dat.domain.Point;
+
+public class AreaIndexTest
+{
+    @Test
+    public void looksUpStatesAndZones()
+    {
+        final GeoLocation[] locations = {
+            new Area(new String[] { "GA", "NC", "SC" }, null),
+            new Open(),
+            new Area(new String[] { "NC" }, new String[] { "Z1" }),
+            new Point("Chicago", "IL", 41.85, -87.65, "Cook"),
+            new Area(null, new String[] { "Z1", "Z2" }),
+            new Area(new String[] { "TX", null, "NC" }, null),
+            null };
+
+        final AreaIndex index = new AreaIndex();
+        for (int i = 0; i < locations.length; i++)
+        {
+            index.put(i, locations[i]);
+        }
+        assertThat(index.size(), is(5));
+
+        assertLookups(index, locations);
+        assertThat(index.matchingState("NC").toArray(), equalTo(new int[] { 0, 1, 2, 5 }));
+        assertThat(index.allStates("NC", "GA").toArray(), equalTo(new int[] { 0, 1 }));
+        assertThat(index.matchingZone("Z2").toArray(), equalTo(new int[] { 1, 4 }));
+
+        // Replace, move to a point, remove
+        locations[0] = new Area(new String[] { "FL" }, null);
+        index.put(0, locations[0]);
+        locations[1] = new Point("Miami", "FL", 25.77389, -80.19389, "Miami Dade");
+        index.put(1, locations[1]);
+        assertThat(index.remove(2), is(true));
+        locations[2] = null;
+        assertThat(index.remove(2), is(false));
+        assertThat(index.remove(99), is(false));
+        assertThat(index.size(), is(3));
+        assertLookups(index, locations);
+    }
+
+    private static void assertLookups(final AreaIndex index, final GeoLocation[] locations)
+    {
+        for (final String state : new String[] { "GA", "NC", "SC", "TX", "FL", "IL" })
+        {
+            assertThat(state, index.matchingState(state).toArray(),
+                equalTo(expected(locations, area -> contains(area.getStateProvinces(), state))));
+        }
+        assertThat(index.anyState("GA", "TX").toArray(), equalTo(expected(locations,
+            area -> contains(area.getStateProvinces(), "GA") || contains(area.getStateProvinces(), "TX"))));
+        assertThat(index.allStates("TX", "NC").toArray(), equalTo(expected(locations,
+            area -> contains(area.getStateProvinces(), "TX") && contains(area.getStateProvinces(), "NC"))));
+        assertThat(index.matchingZone("Z1").toArray(),
+            equalTo(expected(locations, area -> contains(area.getZones(), "Z1"))));
+        assertThat(index.open().toArray(), equalTo(expected(locations, area -> false)));
+    }
+
+    private static int[] expected(final GeoLocation[] locations, final Predicate<Area> predicate)
+    {
+        return IntStream.range(0, locations.length)
+            .filter(i -> locations[i] instanceof Open
+                || locations[i] instanceof Area && predicate.test((Area) locations[i]))
+            .toArray();
+    }
+
+    private static boolean contains(final String[] values, final String value)
+    {
+        return values != null && Arrays.asList(values).contains(value);
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.store;
+
+import java.util.Random;
+import java.util.function.IntSupplier;
+
+import com.dat.domain.SimpleAsset;
+import com.dat.sync.SyncEvent;
+import com.dat.sync.SyncEventGenerator;
+import com.dat.util.Base56;
+
+/**
+ * Aggregate queries over a full posting set held in an {@link AssetColumnStore}. A pool of
+ * generated assets is re-keyed and re-assigned to random companies to fill the store, since
+ * parsing a million events would only slow the setup down.
+ *
+ * <pre>
+ * gradle benchmark -Pbench=com.dat.store.AssetColumnStoreBenchmark -PbenchArgs="--records 1000000"
+ * </pre>
+ */
+public class AssetColumnStoreBenchmark
+{
+    /** 2018-01-17T00:00:00Z, the day after the generator's base day */
+    private static final long DAY = 1516147200000L;
+
+    private int m_records = 1_000_000;
+
+    private int m_rounds = 20;
+
+    private long m_seed = 42;
+
+    public static void main(final String[] args) throws Exception
+    {
+        final AssetColumnStoreBenchmark benchmark = new AssetColumnStoreBenchmark();
+        benchmark.parseArgs(args);
+        benchmark.run();
+    }
+
+    private void parseArgs(final String[] args)
+    {
+        for (int i = 0; i < args.length; i++)
+        {
+            switch (args[i])
+            {
+                case "--records" :
+                    m_records = Integer.parseInt(args[++i]);
+                    break;
+                case "--rounds" :
+                    m_rounds = Integer.parseInt(args[++i]);
+                    break;
+                case "--seed" :
+                    m_seed = Long.parseLong(args[++i]);
+                    break;
+                default :
+                    throw new IllegalArgumentException(String.format("Unknown argument: '%s'", args[i]));
+            }
+        }
+    }
+
+    private void run() throws Exception
+    {
+        final SimpleAsset[] pool = new SimpleAsset[10_000];
+        final SyncEventGenerator generator = new SyncEventGenerator(m_seed, 1.0);
+        for (int i = 0; i < pool.length; i++)
+        {
+            pool[i] = new SimpleAsset(new SyncEvent(generator.nextBytes()));
+        }
+
+        final Random random = new Random(m_seed);
+        final AssetColumnStore store = new AssetColumnStore(m_records);
+        long start = System.nanoTime();
+        for (int i = 0; i < m_records; i++)
+        {
+            final SimpleAsset asset = pool[i % pool.length];
+            asset.setFmeId(Base56.toString(i, 8));
+            asset.setCompanyId(random.nextInt(50_000));
+            store.put(asset);
+        }
+        System.out.printf("%,d assets loaded in %,d ms, best of %d rounds\n", store.size(),
+            (System.nanoTime() - start) / 1_000_000, m_rounds);
+
+        measure("flatbeds out of NC today", () -> store.query()
+            .equipmentType("F")
+            .originState("NC")
+            .availableDuring(DAY, DAY + 86_399_999)
+            .count());
+        measure("one company's postings", () -> store.query().companyId(4242).count());
+        measure("reefers by origin box", () -> store.query()
+            .equipmentType("R")
+            .originWithin(30, 40, -90, -75)
+            .count());
+        measure("van-or-reefer trucks in NC", () -> store.query()
+            .postingType("Equipment")
+            .equipmentCompatibleWith("VR")
+            .originState("NC")
+            .count());
+        measure("equipment mix out of TX", () -> store.query().originState("TX").countByEquipmentType()[1]);
+
+        for (int i = 0; i < m_records; i += 2)
+        {
+            store.remove(Base56.toString(i, 8));
+        }
+        start = System.nanoTime();
+        store.compact();
+        System.out.printf("  %-26s %,8.2f ms\n", "compact half", (System.nanoTime() - start) / 1e6);
+    }
+
+    private void measure(final String name, final IntSupplier query)
+    {
+        long best = Long.MAX_VALUE;
+        int count = 0;
+        for (int round = 0; round < m_rounds; round++)
+        {
+            final long start = System.nanoTime();
+            count = query.getAsInt();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("  %-26s %,8.2f ms  %,6.2f ns/row  (%,d)\n", name, best / 1e6, (double) best / m_records,
+            count);
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.store;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import com.dat.domain.EquipmentTypes;
+import com.dat.domain.Open;
+import com.dat.domain.Point;
+import com.dat.domain.SimpleAsset;
+import com.dat.domain.SimpleAssetCodec;
+import com.dat.sync.SyncEvent;
+import com.dat.sync.SyncEventGenerator;
+
+public class AssetColumnStoreTest
+{
+    @Test
+    public void queriesMatchAScan() throws Exception
+    {
+        // Small initial capacity so it grows, then updates, removes and compacts
+        final AssetColumnStore store = new AssetColumnStore(16);
+        final Map<String, SimpleAsset> live = new LinkedHashMap<>();
+        final SyncEventGenerator generator = new SyncEventGenerator(23L, 1.0);
+        final List<SimpleAsset> assets = new ArrayList<>();
+        for (int i = 0; i < 3000; i++)
+        {
+            final SimpleAsset asset = new SimpleAsset(new SyncEvent(generator.nextBytes()));
+            assets.add(asset);
+            assertThat(store.put(asset), is(true));
+            live.put(asset.getFmeId(), asset);
+        }
+        for (int i = 0; i < assets.size(); i += 3)
+        {
+            final SimpleAsset asset = assets.get(i);
+            asset.setEquipmentType("F");
+            asset.setCompanyId(12345);
+            assertThat(store.put(asset), is(false));
+        }
+        for (int i = 1; i < assets.size(); i += 4)
+        {
+            assertThat(store.remove(assets.get(i).getFmeId()), is(true));
+            live.remove(assets.get(i).getFmeId());
+        }
+        assertThat(store.remove(assets.get(1).getFmeId()), is(false));
+        assertThat(store.size(), is(live.size()));
+
+        assertQueries(store, live.values());
+        store.compact();
+        assertThat(store.deadCount(), is(0));
+        assertThat(store.size(), is(live.size()));
+        assertQueries(store, live.values());
+
+        final SimpleAsset asset = assets.get(2);
+        asset.setOrigin(new Open());
+        store.put(asset);
+        assertQueries(store, live.values());
+    }
+
+    @Test
+    public void unknownCodesMatchNothing()
+    {
+        final SimpleAsset asset = new SimpleAsset();
+        asset.setFmeId("DS1StpUx");
+        asset.setEquipmentType("XYZ");
+        final AssetColumnStore store = new AssetColumnStore();
+        store.put(asset);
+
+        assertThat(store.query().count(), is(1));
+        assertThat(store.query().equipmentType("XYZ").count(), is(0));
+        assertThat(store.query().equipmentType("V").count(), is(0));
+        assertThat(store.query().equipmentCompatibleWith("XYZ").count(), is(0));
+        assertThat(store.query().equipmentCompatibleWith(null).count(), is(0));
+        assertThat(store.query().originWithin(-90, 90, -180, 180).count(), is(0));
+    }
+
+    @Test
+    public void missingAvailabilityBoundsAreOpen()
+    {
+        final long time = 1516060800000L;
+        final AssetColumnStore store = new AssetColumnStore();
+        final String[] fmeIds = { "DS1StpUa", "DS1StpUb", "DS1StpUc", "DS1StpUd" };
+        final long[][] windows = {
+            { time - 1, SimpleAsset.NO_TIMESTAMP }, { SimpleAsset.NO_TIMESTAMP, time + 1 },
+            { SimpleAsset.NO_TIMESTAMP, SimpleAsset.NO_TIMESTAMP }, { time + 1, SimpleAsset.NO_TIMESTAMP } };
+        for (int i = 0; i < fmeIds.length; i++)
+        {
+            final SimpleAsset asset = new SimpleAsset();
+            asset.setFmeId(fmeIds[i]);
+            asset.setEarliestAvailability(windows[i][0]);
+            asset.setLatestAvailability(windows[i][1]);
+            store.put(asset);
+        }
+
+        assertThat(store.query().availableAt(time).fmeIds().stream().sorted().collect(Collectors.toList()),
+            equalTo(Arrays.asList("DS1StpUa", "DS1StpUb", "DS1StpUc")));
+        assertThat(store.query().availableDuring(time + 2, time + 3).count(), is(3));
+        assertThat(store.query().availableDuring(time - 3, time - 2).count(), is(2));
+    }
+
+    private static void assertQueries(final AssetColumnStore store, final Iterable<SimpleAsset> live)
+    {
+        final long time = 1516060800000L + 36 * 3600 * 1000L;
+
+        assertQuery(store.query(), live, a -> true);
+        assertQuery(store.query().companyId(12345), live, a -> a.getCompanyId() == 12345);
+        assertQuery(store.query().equipmentType("F").originState("NC").availableAt(time), live,
+            a -> "F".equals(a.getEquipmentType()) && originState(a, "NC") && a.getEarliestAvailability() <= time
+                && time <= a.getLatestAvailability());
+        assertQuery(store.query().postingType("Shipment").destinationState("CA"), live,
+            a -> "Shipment".equals(a.getPostingType()) && a.getDestination() instanceof Point
+                && "CA".equals(((Point) a.getDestination()).getStateProvince()));
+        assertQuery(store.query().equipmentCompatibleWith("VR").postingType("Equipment"), live,
+            a -> EquipmentTypes.compatible("VR", a.getEquipmentType()) && "Equipment".equals(a.getPostingType()));
+        assertQuery(store.query().originKind(SimpleAssetCodec.KIND_OPEN), live, a -> a.getOrigin() instanceof Open);
+        assertQuery(store.query().originWithin(30, 40, -90, -75), live, a -> a.getOrigin() instanceof Point
+            && inBox((Point) a.getOrigin(), 30, 40, -90, -75));
+
+        final int[] counts = store.query().originState("TX").countByEquipmentType();
+        for (final String type : new String[] { "V", "R", "F" })
+        {
+            int expected = 0;
+            for (final SimpleAsset asset : live)
+            {
+                expected += type.equals(asset.getEquipmentType()) && originState(asset, "TX") ? 1 : 0;
+            }
+            assertThat(type, counts[SimpleAssetCodec.EQUIPMENT_TYPES.code(type)], is(expected));
+        }
+    }
+
+    private static void assertQuery(final AssetColumnStore.Query query, final Iterable<SimpleAsset> live,
+        final Predicate<SimpleAsset> predicate)
+    {
+        final List<String> expected = new ArrayList<>();
+        for (final SimpleAsset asset : live)
+        {
+            if (predicate.test(asset))
+            {
+                expected.add(asset.getFmeId());
+            }
+        }
+        assertThat(query.count(), is(expected.size()));
+        assertThat(query.fmeIds().stream().sorted().collect(Collectors.toList()),
+            equalTo(expected.stream().sorted().collect(Collectors.toList())));
+    }
+
+    private static boolean originState(final SimpleAsset asset, final String state)
+    {
+        return asset.getOrigin() instanceof Point && state.equals(((Point) asset.getOrigin()).getStateProvince());
+    }
+
+    private static boolean inBox(final Point point, final double minLatitude, final double maxLatitude,
+        final double minLongitude, final double maxLongitude)
+    {
+        final float latitude = (float) point.getLatitude();
+        final float longitude = (float) point.getLongitude();
+        return latitude >= (float) minLatitude && latitude <= (float) maxLatitude
+            && longitude >= (float) minLongitude && longitude <= (float) maxLongitude;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.store;
+
+import java.util.Random;
+import java.util.function.IntSupplier;
+
+/**
+ * Overlap queries over a million availability windows: {@link AvailabilityIndex} against a linear
+ * scan of every window. Windows start at a random hour over a month and last one to three days, as
+ * postings do.
+ *
+ * <pre>
+ * gradle benchmark -Pbench=com.dat.store.AvailabilityIndexBenchmark -PbenchArgs="--records 1000000"
+ * </pre>
+ */
+public class AvailabilityIndexBenchmark
+{
+    private static final long HOUR = 3600000L;
+
+    private static final long BASE = 1516060800000L;
+
+    private int m_records = 1_000_000;
+
+    private int m_rounds = 20;
+
+    private long m_seed = 42;
+
+    public static void main(final String[] args) throws Exception
+    {
+        final AvailabilityIndexBenchmark benchmark = new AvailabilityIndexBenchmark();
+        benchmark.parseArgs(args);
+        benchmark.run();
+    }
+
+    private void parseArgs(final String[] args)
+    {
+        for (int i = 0; i < args.length; i++)
+        {
+            switch (args[i])
+            {
+                case "--records" :
+                    m_records = Integer.parseInt(args[++i]);
+                    break;
+                case "--rounds" :
+                    m_rounds = Integer.parseInt(args[++i]);
+                    break;
+                case "--seed" :
+                    m_seed = Long.parseLong(args[++i]);
+                    break;
+                default :
+                    throw new IllegalArgumentException(String.format("Unknown argument: '%s'", args[i]));
+            }
+        }
+    }
+
+    private void run()
+    {
+        final Random random = new Random(m_seed);
+        final long[] earliest = new long[m_records];
+        final long[] latest = new long[m_records];
+        final AvailabilityIndex index = new AvailabilityIndex();
+        final long start = System.nanoTime();
+        for (int i = 0; i < m_records; i++)
+        {
+            earliest[i] = BASE + random.nextInt(30 * 24) * HOUR;
+            latest[i] = earliest[i] + (1 + random.nextInt(3)) * 24 * HOUR;
+            index.put(i, earliest[i], latest[i]);
+        }
+        System.out.printf("%,d windows in %,d ms, best of %d rounds\n", m_records,
+            (System.nanoTime() - start) / 1_000_000, m_rounds);
+
+        for (final int hours : new int[] { 1, 24, 72 })
+        {
+            final long from = BASE + 15 * 24 * HOUR + 7 * HOUR;
+            final long to = from + hours * HOUR;
+            System.out.printf("  %2d hour range  overlapping %,8.3f ms  candidates %,8.3f ms  scan %,8.3f ms  (%,d)\n",
+                hours, best(() -> index.overlapping(from, to).cardinality()),
+                best(() -> index.candidates(from, to).cardinality()), best(() -> scan(earliest, latest, from, to)),
+                index.overlapping(from, to).cardinality());
+        }
+    }
+
+    private double best(final IntSupplier lookup)
+    {
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < m_rounds; round++)
+        {
+            final long start = System.nanoTime();
+            lookup.getAsInt();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1e6;
+    }
+
+    private static int scan(final long[] earliest, final long[] latest, final long from, final long to)
+    {
+        int count = 0;
+        for (int i = 0; i < earliest.length; i++)
+        {
+            if (earliest[i] <= to && from <= latest[i])
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+}
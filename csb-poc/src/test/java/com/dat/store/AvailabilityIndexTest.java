@@ -0,0 +1,129 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.store;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import com.dat.domain.SimpleAsset;
+
+public class AvailabilityIndexTest
+{
+    private static final long HOUR = 3600000L;
+
+    private static final long BASE = 1516060800000L;
+
+    @Test
+    public void matchesAScan()
+    {
+        final Random random = new Random(42);
+        final long[][] windows = new long[3000][];
+        final AvailabilityIndex index = new AvailabilityIndex();
+        for (int i = 0; i < windows.length; i++)
+        {
+            windows[i] = window(random);
+            index.put(i, windows[i][0], windows[i][1]);
+        }
+        assertThat(index.size(), is(windows.length));
+        assertQueries(index, windows, random);
+
+        // Move some, drop some
+        for (int i = 0; i < windows.length; i += 3)
+        {
+            windows[i] = window(random);
+            index.put(i, windows[i][0], windows[i][1]);
+        }
+        for (int i = 1; i < windows.length; i += 4)
+        {
+            assertThat(index.remove(i), is(true));
+            assertThat(index.remove(i), is(false));
+            windows[i] = null;
+        }
+        assertThat(index.size(), is((int) IntStream.range(0, windows.length).filter(i -> windows[i] != null).count()));
+        assertQueries(index, windows, random);
+    }
+
+    @Test
+    public void boundsAreInclusive()
+    {
+        final AvailabilityIndex index = new AvailabilityIndex();
+        index.put(0, BASE, BASE + 24 * HOUR);
+        index.put(1, SimpleAsset.NO_TIMESTAMP, BASE - 1);
+        index.put(2, BASE + 24 * HOUR + 1, SimpleAsset.NO_TIMESTAMP);
+        index.put(3, BASE + HOUR, BASE);
+
+        assertThat(index.overlapping(BASE + 24 * HOUR, BASE + 48 * HOUR).toArray(), equalTo(new int[] { 0, 2 }));
+        assertThat(index.overlapping(BASE - HOUR, BASE).toArray(), equalTo(new int[] { 0, 1 }));
+        assertThat(index.overlapping(SimpleAsset.NO_TIMESTAMP, SimpleAsset.NO_TIMESTAMP).toArray(),
+            equalTo(new int[] { 0, 1, 2 }));
+        assertThat(index.overlapping(BASE + HOUR, BASE).isEmpty(), is(true));
+        assertThat(index.overlaps(3, BASE - 48 * HOUR, BASE + 48 * HOUR), is(false));
+        assertThat(index.overlaps(7, BASE, BASE), is(false));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNegativeOrdinals()
+    {
+        new AvailabilityIndex().put(-1, BASE, BASE);
+    }
+
+    private static void assertQueries(final AvailabilityIndex index, final long[][] windows, final Random random)
+    {
+        for (int q = 0; q < 200; q++)
+        {
+            final long[] range = window(random);
+            final OrdinalBitmap overlapping = index.overlapping(range[0], range[1]);
+            final OrdinalBitmap candidates = index.candidates(range[0], range[1]);
+            for (int i = 0; i < windows.length; i++)
+            {
+                final boolean expected = windows[i] != null && overlap(windows[i], range);
+                assertThat(overlapping.contains(i), is(expected));
+                assertThat(index.overlaps(i, range[0], range[1]), is(expected));
+                if (expected)
+                {
+                    assertThat(candidates.contains(i), is(true));
+                }
+            }
+        }
+    }
+
+    private static boolean overlap(final long[] window, final long[] range)
+    {
+        final long earliest = window[0] == SimpleAsset.NO_TIMESTAMP ? Long.MIN_VALUE : window[0];
+        final long latest = window[1] == SimpleAsset.NO_TIMESTAMP ? Long.MAX_VALUE : window[1];
+        final long from = range[0] == SimpleAsset.NO_TIMESTAMP ? Long.MIN_VALUE : range[0];
+        final long to = range[1] == SimpleAsset.NO_TIMESTAMP ? Long.MAX_VALUE : range[1];
+        return earliest <= latest && from <= to && earliest <= to && from <= latest;
+    }
+
+    /**
+     * Mostly a few days from a random hour in a month, sometimes open-ended, inverted or a year long.
+     */
+    private static long[] window(final Random random)
+    {
+        final long earliest = BASE + random.nextInt(30 * 24) * HOUR + random.nextInt(60000);
+        final long latest = earliest + random.nextInt(4 * 24) * HOUR - 1;
+        switch (random.nextInt(20))
+        {
+            case 0 :
+                return new long[] { SimpleAsset.NO_TIMESTAMP, latest };
+            case 1 :
+                return new long[] { earliest, SimpleAsset.NO_TIMESTAMP };
+            case 2 :
+                return new long[] { latest, earliest - HOUR };
+            case 3 :
+                return new long[] { earliest, earliest + 400 * 24 * HOUR };
+            default :
+                return new long[] { earliest, latest };
+        }
+    }
+}
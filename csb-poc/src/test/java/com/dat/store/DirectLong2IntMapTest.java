@@ -0,0 +1,103 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.store;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class DirectLong2IntMapTest
+{
+    @Test
+    public void matchesAHashMap()
+    {
+        final Random random = new Random(47);
+        final DirectLong2IntMap map = new DirectLong2IntMap();
+        final Map<Long, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 200000; i++)
+        {
+            // A small key range, so puts replace and removes hit, with 0 and negatives mixed in
+            final long key = random.nextInt(20000) - 100;
+            final int value = random.nextInt(1000);
+            switch (random.nextInt(3))
+            {
+                case 0 :
+                case 1 :
+                    assertThat(map.put(key, value), is(expected.getOrDefault(key, -1)));
+                    expected.put(key, value);
+                    break;
+                default :
+                    assertThat(map.remove(key), is(expected.getOrDefault(key, -1)));
+                    expected.remove(key);
+                    break;
+            }
+            assertThat(map.size(), is(expected.size()));
+        }
+        for (long key = -100; key < 19900; key++)
+        {
+            assertThat(map.get(key), is(expected.getOrDefault(key, -1)));
+            assertThat(map.containsKey(key), is(expected.containsKey(key)));
+        }
+    }
+
+    @Test
+    public void keepsRunsIntactOnRemove()
+    {
+        // Keys sharing the last slot of a 128 slot table make one run that wraps round to the start
+        final long[] keys = new long[40];
+        for (long key = 1, n = 0; n < keys.length; key++)
+        {
+            if (Long2IntMap.slot(key, 64 - 7) == 127)
+            {
+                keys[(int) n++] = key;
+            }
+        }
+        final DirectLong2IntMap map = new DirectLong2IntMap(64, -1);
+        for (int i = 0; i < keys.length; i++)
+        {
+            map.put(keys[i], i);
+        }
+        for (int i = 0; i < keys.length; i += 2)
+        {
+            assertThat(map.remove(keys[i]), is(i));
+        }
+        for (int i = 0; i < keys.length; i++)
+        {
+            assertThat(map.get(keys[i]), is(i % 2 == 1 ? i : -1));
+        }
+        assertThat(map.size(), is(20));
+    }
+
+    @Test
+    public void growsAndClears()
+    {
+        final DirectLong2IntMap map = new DirectLong2IntMap(0, Integer.MIN_VALUE);
+        for (int i = 0; i < 100000; i++)
+        {
+            map.put(i * 0x9E3779B97F4A7C15L, i);
+        }
+        assertThat(map.size(), is(100000));
+        assertThat(map.get(99999 * 0x9E3779B97F4A7C15L), is(99999));
+        assertThat(map.get(1), is(Integer.MIN_VALUE));
+        assertThat(map.offHeapBytes() >= 100000 * 12L, is(true));
+
+        map.clear();
+        assertThat(map.isEmpty(), is(true));
+        assertThat(map.containsKey(0), is(false));
+        assertThat(map.get(99999 * 0x9E3779B97F4A7C15L), is(Integer.MIN_VALUE));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNegativeSize()
+    {
+        new DirectLong2IntMap(-1, -1);
+    }
+}
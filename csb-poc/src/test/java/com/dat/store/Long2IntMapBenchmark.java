@@ -0,0 +1,136 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.store;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import com.dat.domain.FmeId;
+import com.dat.util.Base56;
+
+/**
+ * Packed fmeIds to ordinals, as the match engine and column store key their rows: a boxed
+ * {@link HashMap} against {@link Long2IntMap} and {@link DirectLong2IntMap}. Reports put and get
+ * rates and the heap each map keeps live, measured after a full GC.
+ *
+ * <pre>
+ * gradle benchmark -Pbench=com.dat.store.Long2IntMapBenchmark -PbenchArgs="--entries 5000000"
+ * </pre>
+ */
+public class Long2IntMapBenchmark
+{
+    private int m_entries = 2_000_000;
+
+    private long m_seed = 42;
+
+    public static void main(final String[] args) throws Exception
+    {
+        final Long2IntMapBenchmark benchmark = new Long2IntMapBenchmark();
+        benchmark.parseArgs(args);
+        benchmark.run();
+    }
+
+    private void parseArgs(final String[] args)
+    {
+        for (int i = 0; i < args.length; i++)
+        {
+            switch (args[i])
+            {
+                case "--entries" :
+                    m_entries = Integer.parseInt(args[++i]);
+                    break;
+                case "--seed" :
+                    m_seed = Long.parseLong(args[++i]);
+                    break;
+                default :
+                    throw new IllegalArgumentException(String.format("Unknown argument: '%s'", args[i]));
+            }
+        }
+    }
+
+    private void run()
+    {
+        final Random random = new Random(m_seed);
+        final long[] keys = new long[m_entries];
+        for (int i = 0; i < keys.length; i++)
+        {
+            keys[i] = FmeId.pack(Base56.toString(random.nextLong() & Long.MAX_VALUE, 8).substring(0, 8));
+        }
+
+        for (int round = 0; round < 3; round++)
+        {
+            System.out.printf("Round %d, %,d entries\n", round + 1, m_entries);
+            final long base = heapUsed();
+
+            long start = System.nanoTime();
+            final Map<Long, Integer> boxed = new HashMap<>();
+            for (int i = 0; i < keys.length; i++)
+            {
+                boxed.put(keys[i], i);
+            }
+            final long boxedPut = System.nanoTime() - start;
+            start = System.nanoTime();
+            long sum = 0;
+            for (final long key : keys)
+            {
+                sum += boxed.get(key);
+            }
+            report("HashMap<Long,Integer>", boxedPut, System.nanoTime() - start, heapUsed() - base, 0, sum);
+            boxed.clear();
+
+            start = System.nanoTime();
+            final Long2IntMap heap = new Long2IntMap();
+            for (int i = 0; i < keys.length; i++)
+            {
+                heap.put(keys[i], i);
+            }
+            final long heapPut = System.nanoTime() - start;
+            start = System.nanoTime();
+            sum = 0;
+            for (final long key : keys)
+            {
+                sum += heap.get(key);
+            }
+            report("Long2IntMap", heapPut, System.nanoTime() - start, heapUsed() - base, 0, sum);
+            heap.clear();
+
+            start = System.nanoTime();
+            final DirectLong2IntMap direct = new DirectLong2IntMap();
+            for (int i = 0; i < keys.length; i++)
+            {
+                direct.put(keys[i], i);
+            }
+            final long directPut = System.nanoTime() - start;
+            start = System.nanoTime();
+            sum = 0;
+            for (final long key : keys)
+            {
+                sum += direct.get(key);
+            }
+            report("DirectLong2IntMap", directPut, System.nanoTime() - start, heapUsed() - base,
+                direct.offHeapBytes(), sum);
+        }
+    }
+
+    private void report(final String name, final long putNanos, final long getNanos, final long heapBytes,
+        final long offHeapBytes, final long sum)
+    {
+        System.out.printf("  %-22s put %6.1f ns  get %6.1f ns  heap %5.1f B/entry  off heap %5.1f B/entry  (%d)\n",
+            name, putNanos / (double) m_entries, getNanos / (double) m_entries, heapBytes / (double) m_entries,
+            offHeapBytes / (double) m_entries, sum);
+    }
+
+    private static long heapUsed()
+    {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+        {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
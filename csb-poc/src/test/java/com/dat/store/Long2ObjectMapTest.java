@@ -0,0 +1,55 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.store;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class Long2ObjectMapTest
+{
+    @Test
+    public void matchesAHashMap()
+    {
+        final Random random = new Random(47);
+        final Long2ObjectMap<String> map = new Long2ObjectMap<>();
+        final Map<Long, String> expected = new HashMap<>();
+        for (int i = 0; i < 200000; i++)
+        {
+            final long key = (random.nextInt(20000) - 100) * 3_486_784_401L;
+            final String value = Integer.toString(random.nextInt(1000));
+            if (random.nextInt(3) < 2)
+            {
+                assertThat(map.put(key, value), is(expected.put(key, value)));
+            }
+            else
+            {
+                assertThat(map.remove(key), is(expected.remove(key)));
+            }
+            assertThat(map.size(), is(expected.size()));
+        }
+        for (long key = -100; key < 19900; key++)
+        {
+            assertThat(map.get(key * 3_486_784_401L), is(expected.get(key * 3_486_784_401L)));
+        }
+
+        map.clear();
+        assertThat(map.isEmpty(), is(true));
+        assertThat(map.get(0), nullValue());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNull()
+    {
+        new Long2ObjectMap<String>().put(1, null);
+    }
+}
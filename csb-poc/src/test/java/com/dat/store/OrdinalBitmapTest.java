@@ -0,0 +1,140 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.store;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+public class OrdinalBitmapTest
+{
+    @Test
+    public void behavesLikeASet()
+    {
+        final Random random = new Random(31L);
+        final OrdinalBitmap bitmap = new OrdinalBitmap();
+        final TreeSet<Integer> expected = new TreeSet<>();
+
+        // Dense enough in [0, 65536) to convert to a bitmap container and back, sparse above it
+        for (int i = 0; i < 60_000; i++)
+        {
+            final int ordinal = i % 3 == 0 ? random.nextInt(1 << 24) : random.nextInt(1 << 16);
+            assertThat(bitmap.add(ordinal), is(expected.add(ordinal)));
+        }
+        assertEquals(bitmap, expected);
+
+        for (int i = 0; i < 80_000; i++)
+        {
+            final int ordinal = i % 3 == 0 ? random.nextInt(1 << 24) : random.nextInt(1 << 16);
+            assertThat(bitmap.remove(ordinal), is(expected.remove(ordinal)));
+        }
+        assertEquals(bitmap, expected);
+        for (int i = 0; i < 1000; i++)
+        {
+            final int ordinal = random.nextInt(1 << 17);
+            assertThat(bitmap.contains(ordinal), is(expected.contains(ordinal)));
+        }
+        assertThat(bitmap.contains(-1), is(false));
+    }
+
+    @Test
+    public void unionAndIntersection()
+    {
+        final Random random = new Random(37L);
+        for (final int[] density : new int[][] { { 100, 100 }, { 100, 20_000 }, { 20_000, 30_000 } })
+        {
+            final OrdinalBitmap a = new OrdinalBitmap();
+            final OrdinalBitmap b = new OrdinalBitmap();
+            final TreeSet<Integer> expectedA = new TreeSet<>();
+            final TreeSet<Integer> expectedB = new TreeSet<>();
+            for (int i = 0; i < density[0]; i++)
+            {
+                final int ordinal = random.nextInt(200_000);
+                a.add(ordinal);
+                expectedA.add(ordinal);
+            }
+            for (int i = 0; i < density[1]; i++)
+            {
+                final int ordinal = random.nextInt(200_000);
+                b.add(ordinal);
+                expectedB.add(ordinal);
+            }
+
+            final TreeSet<Integer> union = new TreeSet<>(expectedA);
+            union.addAll(expectedB);
+            final TreeSet<Integer> intersection = new TreeSet<>(expectedA);
+            intersection.retainAll(expectedB);
+
+            assertEquals(a.or(b), union);
+            assertEquals(b.or(a), union);
+            assertEquals(OrdinalBitmap.union(a, null, b), union);
+            assertEquals(a.and(b), intersection);
+            assertEquals(b.and(a), intersection);
+
+            // Operands are untouched
+            assertEquals(a, expectedA);
+            assertEquals(b, expectedB);
+        }
+    }
+
+    @Test
+    public void unionOfMany()
+    {
+        // Sparse, dense and empty inputs overlapping in some containers, as for day buckets
+        final Random random = new Random(41L);
+        final OrdinalBitmap[] bitmaps = new OrdinalBitmap[400];
+        final TreeSet<Integer> expected = new TreeSet<>();
+        for (int b = 0; b < bitmaps.length; b++)
+        {
+            bitmaps[b] = b % 7 == 3 ? null : new OrdinalBitmap();
+            final int count = b % 50 == 0 ? 30_000 : b % 5 == 0 ? 0 : random.nextInt(200);
+            for (int i = 0; i < count && bitmaps[b] != null; i++)
+            {
+                final int ordinal = random.nextInt(b % 2 == 0 ? 300_000 : 100_000);
+                bitmaps[b].add(ordinal);
+                expected.add(ordinal);
+            }
+        }
+
+        final int[][] before = new int[bitmaps.length][];
+        for (int b = 0; b < bitmaps.length; b++)
+        {
+            before[b] = bitmaps[b] == null ? null : bitmaps[b].toArray();
+        }
+
+        final OrdinalBitmap union = OrdinalBitmap.union(bitmaps);
+        assertEquals(union, expected);
+        assertEquals(OrdinalBitmap.union(), new TreeSet<>());
+
+        // Operands are untouched, and the union shares no containers with them
+        for (final int ordinal : union.toArray())
+        {
+            union.remove(ordinal);
+        }
+        for (int b = 0; b < bitmaps.length; b++)
+        {
+            assertThat(bitmaps[b] == null ? null : bitmaps[b].toArray(), equalTo(before[b]));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNegativeOrdinals()
+    {
+        new OrdinalBitmap().add(-1);
+    }
+
+    private static void assertEquals(final OrdinalBitmap bitmap, final TreeSet<Integer> expected)
+    {
+        assertThat(bitmap.cardinality(), is(expected.size()));
+        assertThat(bitmap.isEmpty(), is(expected.isEmpty()));
+        assertThat(bitmap.toArray(), equalTo(expected.stream().mapToInt(Integer::intValue).toArray()));
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.store;
+
+import java.util.Random;
+
+import com.dat.bench.LatencyHistogram;
+
+/**
+ * Radius query latency over a {@link PointGridIndex} holding a million points, clustered around
+ * random "cities" in the lower 48 the way postings cluster around freight markets, plus the cost of
+ * moving and removing points as events arrive.
+ *
+ * <pre>
+ * gradle benchmark -Pbench=com.dat.store.PointGridIndexBenchmark -PbenchArgs="--points 1000000 --radius 150"
+ * </pre>
+ */
+public class PointGridIndexBenchmark
+{
+    private int m_points = 1_000_000;
+
+    private int m_queries = 5_000;
+
+    private double m_radius = 150;
+
+    private double m_cellDegrees = PointGridIndex.DEFAULT_CELL_DEGREES;
+
+    private long m_seed = 42;
+
+    public static void main(final String[] args) throws Exception
+    {
+        final PointGridIndexBenchmark benchmark = new PointGridIndexBenchmark();
+        benchmark.parseArgs(args);
+        benchmark.run();
+    }
+
+    private void parseArgs(final String[] args)
+    {
+        for (int i = 0; i < args.length; i++)
+        {
+            switch (args[i])
+            {
+                case "--points" :
+                    m_points = Integer.parseInt(args[++i]);
+                    break;
+                case "--queries" :
+                    m_queries = Integer.parseInt(args[++i]);
+                    break;
+                case "--radius" :
+                    m_radius = Double.parseDouble(args[++i]);
+                    break;
+                case "--cell" :
+                    m_cellDegrees = Double.parseDouble(args[++i]);
+                    break;
+                case "--seed" :
+                    m_seed = Long.parseLong(args[++i]);
+                    break;
+                default :
+                    throw new IllegalArgumentException(String.format("Unknown argument: '%s'", args[i]));
+            }
+        }
+    }
+
+    private void run()
+    {
+        final Random random = new Random(m_seed);
+        final double[][] cities = new double[500][];
+        for (int i = 0; i < cities.length; i++)
+        {
+            cities[i] = new double[] { 26 + random.nextDouble() * 22, -122 + random.nextDouble() * 52 };
+        }
+
+        final PointGridIndex index = new PointGridIndex(m_cellDegrees);
+        long start = System.nanoTime();
+        for (int i = 0; i < m_points; i++)
+        {
+            final double[] point = near(random, cities);
+            index.put(i, point[0], point[1]);
+        }
+        final long insertNanos = System.nanoTime() - start;
+        System.out.printf("%,d points, %.2f degree cells, %,.0f mile radius\n", index.size(), m_cellDegrees,
+            m_radius);
+        System.out.printf("  insert     %,6.0f ns/point\n", (double) insertNanos / m_points);
+
+        final int[] matched = new int[1];
+        for (int round = 0; round < 2; round++)
+        {
+            final LatencyHistogram latencies = new LatencyHistogram();
+            long matches = 0;
+            for (int i = 0; i < m_queries; i++)
+            {
+                final double[] center = near(random, cities);
+                final long queryStart = System.nanoTime();
+                matches += index.within(center[0], center[1], m_radius, ordinal -> matched[0]++);
+                latencies.record(System.nanoTime() - queryStart);
+            }
+            if (round == 1)
+            {
+                System.out.printf("  query      %s  (%,d matches/query)\n", latencies.summary(), matches / m_queries);
+            }
+        }
+
+        start = System.nanoTime();
+        for (int i = 0; i < m_points; i += 2)
+        {
+            final double[] point = near(random, cities);
+            index.put(i, point[0], point[1]);
+        }
+        System.out.printf("  move       %,6.0f ns/point\n", (System.nanoTime() - start) * 2.0 / m_points);
+
+        start = System.nanoTime();
+        for (int i = 1; i < m_points; i += 2)
+        {
+            index.remove(i);
+        }
+        System.out.printf("  remove     %,6.0f ns/point\n", (System.nanoTime() - start) * 2.0 / m_points);
+    }
+
+    private static double[] near(final Random random, final double[][] cities)
+    {
+        final double[] city = cities[random.nextInt(cities.length)];
+        return new double[] { city[0] + random.nextGaussian() * 0.5, city[1] + random.nextGaussian() * 0.5 };
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.store;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+public class PointGridIndexTest
+{
+    @Test
+    public void matchesABruteForceScan()
+    {
+        final Random random = new Random(29L);
+        final int count = 20_000;
+        final double[] latitudes = new double[count];
+        final double[] longitudes = new double[count];
+        final PointGridIndex index = new PointGridIndex();
+        for (int i = 0; i < count; i++)
+        {
+            // Half spread over the globe, half around the lower 48
+            latitudes[i] = i % 2 == 0 ? random.nextDouble() * 180 - 90 : 25 + random.nextDouble() * 24;
+            longitudes[i] = i % 2 == 0 ? random.nextDouble() * 360 - 180 : -124 + random.nextDouble() * 57;
+            index.put(i, latitudes[i], longitudes[i]);
+        }
+
+        // Move some, remove some
+        for (int i = 0; i < count; i += 7)
+        {
+            latitudes[i] = 25 + random.nextDouble() * 24;
+            longitudes[i] = -124 + random.nextDouble() * 57;
+            index.put(i, latitudes[i], longitudes[i]);
+        }
+        for (int i = 3; i < count; i += 11)
+        {
+            assertThat(index.remove(i), is(true));
+            latitudes[i] = Double.NaN;
+        }
+        assertThat(index.remove(3), is(false));
+        assertThat(index.size(), is(count - (count - 3 + 10) / 11));
+
+        final double[][] queries = { { 35.22694, -80.84333, 150 }, { 41.85, -87.65, 25 }, { 0, 179.9, 300 },
+                                     { 0, -179.9, 300 }, { 89.5, 10, 200 }, { -89.9, 0, 50 }, { 64, -150, 1000 },
+                                     { 40, -100, 0 }, { 40, -100, 20_000 } };
+        for (final double[] query : queries)
+        {
+            assertWithin(index, latitudes, longitudes, query[0], query[1], query[2]);
+        }
+        for (int i = 0; i < 200; i++)
+        {
+            assertWithin(index, latitudes, longitudes, random.nextDouble() * 180 - 90,
+                random.nextDouble() * 360 - 180, random.nextDouble() * 500);
+        }
+    }
+
+    @Test
+    public void distances()
+    {
+        // Charlotte to Chicago, about 587 miles
+        assertThat(Math.round(PointGridIndex.distanceMiles(35.22694, -80.84333, 41.85, -87.65)), is(587L));
+        assertThat(PointGridIndex.distanceMiles(41.85, -87.65, 41.85, -87.65), is(0.0));
+        assertThat(Math.round(PointGridIndex.distanceMiles(0, 179.5, 0, -179.5)), is(69L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsBadCoordinates()
+    {
+        new PointGridIndex().put(0, 91, 0);
+    }
+
+    private static void assertWithin(final PointGridIndex index, final double[] latitudes, final double[] longitudes,
+        final double latitude, final double longitude, final double radius)
+    {
+        final Set<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < latitudes.length; i++)
+        {
+            if (!Double.isNaN(latitudes[i])
+                && PointGridIndex.distanceMiles(latitude, longitude, latitudes[i], longitudes[i]) <= radius)
+            {
+                expected.add(i);
+            }
+        }
+
+        final Set<Integer> actual = new TreeSet<>();
+        final int count = index.within(latitude, longitude, radius, actual::add);
+        assertThat(count, is(actual.size()));
+        assertThat(String.format("%f, %f, %f", latitude, longitude, radius), actual, equalTo(expected));
+    }
+}
@@ -9,6 +9,7 @@ import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
 import static org.junit.Assert.assertThat;
 
 import org.junit.Test;
@@ -18,6 +19,7 @@ import com.dat.domain.GeoLocation;
 import com.dat.domain.Open;
 import com.dat.domain.Point;
 import com.dat.domain.SimpleAsset;
+import com.dat.domain.SimpleAssetCodec;
 
 public class SimpleAssetTest
 {
@@ -72,6 +74,43 @@ public class SimpleAssetTest
         assertThat(asset, equalTo(reconstituted));
     }
 
+    @Test
+    public void unparseableTimestampIsWrittenAsNull() throws Exception
+    {
+        final SimpleAsset asset = new SimpleAsset(new SyncEvent(SYNC_EVENT_STRING.replace(
+            "\"whenIssued\" : \"2018-01-22T17:43:43.168Z\"", "\"whenIssued\" : \"22/01/2018 17:43\"")));
+        assertThat(asset.getWhenIssued(), is(SimpleAsset.NO_TIMESTAMP));
+        assertThat(asset.toJson(), containsString("\"whenIssued\":null"));
+        assertThat(asset.toJson(true), not(containsString("whenIssued")));
+        assertThat(asset.toJson(true), containsString("\"startDate\": \"2018-01-22T17:43:43.165Z\""));
+        assertThat(new SimpleAsset(asset.toJson()), equalTo(asset));
+    }
+
+    @Test
+    public void epochIsARealTimestamp() throws Exception
+    {
+        final SimpleAsset asset = new SimpleAsset(p2p);
+        asset.setWhenIssued(0);
+        assertThat(new SimpleAsset().getWhenIssued(), is(SimpleAsset.NO_TIMESTAMP));
+        assertThat(asset.toJson(), containsString("\"whenIssued\":\"1970-01-01T00:00:00.000Z\""));
+        assertThat(asset.toJson(true), containsString("\"whenIssued\": \"1970-01-01T00:00:00.000Z\""));
+        assertThat(new SimpleAsset(asset.toJson()), equalTo(asset));
+        assertThat(SimpleAssetCodec.decode(SimpleAssetCodec.encode(asset)), equalTo(asset));
+    }
+
+    @Test
+    public void assetToBinary() throws Exception
+    {
+        for (final String json : new String[] { p2p, p2area, p2open })
+        {
+            final SimpleAsset asset = new SimpleAsset(json);
+            assertThat(json, SimpleAssetCodec.decode(SimpleAssetCodec.encode(asset)), equalTo(asset));
+        }
+
+        final SimpleAsset asset = new SimpleAsset(new SyncEvent(SYNC_EVENT_STRING));
+        assertThat(SimpleAssetCodec.decode(SimpleAssetCodec.encode(asset)), equalTo(asset));
+    }
+
     @Test
     public void assetToString() throws Exception
     {
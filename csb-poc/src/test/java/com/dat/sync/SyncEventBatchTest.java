@@ -0,0 +1,85 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.sync;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.dat.common.serialization.SyncEventBatchSerde;
+
+public class SyncEventBatchTest
+{
+    @Test
+    public void roundTripsEventsExactly() throws Exception
+    {
+        final SyncEventGenerator generator = new SyncEventGenerator(11);
+        final List<byte[]> events = new ArrayList<>();
+        final SyncEventBatch.Builder builder = new SyncEventBatch.Builder();
+        int unbatched = 0;
+        for (int i = 0; i < 200; i++)
+        {
+            final byte[] event = generator.nextBytes();
+            events.add(event);
+            builder.add(event);
+            unbatched += event.length;
+        }
+
+        final SyncEventBatchSerde serde = new SyncEventBatchSerde();
+        final SyncEventBatch batch = serde.deserializer().deserialize("topic",
+            serde.serializer().serialize("topic", builder.build()));
+
+        assertThat(batch.size(), is(events.size()));
+        assertThat(batch.bytes().length < unbatched / 2, is(true));
+
+        // Random access, out of order
+        for (int i = events.size() - 1; i >= 0; i -= 7)
+        {
+            assertArrayEquals(events.get(i), batch.serialized(i));
+        }
+
+        int i = 0;
+        for (final SyncEvent event : batch)
+        {
+            assertThat(event.toString(), is(new SyncEvent(events.get(i++)).toString()));
+        }
+        assertThat(i, is(events.size()));
+    }
+
+    @Test
+    public void keepsIrregularEventsVerbatim() throws Exception
+    {
+        final byte[] windowsLineEndings = "__magicNumber=Xyzzy0xfeedbeef1990\r\naction=insert\r\n"
+            .getBytes(StandardCharsets.ISO_8859_1);
+        final byte[] escapedClass = ("__magicNumber=Xyzzy0xfeedbeef1990\naction=insert\n__payload={\"@class\" : \"a\\\"b\", "
+            + "\"x\" : {\"@class\":\"com.tcore.X\"}}").getBytes(StandardCharsets.ISO_8859_1);
+        final byte[] notAnEvent = "garbage".getBytes(StandardCharsets.ISO_8859_1);
+
+        final SyncEventBatch batch = new SyncEventBatch.Builder()
+            .add(windowsLineEndings)
+            .add(escapedClass)
+            .add(notAnEvent)
+            .build();
+
+        assertArrayEquals(windowsLineEndings, batch.serialized(0));
+        assertArrayEquals(escapedClass, batch.serialized(1));
+        assertArrayEquals(notAnEvent, batch.serialized(2));
+        assertThat(batch.get(2), is(nullValue()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnbatchedRecords() throws Exception
+    {
+        new SyncEventBatch(new SyncEventGenerator(1).nextBytes());
+    }
+}
@@ -0,0 +1,306 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.sync;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+
+import com.dat.util.Base56;
+
+/**
+ * Generates synthetic, serialized {@link SyncEvent}s shaped like the {@code tfsprd.syncAsset_nx_j}
+ * traffic: an {@code FmCoreSyncNotificationDocument} payload with the usual {@code @class} noise,
+ * point-to-point, point-to-area and point-to-open lanes, and a mix of actions. Output is
+ * deterministic for a given seed so benchmark runs are comparable.
+ */
+public class SyncEventGenerator
+{
+    private static final DateTimeFormatter ISO_MILLIS = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'")
+        .withZone(ZoneOffset.UTC);
+
+    /** 2018-01-16T00:00:00Z, the day our captured fixtures were taken */
+    private static final long BASE_EPOCH_MILLIS = 1516060800000L;
+
+    private static final Object[][] PLACES = {
+        { "Seaboard", "NC", 36.49, -77.44167, "Northampton" },
+        { "Whitesboro", "NY", 43.12194, -75.29194, "Oneida" },
+        { "Newark", "DE", 39.68361, -75.75, "New Castle" },
+        { "Laredo", "TX", 27.50611, -99.50722, "Webb" },
+        { "Miami", "FL", 25.77389, -80.19389, "Miami Dade" },
+        { "Toledo", "OH", 41.66389, -83.55528, "Lucas" },
+        { "Tacoma", "WA", 47.25306, -122.44306, "Pierce" },
+        { "Torrance", "CA", 33.83583, -118.33972, "Los Angeles" },
+        { "Atlanta", "GA", 33.74889, -84.38806, "Fulton" },
+        { "Charlotte", "NC", 35.22694, -80.84333, "Mecklenburg" },
+        { "Chicago", "IL", 41.85, -87.65, "Cook" },
+        { "Dallas", "TX", 32.78306, -96.80667, "Dallas" },
+        { "Denver", "CO", 39.73917, -104.98417, "Denver" },
+        { "Memphis", "TN", 35.14944, -90.04889, "Shelby" },
+        { "Columbus", "OH", 39.96111, -82.99889, "Franklin" },
+        { "Portland", "OR", 45.52361, -122.675, "Multnomah" },
+        { "Fresno", "CA", 36.74778, -119.77139, "Fresno" },
+        { "Phoenix", "AZ", 33.44833, -112.07333, "Maricopa" },
+        { "Kansas City", "MO", 39.09972, -94.57833, "Jackson" },
+        { "Harrisburg", "PA", 40.27361, -76.88472, "Dauphin" },
+        { "Savannah", "GA", 32.08361, -81.1, "Chatham" },
+        { "Nashville", "TN", 36.16583, -86.78444, "Davidson" },
+        { "Salt Lake City", "UT", 40.76083, -111.89028, "Salt Lake" },
+        { "Jacksonville", "FL", 30.33194, -81.65583, "Duval" } };
+
+    private static final String[] STATES = { "AL", "AR", "AZ", "CA", "CO", "FL", "GA", "IL", "IN", "KY", "MO", "NC",
+                                             "NY", "OH", "OR", "PA", "SC", "TN", "TX", "UT", "VA", "WA" };
+
+    private static final String[] EQUIPMENT_TYPES = { "V", "V", "V", "R", "R", "F", "FT", "VR", "SD", "DD" };
+
+    private static final String[] SOURCE_APPLICATIONS = { "dat.any", "ftp", "csb" };
+
+    private final Random m_random;
+
+    private final double m_insertRatio;
+
+    private long m_sequence;
+
+    /**
+     * @param seed random seed; equal seeds produce equal event streams
+     * @param insertRatio fraction of events (0..1) whose action is {@code insert}; the rest are
+     *            spread over update, cancel and delete
+     */
+    public SyncEventGenerator(final long seed, final double insertRatio)
+    {
+        m_random = new Random(seed);
+        m_insertRatio = insertRatio;
+        m_sequence = 56L * 56 * 56 * 56 * 56 * 56 * 56 * 13; // 'D' leading numeral, like the live ids
+    }
+
+    public SyncEventGenerator(final long seed)
+    {
+        this(seed, 0.8);
+    }
+
+    /**
+     * @return the next synthetic event in its {@link MetaDomainObject} serialized form
+     */
+    public String next()
+    {
+        final String fmeId = Base56.toString(m_sequence++, 8);
+        final boolean isEquipment = m_random.nextBoolean();
+        final String action = nextAction();
+        final int ownerId = 60000 + m_random.nextInt(2000000);
+        final int companyId = 1000 + m_random.nextInt(900000);
+        final int officeId = 1000 + m_random.nextInt(1000000);
+        final int groupId = 1000 + m_random.nextInt(50000);
+        final String sourceApplication = SOURCE_APPLICATIONS[m_random.nextInt(SOURCE_APPLICATIONS.length)];
+        final String equipmentType = EQUIPMENT_TYPES[m_random.nextInt(EQUIPMENT_TYPES.length)];
+
+        final long issued = BASE_EPOCH_MILLIS + (long) m_random.nextInt(14 * 24 * 3600) * 1000 + m_random.nextInt(1000);
+        final long earliest = (issued / 3600000L + 1 + m_random.nextInt(48)) * 3600000L;
+        final long latest = earliest + (1 + m_random.nextInt(3)) * 24 * 3600000L;
+
+        final StringBuilder sb = new StringBuilder(5 * 1024);
+        property(sb, "__magicNumber", "Xyzzy0xfeedbeef1990");
+        property(sb, "action", action);
+        property(sb, "actualBusinessDays", "1");
+        property(sb, "companyId", Integer.toString(companyId));
+        property(sb, "doNotForwardSyncEvent", "false");
+        property(sb, "environment", "tfsprd");
+        property(sb, "eqTypeApiVersion", "1");
+        property(sb, "fmeId", fmeId);
+        property(sb, "fmeType", "Asset");
+        property(sb, "fromSb2", "false");
+        property(sb, "groupId", Integer.toString(groupId));
+        property(sb, "hasTruckstops", "false");
+        property(sb, "isEquipment", Boolean.toString(isEquipment));
+        property(sb, "isExtendedNetwork", "true");
+        property(sb, "isMatchable", "true");
+        property(sb, "isPrivate", "false");
+        property(sb, "isShipment", Boolean.toString(!isEquipment));
+        property(sb, "officeId", Integer.toString(officeId));
+        property(sb, "ownerId", Integer.toString(ownerId));
+        property(sb, "siteCode", "D");
+        property(sb, "sourceApplication", sourceApplication);
+        property(sb, "__encoding", "JSON");
+        property(sb, "__payloadClassname", "com.tcore.tfs.domain.fmCoreInternal.FmCoreSyncNotificationDocument");
+
+        sb.append("__payload={\n");
+        sb.append("  \"@class\" : \"com.tcore.tfs.domain.fmCoreInternal.FmCoreSyncNotificationDocument\",\n");
+        sb.append("  \"fmCoreSyncNotification\" : {\n");
+        sb.append("    \"@class\" : \"com.tcore.tfs.domain.fmCoreInternal.FmCoreSyncNotification\",\n");
+        sb.append("    \"when\" : \"").append(iso(issued)).append("\",\n");
+        sb.append("    \"action\" : \"").append(action.toUpperCase()).append("\",\n");
+        sb.append("    \"action_schemaVal\" : \"").append(action).append("\",\n");
+        sb.append("    \"fmeId\" : \"").append(fmeId).append("\",\n");
+        sb.append("    \"updateCount\" : 0,\n");
+        sb.append("    \"groupId\" : ").append(groupId).append(",\n");
+        sb.append("    \"insert\" : {\n");
+        sb.append("      \"@class\" : \"com.tcore.tfs.domain.fmCoreInternal.FmcInsert\",\n");
+        sb.append("      \"fme\" : {\n");
+        sb.append("        \"@class\" : \"com.tcore.tfs.domain.fmCoreInternal.SyncedFme\",\n");
+        sb.append("        \"whenIssued\" : \"").append(iso(issued)).append("\",\n");
+        sb.append("        \"posting\" : {\n");
+        sb.append("          \"@class\" : \"com.tcore.tfs.domain.fmCoreInternal.CorePosting\",\n");
+        sb.append("          \"fmeId\" : \"").append(fmeId).append("\",\n");
+        sb.append("          \"csbSequenceId\" : 1,\n");
+        sb.append("          \"postingId\" : \"").append(fmeId).append("\",\n");
+        sb.append("          \"defn\" : {\n");
+        sb.append("            \"@class\" : \"com.tcore.tfs.domain.tcoreServices.PostingDefinition\",\n");
+        sb.append("            \"basic\" : {\n");
+        sb.append("              \"@class\" : \"com.tcore.tfs.domain.tcoreServices.BasicPostingDefinition\",\n");
+        sb.append("              \"postingType\" : \"").append(isEquipment ? "EQUIPMENT" : "SHIPMENT").append("\",\n");
+        sb.append("              \"postingType_schemaVal\" : \"").append(isEquipment ? "Equipment" : "Shipment")
+            .append("\",\n");
+        sb.append("              \"equipmentType\" : \"").append(equipmentType).append("\",\n");
+        sb.append("              \"origin\" : {\n");
+        sb.append("                \"@class\" : \"com.tcore.tfs.domain.tcoreServices.PostingOrigin\",\n");
+        minimalPoint(sb);
+        sb.append("              },\n");
+        sb.append("              \"destination\" : {\n");
+        sb.append("                \"@class\" : \"com.tcore.tfs.domain.tcoreServices.PostingDestination\",\n");
+        destination(sb);
+        sb.append("              },\n");
+        sb.append("              \"postersReferenceId\" : \"").append(m_random.nextInt(99999999)).append("\"\n");
+        sb.append("            },\n");
+        sb.append("            \"optional\" : {\n");
+        sb.append("              \"@class\" : \"com.tcore.tfs.domain.tcoreServices.OptionalPostingDefinition\",\n");
+        sb.append("              \"ltl\" : false,\n");
+        sb.append("              \"comments\" : [ \"Call for details\", \"15 Day Pay, No Fee\" ],\n");
+        sb.append("              \"count\" : 1,\n");
+        sb.append("              \"dimensions\" : {\n");
+        sb.append("                \"@class\" : \"com.tcore.tfs.domain.tcoreFreightMatching.Dimensions\",\n");
+        sb.append("                \"length\" : {\n");
+        sb.append("                  \"@class\" : \"com.tcore.csb.domain.tcoreTypes.Length\",\n");
+        sb.append("                  \"amount\" : 48.0,\n");
+        sb.append("                  \"unit\" : \"FT\",\n");
+        sb.append("                  \"unit_schemaVal\" : \"ft\"\n");
+        sb.append("                },\n");
+        sb.append("                \"weight\" : {\n");
+        sb.append("                  \"@class\" : \"com.tcore.csb.domain.tcoreTypes.Weight\",\n");
+        sb.append("                  \"amount\" : ").append(1000 * (10 + m_random.nextInt(38))).append(".0,\n");
+        sb.append("                  \"unit\" : \"LB\",\n");
+        sb.append("                  \"unit_schemaVal\" : \"lb\"\n");
+        sb.append("                }\n");
+        sb.append("              },\n");
+        sb.append("              \"isFavorite\" : false,\n");
+        sb.append("              \"kept\" : false\n");
+        sb.append("            },\n");
+        sb.append("            \"aux\" : {\n");
+        sb.append("              \"@class\" : \"com.tcore.tfs.domain.tcoreServices.PostingAuxiliaryInfo\",\n");
+        sb.append("              \"creditScore\" : {\n");
+        sb.append("                \"@class\" : \"com.tcore.tfs.domain.tcoreRegistry.CreditScoreInfo\",\n");
+        sb.append("                \"score\" : ").append(m_random.nextInt(101)).append(",\n");
+        sb.append("                \"daysToPay\" : ").append(20 + m_random.nextInt(40)).append("\n");
+        sb.append("              }\n");
+        sb.append("            },\n");
+        sb.append("            \"exposure\" : {\n");
+        sb.append("              \"@class\" : \"com.tcore.tfs.domain.tcoreServices.PostingExposure\",\n");
+        sb.append("              \"startDate\" : \"").append(iso(issued - 7)).append("\",\n");
+        sb.append("              \"endDate\" : \"").append(iso(latest)).append("\",\n");
+        sb.append("              \"availability\" : {\n");
+        sb.append("                \"@class\" : \"com.tcore.tfs.domain.tcoreFreightMatching.Availability\",\n");
+        sb.append("                \"earliest\" : \"").append(iso(earliest)).append("\",\n");
+        sb.append("                \"latest\" : \"").append(iso(latest)).append("\"\n");
+        sb.append("              },\n");
+        sb.append("              \"isMatchable\" : true,\n");
+        sb.append("              \"isPrivate\" : false,\n");
+        sb.append("              \"extendedNetwork\" : true\n");
+        sb.append("            }\n");
+        sb.append("          },\n");
+        sb.append("          \"status\" : {\n");
+        sb.append("            \"@class\" : \"com.tcore.tfs.domain.tcoreServices.PostingStatus\",\n");
+        sb.append("            \"userId\" : ").append(ownerId).append(",\n");
+        sb.append("            \"groupId\" : ").append(groupId).append(",\n");
+        sb.append("            \"sourceApplication\" : \"").append(sourceApplication).append("\"\n");
+        sb.append("          }\n");
+        sb.append("        }\n");
+        sb.append("      }\n");
+        sb.append("    }\n");
+        sb.append("  }\n");
+        sb.append("}\n");
+
+        return sb.toString();
+    }
+
+    /**
+     * @return the next synthetic event as the raw bytes a Kafka record value would carry
+     */
+    public byte[] nextBytes()
+    {
+        return next().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private String nextAction()
+    {
+        if (m_random.nextDouble() < m_insertRatio)
+        {
+            return "insert";
+        }
+
+        switch (m_random.nextInt(3))
+        {
+            case 0 :
+                return "update";
+            case 1 :
+                return "cancel";
+            default :
+                return "delete";
+        }
+    }
+
+    private void minimalPoint(final StringBuilder sb)
+    {
+        final Object[] place = PLACES[m_random.nextInt(PLACES.length)];
+        sb.append("                \"minimalPoint\" : {\n");
+        sb.append("                  \"@class\" : \"com.tcore.csb.domain.tcoreTypes.MinimalPoint\",\n");
+        sb.append("                  \"city\" : \"").append(place[0]).append("\",\n");
+        sb.append("                  \"stateProvince\" : \"").append(place[1]).append("\",\n");
+        sb.append("                  \"stateProvince_schemaVal\" : \"").append(place[1]).append("\",\n");
+        sb.append("                  \"latitude\" : ").append(place[2]).append(",\n");
+        sb.append("                  \"longitude\" : ").append(place[3]).append(",\n");
+        sb.append("                  \"county\" : \"").append(place[4]).append("\"\n");
+        sb.append("                }\n");
+    }
+
+    private void destination(final StringBuilder sb)
+    {
+        final int kind = m_random.nextInt(100);
+        if (kind < 80)
+        {
+            minimalPoint(sb);
+        }
+        else if (kind < 92)
+        {
+            final int count = 1 + m_random.nextInt(4);
+            final int first = m_random.nextInt(STATES.length - count);
+            sb.append("                \"area\" : {\n");
+            sb.append("                  \"@class\" : \"com.tcore.csb.domain.tcoreTypes.Area\",\n");
+            sb.append("                  \"stateProvinces\" : [ ");
+            for (int i = 0; i < count; i++)
+            {
+                sb.append(i == 0 ? "" : ", ").append('"').append(STATES[first + i]).append('"');
+            }
+            sb.append(" ]\n");
+            sb.append("                }\n");
+        }
+        else
+        {
+            sb.append("                \"open\" : {\n");
+            sb.append("                  \"@class\" : \"com.tcore.csb.domain.tcoreTypes.Open\"\n");
+            sb.append("                }\n");
+        }
+    }
+
+    private static void property(final StringBuilder sb, final String name, final String value)
+    {
+        sb.append(name).append('=').append(value).append('\n');
+    }
+
+    private static String iso(final long epochMillis)
+    {
+        return ISO_MILLIS.format(Instant.ofEpochMilli(epochMillis));
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmark of what {@link ArgCheck} costs a caller: passing checks against the same test written
+ * inline, class checks by name against a {@code Class.forName} per call as they used to be, and a
+ * failing check with and without {@link ArgCheck#HOT_PATH}.
+ *
+ * <pre>
+ * gradle benchmark -Pbench=com.dat.util.ArgCheckBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArgCheckBenchmark
+{
+    private static final String NUMBER = "java.lang.Number";
+
+    private int m_value = 7;
+
+    private Object m_object = "text";
+
+    private Object m_missing;
+
+    private final List<Object> m_numbers = new ArrayList<>();
+
+    public static void main(final String[] args) throws Exception
+    {
+        new Runner(new OptionsBuilder().include(ArgCheckBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    @Setup
+    public void setUp()
+    {
+        for (int i = 0; i < 100; i++)
+        {
+            m_numbers.add(i);
+        }
+    }
+
+    @Benchmark
+    public int inline()
+    {
+        if (m_value < 1 || m_object == null)
+        {
+            throw new IllegalArgumentException();
+        }
+        return m_value;
+    }
+
+    @Benchmark
+    public int checks()
+    {
+        ArgCheck.notLessThan(m_value, 1);
+        ArgCheck.notNull(m_object, () -> "object for " + m_value);
+        return m_value;
+    }
+
+    @Benchmark
+    public void isClass()
+    {
+        ArgCheck.isClass("java.lang.CharSequence", m_object);
+    }
+
+    @Benchmark
+    public boolean isClassByForName() throws ClassNotFoundException
+    {
+        return Class.forName("java.lang.CharSequence").isInstance(m_object);
+    }
+
+    @Benchmark
+    public void containsOnly()
+    {
+        ArgCheck.containsOnly(NUMBER, m_numbers);
+    }
+
+    @Benchmark
+    public boolean containsOnlyByForName() throws ClassNotFoundException
+    {
+        boolean all = true;
+        for (final Object number : m_numbers)
+        {
+            all &= Class.forName(NUMBER).isInstance(number);
+        }
+        return all;
+    }
+
+    @Benchmark
+    public IllegalArgumentException failure()
+    {
+        return fail();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Dcom.dat.util.ArgCheck.hotPath=true")
+    public IllegalArgumentException failureOnTheHotPath()
+    {
+        return fail();
+    }
+
+    private IllegalArgumentException fail()
+    {
+        try
+        {
+            ArgCheck.notNull(m_missing);
+            return null;
+        }
+        catch (final IllegalArgumentException e)
+        {
+            return e;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.util;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.Test;
+
+public class ArgCheckTest
+{
+    @Test
+    public void checksClassesByName()
+    {
+        ArgCheck.isClass("java.lang.CharSequence", "text");
+        ArgCheck.isClass("java.lang.CharSequence", new StringBuilder());
+        ArgCheck.containsOnly("java.lang.Number", Arrays.asList(1, 2L, 3.0));
+        ArgCheck.containsOnly("no.such.Class", Collections.emptyList());
+
+        assertFails(() -> ArgCheck.isClass("java.lang.Number", "text"), "instance of java.lang.Number");
+        assertFails(() -> ArgCheck.isClass("no.such.Class", "text"), "instance of no.such.Class");
+        // again, now from the cache
+        assertFails(() -> ArgCheck.isClass("no.such.Class", "text"), "instance of no.such.Class");
+        assertFails(() -> ArgCheck.isClass("java.lang.Object", null), "instance of java.lang.Object");
+        assertFails(() -> ArgCheck.containsOnly("java.lang.Number", Arrays.asList(1, "2")), "java.lang.Number");
+        assertFails(() -> ArgCheck.containsOnly("no.such.Class", Arrays.asList(1)), "no.such.Class");
+        assertFails(() -> ArgCheck.containsOnly("", Arrays.asList(1)), "instances of");
+    }
+
+    @Test
+    public void suppliesMessagesOnlyOnFailure()
+    {
+        final AtomicInteger calls = new AtomicInteger();
+        final Supplier<String> message = () -> "call " + calls.incrementAndGet();
+
+        ArgCheck.test(true, message);
+        ArgCheck.notNull("", message);
+        ArgCheck.notEmpty("x", message);
+        ArgCheck.notEmpty(Collections.singleton(1), message);
+        assertThat(calls.get(), is(0));
+
+        assertFails(() -> ArgCheck.test(false, message), "call 1");
+        assertFails(() -> ArgCheck.notNull(null, message), "call 2");
+        assertFails(() -> ArgCheck.notEmpty(new StringBuilder(), message), "call 3");
+        assertFails(() -> ArgCheck.notEmpty(Collections.emptyList(), message), "call 4");
+        assertFails(() -> ArgCheck.notNull(null, () -> null), "argument cannot be null");
+    }
+
+    @Test
+    public void checksBounds()
+    {
+        ArgCheck.notLessThan(1, 1);
+        ArgCheck.notGreaterThan(1.0, 1.0);
+        assertFails(() -> ArgCheck.notLessThan(0, 1), "less than 1");
+        assertFails(() -> ArgCheck.notGreaterThan('b', 'a'), "greater than (char)97");
+        assertFails(() -> ArgCheck.notLessThan(Double.NaN, 0), "less than 0.0");
+        assertFails(() -> ArgCheck.notGreaterThan(Float.NaN, 0f), "greater than 0.0");
+        assertFails(() -> ArgCheck.notEmpty(""), "cannot be null or empty");
+    }
+
+    @Test
+    public void reportsWhereUnlessOnTheHotPath()
+    {
+        try
+        {
+            ArgCheck.notNull(null);
+            fail();
+        }
+        catch (final IllegalArgumentException e)
+        {
+            assertThat(e.getMessage().contains("where: "), is(!ArgCheck.HOT_PATH));
+            assertThat(e.getMessage().contains(ArgCheckTest.class.getName()), is(!ArgCheck.HOT_PATH));
+        }
+    }
+
+    private static void assertFails(final Runnable check, final String message)
+    {
+        try
+        {
+            check.run();
+            fail("Expected a failure with " + message);
+        }
+        catch (final IllegalArgumentException e)
+        {
+            assertThat(e.getMessage(), e.getMessage().contains(message), is(true));
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.util;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmark of {@link Base56} over a thousand 8-digit ids, as fmeIds are: to and from Strings
+ * one at a time, against the bulk methods over one byte array. Scores are per thousand ids.
+ *
+ * <pre>
+ * gradle benchmark -Pbench=com.dat.util.Base56Benchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Base56Benchmark
+{
+    private static final int IDS = 1000;
+
+    private static final int DIGITS = 8;
+
+    private final long[] m_values = new long[IDS];
+
+    private final String[] m_strings = new String[IDS];
+
+    private final byte[] m_bytes = new byte[IDS * DIGITS];
+
+    private final long[] m_decoded = new long[IDS];
+
+    public static void main(final String[] args) throws Exception
+    {
+        new Runner(new OptionsBuilder().include(Base56Benchmark.class.getSimpleName()).build()).run();
+    }
+
+    @Setup
+    public void setUp()
+    {
+        final Random random = new Random(42);
+        for (int i = 0; i < IDS; i++)
+        {
+            m_values[i] = (random.nextLong() & Long.MAX_VALUE) % 96717311574016L;
+            m_strings[i] = Base56.toString(m_values[i], DIGITS);
+        }
+        Base56.encode(m_values, 0, IDS, DIGITS, m_bytes, 0);
+    }
+
+    @Benchmark
+    public void toStrings(final Blackhole blackhole)
+    {
+        for (int i = 0; i < IDS; i++)
+        {
+            blackhole.consume(Base56.toString(m_values[i], DIGITS));
+        }
+    }
+
+    @Benchmark
+    public byte[] encodeBulk()
+    {
+        Base56.encode(m_values, 0, IDS, DIGITS, m_bytes, 0);
+        return m_bytes;
+    }
+
+    @Benchmark
+    public long toDecimalValues()
+    {
+        long sum = 0;
+        for (int i = 0; i < IDS; i++)
+        {
+            sum += Base56.toDecimalValue(m_strings[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long[] decodeBulk()
+    {
+        Base56.decode(m_bytes, 0, DIGITS, m_decoded, 0, IDS);
+        return m_decoded;
+    }
+}
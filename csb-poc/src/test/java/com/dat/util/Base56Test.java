@@ -0,0 +1,126 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.util;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class Base56Test
+{
+    private static final String ALPHABET = "0123456789ABCDEFGHJKLMNPRSTUVWXYZabcdefghjkmnpqrstuvwxyz";
+
+    @Test
+    public void looksUpNumerals()
+    {
+        for (int decimal = 0; decimal < 56; decimal++)
+        {
+            assertThat(Base56.numeral(decimal), is(ALPHABET.charAt(decimal)));
+            assertThat(Base56.toDecimal(ALPHABET.charAt(decimal)), is(decimal));
+            assertThat(Base56.toDecimalOrInvalid(ALPHABET.charAt(decimal)), is(decimal));
+        }
+        for (final char c : new char[] { 'I', 'O', 'Q', 'i', 'l', 'o', '-', ' ', '\0', '\u00e9', '\u0130', '\uffff' })
+        {
+            assertThat(Base56.toDecimalOrInvalid(c), is(Base56.INVALID));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void toDecimalRejectsOtherCharacters()
+    {
+        Base56.toDecimal('O');
+    }
+
+    @Test
+    public void convertsToStrings()
+    {
+        assertThat(Base56.toString(0, 0), is("0"));
+        assertThat(Base56.toString(55, 1), is("z"));
+        assertThat(Base56.toString(56, 1), is("10"));
+        assertThat(Base56.toString(56, 4), is("0010"));
+        assertThat(Base56.toString(-57, 1), is("-11"));
+        assertThat(Base56.toString(1, 14), is("00000000000001"));
+        for (final long value : new long[] { 0, 1, 56 * 56 - 1, Long.MAX_VALUE })
+        {
+            assertThat(Base56.toDecimalValue(Base56.toString(value, 1)), is(value));
+        }
+        assertThat(Base56.toDecimalValue(Base56.toString(Long.MIN_VALUE, 1).substring(1)), is(Long.MIN_VALUE));
+    }
+
+    @Test
+    public void encodesInPlace()
+    {
+        final Random random = new Random(48);
+        final char[] chars = new char[20];
+        final byte[] bytes = new byte[20];
+        final ByteBuffer buffer = ByteBuffer.allocate(20);
+        for (int i = 0; i < 10000; i++)
+        {
+            final long value = (random.nextLong() & Long.MAX_VALUE) >>> random.nextInt(63);
+            final String expected = Base56.toString(value, 11);
+            final int offset = random.nextInt(9);
+
+            assertThat(Base56.encode(value, 11, chars, offset), is(offset + 11));
+            assertThat(new String(chars, offset, 11), is(expected));
+            assertThat(Base56.decode(chars, offset, 11), is(value));
+            assertThat(Base56.decode(expected, 0, 11), is(value));
+
+            assertThat(Base56.encode(value, 11, bytes, offset), is(offset + 11));
+            assertThat(new String(bytes, offset, 11, StandardCharsets.US_ASCII), is(expected));
+            assertThat(Base56.decode(bytes, offset, 11), is(value));
+
+            assertThat(Base56.encode(value, 11, buffer, offset), is(offset + 11));
+            assertThat(buffer.position(), is(0));
+            assertThat(Base56.decode(buffer, offset, 11), is(value));
+        }
+    }
+
+    @Test
+    public void encodesAndDecodesInBulk()
+    {
+        final long[] values = { 0, 1, 55, 56, 56L * 56 * 56 * 56 * 56 * 56 * 56 * 56 - 1 };
+        final byte[] bytes = new byte[2 + values.length * 8];
+        assertThat(Base56.encode(values, 0, values.length, 8, bytes, 2), is(bytes.length));
+        assertThat(new String(bytes, 2, 16, StandardCharsets.US_ASCII), is("0000000000000001"));
+
+        bytes[2 + 3 * 8] = '-';
+        final long[] decoded = new long[values.length + 1];
+        assertThat(Base56.decode(bytes, 2, 8, decoded, 1, values.length), is(values.length - 1));
+        assertThat(decoded[1], is(0L));
+        assertThat(decoded[3], is(55L));
+        assertThat(decoded[4], is(Base56.INVALID_VALUE));
+        assertThat(decoded[5], is(values[4]));
+    }
+
+    @Test
+    public void decodesBadInputToTheSentinel()
+    {
+        assertThat(Base56.decode("", 0, 0), is(Base56.INVALID_VALUE));
+        assertThat(Base56.decode("DS1StpUx", 0, 8), is(Base56.decode("DS1StpUx".toCharArray(), 0, 8)));
+        assertThat(Base56.decode("DS1-StpUx", 0, 9), is(Base56.INVALID_VALUE));
+        assertThat(Base56.decode("000000000001", 0, 12), is(Base56.INVALID_VALUE));
+        assertThat(Base56.decode("zzzzzzzzzzz", 0, 11), is(Base56.INVALID_VALUE));
+        assertThat(Base56.decode(Base56.toString(Long.MAX_VALUE, 1), 0, 11), is(Long.MAX_VALUE));
+        assertThat(Base56.decode(new byte[] { '1', (byte) 0xC3, (byte) 0xA9 }, 0, 3), is(Base56.INVALID_VALUE));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void refusesToTruncate()
+    {
+        Base56.encode(56, 1, new char[1], 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void refusesNegatives()
+    {
+        Base56.encode(-1, 11, new byte[11], 0);
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * $Id: $
+ *
+ * Copyright (C) 2018, TransCore LP. All Rights Reserved
+ */
+package com.dat.util;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class Iso8601Test
+{
+    @Test
+    public void matchesInstant()
+    {
+        final Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++)
+        {
+            // 1600 through 2400, which covers every leap-year rule
+            final long millis = -11_676_096_000_000L + (long) (random.nextDouble() * 25_246_080_000_000L);
+            final String text = Iso8601.format(millis);
+
+            assertThat(text.length(), is(Iso8601.LENGTH));
+            assertThat(Instant.parse(text).toEpochMilli(), is(millis));
+            assertThat(Iso8601.parse(text), is(millis));
+
+            final byte[] bytes = ("\"" + text + "\"").getBytes(StandardCharsets.US_ASCII);
+            assertThat(Iso8601.parse(bytes, 1, Iso8601.LENGTH), is(millis));
+        }
+    }
+
+    @Test
+    public void roundTripsFeedLayout()
+    {
+        assertThat(Iso8601.parse("2018-01-16T16:16:45.094Z"), is(1516119405094L));
+        assertThat(Iso8601.format(1516119405094L), is("2018-01-16T16:16:45.094Z"));
+        assertThat(Iso8601.format(0), is("1970-01-01T00:00:00.000Z"));
+        assertThat(Iso8601.format(-1), is("1969-12-31T23:59:59.999Z"));
+        assertThat(Iso8601.parse("2016-02-29T23:59:59.999Z"), is(Instant.parse("2016-02-29T23:59:59.999Z").toEpochMilli()));
+    }
+
+    @Test
+    public void fallsBackForOtherLayouts()
+    {
+        assertThat(Iso8601.parse("2018-01-16T16:16:45Z"), is(1516119405000L));
+        assertThat(Iso8601.parse("2018-01-16T16:16:45.094123Z"), is(1516119405094L));
+    }
+
+    @Test
+    public void rejectsInvalid()
+    {
+        for (final String text : new String[] { "", "2018-01-16", "2018-02-30T00:00:00.000Z", "2018-01-16T25:00:00.000Z",
+            "2018-01-16T16:16:45.094", "2018-0a-16T16:16:45.094Z", "2018-01-16 16:16:45.094Z" })
+        {
+            try
+            {
+                Iso8601.parse(text);
+                fail("Parsed '" + text + "'");
+            }
+            catch (final IllegalArgumentException e)
+            {
+                // expected
+            }
+        }
+    }
+}